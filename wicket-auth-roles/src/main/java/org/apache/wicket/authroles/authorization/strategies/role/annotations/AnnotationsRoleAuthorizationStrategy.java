@@ -16,21 +16,35 @@
  */
 package org.apache.wicket.authroles.authorization.strategies.role.annotations;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.wicket.Component;
 import org.apache.wicket.authorization.Action;
 import org.apache.wicket.authroles.authorization.strategies.role.AbstractRoleAuthorizationStrategy;
 import org.apache.wicket.authroles.authorization.strategies.role.IRoleCheckingStrategy;
 import org.apache.wicket.authroles.authorization.strategies.role.Roles;
 import org.apache.wicket.request.component.IRequestableComponent;
+import org.apache.wicket.util.collections.ClassMetaCache;
 
 
 /**
  * Strategy that checks the {@link AuthorizeInstantiation} annotation.
+ * <p>
+ * The annotations of each class are resolved once into the roles they require, so each check only
+ * asks the {@link IRoleCheckingStrategy} for these roles. The resolved roles live as long as the
+ * strategy, i.e. they are discarded with the application.
  * 
  * @author Eelco Hillenius
  */
 public class AnnotationsRoleAuthorizationStrategy extends AbstractRoleAuthorizationStrategy
 {
+	/** the resolved annotations of each class */
+	private final ClassMetaCache<ClassAuthorization> authorizations = new ClassMetaCache<ClassAuthorization>();
+
 	/**
 	 * Construct.
 	 * 
@@ -49,29 +63,8 @@ public class AnnotationsRoleAuthorizationStrategy extends AbstractRoleAuthorizat
 		final Class<T> componentClass)
 	{
 		// We are authorized unless we are found not to be
-		boolean authorized = true;
-
-		// Check class annotation first because it is more specific than package annotation
-		final AuthorizeInstantiation classAnnotation = componentClass.getAnnotation(AuthorizeInstantiation.class);
-		if (classAnnotation != null)
-		{
-			authorized = hasAny(new Roles(classAnnotation.value()));
-		}
-		else
-		{
-			// Check package annotation if there is no one on the the class
-			final Package componentPackage = componentClass.getPackage();
-			if (componentPackage != null)
-			{
-				final AuthorizeInstantiation packageAnnotation = componentPackage.getAnnotation(AuthorizeInstantiation.class);
-				if (packageAnnotation != null)
-				{
-					authorized = hasAny(new Roles(packageAnnotation.value()));
-				}
-			}
-		}
-
-		return authorized;
+		final Roles roles = getAuthorization(componentClass).instantiationRoles;
+		return (roles == null) || hasAny(roles);
 	}
 
 	/**
@@ -88,19 +81,12 @@ public class AnnotationsRoleAuthorizationStrategy extends AbstractRoleAuthorizat
 
 	protected boolean isActionAuthorized(final Class<?> componentClass, final Action action)
 	{
-		// Check for a single action
-		if (!check(action, componentClass.getAnnotation(AuthorizeAction.class)))
-		{
-			return false;
-		}
-
-		// Check for multiple actions
-		final AuthorizeActions authorizeActionsAnnotation = componentClass.getAnnotation(AuthorizeActions.class);
-		if (authorizeActionsAnnotation != null)
+		final ActionAuthorization[] actionAuthorizations = getAuthorization(componentClass).actions.get(action.getName());
+		if (actionAuthorizations != null)
 		{
-			for (final AuthorizeAction authorizeActionAnnotation : authorizeActionsAnnotation.actions())
+			for (final ActionAuthorization actionAuthorization : actionAuthorizations)
 			{
-				if (!check(action, authorizeActionAnnotation))
+				if (!check(actionAuthorization))
 				{
 					return false;
 				}
@@ -111,31 +97,126 @@ public class AnnotationsRoleAuthorizationStrategy extends AbstractRoleAuthorizat
 	}
 
 	/**
-	 * @param action
-	 *            The action to check
-	 * @param authorizeActionAnnotation
-	 *            The annotations information
+	 * @param actionAuthorization
+	 *            The roles of an annotation of the checked action
 	 * @return False if the action is not authorized
 	 */
-	private boolean check(final Action action, final AuthorizeAction authorizeActionAnnotation)
+	private boolean check(final ActionAuthorization actionAuthorization)
 	{
-		if (authorizeActionAnnotation != null)
+		Roles deniedRoles = actionAuthorization.deniedRoles;
+		if (isEmpty(deniedRoles) == false && hasAny(deniedRoles))
 		{
-			if (action.getName().equals(authorizeActionAnnotation.action()))
+			return false;
+		}
+
+		Roles acceptedRoles = actionAuthorization.acceptedRoles;
+		if (!(isEmpty(acceptedRoles) || hasAny(acceptedRoles)))
+		{
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the resolved annotations of a class, resolving them on first access.
+	 * 
+	 * @param componentClass
+	 * @return the authorization of the class
+	 */
+	private ClassAuthorization getAuthorization(final Class<?> componentClass)
+	{
+		ClassAuthorization authorization = authorizations.get(componentClass);
+		if (authorization == null)
+		{
+			authorization = new ClassAuthorization(componentClass);
+			authorizations.put(componentClass, authorization);
+		}
+		return authorization;
+	}
+
+	/**
+	 * The roles required by the annotations of a class.
+	 */
+	private static final class ClassAuthorization
+	{
+		/** the roles allowed to instantiate the class, <code>null</code> if not restricted */
+		private final Roles instantiationRoles;
+
+		/** the annotations of actions by action name */
+		private final Map<String, ActionAuthorization[]> actions;
+
+		private ClassAuthorization(final Class<?> componentClass)
+		{
+			// Check class annotation first because it is more specific than package annotation
+			AuthorizeInstantiation instantiation = componentClass.getAnnotation(AuthorizeInstantiation.class);
+			if (instantiation == null)
 			{
-				Roles deniedRoles = new Roles(authorizeActionAnnotation.deny());
-				if (isEmpty(deniedRoles) == false && hasAny(deniedRoles))
+				// Check package annotation if there is no one on the the class
+				final Package componentPackage = componentClass.getPackage();
+				if (componentPackage != null)
 				{
-					return false;
+					instantiation = componentPackage.getAnnotation(AuthorizeInstantiation.class);
+				}
+			}
+			instantiationRoles = (instantiation != null) ? new Roles(instantiation.value()) : null;
+
+			final List<AuthorizeAction> actionAnnotations = new ArrayList<AuthorizeAction>();
+
+			// a single action
+			final AuthorizeAction authorizeActionAnnotation = componentClass.getAnnotation(AuthorizeAction.class);
+			if (authorizeActionAnnotation != null)
+			{
+				actionAnnotations.add(authorizeActionAnnotation);
+			}
+
+			// multiple actions
+			final AuthorizeActions authorizeActionsAnnotation = componentClass.getAnnotation(AuthorizeActions.class);
+			if (authorizeActionsAnnotation != null)
+			{
+				Collections.addAll(actionAnnotations, authorizeActionsAnnotation.actions());
+			}
+
+			if (actionAnnotations.isEmpty())
+			{
+				actions = Collections.emptyMap();
+			}
+			else
+			{
+				final Map<String, List<ActionAuthorization>> byName = new HashMap<String, List<ActionAuthorization>>();
+				for (AuthorizeAction actionAnnotation : actionAnnotations)
+				{
+					List<ActionAuthorization> list = byName.get(actionAnnotation.action());
+					if (list == null)
+					{
+						list = new ArrayList<ActionAuthorization>(1);
+						byName.put(actionAnnotation.action(), list);
+					}
+					list.add(new ActionAuthorization(actionAnnotation));
 				}
 
-				Roles acceptedRoles = new Roles(authorizeActionAnnotation.roles());
-				if (!(isEmpty(acceptedRoles) || hasAny(acceptedRoles)))
+				actions = new HashMap<String, ActionAuthorization[]>();
+				for (Map.Entry<String, List<ActionAuthorization>> entry : byName.entrySet())
 				{
-					return false;
+					actions.put(entry.getKey(),
+						entry.getValue().toArray(new ActionAuthorization[entry.getValue().size()]));
 				}
 			}
 		}
-		return true;
+	}
+
+	/**
+	 * The roles of an {@link AuthorizeAction} annotation.
+	 */
+	private static final class ActionAuthorization
+	{
+		private final Roles deniedRoles;
+
+		private final Roles acceptedRoles;
+
+		private ActionAuthorization(final AuthorizeAction annotation)
+		{
+			deniedRoles = new Roles(annotation.deny());
+			acceptedRoles = new Roles(annotation.roles());
+		}
 	}
 }
@@ -49,6 +49,68 @@ public class AnnotationsRoleAuthorizationStrategyTest extends Assert
 		assertTrue(strategy.isActionAuthorized(component, Component.RENDER));
 	}
 
+	/**
+	 * The resolved annotations are checked against the current roles each time.
+	 */
+	@Test
+	public void resolvedAnnotationsCheckCurrentRoles()
+	{
+		final Roles current = new Roles();
+		AnnotationsRoleAuthorizationStrategy strategy = new AnnotationsRoleAuthorizationStrategy(
+			new IRoleCheckingStrategy()
+			{
+				public boolean hasAnyRole(Roles roles)
+				{
+					return roles.hasAnyRole(current);
+				}
+			});
+
+		for (int i = 0; i < 2; i++)
+		{
+			current.clear();
+			assertFalse(strategy.isInstantiationAuthorized(MultipleActionsComponent.class));
+			assertFalse(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.RENDER));
+			assertFalse(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.ENABLE));
+
+			current.add("user");
+			assertTrue(strategy.isInstantiationAuthorized(MultipleActionsComponent.class));
+			assertTrue(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.RENDER));
+			assertFalse(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.ENABLE));
+
+			current.add("admin");
+			assertTrue(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.ENABLE));
+
+			current.add("guest");
+			assertFalse(strategy.isActionAuthorized(MultipleActionsComponent.class,
+				Component.RENDER));
+		}
+
+		assertTrue(strategy.isInstantiationAuthorized(WebComponent.class));
+		assertTrue(strategy.isActionAuthorized(WebComponent.class, Component.RENDER));
+	}
+
+	/**
+	 * A component with several annotated actions.
+	 */
+	@AuthorizeInstantiation("user")
+	@AuthorizeActions(actions = { @AuthorizeAction(action = "RENDER", roles = { "user" }),
+			@AuthorizeAction(action = "RENDER", deny = { "guest" }),
+			@AuthorizeAction(action = "ENABLE", roles = { "admin" }) })
+	private static class MultipleActionsComponent extends WebComponent
+	{
+		private static final long serialVersionUID = 1L;
+
+		private MultipleActionsComponent()
+		{
+			super("notUsed");
+		}
+	}
+
 	/**
 	 * A component without denied roles.
 	 */
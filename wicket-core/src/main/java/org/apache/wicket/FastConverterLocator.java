@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.apache.wicket.util.convert.converter.FastBigDecimalConverter;
+import org.apache.wicket.util.convert.converter.FastDateConverter;
+import org.apache.wicket.util.convert.converter.FastDoubleConverter;
+import org.apache.wicket.util.convert.converter.FastIntegerConverter;
+import org.apache.wicket.util.convert.converter.FastLongConverter;
+
+
+/**
+ * A {@link ConverterLocator} which registers converters for integers, longs, doubles, big
+ * decimals and dates that parse and format the common locale patterns without cloning a
+ * {@link java.text.NumberFormat} or creating a {@link java.text.DateFormat} per conversion. Their
+ * results are the same as the ones of the default converters, which they fall back to for other
+ * patterns.
+ *
+ * <pre>
+ * protected IConverterLocator newConverterLocator()
+ * {
+ * 	return new FastConverterLocator();
+ * }
+ * </pre>
+ */
+public class FastConverterLocator extends ConverterLocator
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor
+	 */
+	public FastConverterLocator()
+	{
+		set(Double.TYPE, FastDoubleConverter.INSTANCE);
+		set(Double.class, FastDoubleConverter.INSTANCE);
+		set(Integer.TYPE, FastIntegerConverter.INSTANCE);
+		set(Integer.class, FastIntegerConverter.INSTANCE);
+		set(Long.TYPE, FastLongConverter.INSTANCE);
+		set(Long.class, FastLongConverter.INSTANCE);
+		set(Date.class, new FastDateConverter());
+		set(BigDecimal.class, new FastBigDecimalConverter());
+	}
+}
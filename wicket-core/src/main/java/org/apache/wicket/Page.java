@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.apache.wicket.authorization.UnauthorizedActionException;
 import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.feedback.FeedbackIndex;
 import org.apache.wicket.markup.MarkupException;
 import org.apache.wicket.markup.MarkupStream;
 import org.apache.wicket.markup.MarkupType;
@@ -895,6 +896,7 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 		{
 			dirty();
 		}
+		FeedbackIndex.invalidate(this);
 	}
 
 	/**
@@ -920,6 +922,7 @@ public abstract class Page extends MarkupContainer implements IRedirectListener,
 		{
 			dirty();
 		}
+		FeedbackIndex.invalidate(this);
 	}
 
 	/**
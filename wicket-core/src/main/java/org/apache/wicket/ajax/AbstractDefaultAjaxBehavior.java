@@ -16,9 +16,12 @@
  */
 package org.apache.wicket.ajax;
 
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.Page;
@@ -28,6 +31,8 @@ import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
 import org.apache.wicket.ajax.attributes.AjaxRequestAttributes.Method;
 import org.apache.wicket.ajax.attributes.IAjaxCallListener;
 import org.apache.wicket.ajax.attributes.ThrottlingSettings;
+import org.apache.wicket.ajax.json.JSONAppender;
+import org.apache.wicket.ajax.json.JSONArray;
 import org.apache.wicket.ajax.json.JSONException;
 import org.apache.wicket.ajax.json.JSONObject;
 import org.apache.wicket.behavior.AbstractAjaxBehavior;
@@ -40,6 +45,8 @@ import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.PackageResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.resource.CoreLibrariesContributor;
+import org.apache.wicket.util.collections.ConcurrentCache;
+import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.time.Duration;
 
@@ -59,6 +66,20 @@ public abstract class AbstractDefaultAjaxBehavior extends AbstractAjaxBehavior
 	public static final ResourceReference INDICATOR = new PackageResourceReference(
 		AbstractDefaultAjaxBehavior.class, "indicator.gif");
 
+	/** whether behavior classes override {@link #postprocessConfiguration(JSONObject, Component)} */
+	private static final ConcurrentMap<Class<?>, Boolean> POSTPROCESSING_CLASSES =
+		new ConcurrentHashMap<Class<?>, Boolean>();
+
+	/** the members written for a POST request */
+	private static final String POST_MEMBERS = "\"m\":\"POST\"";
+
+	/** the members written for a multipart request */
+	private static final String MULTIPART_MEMBERS = "\"mp\":true";
+
+	/** the members written for identical {@link Settings}, rendered once */
+	private static final ConcurrentCache<Settings, String> SETTINGS_MEMBERS =
+		new ConcurrentCache<Settings, String>(256);
+
 	/**
 	 * Subclasses should call super.onBind()
 	 * 
@@ -194,188 +215,428 @@ public abstract class AbstractDefaultAjaxBehavior extends AbstractAjaxBehavior
 	protected final CharSequence renderAjaxAttributes(final Component component,
 		AjaxRequestAttributes attributes)
 	{
-		JSONObject attributesJson = new JSONObject();
+		return appendAjaxAttributes(new StringBuilder(256), component, attributes);
+	}
 
+	/**
+	 * Appends the attributes in JSON format.
+	 * 
+	 * @param buffer
+	 * @param component
+	 * @param attributes
+	 * @return the buffer
+	 */
+	private StringBuilder appendAjaxAttributes(final StringBuilder buffer,
+		final Component component, final AjaxRequestAttributes attributes)
+	{
 		try
 		{
-			attributesJson.put("u", getCallbackUrl());
-			Method method = attributes.getMethod();
-			if (Method.POST == method)
+			if (isPostprocessingConfiguration(getClass()) == false)
 			{
-				attributesJson.put("m", method);
+				writeAjaxAttributes(new JSONAppender(buffer), component, attributes);
+				return buffer;
 			}
 
-			if (component instanceof Page == false)
-			{
-				String componentId = component.getMarkupId();
-				attributesJson.put("c", componentId);
-			}
+			// subclasses modifying the configuration still get a JSONObject
+			StringBuilder json = new StringBuilder(256);
+			writeAjaxAttributes(new JSONAppender(json), component, attributes);
+			JSONObject attributesJson = new JSONObject(json.toString());
+			postprocessConfiguration(attributesJson, component);
+			return buffer.append(attributesJson.toString());
+		}
+		catch (JSONException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+	}
 
-			String formId = attributes.getFormId();
-			if (Strings.isEmpty(formId) == false)
-			{
-				attributesJson.put("f", formId);
-			}
+	/**
+	 * Writes the attributes as one JSON object.
+	 * 
+	 * @param json
+	 * @param component
+	 * @param attributes
+	 * @throws JSONException
+	 */
+	private void writeAjaxAttributes(final JSONAppender json, final Component component,
+		final AjaxRequestAttributes attributes) throws JSONException
+	{
+		json.object();
 
-			if (attributes.isMultipart())
+		json.key("u").value(getCallbackUrl());
+		Method method = attributes.getMethod();
+		if (Method.POST == method)
+		{
+			json.members(POST_MEMBERS);
+		}
+
+		if (component instanceof Page == false)
+		{
+			json.key("c").value(component.getMarkupId());
+		}
+
+		String formId = attributes.getFormId();
+		if (Strings.isEmpty(formId) == false)
+		{
+			json.key("f").value(formId);
+		}
+
+		if (attributes.isMultipart())
+		{
+			json.members(MULTIPART_MEMBERS);
+		}
+
+		String submittingComponentId = attributes.getSubmittingComponentName();
+		if (Strings.isEmpty(submittingComponentId) == false)
+		{
+			json.key("sc").value(submittingComponentId);
+		}
+
+		String indicatorId = findIndicatorId();
+		if (Strings.isEmpty(indicatorId) == false)
+		{
+			json.key("i").value(indicatorId);
+		}
+
+		List<IAjaxCallListener> ajaxCallListeners = attributes.getAjaxCallListeners();
+		for (Handler handler : Handler.values())
+		{
+			handler.write(json, ajaxCallListeners, component);
+		}
+
+		Map<String, Object> extraParameters = attributes.getExtraParameters();
+		boolean first = true;
+		for (Entry<String, Object> entry : extraParameters.entrySet())
+		{
+			Object value = entry.getValue();
+			if (value != null)
 			{
-				attributesJson.put("mp", true);
+				if (first)
+				{
+					json.key("ep").object();
+					first = false;
+				}
+				JSONObject.testValidity(value);
+				json.key(entry.getKey()).value(
+					value instanceof JSONArray ? new JSONArray().put(value) : value);
 			}
+		}
+		if (first == false)
+		{
+			json.endObject();
+		}
 
-			String submittingComponentId = attributes.getSubmittingComponentName();
-			if (Strings.isEmpty(submittingComponentId) == false)
+		List<CharSequence> dynamicExtraParameters = attributes.getDynamicExtraParameters();
+		if (dynamicExtraParameters != null && dynamicExtraParameters.isEmpty() == false)
+		{
+			json.key("dep").array();
+			for (CharSequence dynamicExtraParameter : dynamicExtraParameters)
 			{
-				attributesJson.put("sc", submittingComponentId);
+				json.value(dynamicExtraParameter);
 			}
+			json.endArray();
+		}
+
+		json.members(getSettingsMembers(attributes));
 
-			String indicatorId = findIndicatorId();
-			if (Strings.isEmpty(indicatorId) == false)
+		ThrottlingSettings throttlingSettings = attributes.getThrottlingSettings();
+		if (throttlingSettings != null)
+		{
+			json.key("tr").object();
+			json.key("id").value(throttlingSettings.getId());
+			json.key("d").value(throttlingSettings.getDelay().getMilliseconds());
+			if (throttlingSettings.getPostponeTimerOnUpdate())
 			{
-				attributesJson.put("i", indicatorId);
+				json.key("p").value(true);
 			}
+			json.endObject();
+		}
 
-			for (IAjaxCallListener ajaxCallListener : attributes.getAjaxCallListeners())
-			{
-				if (ajaxCallListener != null)
-				{
-					CharSequence beforeHandler = ajaxCallListener.getBeforeHandler(component);
-					if (Strings.isEmpty(beforeHandler) == false)
-					{
-						attributesJson.append("bh", beforeHandler);
-					}
+		json.endObject();
+	}
 
-					CharSequence afterHandler = ajaxCallListener.getAfterHandler(component);
-					if (Strings.isEmpty(afterHandler) == false)
-					{
-						attributesJson.append("ah", afterHandler);
-					}
+	/**
+	 * Gets the members written for the settings of the attributes. They are rendered once for all
+	 * behaviors with identical settings.
+	 * 
+	 * @param attributes
+	 * @return the members, may be empty
+	 */
+	private static String getSettingsMembers(final AjaxRequestAttributes attributes)
+	{
+		Settings settings = new Settings(attributes);
+		String members = SETTINGS_MEMBERS.get(settings);
+		if (members == null)
+		{
+			members = settings.render();
 
-					CharSequence successHandler = ajaxCallListener.getSuccessHandler(component);
-					if (Strings.isEmpty(successHandler) == false)
-					{
-						attributesJson.append("sh", successHandler);
-					}
+			// the cached key must not share the array with the attributes
+			settings.eventNames = settings.eventNames.clone();
+			SETTINGS_MEMBERS.put(settings, members);
+		}
+		return members;
+	}
 
-					CharSequence failureHandler = ajaxCallListener.getFailureHandler(component);
-					if (Strings.isEmpty(failureHandler) == false)
-					{
-						attributesJson.append("fh", failureHandler);
-					}
+	/**
+	 * The settings of {@link AjaxRequestAttributes} which are usually shared by many behaviors, in
+	 * contrast to the url, markup id, handlers and parameters of a single behavior.
+	 */
+	private static final class Settings
+	{
+		private final boolean asynchronous;
 
-					CharSequence completeHandler = ajaxCallListener.getCompleteHandler(component);
-					if (Strings.isEmpty(completeHandler) == false)
-					{
-						attributesJson.append("coh", completeHandler);
-					}
+		private String[] eventNames;
 
-					CharSequence precondition = ajaxCallListener.getPrecondition(component);
-					if (Strings.isEmpty(precondition) == false)
-					{
-						attributesJson.append("pre", precondition);
-					}
-				}
-			}
+		private final String channel;
 
-			JSONObject extraParameters = new JSONObject();
-			Iterator<Entry<String, Object>> itor = attributes.getExtraParameters()
-				.entrySet()
-				.iterator();
-			while (itor.hasNext())
-			{
-				Entry<String, Object> entry = itor.next();
-				String name = entry.getKey();
-				Object value = entry.getValue();
-				extraParameters.accumulate(name, value);
-			}
-			if (extraParameters.length() > 0)
-			{
-				attributesJson.put("ep", extraParameters);
-			}
+		private final boolean allowDefault;
 
-			List<CharSequence> dynamicExtraParameters = attributes.getDynamicExtraParameters();
-			if (dynamicExtraParameters != null)
-			{
-				for (CharSequence dynamicExtraParameter : dynamicExtraParameters)
-				{
-					attributesJson.append("dep", dynamicExtraParameter);
-				}
-			}
+		/** the timeout in milliseconds, <code>-1</code> if there is none */
+		private final long requestTimeout;
+
+		private final boolean wicketAjaxResponse;
+
+		private final String dataType;
+
+		private Settings(final AjaxRequestAttributes attributes)
+		{
+			asynchronous = attributes.isAsynchronous();
+			eventNames = attributes.getEventNames();
+			AjaxChannel channel = attributes.getChannel();
+			this.channel = (channel != null) ? channel.toString() : null;
+			allowDefault = attributes.isAllowDefault();
+			Duration requestTimeout = attributes.getRequestTimeout();
+			this.requestTimeout = (requestTimeout != null) ? requestTimeout.getMilliseconds() : -1;
+			wicketAjaxResponse = attributes.isWicketAjaxResponse();
+			dataType = attributes.getDataType();
+		}
 
-			if (attributes.isAsynchronous() == false)
+		/**
+		 * Renders the members for these settings.
+		 * 
+		 * @return the members
+		 */
+		private String render()
+		{
+			StringBuilder buffer = new StringBuilder(64);
+			JSONAppender json = new JSONAppender(buffer);
+
+			if (asynchronous == false)
 			{
-				attributesJson.put("async", false);
+				json.key("async").value(false);
 			}
 
-			String[] eventNames = attributes.getEventNames();
 			if (eventNames.length == 1)
 			{
-				attributesJson.put("e", eventNames[0]);
+				json.key("e").value(eventNames[0]);
 			}
-			else
+			else if (eventNames.length > 1)
 			{
+				json.key("e").array();
 				for (String eventName : eventNames)
 				{
-					attributesJson.append("e", eventName);
+					json.value(eventName);
 				}
+				json.endArray();
 			}
 
-			AjaxChannel channel = attributes.getChannel();
 			if (channel != null)
 			{
-				attributesJson.put("ch", channel);
+				json.key("ch").value(channel);
 			}
 
-			if (attributes.isAllowDefault())
+			if (allowDefault)
 			{
-				attributesJson.put("ad", true);
+				json.key("ad").value(true);
 			}
 
-			Duration requestTimeout = attributes.getRequestTimeout();
-			if (requestTimeout != null)
+			if (requestTimeout != -1)
 			{
-				attributesJson.put("rt", requestTimeout.getMilliseconds());
+				json.key("rt").value(requestTimeout);
 			}
 
-			boolean wicketAjaxResponse = attributes.isWicketAjaxResponse();
 			if (wicketAjaxResponse == false)
 			{
-				attributesJson.put("wr", false);
+				json.key("wr").value(false);
 			}
 
-			String dataType = attributes.getDataType();
 			if (AjaxRequestAttributes.XML_DATA_TYPE.equals(dataType) == false)
 			{
-				attributesJson.put("dt", dataType);
+				json.key("dt").value(dataType);
 			}
 
-			ThrottlingSettings throttlingSettings = attributes.getThrottlingSettings();
-			if (throttlingSettings != null)
+			return buffer.toString();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = Arrays.hashCode(eventNames);
+			result = 31 * result + Objects.hashCode(channel, dataType);
+			result = 31 * result + (int)requestTimeout;
+			result = 31 * result + (asynchronous ? 1 : 0);
+			result = 31 * result + (allowDefault ? 2 : 0);
+			return 31 * result + (wicketAjaxResponse ? 4 : 0);
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
 			{
-				JSONObject throttlingSettingsJson = new JSONObject();
-				throttlingSettingsJson.put("id", throttlingSettings.getId());
-				throttlingSettingsJson.put("d", throttlingSettings.getDelay().getMilliseconds());
-				if (throttlingSettings.getPostponeTimerOnUpdate())
-				{
-					throttlingSettingsJson.put("p", true);
-				}
-				attributesJson.put("tr", throttlingSettingsJson);
+				return true;
 			}
-
-			postprocessConfiguration(attributesJson, component);
+			if (obj instanceof Settings == false)
+			{
+				return false;
+			}
+			Settings other = (Settings)obj;
+			return (asynchronous == other.asynchronous) && (allowDefault == other.allowDefault) &&
+				(requestTimeout == other.requestTimeout) &&
+				(wicketAjaxResponse == other.wicketAjaxResponse) &&
+				Arrays.equals(eventNames, other.eventNames) &&
+				Objects.equal(channel, other.channel) && Objects.equal(dataType, other.dataType);
 		}
-		catch (JSONException e)
+	}
+
+	/**
+	 * The handlers of {@link IAjaxCallListener}s, in the order they are written.
+	 */
+	private static enum Handler
+	{
+		BEFORE("bh") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getBeforeHandler(component);
+			}
+		},
+		AFTER("ah") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getAfterHandler(component);
+			}
+		},
+		SUCCESS("sh") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getSuccessHandler(component);
+			}
+		},
+		FAILURE("fh") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getFailureHandler(component);
+			}
+		},
+		COMPLETE("coh") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getCompleteHandler(component);
+			}
+		},
+		PRECONDITION("pre") {
+			@Override
+			CharSequence get(final IAjaxCallListener listener, final Component component)
+			{
+				return listener.getPrecondition(component);
+			}
+		};
+
+		/** the key of the handlers in the attributes */
+		private final String key;
+
+		private Handler(final String key)
 		{
-			throw new WicketRuntimeException(e);
+			this.key = key;
 		}
 
-		String attributesAsJson = attributesJson.toString();
+		/**
+		 * Gets this kind of handler from a listener.
+		 * 
+		 * @param listener
+		 * @param component
+		 * @return the handler, may be empty
+		 */
+		abstract CharSequence get(IAjaxCallListener listener, Component component);
+
+		/**
+		 * Writes this kind of handler of all listeners as an array, if there are any.
+		 * 
+		 * @param json
+		 * @param ajaxCallListeners
+		 * @param component
+		 * @throws JSONException
+		 */
+		private void write(final JSONAppender json, final List<IAjaxCallListener> ajaxCallListeners,
+			final Component component) throws JSONException
+		{
+			boolean first = true;
+			for (IAjaxCallListener ajaxCallListener : ajaxCallListeners)
+			{
+				if (ajaxCallListener != null)
+				{
+					CharSequence handler = get(ajaxCallListener, component);
+					if (Strings.isEmpty(handler) == false)
+					{
+						if (first)
+						{
+							json.key(key).array();
+							first = false;
+						}
+						json.value(handler);
+					}
+				}
+			}
+			if (first == false)
+			{
+				json.endArray();
+			}
+		}
+	}
 
-		return attributesAsJson;
+	/**
+	 * Checks whether the behavior class overrides
+	 * {@link #postprocessConfiguration(JSONObject, Component)}, the result is cached per class.
+	 * 
+	 * @param type
+	 * @return <code>true</code> if the attributes have to be passed as a {@link JSONObject}
+	 */
+	private static boolean isPostprocessingConfiguration(final Class<?> type)
+	{
+		Boolean postprocessing = POSTPROCESSING_CLASSES.get(type);
+		if (postprocessing == null)
+		{
+			postprocessing = Boolean.FALSE;
+			for (Class<?> c = type; c != AbstractDefaultAjaxBehavior.class; c = c.getSuperclass())
+			{
+				try
+				{
+					c.getDeclaredMethod("postprocessConfiguration", JSONObject.class,
+						Component.class);
+					postprocessing = Boolean.TRUE;
+					break;
+				}
+				catch (NoSuchMethodException e)
+				{
+					// not overridden in this class
+				}
+			}
+			POSTPROCESSING_CLASSES.put(type, postprocessing);
+		}
+		return postprocessing;
 	}
 
 	/**
 	 * Gives a chance to modify the JSON attributesJson that is going to be used as
 	 * attributes for the Ajax call.
+	 * <p>
+	 * The attributes are written directly as JSON text unless a subclass overrides this method,
+	 * then they are parsed into a {@link JSONObject} first.
 	 *
 	 * @param attributesJson
 	 *      the JSON object created by #renderAjaxAttributes()
@@ -406,8 +667,9 @@ public abstract class AbstractDefaultAjaxBehavior extends AbstractAjaxBehavior
 	// accept the component as parameter
 	protected CharSequence getCallbackScript(final Component component)
 	{
-		CharSequence ajaxAttributes = renderAjaxAttributes(component);
-		return "Wicket.Ajax.ajax("+ajaxAttributes+");";
+		StringBuilder script = new StringBuilder(256).append("Wicket.Ajax.ajax(");
+		appendAjaxAttributes(script, component, getAttributes());
+		return script.append(");").toString();
 	}
 
 	/**
@@ -456,10 +718,9 @@ public abstract class AbstractDefaultAjaxBehavior extends AbstractAjaxBehavior
 	protected CharSequence getCallbackFunctionBody(String... extraParameters)
 	{
 		AjaxRequestAttributes attributes = getAttributes();
-		CharSequence attrsJson = renderAjaxAttributes(getComponent(), attributes);
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(512);
 		sb.append("var attrs = ");
-		sb.append(attrsJson);
+		appendAjaxAttributes(sb, getComponent(), attributes);
 		sb.append(";\n");
 		sb.append("var params = {");
 		boolean first = true;
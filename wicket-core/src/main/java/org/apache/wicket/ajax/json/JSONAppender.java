@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.json;
+
+/**
+ * Writes JSON text straight into a {@link StringBuilder}, without building {@link JSONObject}s
+ * and {@link JSONArray}s first.
+ * <p>
+ * Values are written as {@link JSONObject#toString()} would write them, strings are escaped like
+ * {@link JSONObject#quote(String)}. Unlike {@link JSONWriter} the appender keeps no stack of
+ * objects: it neither checks the nesting nor rejects duplicate keys, callers have to open and
+ * close objects and arrays and alternate keys and values correctly. In return it allocates
+ * nothing besides the text, and members rendered once can be appended again with
+ * {@link #members(CharSequence)}.
+ * 
+ * <pre>
+ * new JSONAppender(buffer).object().key(&quot;u&quot;).value(url).key(&quot;e&quot;).array().value(&quot;click&quot;).endArray().endObject();
+ * </pre>
+ */
+public class JSONAppender
+{
+	private final StringBuilder buffer;
+
+	/** whether a comma has to be written before the next key or array element */
+	private boolean comma;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param buffer
+	 *            the buffer to append the JSON text to
+	 */
+	public JSONAppender(final StringBuilder buffer)
+	{
+		this.buffer = buffer;
+	}
+
+	/**
+	 * @return the buffer the JSON text is appended to
+	 */
+	public StringBuilder getBuffer()
+	{
+		return buffer;
+	}
+
+	/**
+	 * Begins an object, as a value or an array element.
+	 * 
+	 * @return this
+	 */
+	public JSONAppender object()
+	{
+		separate();
+		buffer.append('{');
+		comma = false;
+		return this;
+	}
+
+	/**
+	 * Ends the current object.
+	 * 
+	 * @return this
+	 */
+	public JSONAppender endObject()
+	{
+		buffer.append('}');
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Begins an array, as a value or an array element.
+	 * 
+	 * @return this
+	 */
+	public JSONAppender array()
+	{
+		separate();
+		buffer.append('[');
+		comma = false;
+		return this;
+	}
+
+	/**
+	 * Ends the current array.
+	 * 
+	 * @return this
+	 */
+	public JSONAppender endArray()
+	{
+		buffer.append(']');
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes the key of the next value of the current object.
+	 * 
+	 * @param key
+	 * @return this
+	 */
+	public JSONAppender key(final CharSequence key)
+	{
+		separate();
+		quote(key, buffer).append(':');
+		comma = false;
+		return this;
+	}
+
+	/**
+	 * Writes a string value, <code>null</code> is written as JSON <code>null</code>.
+	 * 
+	 * @param value
+	 * @return this
+	 */
+	public JSONAppender value(final CharSequence value)
+	{
+		separate();
+		if (value == null)
+		{
+			buffer.append("null");
+		}
+		else
+		{
+			quote(value, buffer);
+		}
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value.
+	 * 
+	 * @param value
+	 * @return this
+	 */
+	public JSONAppender value(final boolean value)
+	{
+		separate();
+		buffer.append(value);
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes an integral value.
+	 * 
+	 * @param value
+	 * @return this
+	 */
+	public JSONAppender value(final long value)
+	{
+		separate();
+		buffer.append(value);
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes any value the way {@link JSONObject#valueToString(Object)} does, e.g. numbers,
+	 * {@link JSONString}s, maps and collections. Other objects are written as their quoted
+	 * {@link Object#toString()}.
+	 * 
+	 * @param value
+	 * @return this
+	 * @throws JSONException
+	 *             if the value is a non-finite number
+	 */
+	public JSONAppender value(final Object value) throws JSONException
+	{
+		if (value instanceof CharSequence)
+		{
+			return value((CharSequence)value);
+		}
+		else if (value instanceof Boolean)
+		{
+			return value(((Boolean)value).booleanValue());
+		}
+		else if ((value instanceof Integer) || (value instanceof Long))
+		{
+			return value(((Number)value).longValue());
+		}
+
+		separate();
+		buffer.append(JSONObject.valueToString(value));
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes a value which already is JSON text, e.g. one rendered before by another appender.
+	 * 
+	 * @param json
+	 * @return this
+	 */
+	public JSONAppender json(final CharSequence json)
+	{
+		separate();
+		buffer.append(json);
+		comma = true;
+		return this;
+	}
+
+	/**
+	 * Writes members of the current object which already are JSON text, e.g. constant key and
+	 * value pairs rendered once by another appender. An empty text writes nothing.
+	 * 
+	 * @param members
+	 *            the members, separated by commas
+	 * @return this
+	 */
+	public JSONAppender members(final CharSequence members)
+	{
+		if (members.length() > 0)
+		{
+			separate();
+			buffer.append(members);
+			comma = true;
+		}
+		return this;
+	}
+
+	private void separate()
+	{
+		if (comma)
+		{
+			buffer.append(',');
+			comma = false;
+		}
+	}
+
+	/**
+	 * Appends the string quoted and escaped like {@link JSONObject#quote(String)} does. Runs of
+	 * characters which need no escaping are appended at once.
+	 * 
+	 * @param string
+	 * @param buffer
+	 * @return the buffer
+	 */
+	public static StringBuilder quote(final CharSequence string, final StringBuilder buffer)
+	{
+		buffer.append('"');
+		final int length = string.length();
+		int start = 0;
+		char c = 0;
+		for (int i = 0; i < length; i++)
+		{
+			final char b = c;
+			c = string.charAt(i);
+
+			String escaped;
+			switch (c)
+			{
+				case '\\' :
+					escaped = "\\\\";
+					break;
+				case '"' :
+					escaped = "\\\"";
+					break;
+				case '/' :
+					escaped = (b == '<') ? "\\/" : null;
+					break;
+				case '\b' :
+					escaped = "\\b";
+					break;
+				case '\t' :
+					escaped = "\\t";
+					break;
+				case '\n' :
+					escaped = "\\n";
+					break;
+				case '\f' :
+					escaped = "\\f";
+					break;
+				case '\r' :
+					escaped = "\\r";
+					break;
+				default :
+					escaped = null;
+					if ((c < ' ') || ((c >= '\u0080') && (c < '\u00a0')) ||
+						((c >= '\u2000') && (c < '\u2100')))
+					{
+						buffer.append(string, start, i).append("\\u");
+						for (int shift = 12; shift >= 0; shift -= 4)
+						{
+							buffer.append(Character.forDigit((c >> shift) & 0xF, 16));
+						}
+						start = i + 1;
+					}
+			}
+
+			if (escaped != null)
+			{
+				buffer.append(string, start, i).append(escaped);
+				start = i + 1;
+			}
+		}
+		buffer.append(string, start, length);
+		return buffer.append('"');
+	}
+}
@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A sampling profiler of the time components take to render, aggregated per component class.
+ * <p>
+ * Only every n-th request is profiled, all other requests pay for a lookup of the request cycle's
+ * meta data per component only. In profiled requests two phases are measured with
+ * {@link System#nanoTime()}, the second one by a temporary behavior which is added to the
+ * profiled components for the request only:
+ * <ul>
+ * <li>{@link Phase#BEFORE_RENDER}: from before to after {@link Component#onBeforeRender()}, which
+ * includes configuring and preparing the children,</li>
+ * <li>{@link Phase#RENDER}: from before to after {@link Component#onRender()}, which includes
+ * rendering the children.</li>
+ * </ul>
+ * The durations are collected in a {@link Histogram} per component class and phase.
+ * <p>
+ * To enable the profiler use the following in YourApplication.init():
+ * 
+ * <pre>
+ * RenderProfiler.install(this).setSampleRate(100);
+ * </pre>
+ * 
+ * The statistics are shown by the inspector of wicket-devutils and exposed by wicket-jmx.
+ */
+public class RenderProfiler
+{
+	/** the profiler of an application */
+	private static final MetaDataKey<RenderProfiler> PROFILER_KEY = new MetaDataKey<RenderProfiler>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** the profile of the current request */
+	private static final MetaDataKey<Profile> PROFILE_KEY = new MetaDataKey<Profile>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** the profiled phases of the component lifecycle */
+	public static enum Phase {
+		/** {@link Component#onBeforeRender()} */
+		BEFORE_RENDER,
+
+		/** {@link Component#onRender()} */
+		RENDER
+	}
+
+	private final ConcurrentHashMap<Class<?>, Histogram[]> histograms = new ConcurrentHashMap<Class<?>, Histogram[]>();
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final AtomicLong profiledRequests = new AtomicLong();
+
+	private volatile int sampleRate = 100;
+
+	/**
+	 * Installs a profiler with an application.
+	 * 
+	 * @param application
+	 * @return the profiler
+	 */
+	public static RenderProfiler install(final Application application)
+	{
+		return install(application, new RenderProfiler());
+	}
+
+	/**
+	 * Installs a profiler with an application.
+	 * 
+	 * @param application
+	 * @param profiler
+	 * @return the profiler
+	 */
+	public static RenderProfiler install(final Application application,
+		final RenderProfiler profiler)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(profiler, "profiler");
+
+		if (get(application) != null)
+		{
+			throw new IllegalStateException("A render profiler is already installed");
+		}
+		application.setMetaData(PROFILER_KEY, profiler);
+
+		application.getComponentPreOnBeforeRenderListeners().add(
+			new IComponentOnBeforeRenderListener()
+			{
+				@Override
+				public void onBeforeRender(final Component component)
+				{
+					profiler.start(component, Phase.BEFORE_RENDER);
+				}
+			});
+		application.getComponentPostOnBeforeRenderListeners().add(
+			new IComponentOnBeforeRenderListener()
+			{
+				@Override
+				public void onBeforeRender(final Component component)
+				{
+					profiler.stop(component, Phase.BEFORE_RENDER);
+					profiler.attach(component);
+				}
+			});
+		return profiler;
+	}
+
+	/**
+	 * @param application
+	 * @return the profiler installed with the application or <code>null</code>
+	 */
+	public static RenderProfiler get(final Application application)
+	{
+		return application.getMetaData(PROFILER_KEY);
+	}
+
+	/**
+	 * @return every how many requests one is profiled
+	 */
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	/**
+	 * Sets every how many requests one is profiled.
+	 * 
+	 * @param sampleRate
+	 *            <code>1</code> to profile all requests, <code>0</code> to profile none
+	 * @return this for chaining
+	 */
+	public RenderProfiler setSampleRate(final int sampleRate)
+	{
+		this.sampleRate = Args.withinRange(0, Integer.MAX_VALUE, sampleRate, "sampleRate");
+		return this;
+	}
+
+	/**
+	 * @return the number of profiled requests
+	 */
+	public long getProfiledRequests()
+	{
+		return profiledRequests.get();
+	}
+
+	/**
+	 * Gets the histograms of a phase.
+	 * 
+	 * @param phase
+	 * @return histograms keyed by component class
+	 */
+	public Map<Class<?>, Histogram> getHistograms(final Phase phase)
+	{
+		final Map<Class<?>, Histogram> result = new HashMap<Class<?>, Histogram>();
+		for (Map.Entry<Class<?>, Histogram[]> entry : histograms.entrySet())
+		{
+			final Histogram histogram = entry.getValue()[phase.ordinal()];
+			if (histogram.getCount() > 0)
+			{
+				result.put(entry.getKey(), histogram);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the histograms of a phase, the one with the largest total time first.
+	 * 
+	 * @param phase
+	 * @return histograms with their component class
+	 */
+	public List<Map.Entry<Class<?>, Histogram>> getSortedHistograms(final Phase phase)
+	{
+		final List<Map.Entry<Class<?>, Histogram>> entries = new ArrayList<Map.Entry<Class<?>, Histogram>>(
+			getHistograms(phase).entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<Class<?>, Histogram>>()
+		{
+			@Override
+			public int compare(final Map.Entry<Class<?>, Histogram> entry1,
+				final Map.Entry<Class<?>, Histogram> entry2)
+			{
+				final long time1 = entry1.getValue().getTotalTime();
+				final long time2 = entry2.getValue().getTotalTime();
+				return time1 > time2 ? -1 : (time1 == time2 ? 0 : 1);
+			}
+		});
+		return entries;
+	}
+
+	/**
+	 * Discards all collected statistics.
+	 */
+	public void reset()
+	{
+		histograms.clear();
+		profiledRequests.set(0);
+	}
+
+	/**
+	 * Adds the behavior measuring the render phase to a component about to be rendered, if the
+	 * current request is profiled.
+	 * 
+	 * @param component
+	 */
+	private void attach(final Component component)
+	{
+		if ((getProfile() != null) && accepts(component) &&
+			component.getBehaviors(ProfilingBehavior.class).isEmpty())
+		{
+			component.add(ProfilingBehavior.INSTANCE);
+		}
+	}
+
+	/**
+	 * Filters which components' render performance should be profiled.
+	 * 
+	 * @param component
+	 *            the component that is about to be rendered in a profiled request
+	 * @return {@code true} if the component should be profiled
+	 */
+	protected boolean accepts(final Component component)
+	{
+		return component.isAuto() == false;
+	}
+
+	/**
+	 * Starts measuring a phase of a component.
+	 * 
+	 * @param component
+	 * @param phase
+	 */
+	private void start(final Component component, final Phase phase)
+	{
+		final Profile profile = getProfile();
+		if (profile != null)
+		{
+			profile.push(component, phase, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Stops measuring a phase of a component and records its duration.
+	 * 
+	 * @param component
+	 * @param phase
+	 */
+	private void stop(final Component component, final Phase phase)
+	{
+		final long end = System.nanoTime();
+		final Profile profile = getProfile();
+		if (profile != null)
+		{
+			final long start = profile.pop(component, phase);
+			if (start != -1)
+			{
+				getHistogram(component.getClass(), phase).record(end - start);
+			}
+		}
+	}
+
+	/**
+	 * @return the profile of the current request or <code>null</code> if it isn't profiled
+	 */
+	private Profile getProfile()
+	{
+		final RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle == null)
+		{
+			return null;
+		}
+
+		Profile profile = requestCycle.getMetaData(PROFILE_KEY);
+		if (profile == null)
+		{
+			final int rate = sampleRate;
+			if ((rate > 0) && (requests.incrementAndGet() % rate == 0))
+			{
+				profile = new Profile();
+				profiledRequests.incrementAndGet();
+			}
+			else
+			{
+				profile = Profile.NONE;
+			}
+			requestCycle.setMetaData(PROFILE_KEY, profile);
+		}
+		return profile == Profile.NONE ? null : profile;
+	}
+
+	private Histogram getHistogram(final Class<?> componentClass, final Phase phase)
+	{
+		Histogram[] phases = histograms.get(componentClass);
+		if (phases == null)
+		{
+			phases = new Histogram[Phase.values().length];
+			for (int i = 0; i < phases.length; i++)
+			{
+				phases[i] = new Histogram();
+			}
+			final Histogram[] existing = histograms.putIfAbsent(componentClass, phases);
+			if (existing != null)
+			{
+				phases = existing;
+			}
+		}
+		return phases[phase.ordinal()];
+	}
+
+	/**
+	 * Measures the render phase, shared by all profiled components. Temporary, so it is removed
+	 * when the request is detached.
+	 */
+	private static final class ProfilingBehavior extends Behavior
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ProfilingBehavior INSTANCE = new ProfilingBehavior();
+
+		@Override
+		public boolean isTemporary(final Component component)
+		{
+			return true;
+		}
+
+		@Override
+		public void beforeRender(final Component component)
+		{
+			final RenderProfiler profiler = get(component.getApplication());
+			if (profiler != null)
+			{
+				profiler.start(component, Phase.RENDER);
+			}
+		}
+
+		@Override
+		public void afterRender(final Component component)
+		{
+			final RenderProfiler profiler = get(component.getApplication());
+			if (profiler != null)
+			{
+				profiler.stop(component, Phase.RENDER);
+			}
+		}
+
+		/**
+		 * @return the shared instance
+		 */
+		private Object readResolve()
+		{
+			return INSTANCE;
+		}
+	}
+
+	/**
+	 * The start times of the phases in progress in a profiled request.
+	 */
+	private static final class Profile
+	{
+		/** marker for requests not profiled */
+		private static final Profile NONE = new Profile();
+
+		private final List<Component> components = new ArrayList<Component>();
+
+		private final List<Phase> phases = new ArrayList<Phase>();
+
+		private long[] starts = new long[16];
+
+		private void push(final Component component, final Phase phase, final long start)
+		{
+			final int size = components.size();
+			if (size == starts.length)
+			{
+				final long[] grown = new long[size * 2];
+				System.arraycopy(starts, 0, grown, 0, size);
+				starts = grown;
+			}
+			components.add(component);
+			phases.add(phase);
+			starts[size] = start;
+		}
+
+		/**
+		 * Pops the start of the phase of the component, discarding any phases started after it
+		 * which were aborted by an exception.
+		 * 
+		 * @param component
+		 * @param phase
+		 * @return the start or <code>-1</code> if not started
+		 */
+		private long pop(final Component component, final Phase phase)
+		{
+			for (int i = components.size() - 1; i >= 0; i--)
+			{
+				if ((components.get(i) == component) && (phases.get(i) == phase))
+				{
+					final long start = starts[i];
+					for (int j = components.size() - 1; j >= i; j--)
+					{
+						components.remove(j);
+						phases.remove(j);
+					}
+					return start;
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * A histogram of durations with buckets of powers of two microseconds.
+	 */
+	public static final class Histogram
+	{
+		/** bucket <code>i</code> counts durations below <code>2^i</code> microseconds */
+		private static final int BUCKETS = 32;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong totalTime = new AtomicLong();
+
+		private final AtomicLong maxTime = new AtomicLong();
+
+		private Histogram()
+		{
+		}
+
+		/**
+		 * @param nanos
+		 *            a duration
+		 */
+		private void record(final long nanos)
+		{
+			final long micros = nanos / 1000;
+			buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+			count.incrementAndGet();
+			totalTime.addAndGet(nanos);
+
+			long max = maxTime.get();
+			while ((nanos > max) && (maxTime.compareAndSet(max, nanos) == false))
+			{
+				max = maxTime.get();
+			}
+		}
+
+		/**
+		 * @return the number of durations
+		 */
+		public long getCount()
+		{
+			return count.get();
+		}
+
+		/**
+		 * @return the sum of all durations in nanoseconds
+		 */
+		public long getTotalTime()
+		{
+			return totalTime.get();
+		}
+
+		/**
+		 * @return the mean duration in nanoseconds
+		 */
+		public long getMeanTime()
+		{
+			final long n = count.get();
+			return n > 0 ? totalTime.get() / n : 0;
+		}
+
+		/**
+		 * @return the longest duration in nanoseconds
+		 */
+		public long getMaxTime()
+		{
+			return maxTime.get();
+		}
+
+		/**
+		 * Gets an upper bound of a percentile of the durations, i.e. the upper bound of the bucket
+		 * holding it.
+		 * 
+		 * @param percentile
+		 *            between 0 and 100
+		 * @return the upper bound in nanoseconds
+		 */
+		public long getPercentile(final double percentile)
+		{
+			final long n = count.get();
+			final long rank = (long)Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += buckets.get(i);
+				if ((seen >= rank) && (seen > 0))
+				{
+					return Math.min(TimeUnit.MICROSECONDS.toNanos(1L << i), getMaxTime());
+				}
+			}
+			return getMaxTime();
+		}
+
+		/**
+		 * @return the counts of the buckets, bucket <code>i</code> holding the durations below
+		 *         <code>2^i</code> microseconds
+		 */
+		public long[] getBuckets()
+		{
+			final long[] result = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				result[i] = buckets.get(i);
+			}
+			return result;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("count=%d, mean=%.3fms, p90<=%.3fms, max=%.3fms", getCount(),
+				getMeanTime() / 1e6, getPercentile(90) / 1e6, getMaxTime() / 1e6);
+		}
+	}
+}
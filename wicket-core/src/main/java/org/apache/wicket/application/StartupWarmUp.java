@@ -0,0 +1,762 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URISyntaxException;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.core.util.resource.locator.IResourceStreamLocator;
+import org.apache.wicket.markup.ContainerInfo;
+import org.apache.wicket.markup.IMarkupCache;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupCache;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.MarkupType;
+import org.apache.wicket.request.resource.PackageResource;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.request.resource.caching.ResourceUrl;
+import org.apache.wicket.request.resource.caching.version.CachingResourceVersion;
+import org.apache.wicket.resource.loader.IStringResourceLoader;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the lazily filled caches of an application before the first users arrive.
+ * <p>
+ * The component classes of the configured packages are scanned on the classpath. For each class
+ * and locale, running on a pool of threads,
+ * <ul>
+ * <li>the markup of containers is located through the resource stream locator, which fills the
+ * cache of a caching locator, and parsed into the {@link MarkupCache},</li>
+ * <li>the properties bundles of the class hierarchy are loaded by the string resource loaders,</li>
+ * <li>the package resources held in static fields are registered and located, and their versions
+ * are computed by the caching strategy of the application, e.g. the digests of a
+ * {@link CachingResourceVersion}.</li>
+ * </ul>
+ * The markup cache finds the parsed markup by its location on the first render of a container.
+ * Markup with &lt;wicket:extend&gt; is still parsed on first render, because it is merged with its
+ * base markup for a component instance, which can't be created safely at startup; its base markup
+ * is preloaded though. Markup isn't preloaded while resources are watched for changes, e.g. in
+ * development mode, see {@link MarkupCache#preloadMarkup(Markup)}. The scanned classes are not
+ * initialized, except for reading the resource references held in their static fields.
+ *
+ * <pre>
+ * protected void init()
+ * {
+ * 	super.init();
+ *
+ * 	new StartupWarmUp(this).addPackage(&quot;com.example.web&quot;)
+ * 		.setLocales(Locale.ENGLISH, Locale.GERMAN)
+ * 		.setTimeBudget(Duration.seconds(30))
+ * 		.run();
+ * }
+ * </pre>
+ *
+ * The warm-up stops when the time budget is exhausted, the returned {@link Progress} tells how
+ * far it got. The progress can be queried from another thread while the warm-up is running, e.g.
+ * when it was started in the background with {@link #start()}.
+ */
+public class StartupWarmUp
+{
+	private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+
+	/** a key no string resource loader will find, so all bundles are searched */
+	private static final String UNKNOWN_KEY = StartupWarmUp.class.getName() + ".unknownKey";
+
+	private final Application application;
+
+	private final Set<String> packages = new LinkedHashSet<String>();
+
+	private final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+
+	private List<Locale> locales = Arrays.asList(Locale.getDefault());
+
+	private String style;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private Duration timeBudget = Duration.minutes(1);
+
+	private final Progress progress = new Progress();
+
+	/**
+	 * Construct.
+	 *
+	 * @param application
+	 *            the application to warm up
+	 */
+	public StartupWarmUp(final Application application)
+	{
+		this.application = Args.notNull(application, "application");
+	}
+
+	/**
+	 * Adds a package whose component classes, including those of sub packages, are warmed up.
+	 *
+	 * @param packageName
+	 *            name of the package, e.g. <code>com.example.web</code>
+	 * @return this for chaining
+	 */
+	public StartupWarmUp addPackage(final String packageName)
+	{
+		packages.add(Args.notEmpty(packageName, "packageName"));
+		return this;
+	}
+
+	/**
+	 * Adds a component class to warm up.
+	 *
+	 * @param componentClass
+	 * @return this for chaining
+	 */
+	public StartupWarmUp addClass(final Class<? extends Component> componentClass)
+	{
+		classes.add(Args.notNull(componentClass, "componentClass"));
+		return this;
+	}
+
+	/**
+	 * Sets the locales the markup and properties are looked up for.
+	 *
+	 * @param locales
+	 *            the locales, defaults to the default locale of the JVM
+	 * @return this for chaining
+	 */
+	public StartupWarmUp setLocales(final Locale... locales)
+	{
+		Args.notNull(locales, "locales");
+		this.locales = Arrays.asList(locales);
+		return this;
+	}
+
+	/**
+	 * Sets the style the markup and properties are looked up for.
+	 *
+	 * @param style
+	 *            the style, defaults to <code>null</code>
+	 * @return this for chaining
+	 */
+	public StartupWarmUp setStyle(final String style)
+	{
+		this.style = style;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads warming up in parallel.
+	 *
+	 * @param threads
+	 *            number of threads, defaults to the number of available processors
+	 * @return this for chaining
+	 */
+	public StartupWarmUp setThreads(final int threads)
+	{
+		this.threads = Args.withinRange(1, 256, threads, "threads");
+		return this;
+	}
+
+	/**
+	 * Sets the time the warm-up may take at most.
+	 *
+	 * @param timeBudget
+	 *            the budget, defaults to one minute
+	 * @return this for chaining
+	 */
+	public StartupWarmUp setTimeBudget(final Duration timeBudget)
+	{
+		this.timeBudget = Args.notNull(timeBudget, "timeBudget");
+		return this;
+	}
+
+	/**
+	 * @return the progress of the warm-up
+	 */
+	public Progress getProgress()
+	{
+		return progress;
+	}
+
+	/**
+	 * Scans the packages and warms up all component classes, returns when done or when the time
+	 * budget is exhausted.
+	 *
+	 * @return the progress
+	 */
+	public Progress run()
+	{
+		final long start = System.currentTimeMillis();
+
+		final Set<Class<?>> componentClasses = new LinkedHashSet<Class<?>>(classes);
+		for (String packageName : packages)
+		{
+			scanPackage(packageName, componentClasses);
+		}
+		progress.classes.set(componentClasses.size());
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+			new WarmUpThreadFactory(application.getName()));
+		try
+		{
+			for (final Class<?> componentClass : componentClasses)
+			{
+				executor.execute(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						ThreadContext.setApplication(application);
+						try
+						{
+							warmUp(componentClass);
+						}
+						catch (RuntimeException e)
+						{
+							progress.errors.incrementAndGet();
+							log.warn("Warm-up of " + componentClass.getName() + " failed", e);
+						}
+						finally
+						{
+							progress.warmedUp.incrementAndGet();
+							ThreadContext.detach();
+						}
+					}
+				});
+			}
+			executor.shutdown();
+
+			final long remaining = timeBudget.getMilliseconds() -
+				(System.currentTimeMillis() - start);
+			if (executor.awaitTermination(Math.max(0, remaining), TimeUnit.MILLISECONDS) == false)
+			{
+				progress.timedOut = true;
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			executor.shutdownNow();
+			progress.duration = System.currentTimeMillis() - start;
+		}
+
+		log.info("Warm-up of application {}: {}", application.getName(), progress);
+		return progress;
+	}
+
+	/**
+	 * Starts the warm-up on a background thread and returns immediately, so the application can
+	 * serve requests while its caches are filled.
+	 *
+	 * @return the progress
+	 * @see #run()
+	 */
+	public Progress start()
+	{
+		final Thread thread = new WarmUpThreadFactory(application.getName()).newThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				StartupWarmUp.this.run();
+			}
+		});
+		thread.start();
+		return progress;
+	}
+
+	/**
+	 * Warms up a single component class, called on one of the threads of the warm-up with the
+	 * application attached to it.
+	 * <p>
+	 * Subclasses may add warm-ups of their own, e.g. instantiate components known to be free of
+	 * side effects to fill the markup cache.
+	 *
+	 * @param componentClass
+	 */
+	protected void warmUp(final Class<?> componentClass)
+	{
+		for (Locale locale : locales)
+		{
+			if (Thread.currentThread().isInterrupted())
+			{
+				return;
+			}
+
+			if (MarkupContainer.class.isAssignableFrom(componentClass))
+			{
+				warmUpMarkup(componentClass, locale);
+			}
+			warmUpProperties(componentClass, locale);
+		}
+		warmUpResources(componentClass);
+	}
+
+	/**
+	 * Locates the markup of the container class or its nearest super class with markup, just like
+	 * the default markup resource stream provider does, and preloads it into the markup cache.
+	 *
+	 * @param containerClass
+	 * @param locale
+	 */
+	private void warmUpMarkup(final Class<?> containerClass, final Locale locale)
+	{
+		final IResourceStreamLocator locator = application.getResourceSettings()
+			.getResourceStreamLocator();
+		final MarkupType markupType = MarkupType.HTML_MARKUP_TYPE;
+
+		Class<?> markupClass = containerClass;
+		while (markupClass != MarkupContainer.class)
+		{
+			final IResourceStream resourceStream = locator.locate(
+				containerClass, markupClass.getName().replace('.', '/'), style, null, locale,
+				markupType.getExtension(), false);
+			if (resourceStream != null)
+			{
+				if (markupClass == containerClass)
+				{
+					progress.markup.incrementAndGet();
+				}
+				preloadMarkup(new MarkupResourceStream(resourceStream, new ContainerInfo(
+					containerClass, locale, style, null, markupType), markupClass));
+				return;
+			}
+			markupClass = markupClass.getSuperclass();
+		}
+	}
+
+	/**
+	 * Parses the markup into the markup cache, if the application uses a {@link MarkupCache}.
+	 *
+	 * @param markupResourceStream
+	 */
+	private void preloadMarkup(final MarkupResourceStream markupResourceStream)
+	{
+		final IMarkupCache cache = application.getMarkupSettings()
+			.getMarkupFactory()
+			.getMarkupCache();
+		if ((cache instanceof MarkupCache) == false)
+		{
+			return;
+		}
+
+		// the same file may be found for several locales
+		final String location = markupResourceStream.locationAsString();
+		if ((location != null) && ((MarkupCache)cache).getMarkupCache().containsKey(location))
+		{
+			return;
+		}
+
+		final Markup markup;
+		try
+		{
+			markup = MarkupFactory.get().newMarkupParser(markupResourceStream).parse();
+		}
+		catch (Exception e)
+		{
+			progress.errors.incrementAndGet();
+			log.warn("Can't parse markup " + markupResourceStream, e);
+			return;
+		}
+
+		if (((MarkupCache)cache).preloadMarkup(markup))
+		{
+			progress.preloaded.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Loads the properties bundles of the class hierarchy by asking all string resource loaders for
+	 * a key none of them will find.
+	 *
+	 * @param componentClass
+	 * @param locale
+	 */
+	private void warmUpProperties(final Class<?> componentClass, final Locale locale)
+	{
+		for (IStringResourceLoader loader : application.getResourceSettings()
+			.getStringResourceLoaders())
+		{
+			loader.loadStringResource(componentClass, UNKNOWN_KEY, locale, style, null);
+		}
+		progress.properties.incrementAndGet();
+	}
+
+	/**
+	 * Registers the resource references held in static fields of the class, locates the package
+	 * resources among them and computes their versions.
+	 *
+	 * @param componentClass
+	 */
+	private void warmUpResources(final Class<?> componentClass)
+	{
+		for (Field field : componentClass.getDeclaredFields())
+		{
+			if (Modifier.isStatic(field.getModifiers()) &&
+				ResourceReference.class.isAssignableFrom(field.getType()))
+			{
+				final Object value;
+				try
+				{
+					field.setAccessible(true);
+					value = field.get(null);
+				}
+				catch (Exception e)
+				{
+					log.debug("Can't access " + field, e);
+					continue;
+				}
+
+				if (value instanceof ResourceReference)
+				{
+					final ResourceReference reference = (ResourceReference)value;
+					application.getResourceReferenceRegistry().registerResourceReference(
+						reference);
+
+					if (reference instanceof PackageResourceReference)
+					{
+						for (Locale locale : locales)
+						{
+							if (PackageResource.exists(reference.getScope(), reference.getName(),
+								locale, style, reference.getVariation()))
+							{
+								warmUpVersion((PackageResourceReference)reference, locale);
+							}
+						}
+						progress.resources.incrementAndGet();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lets the caching strategy decorate the url of the package resource, which computes and
+	 * caches its version just like the first rendering of the url would.
+	 *
+	 * @param reference
+	 * @param locale
+	 */
+	private void warmUpVersion(final PackageResourceReference reference, final Locale locale)
+	{
+		final PackageResource resource = new PackageResourceReference(reference.getScope(),
+			reference.getName(), reference.getLocale() != null ? reference.getLocale() : locale,
+			reference.getStyle() != null ? reference.getStyle() : style,
+			reference.getVariation()).getResource();
+		application.getResourceSettings()
+			.getCachingStrategy()
+			.decorateUrl(new ResourceUrl(reference.getName(), new PageParameters()), resource);
+		progress.versions.incrementAndGet();
+	}
+
+	/**
+	 * Collects the component classes of a package and its sub packages.
+	 *
+	 * @param packageName
+	 * @param componentClasses
+	 */
+	private void scanPackage(final String packageName, final Set<Class<?>> componentClasses)
+	{
+		final IClassResolver resolver = application.getApplicationSettings().getClassResolver();
+		final String path = packageName.replace('.', '/');
+
+		final List<String> classNames = new ArrayList<String>();
+		final Iterator<URL> urls = resolver.getResources(path);
+		while (urls.hasNext())
+		{
+			final URL url = urls.next();
+			try
+			{
+				if ("file".equals(url.getProtocol()))
+				{
+					scanDirectory(new File(url.toURI()), packageName, classNames);
+				}
+				else if ("jar".equals(url.getProtocol()))
+				{
+					scanJar(url, path, classNames);
+				}
+				else
+				{
+					log.warn("Can't scan " + url + " for component classes");
+				}
+			}
+			catch (IOException e)
+			{
+				log.warn("Can't scan " + url + " for component classes", e);
+			}
+			catch (URISyntaxException e)
+			{
+				log.warn("Can't scan " + url + " for component classes", e);
+			}
+		}
+
+		for (String className : classNames)
+		{
+			try
+			{
+				final Class<?> clazz = resolver.resolveClass(className);
+				if (Component.class.isAssignableFrom(clazz))
+				{
+					componentClasses.add(clazz);
+				}
+			}
+			catch (ClassNotFoundException e)
+			{
+				log.debug("Can't load " + className, e);
+			}
+			catch (LinkageError e)
+			{
+				log.debug("Can't load " + className, e);
+			}
+		}
+	}
+
+	private static void scanDirectory(final File directory, final String packageName,
+		final List<String> classNames)
+	{
+		final File[] files = directory.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File file : files)
+		{
+			final String name = file.getName();
+			if (file.isDirectory())
+			{
+				scanDirectory(file, packageName + '.' + name, classNames);
+			}
+			else if (name.endsWith(".class"))
+			{
+				classNames.add(packageName + '.' + name.substring(0, name.length() - 6));
+			}
+		}
+	}
+
+	private static void scanJar(final URL url, final String path, final List<String> classNames)
+		throws IOException
+	{
+		final URLConnection connection = url.openConnection();
+		if ((connection instanceof JarURLConnection) == false)
+		{
+			return;
+		}
+		final JarURLConnection jarConnection = (JarURLConnection)connection;
+		jarConnection.setUseCaches(false);
+
+		final JarFile jar = jarConnection.getJarFile();
+		try
+		{
+			final Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements())
+			{
+				final String name = entries.nextElement().getName();
+				if (name.startsWith(path + '/') && name.endsWith(".class"))
+				{
+					classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+				}
+			}
+		}
+		finally
+		{
+			jar.close();
+		}
+	}
+
+	/**
+	 * Creates daemon threads, so an application is never kept alive by its warm-up.
+	 */
+	private static class WarmUpThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		private final String name;
+
+		private WarmUpThreadFactory(final String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(final Runnable runnable)
+		{
+			final Thread thread = new Thread(runnable, "Wicket-WarmUp-" + name + "-" +
+				count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * The progress of a warm-up.
+	 */
+	public static final class Progress
+	{
+		private final AtomicInteger classes = new AtomicInteger();
+
+		private final AtomicInteger warmedUp = new AtomicInteger();
+
+		private final AtomicInteger markup = new AtomicInteger();
+
+		private final AtomicInteger preloaded = new AtomicInteger();
+
+		private final AtomicInteger properties = new AtomicInteger();
+
+		private final AtomicInteger resources = new AtomicInteger();
+
+		private final AtomicInteger versions = new AtomicInteger();
+
+		private final AtomicInteger errors = new AtomicInteger();
+
+		private volatile boolean timedOut;
+
+		private volatile long duration = -1;
+
+		private Progress()
+		{
+		}
+
+		/**
+		 * @return the number of component classes to warm up
+		 */
+		public int getClasses()
+		{
+			return classes.get();
+		}
+
+		/**
+		 * @return the number of component classes warmed up so far
+		 */
+		public int getWarmedUp()
+		{
+			return warmedUp.get();
+		}
+
+		/**
+		 * @return the number of markup files located
+		 */
+		public int getMarkup()
+		{
+			return markup.get();
+		}
+
+		/**
+		 * @return the number of markup files parsed into the markup cache
+		 */
+		public int getPreloadedMarkup()
+		{
+			return preloaded.get();
+		}
+
+		/**
+		 * @return the number of class hierarchies whose properties were loaded, once per locale
+		 */
+		public int getProperties()
+		{
+			return properties.get();
+		}
+
+		/**
+		 * @return the number of package resources located
+		 */
+		public int getResources()
+		{
+			return resources.get();
+		}
+
+		/**
+		 * @return the number of package resource versions computed, once per locale
+		 */
+		public int getVersions()
+		{
+			return versions.get();
+		}
+
+		/**
+		 * @return the number of failures
+		 */
+		public int getErrors()
+		{
+			return errors.get();
+		}
+
+		/**
+		 * @return <code>true</code> if the warm-up was stopped because of the time budget
+		 */
+		public boolean isTimedOut()
+		{
+			return timedOut;
+		}
+
+		/**
+		 * @return <code>true</code> if the warm-up has finished
+		 */
+		public boolean isFinished()
+		{
+			return duration >= 0;
+		}
+
+		/**
+		 * @return the duration of the warm-up in milliseconds, <code>-1</code> if still running
+		 */
+		public long getDuration()
+		{
+			return duration;
+		}
+
+		@Override
+		public String toString()
+		{
+			return warmedUp + " of " + classes + " classes, " + markup + " markup files, " +
+				preloaded + " preloaded, " + properties + " properties lookups, " + resources +
+				" package resources, " + versions + " versions, " + errors + " errors" +
+				(timedOut ? ", timed out" : "") + (isFinished() ? " in " + duration + " ms" : "");
+		}
+	}
+}
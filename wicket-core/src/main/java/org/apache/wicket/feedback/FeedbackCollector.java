@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
 import org.apache.wicket.Session;
 import org.apache.wicket.util.visit.IVisit;
 import org.apache.wicket.util.visit.IVisitor;
@@ -116,18 +117,35 @@ public final class FeedbackCollector
 
 		if (component != null && recursive && component instanceof MarkupContainer)
 		{
-			((MarkupContainer)component).visitChildren(new IVisitor<Component, Void>()
+			final FeedbackIndex index = FeedbackIndex.get();
+			final Page page = component instanceof Page ? (Page)component
+				: component.findParent(Page.class);
+			if (index != null && page != null)
 			{
-
-				@Override
-				public void component(Component object, IVisit<Void> visit)
+				// look up the descendants with messages instead of visiting all of them
+				for (Component descendant : index.getDescendants(page, component))
 				{
-					if (object.hasFeedbackMessage())
+					if (descendant.hasFeedbackMessage())
 					{
-						messages.addAll(object.getFeedbackMessages().messages(filter));
+						messages.addAll(descendant.getFeedbackMessages().messages(filter));
 					}
 				}
-			});
+			}
+			else
+			{
+				((MarkupContainer)component).visitChildren(new IVisitor<Component, Void>()
+				{
+
+					@Override
+					public void component(Component object, IVisit<Void> visit)
+					{
+						if (object.hasFeedbackMessage())
+						{
+							messages.addAll(object.getFeedbackMessages().messages(filter));
+						}
+					}
+				});
+			}
 		}
 
 		return messages;
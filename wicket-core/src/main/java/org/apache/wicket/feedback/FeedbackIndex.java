@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.feedback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Page;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+
+/**
+ * A request scoped index of the components of a page which hold feedback messages.
+ * <p>
+ * Without the index each {@link FeedbackCollector} has to visit all components of a page to find
+ * the ones with messages, i.e. a page with several feedback panels is visited once per panel. The
+ * index is built with a single visit when it is first queried during a request, which finds the
+ * messages reported in earlier requests too. Afterwards components reporting a message register
+ * with the index, see {@link FeedbackMessages#add(FeedbackMessage)}. Changes of the page's
+ * component hierarchy discard the index, since added components may hold messages already, see
+ * {@link #invalidate(Page)}.
+ */
+public final class FeedbackIndex
+{
+	private static final MetaDataKey<FeedbackIndex> KEY = new MetaDataKey<FeedbackIndex>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** the page the index was built for */
+	private Page page;
+
+	/**
+	 * the components with feedback messages, in the order of the component tree or of their
+	 * registration
+	 */
+	private Set<Component> components;
+
+	/** whether the components are in the order of the component tree */
+	private boolean ordered;
+
+	private FeedbackIndex()
+	{
+	}
+
+	/**
+	 * Gets the index of the current request.
+	 *
+	 * @return index or <code>null</code> if there is no request
+	 */
+	static FeedbackIndex get()
+	{
+		final RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle == null)
+		{
+			return null;
+		}
+
+		FeedbackIndex index = requestCycle.getMetaData(KEY);
+		if (index == null)
+		{
+			index = new FeedbackIndex();
+			requestCycle.setMetaData(KEY, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Registers a component that reported a feedback message with the index of the current
+	 * request, if it is built already.
+	 *
+	 * @param reporter
+	 *            the component
+	 */
+	static void register(final Component reporter)
+	{
+		final RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle != null)
+		{
+			final FeedbackIndex index = requestCycle.getMetaData(KEY);
+			if ((index != null) && (index.components != null) && index.components.add(reporter))
+			{
+				index.ordered = false;
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the index of the current request if it was built for the page, because
+	 * components of the page have been added or removed.
+	 * <p>
+	 * THIS IS WICKET INTERNAL ONLY. DO NOT USE IT.
+	 *
+	 * @param page
+	 *            the page whose component hierarchy has changed
+	 */
+	public static void invalidate(final Page page)
+	{
+		final RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle != null)
+		{
+			final FeedbackIndex index = requestCycle.getMetaData(KEY);
+			if ((index != null) && (index.page == page))
+			{
+				index.page = null;
+				index.components = null;
+			}
+		}
+	}
+
+	/**
+	 * Gets the components with feedback messages, which are descendants of the given component.
+	 *
+	 * @param page
+	 *            the page of the container
+	 * @param container
+	 *            the container
+	 * @return descendants with feedback messages in the order of the component tree
+	 */
+	List<Component> getDescendants(final Page page, final Component container)
+	{
+		if ((this.page != page) || (components == null))
+		{
+			build(page);
+		}
+		else if (ordered == false)
+		{
+			order();
+		}
+
+		final List<Component> descendants = new ArrayList<Component>();
+		for (Component component : components)
+		{
+			if (isDescendant(component, container))
+			{
+				descendants.add(component);
+			}
+		}
+		return descendants;
+	}
+
+	/**
+	 * Collects all components of the page holding feedback messages.
+	 *
+	 * @param page
+	 */
+	private void build(final Page page)
+	{
+		final Set<Component> components = new LinkedHashSet<Component>();
+		page.visitChildren(new IVisitor<Component, Void>()
+		{
+			@Override
+			public void component(final Component component, final IVisit<Void> visit)
+			{
+				if (component.hasFeedbackMessage())
+				{
+					components.add(component);
+				}
+			}
+		});
+
+		this.page = page;
+		this.components = components;
+		ordered = true;
+	}
+
+	/**
+	 * Brings the registered components into the order of the component tree, so that messages are
+	 * collected in the same order as by a visit of the page.
+	 */
+	private void order()
+	{
+		final List<Component> list = new ArrayList<Component>(components);
+		Collections.sort(list, new Comparator<Component>()
+		{
+			@Override
+			public int compare(final Component component1, final Component component2)
+			{
+				return compareTreeOrder(component1, component2);
+			}
+		});
+		components = new LinkedHashSet<Component>(list);
+		ordered = true;
+	}
+
+	/**
+	 * Compares the positions of two components in the component tree of the page. Components no
+	 * longer on the page are sorted last.
+	 *
+	 * @param component1
+	 * @param component2
+	 * @return a negative number if the first component is visited first
+	 */
+	private int compareTreeOrder(final Component component1, final Component component2)
+	{
+		final List<Component> path1 = path(component1);
+		final List<Component> path2 = path(component2);
+
+		final boolean onPage1 = path1.get(0) == page;
+		final boolean onPage2 = path2.get(0) == page;
+		if (onPage1 != onPage2)
+		{
+			return onPage1 ? -1 : 1;
+		}
+		else if (onPage1 == false)
+		{
+			return 0;
+		}
+
+		int depth = 1;
+		while ((depth < path1.size()) && (depth < path2.size()) &&
+			(path1.get(depth) == path2.get(depth)))
+		{
+			depth++;
+		}
+		if ((depth == path1.size()) || (depth == path2.size()))
+		{
+			// an ancestor is visited before its descendants
+			return path1.size() - path2.size();
+		}
+
+		final Component child1 = path1.get(depth);
+		final Component child2 = path2.get(depth);
+		for (Component child : (MarkupContainer)path1.get(depth - 1))
+		{
+			if (child == child1)
+			{
+				return -1;
+			}
+			else if (child == child2)
+			{
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param component
+	 * @return the component and its ancestors, starting with the root
+	 */
+	private static List<Component> path(final Component component)
+	{
+		final List<Component> path = new ArrayList<Component>();
+		for (Component current = component; current != null; current = current.getParent())
+		{
+			path.add(current);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Is a component a descendant of the container, i.e. still below the container in the tree.
+	 *
+	 * @param component
+	 * @param container
+	 * @return <code>true</code> if the component is a descendant
+	 */
+	private static boolean isDescendant(final Component component, final Component container)
+	{
+		Component parent = component.getParent();
+		while (parent != null)
+		{
+			if (parent == container)
+			{
+				return true;
+			}
+			parent = parent.getParent();
+		}
+		return false;
+	}
+}
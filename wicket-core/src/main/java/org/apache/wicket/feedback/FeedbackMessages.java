@@ -71,6 +71,10 @@ public final class FeedbackMessages implements IClusterable, Iterable<FeedbackMe
 			log.debug("Adding feedback message " + message);
 		}
 		messages.add(message);
+		if (message.getReporter() != null)
+		{
+			FeedbackIndex.register(message.getReporter());
+		}
 	}
 
 	/**
@@ -0,0 +1,508 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.markup.MarkupCache.ICache;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A markup cache implementation bounded by the weight of the markup it holds, i.e. the number of
+ * characters of its markup elements.
+ * <p>
+ * When the weight exceeds the maximum, the least recently used markup is evicted until the
+ * weight is below nine tenth of the maximum. Derived markup is evicted along with its base
+ * markup, just like {@link MarkupCache#removeMarkup(String)} does. Evicted markup is loaded again
+ * when it is requested the next time.
+ * <p>
+ * The cache keeps statistics of hits, misses, evictions and the time it took to load the missing
+ * markup, which are exposed by wicket-jmx.
+ * 
+ * <pre>
+ * new MarkupCache()
+ * {
+ * 	&#064;Override
+ * 	protected ICache&lt;String, Markup&gt; newMarkupCacheImplementation()
+ * 	{
+ * 		return new BoundedCacheImplementation(Bytes.megabytes(4).bytes());
+ * 	}
+ * };
+ * </pre>
+ * 
+ * @see MarkupCache#newMarkupCacheImplementation()
+ */
+public class BoundedCacheImplementation implements ICache<String, Markup>
+{
+	/** the weight of {@link Markup#NO_MARKUP} */
+	private static final int NO_MARKUP_WEIGHT = 1;
+
+	/** misses waiting for their markup to be loaded are recorded up to this number */
+	private static final int MAX_PENDING = 1024;
+
+	/** misses whose markup hasn't been loaded within this time are not waited for anymore */
+	private static final long MAX_PENDING_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	/** Neither key nor value are allowed to be null with ConcurrentHashMap */
+	private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+	/** start times of the misses waiting for their markup to be loaded */
+	private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * the keys ordered by their last access, least recently used first. Might contain outdated
+	 * accesses of a key, which are skipped on eviction.
+	 */
+	private final ConcurrentSkipListMap<Long, String> accessOrder =
+		new ConcurrentSkipListMap<Long, String>();
+
+	/** the source of the access sequence numbers */
+	private final AtomicLong accesses = new AtomicLong();
+
+	private final AtomicLong weight = new AtomicLong();
+
+	private volatile long maximumWeight;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong loadTime = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maximumWeight
+	 *            the maximum number of characters of all markup
+	 */
+	public BoundedCacheImplementation(final long maximumWeight)
+	{
+		setMaximumWeight(maximumWeight);
+	}
+
+	/**
+	 * @return the maximum number of characters of all markup
+	 */
+	public long getMaximumWeight()
+	{
+		return maximumWeight;
+	}
+
+	/**
+	 * Sets the maximum weight, evicting markup if it's exceeded.
+	 * 
+	 * @param maximumWeight
+	 *            the maximum number of characters of all markup
+	 */
+	public void setMaximumWeight(final long maximumWeight)
+	{
+		this.maximumWeight = Args.withinRange(1L, Long.MAX_VALUE, maximumWeight, "maximumWeight");
+		evictIfNecessary();
+	}
+
+	/**
+	 * @return the number of characters of all markup in the cache
+	 */
+	public long getWeight()
+	{
+		return weight.get();
+	}
+
+	/**
+	 * @return the number of times markup was found in the cache
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of times markup was not found in the cache
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of markup put into the cache after a miss
+	 */
+	public long getLoads()
+	{
+		return loads.get();
+	}
+
+	/**
+	 * @param unit
+	 * @return the total time between the misses and the puts of the loaded markup
+	 */
+	public long getLoadTime(final TimeUnit unit)
+	{
+		return unit.convert(loadTime.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the number of markup evicted because of the maximum weight
+	 */
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	/**
+	 * Resets the statistics.
+	 */
+	public void resetStatistics()
+	{
+		hits.set(0);
+		misses.set(0);
+		loads.set(0);
+		loadTime.set(0);
+		evictions.set(0);
+	}
+
+	@Override
+	public void clear()
+	{
+		for (String key : cache.keySet())
+		{
+			remove(key);
+		}
+		pending.clear();
+		accessOrder.clear();
+	}
+
+	@Override
+	public boolean containsKey(final String key)
+	{
+		if (key == null)
+		{
+			return false;
+		}
+		return cache.containsKey(key);
+	}
+
+	@Override
+	public Markup get(final String key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+
+		final Entry entry = cache.get(key);
+		if (entry == null)
+		{
+			misses.incrementAndGet();
+			addPending(key);
+			return null;
+		}
+
+		hits.incrementAndGet();
+		touch(key, entry);
+		return entry.markup;
+	}
+
+	@Override
+	public Collection<String> getKeys()
+	{
+		return Collections.unmodifiableSet(cache.keySet());
+	}
+
+	@Override
+	public Collection<Markup> getValues()
+	{
+		return new AbstractCollection<Markup>()
+		{
+			@Override
+			public Iterator<Markup> iterator()
+			{
+				final Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+				return new Iterator<Markup>()
+				{
+					private Map.Entry<String, Entry> current;
+
+					@Override
+					public boolean hasNext()
+					{
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Markup next()
+					{
+						current = iterator.next();
+						return current.getValue().markup;
+					}
+
+					@Override
+					public void remove()
+					{
+						if (current == null)
+						{
+							throw new IllegalStateException();
+						}
+						BoundedCacheImplementation.this.remove(current.getKey(), current.getValue());
+						current = null;
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return cache.size();
+			}
+		};
+	}
+
+	@Override
+	public void put(final String key, final Markup value)
+	{
+		final Entry entry = new Entry(value, weigh(value));
+		final Entry old = cache.put(key, entry);
+		weight.addAndGet(entry.weight - (old != null ? old.weight : 0));
+		if (old != null)
+		{
+			accessOrder.remove(old.lastAccess);
+		}
+		touch(key, entry);
+
+		final Long missed = pending.remove(key);
+		if (missed != null)
+		{
+			loads.incrementAndGet();
+			loadTime.addAndGet(nanoTime() - missed);
+		}
+
+		evictIfNecessary();
+	}
+
+	@Override
+	public boolean remove(final String key)
+	{
+		if (key == null)
+		{
+			return false;
+		}
+		pending.remove(key);
+
+		final Entry entry = cache.remove(key);
+		if (entry == null)
+		{
+			return false;
+		}
+		weight.addAndGet(-entry.weight);
+		accessOrder.remove(entry.lastAccess);
+		return true;
+	}
+
+	@Override
+	public int size()
+	{
+		return cache.size();
+	}
+
+	@Override
+	public void shutdown()
+	{
+		clear();
+	}
+
+	/**
+	 * Removes the entry if it's still mapped to the key.
+	 * 
+	 * @param key
+	 * @param entry
+	 * @return <code>true</code> if removed
+	 */
+	private boolean remove(final String key, final Entry entry)
+	{
+		if (cache.remove(key, entry))
+		{
+			weight.addAndGet(-entry.weight);
+			accessOrder.remove(entry.lastAccess);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the current value of the time source of the load time, in nanoseconds
+	 */
+	long nanoTime()
+	{
+		return System.nanoTime();
+	}
+
+	/**
+	 * Moves the entry to the end of the access order.
+	 * 
+	 * @param key
+	 * @param entry
+	 */
+	private void touch(final String key, final Entry entry)
+	{
+		final long previous = entry.lastAccess;
+		final long access = accesses.incrementAndGet();
+		entry.lastAccess = access;
+		accessOrder.put(access, key);
+		accessOrder.remove(previous);
+	}
+
+	/**
+	 * Records the start of a miss, so the time to load its markup can be measured when it is put.
+	 * Misses whose markup was never put are dropped after a while, so they can't prevent further
+	 * misses from being recorded.
+	 * 
+	 * @param key
+	 */
+	private void addPending(final String key)
+	{
+		final long now = nanoTime();
+		if (pending.size() >= MAX_PENDING)
+		{
+			final Iterator<Long> starts = pending.values().iterator();
+			while (starts.hasNext())
+			{
+				if (now - starts.next() > MAX_PENDING_NANOS)
+				{
+					starts.remove();
+				}
+			}
+		}
+		if (pending.size() < MAX_PENDING)
+		{
+			pending.putIfAbsent(key, now);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used markup and the markup derived from it until the weight is
+	 * below nine tenth of the maximum.
+	 */
+	private void evictIfNecessary()
+	{
+		if (weight.get() <= maximumWeight)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			final long target = maximumWeight - maximumWeight / 10;
+			if (weight.get() <= target)
+			{
+				return;
+			}
+
+			final Set<MarkupResourceStream> evicted = Collections.newSetFromMap(
+				new IdentityHashMap<MarkupResourceStream, Boolean>());
+			while (weight.get() > target)
+			{
+				final Map.Entry<Long, String> eldest = accessOrder.pollFirstEntry();
+				if (eldest == null)
+				{
+					break;
+				}
+
+				final Entry entry = cache.get(eldest.getValue());
+				if ((entry != null) && (entry.lastAccess == eldest.getKey()) &&
+					remove(eldest.getValue(), entry))
+				{
+					evictions.incrementAndGet();
+					final MarkupResourceStream stream = entry.markup.getMarkupResourceStream();
+					if (stream != null)
+					{
+						evicted.add(stream);
+					}
+				}
+			}
+
+			// derived markup must not outlive its base markup, repeat for derived of derived
+			boolean removed = evicted.isEmpty() == false;
+			while (removed)
+			{
+				removed = false;
+				for (Map.Entry<String, Entry> entry : cache.entrySet())
+				{
+					final MarkupResourceStream stream = entry.getValue().markup
+						.getMarkupResourceStream();
+					if ((stream != null) &&
+						evicted.contains(stream.getBaseMarkupResourceStream()) &&
+						remove(entry.getKey(), entry.getValue()))
+					{
+						evictions.incrementAndGet();
+						evicted.add(stream);
+						removed = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param markup
+	 * @return the number of characters of the markup elements
+	 */
+	private static long weigh(final Markup markup)
+	{
+		if (markup == Markup.NO_MARKUP)
+		{
+			return NO_MARKUP_WEIGHT;
+		}
+
+		long weight = NO_MARKUP_WEIGHT;
+		for (int i = 0; i < markup.size(); i++)
+		{
+			weight += markup.get(i).toCharSequence().length();
+		}
+		return weight;
+	}
+
+	/**
+	 * A cached markup with its weight and sequence number of its last access.
+	 */
+	private static final class Entry
+	{
+		private final Markup markup;
+
+		private final long weight;
+
+		private volatile long lastAccess;
+
+		private Entry(final Markup markup, final long weight)
+		{
+			this.markup = markup;
+			this.weight = weight;
+		}
+	}
+}
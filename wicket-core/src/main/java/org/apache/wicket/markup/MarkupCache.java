@@ -93,7 +93,7 @@ public class MarkupCache implements IMarkupCache
 	{
 		application = Application.get();
 
-		markupCache = newCacheImplementation();
+		markupCache = newMarkupCacheImplementation();
 		if (markupCache == null)
 		{
 			throw new WicketRuntimeException("The map used to cache markup must not be null");
@@ -398,6 +398,48 @@ public class MarkupCache implements IMarkupCache
 		return markup;
 	}
 
+	/**
+	 * Puts markup which has been loaded without a container, e.g. by a warm-up at startup, into the
+	 * cache by its location. The first container whose markup resource stream has the same location
+	 * finds it there instead of parsing the markup again.
+	 * <p>
+	 * Only markup which is used as it is gets cached, i.e. markup with a location and without
+	 * &lt;wicket:extend&gt;: merged markup is cached under a location of its own. Nothing is cached
+	 * while resources are watched for changes, since the watching is set up by containers loading
+	 * their markup.
+	 * <p>
+	 * THIS IS WICKET INTERNAL ONLY. DO NOT USE IT.
+	 * 
+	 * @param markup
+	 *            the loaded markup
+	 * @return <code>true</code> if markup is cached for the location now, the given one or markup
+	 *         loaded before
+	 */
+	public final boolean preloadMarkup(final Markup markup)
+	{
+		Args.notNull(markup, "markup");
+
+		final String locationString = markup.locationAsString();
+		if ((locationString == null) || (markup == Markup.NO_MARKUP) ||
+			(application.getResourceSettings().getResourcePollFrequency() != null))
+		{
+			return false;
+		}
+		for (int i = 0; i < markup.size(); i++)
+		{
+			if (TagUtils.isExtendTag(markup, i))
+			{
+				return false;
+			}
+		}
+
+		if (markupCache.containsKey(locationString) == false)
+		{
+			markupCache.put(locationString, markup);
+		}
+		return true;
+	}
+
 	/**
 	 * Wicket's default implementation just uses the cacheKey to retrieve the markup from the cache.
 	 * More sophisticated implementations may call a container method to e.g. ignore the cached
@@ -575,6 +617,20 @@ public class MarkupCache implements IMarkupCache
 		return new DefaultCacheImplementation<K, V>();
 	}
 
+	/**
+	 * Allows you to change the implementation of the cache holding the markup by its location, e.g.
+	 * to a {@link PersistentCacheImplementation}. By default it is the one created by
+	 * {@link #newCacheImplementation()}.
+	 * <p>
+	 * Note that this method is called from the constructor.
+	 * 
+	 * @return new instance of cache implementation
+	 */
+	protected ICache<String, Markup> newMarkupCacheImplementation()
+	{
+		return newCacheImplementation();
+	}
+
 	/**
 	 * MarkupCache allows you to implement you own cache implementation. ICache is the interface the
 	 * implementation must comply with.
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.markup.parser.XmlTag;
+
+/**
+ * Writes parsed markup for a {@link PersistentCacheImplementation} and reads it back.
+ * <p>
+ * The markup classes are not serializable, so that markup referenced by components never ends up
+ * in a serialized page by accident. Instead this serializer knows the structure of the markup:
+ * the elements of {@link RawMarkup}, {@link ComponentTag}, {@link WicketTag},
+ * {@link HtmlSpecialTag} and their {@link XmlTag}s are written field by field, preserving shared
+ * references, e.g. between open and close tags. All other values found in these fields, like tag
+ * attributes or behaviors, are written with Java serialization. Markup containing elements of
+ * other classes or non-serializable values can't be written.
+ * <p>
+ * The fields of each class are described once per markup, markup written by a different version
+ * of the markup classes is rejected when read.
+ */
+final class MarkupSerializer
+{
+	private static final byte NULL = 0;
+
+	private static final byte REFERENCE = 1;
+
+	private static final byte MARKUP = 2;
+
+	private static final byte ELEMENT = 3;
+
+	private static final byte WEAK_REFERENCE = 4;
+
+	private static final byte OBJECT = 5;
+
+	/** the classes written field by field, identified by their index */
+	private static final List<Class<?>> ELEMENT_CLASSES;
+
+	/** the fields written for each of the element classes */
+	private static final Map<Class<?>, Field[]> FIELDS = new IdentityHashMap<Class<?>, Field[]>();
+
+	private static final Constructor<?> TEXT_SEGMENT_CONSTRUCTOR;
+
+	static
+	{
+		try
+		{
+			final Class<?> textSegment = Class.forName(XmlTag.class.getName() + "$TextSegment");
+			TEXT_SEGMENT_CONSTRUCTOR = textSegment.getDeclaredConstructor(CharSequence.class,
+				int.class, int.class, int.class);
+			TEXT_SEGMENT_CONSTRUCTOR.setAccessible(true);
+
+			ELEMENT_CLASSES = Arrays.<Class<?>> asList(RawMarkup.class, ComponentTag.class,
+				WicketTag.class, HtmlSpecialTag.class, XmlTag.class, textSegment);
+		}
+		catch (Exception e)
+		{
+			throw new WicketRuntimeException("Can't access the markup classes", e);
+		}
+
+		for (Class<?> type : ELEMENT_CLASSES)
+		{
+			FIELDS.put(type, fields(type));
+		}
+	}
+
+	/**
+	 * Construct.
+	 */
+	private MarkupSerializer()
+	{
+	}
+
+	/**
+	 * Writes the markup.
+	 *
+	 * @param out
+	 * @param markup
+	 * @throws IOException
+	 *             if the markup can't be written, e.g. {@link NotSerializableException}
+	 */
+	static void write(final ObjectOutputStream out, final Markup markup) throws IOException
+	{
+		new Output(out).writeValue(markup);
+	}
+
+	/**
+	 * Reads markup written by {@link #write(ObjectOutputStream, Markup)}.
+	 *
+	 * @param in
+	 * @return the markup
+	 * @throws IOException
+	 *             if the markup can't be read, e.g. {@link InvalidClassException} if the markup
+	 *             classes have changed
+	 * @throws ClassNotFoundException
+	 */
+	static Markup read(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		final Object markup = new Input(in).readValue();
+		if ((markup instanceof Markup) == false)
+		{
+			throw new StreamCorruptedException("Not a markup: " + markup);
+		}
+		return (Markup)markup;
+	}
+
+	/**
+	 * Gets the instance fields of a class and its super classes, in a stable order.
+	 *
+	 * @param type
+	 * @return fields
+	 */
+	private static Field[] fields(final Class<?> type)
+	{
+		final List<Field> fields = new ArrayList<Field>();
+		for (Class<?> clazz = type; clazz != Object.class; clazz = clazz.getSuperclass())
+		{
+			final Field[] declared = clazz.getDeclaredFields();
+			Arrays.sort(declared, new Comparator<Field>()
+			{
+				@Override
+				public int compare(final Field field1, final Field field2)
+				{
+					return field1.getName().compareTo(field2.getName());
+				}
+			});
+			for (Field field : declared)
+			{
+				if ((Modifier.isStatic(field.getModifiers()) == false) &&
+					(field.isSynthetic() == false))
+				{
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields.toArray(new Field[fields.size()]);
+	}
+
+	/**
+	 * Creates an element whose fields are set afterwards.
+	 *
+	 * @param type
+	 * @return element
+	 * @throws Exception
+	 */
+	private static Object newElement(final Class<?> type) throws Exception
+	{
+		if (type == RawMarkup.class)
+		{
+			return new RawMarkup(null);
+		}
+		else if (type == ComponentTag.class)
+		{
+			return new ComponentTag((XmlTag)null);
+		}
+		else if (type == WicketTag.class)
+		{
+			return new WicketTag((XmlTag)null);
+		}
+		else if (type == HtmlSpecialTag.class)
+		{
+			return new HtmlSpecialTag(new XmlTag(), null);
+		}
+		else if (type == XmlTag.class)
+		{
+			return new XmlTag();
+		}
+		return TEXT_SEGMENT_CONSTRUCTOR.newInstance(null, 0, 0, 0);
+	}
+
+	/**
+	 * The state of writing a single markup.
+	 */
+	private static final class Output
+	{
+		private final ObjectOutputStream out;
+
+		/** the handles of the markup and elements written so far */
+		private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+		/** the classes whose fields have been described already */
+		private final boolean[] described = new boolean[ELEMENT_CLASSES.size()];
+
+		private Output(final ObjectOutputStream out)
+		{
+			this.out = out;
+		}
+
+		private void writeValue(final Object value) throws IOException
+		{
+			if (value == null)
+			{
+				out.writeByte(NULL);
+				return;
+			}
+
+			final Integer handle = handles.get(value);
+			if (handle != null)
+			{
+				out.writeByte(REFERENCE);
+				out.writeInt(handle);
+			}
+			else if (value instanceof Markup)
+			{
+				writeMarkup((Markup)value);
+			}
+			else if (ELEMENT_CLASSES.contains(value.getClass()))
+			{
+				writeElement(value);
+			}
+			else if (value instanceof WeakReference)
+			{
+				out.writeByte(WEAK_REFERENCE);
+				writeValue(((WeakReference<?>)value).get());
+			}
+			else if (value instanceof MarkupElement)
+			{
+				throw new NotSerializableException(value.getClass().getName());
+			}
+			else
+			{
+				out.writeByte(OBJECT);
+				out.writeObject(value);
+			}
+		}
+
+		private void writeMarkup(final Markup markup) throws IOException
+		{
+			final Class<?> type = markup.getClass();
+			if ((type != Markup.class) && (type != MergedMarkup.class))
+			{
+				throw new NotSerializableException(type.getName());
+			}
+
+			out.writeByte(MARKUP);
+			handles.put(markup, handles.size());
+
+			out.writeBoolean(type == MergedMarkup.class);
+			final MarkupResourceStream stream = markup.getMarkupResourceStream();
+			out.writeObject(stream);
+			writeValue(stream.getBaseMarkup());
+
+			out.writeInt(markup.size());
+			for (int i = 0; i < markup.size(); i++)
+			{
+				writeValue(markup.get(i));
+			}
+		}
+
+		private void writeElement(final Object element) throws IOException
+		{
+			final int index = ELEMENT_CLASSES.indexOf(element.getClass());
+			out.writeByte(ELEMENT);
+			out.writeByte(index);
+			handles.put(element, handles.size());
+
+			final Field[] fields = FIELDS.get(element.getClass());
+			if (described[index] == false)
+			{
+				described[index] = true;
+				out.writeInt(fields.length);
+				for (Field field : fields)
+				{
+					out.writeUTF(field.getName());
+				}
+			}
+
+			try
+			{
+				for (Field field : fields)
+				{
+					writeValue(field.get(element));
+				}
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new WicketRuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * The state of reading a single markup.
+	 */
+	private static final class Input
+	{
+		private final ObjectInputStream in;
+
+		/** the markup and elements read so far, by their handles */
+		private final List<Object> handles = new ArrayList<Object>();
+
+		/** the classes whose fields have been described already */
+		private final boolean[] described = new boolean[ELEMENT_CLASSES.size()];
+
+		private Input(final ObjectInputStream in)
+		{
+			this.in = in;
+		}
+
+		private Object readValue() throws IOException, ClassNotFoundException
+		{
+			final byte type = in.readByte();
+			switch (type)
+			{
+				case NULL :
+					return null;
+				case REFERENCE :
+					return handles.get(in.readInt());
+				case MARKUP :
+					return readMarkup();
+				case ELEMENT :
+					return readElement();
+				case WEAK_REFERENCE :
+					return new WeakReference<Object>(readValue());
+				case OBJECT :
+					return in.readObject();
+				default :
+					throw new StreamCorruptedException("Unknown type " + type);
+			}
+		}
+
+		private Markup readMarkup() throws IOException, ClassNotFoundException
+		{
+			final boolean merged = in.readBoolean();
+			final MarkupResourceStream stream = (MarkupResourceStream)in.readObject();
+			final Markup markup = merged ? new MergedMarkup(stream) : new Markup(stream);
+			handles.add(markup);
+
+			stream.setBaseMarkup((Markup)readValue());
+
+			final int size = in.readInt();
+			for (int i = 0; i < size; i++)
+			{
+				markup.addMarkupElement((MarkupElement)readValue());
+			}
+			markup.makeImmutable();
+			return markup;
+		}
+
+		private Object readElement() throws IOException, ClassNotFoundException
+		{
+			final int index = in.readByte();
+			final Class<?> type = ELEMENT_CLASSES.get(index);
+			final Field[] fields = FIELDS.get(type);
+			if (described[index] == false)
+			{
+				described[index] = true;
+				final String[] names = new String[in.readInt()];
+				for (int i = 0; i < names.length; i++)
+				{
+					names[i] = in.readUTF();
+				}
+				if (names.length != fields.length)
+				{
+					throw new InvalidClassException(type.getName(), "fields have changed");
+				}
+				for (int i = 0; i < names.length; i++)
+				{
+					if (names[i].equals(fields[i].getName()) == false)
+					{
+						throw new InvalidClassException(type.getName(), "fields have changed");
+					}
+				}
+			}
+
+			try
+			{
+				final Object element = newElement(type);
+				handles.add(element);
+				for (Field field : fields)
+				{
+					field.set(element, readValue());
+				}
+				return element;
+			}
+			catch (IOException e)
+			{
+				throw e;
+			}
+			catch (ClassNotFoundException e)
+			{
+				throw e;
+			}
+			catch (Exception e)
+			{
+				final InvalidClassException exception = new InvalidClassException(type.getName(),
+					"can't be restored");
+				exception.initCause(e);
+				throw exception;
+			}
+		}
+	}
+}
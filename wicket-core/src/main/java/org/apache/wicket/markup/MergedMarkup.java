@@ -90,6 +90,18 @@ public class MergedMarkup extends Markup
 		}
 	}
 
+	/**
+	 * Constructor for merged markup restored by a {@link MarkupSerializer}, the elements are
+	 * added by the caller.
+	 * 
+	 * @param markupResourceStream
+	 *            The resource stream of the inherited markup, holding the base markup
+	 */
+	MergedMarkup(final MarkupResourceStream markupResourceStream)
+	{
+		super(markupResourceStream);
+	}
+
 	@Override
 	public String locationAsString()
 	{
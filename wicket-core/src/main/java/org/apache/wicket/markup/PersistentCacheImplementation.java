@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.application.IClassResolver;
+import org.apache.wicket.markup.MarkupCache.ICache;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.IFixedLocationResourceStream;
+import org.apache.wicket.util.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A markup cache implementation which keeps the parsed markup in a local file across restarts of
+ * the application.
+ * <p>
+ * The markup is written to the file on {@link #shutdown()}. On startup the file is read, but
+ * every markup is deserialized only when it is first requested. It is used only if none of the
+ * resources it has been loaded from, including the base markup of inherited markup, has been
+ * modified since. Otherwise, or if the markup can't be deserialized anymore, it is loaded and
+ * parsed anew. Markup not loaded from a file or url, e.g. provided by an
+ * {@link IMarkupResourceStreamProvider}, and markup which can't be written, e.g. because of
+ * non-serializable user data of a markup filter, is not persisted.
+ * <p>
+ * Markup restored from the file isn't watched for changes, thus this implementation is meant for
+ * the deployment mode:
+ * 
+ * <pre>
+ * getMarkupSettings().setMarkupFactory(new MarkupFactory()
+ * {
+ * 	private IMarkupCache markupCache;
+ * 
+ * 	&#064;Override
+ * 	public IMarkupCache getMarkupCache()
+ * 	{
+ * 		if (markupCache == null)
+ * 		{
+ * 			markupCache = new MarkupCache()
+ * 			{
+ * 				&#064;Override
+ * 				protected ICache&lt;String, Markup&gt; newMarkupCacheImplementation()
+ * 				{
+ * 					return new PersistentCacheImplementation(Application.get());
+ * 				}
+ * 			};
+ * 		}
+ * 		return markupCache;
+ * 	}
+ * });
+ * </pre>
+ * 
+ * @see MarkupCache#newMarkupCacheImplementation()
+ */
+public class PersistentCacheImplementation implements ICache<String, Markup>
+{
+	private static final Logger log = LoggerFactory.getLogger(PersistentCacheImplementation.class);
+
+	/** identifies the format of the file */
+	private static final int MAGIC = 0x574D4301;
+
+	/** the file holding the markup */
+	private final File file;
+
+	/** the version of Wicket, markup persisted by another version is discarded */
+	private final String version;
+
+	private final IClassResolver classResolver;
+
+	/** the markup in use, neither key nor value are allowed to be null */
+	private final ConcurrentHashMap<String, Markup> cache = new ConcurrentHashMap<String, Markup>();
+
+	/** the markup read from the file, not yet requested */
+	private final ConcurrentHashMap<String, Entry> persisted = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Construct with a file in the file store folder of the application.
+	 * 
+	 * @param application
+	 */
+	public PersistentCacheImplementation(final Application application)
+	{
+		this(application, new File(application.getStoreSettings().getFileStoreFolder(),
+			application.getName() + "-markup.cache"));
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param application
+	 * @param file
+	 *            the file holding the markup
+	 */
+	public PersistentCacheImplementation(final Application application, final File file)
+	{
+		Args.notNull(application, "application");
+		this.file = Args.notNull(file, "file");
+
+		version = String.valueOf(application.getFrameworkSettings().getVersion());
+		classResolver = application.getApplicationSettings().getClassResolver();
+
+		read();
+	}
+
+	/**
+	 * @return the file holding the markup
+	 */
+	public final File getFile()
+	{
+		return file;
+	}
+
+	@Override
+	public void clear()
+	{
+		cache.clear();
+		persisted.clear();
+	}
+
+	@Override
+	public boolean containsKey(final String key)
+	{
+		return get(key) != null;
+	}
+
+	@Override
+	public Markup get(final String key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+
+		Markup markup = cache.get(key);
+		if (markup == null)
+		{
+			markup = restore(key);
+		}
+		return markup;
+	}
+
+	@Override
+	public Collection<String> getKeys()
+	{
+		Set<String> keys = new HashSet<String>(cache.keySet());
+		keys.addAll(persisted.keySet());
+		return keys;
+	}
+
+	/**
+	 * Gets the markup in use, markup still in the file only is not deserialized for this.
+	 * 
+	 * @see MarkupCache.ICache#getValues()
+	 */
+	@Override
+	public Collection<Markup> getValues()
+	{
+		return cache.values();
+	}
+
+	@Override
+	public void put(final String key, final Markup value)
+	{
+		cache.put(key, value);
+		persisted.remove(key);
+	}
+
+	@Override
+	public boolean remove(final String key)
+	{
+		if (key == null)
+		{
+			return false;
+		}
+		boolean removed = cache.remove(key) != null;
+		return (persisted.remove(key) != null) || removed;
+	}
+
+	@Override
+	public int size()
+	{
+		return cache.size() + persisted.size();
+	}
+
+	/**
+	 * Writes the markup to the file before clearing the cache.
+	 */
+	@Override
+	public void shutdown()
+	{
+		write();
+		clear();
+	}
+
+	/**
+	 * Writes all markup to the file, the markup in use as well as the markup not yet requested.
+	 */
+	public void write()
+	{
+		final File temp = new File(file.getPath() + ".tmp");
+		int count = 0;
+		try
+		{
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+			try
+			{
+				out.writeInt(MAGIC);
+				out.writeUTF(version);
+
+				for (Map.Entry<String, Markup> markup : cache.entrySet())
+				{
+					final Entry entry = newEntry(markup.getValue());
+					if (entry != null)
+					{
+						write(out, markup.getKey(), entry);
+						count++;
+					}
+				}
+				for (Map.Entry<String, Entry> entry : persisted.entrySet())
+				{
+					write(out, entry.getKey(), entry.getValue());
+					count++;
+				}
+				out.writeBoolean(false);
+			}
+			finally
+			{
+				out.close();
+			}
+
+			Files.remove(file);
+			if (temp.renameTo(file) == false)
+			{
+				throw new IOException("Can't rename " + temp + " to " + file);
+			}
+			log.debug("Wrote {} markup to {}", count, file);
+		}
+		catch (IOException e)
+		{
+			log.error("Couldn't write markup cache to file " + file, e);
+			Files.remove(temp);
+		}
+	}
+
+	private static void write(final DataOutputStream out, final String key, final Entry entry)
+		throws IOException
+	{
+		out.writeBoolean(true);
+		out.writeUTF(key);
+		out.writeInt(entry.lastModified.length);
+		for (long time : entry.lastModified)
+		{
+			out.writeLong(time);
+		}
+		out.writeInt(entry.data.length);
+		out.write(entry.data);
+	}
+
+	/**
+	 * Reads the markup from the file, markup of another Wicket version is discarded.
+	 */
+	private void read()
+	{
+		if (file.exists() == false)
+		{
+			return;
+		}
+
+		InputStream stream = null;
+		try
+		{
+			stream = new FileInputStream(file);
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+			if ((in.readInt() != MAGIC) || (version.equals(in.readUTF()) == false))
+			{
+				log.info("Discarding markup cache file {} of another version", file);
+				return;
+			}
+
+			while (in.readBoolean())
+			{
+				final String key = in.readUTF();
+				final long[] lastModified = new long[in.readInt()];
+				for (int i = 0; i < lastModified.length; i++)
+				{
+					lastModified[i] = in.readLong();
+				}
+				final byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+
+				persisted.put(key, new Entry(data, lastModified));
+			}
+			log.debug("Read {} markup from {}", persisted.size(), file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Couldn't read markup cache from file " + file, e);
+			persisted.clear();
+		}
+		finally
+		{
+			IOUtils.closeQuietly(stream);
+		}
+	}
+
+	/**
+	 * Restores markup from the file, if it's still valid.
+	 * 
+	 * @param key
+	 * @return the markup or <code>null</code>
+	 */
+	private Markup restore(final String key)
+	{
+		final Entry entry = persisted.remove(key);
+		if (entry == null)
+		{
+			return null;
+		}
+
+		final Markup markup;
+		try
+		{
+			final ObjectInputStream in = new ClassResolverObjectInputStream(
+				new ByteArrayInputStream(entry.data), classResolver);
+			markup = MarkupSerializer.read(in);
+		}
+		catch (Exception e)
+		{
+			log.debug("Couldn't restore markup " + key, e);
+			return null;
+		}
+
+		if (Arrays.equals(entry.lastModified, lastModified(markup)) == false)
+		{
+			log.debug("Markup {} has been modified", key);
+			return null;
+		}
+
+		final Markup existing = cache.putIfAbsent(key, markup);
+		return existing != null ? existing : markup;
+	}
+
+	/**
+	 * Serializes the markup.
+	 * 
+	 * @param markup
+	 * @return the entry or <code>null</code> if the markup can't be persisted
+	 */
+	private Entry newEntry(final Markup markup)
+	{
+		final long[] lastModified = lastModified(markup);
+		if (lastModified == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final ObjectOutputStream out = new ObjectOutputStream(bytes);
+			MarkupSerializer.write(out, markup);
+			out.close();
+			return new Entry(bytes.toByteArray(), lastModified);
+		}
+		catch (IOException e)
+		{
+			log.debug("Couldn't serialize markup " + markup.getMarkupResourceStream(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the modification times of the resources the markup was loaded from.
+	 * 
+	 * @param markup
+	 * @return modification times or <code>null</code> if one of the resources isn't located in a
+	 *         file or url
+	 */
+	private static long[] lastModified(final Markup markup)
+	{
+		if (markup == Markup.NO_MARKUP)
+		{
+			return null;
+		}
+
+		final List<Long> times = new ArrayList<Long>(2);
+		MarkupResourceStream stream = markup.getMarkupResourceStream();
+		for (; stream != null; stream = stream.getBaseMarkupResourceStream())
+		{
+			if ((stream.getResource() instanceof IFixedLocationResourceStream) == false)
+			{
+				return null;
+			}
+			final Time time = stream.lastModifiedTime();
+			if (time == null)
+			{
+				return null;
+			}
+			times.add(time.getMilliseconds());
+		}
+
+		final long[] lastModified = new long[times.size()];
+		for (int i = 0; i < lastModified.length; i++)
+		{
+			lastModified[i] = times.get(i);
+		}
+		return lastModified;
+	}
+
+	/**
+	 * Serialized markup and the modification times of its resources.
+	 */
+	private static final class Entry
+	{
+		private final byte[] data;
+
+		private final long[] lastModified;
+
+		private Entry(final byte[] data, final long[] lastModified)
+		{
+			this.data = data;
+			this.lastModified = lastModified;
+		}
+	}
+
+	/**
+	 * Resolves classes with the class resolver of the application if necessary.
+	 */
+	private static final class ClassResolverObjectInputStream extends ObjectInputStream
+	{
+		private final IClassResolver classResolver;
+
+		private ClassResolverObjectInputStream(final InputStream in,
+			final IClassResolver classResolver) throws IOException
+		{
+			super(in);
+			this.classResolver = classResolver;
+		}
+
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException,
+			ClassNotFoundException
+		{
+			try
+			{
+				return super.resolveClass(desc);
+			}
+			catch (ClassNotFoundException e)
+			{
+				return classResolver.resolveClass(desc.getName());
+			}
+		}
+	}
+}
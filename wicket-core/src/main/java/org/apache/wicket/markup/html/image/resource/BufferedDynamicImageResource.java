@@ -17,8 +17,14 @@
 package org.apache.wicket.markup.html.image.resource;
 
 import java.awt.image.BufferedImage;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.request.resource.DynamicImageCache;
 import org.apache.wicket.request.resource.DynamicImageResource;
+import org.apache.wicket.util.string.Strings;
 
 /**
  * A DynamicImageResource subclass that holds a BufferedImage generated by code elsewhere. The image
@@ -30,6 +36,9 @@ import org.apache.wicket.request.resource.DynamicImageResource;
  * The format of the image (and therefore the resource's extension) can be specified with
  * setFormat(String). The default format is "PNG" because JPEG is lossy and makes generated images
  * look bad and GIF has patent issues.
+ * <p>
+ * Images with the same pixels are encoded once, their data is shared through the application's
+ * {@link DynamicImageCache}.
  * 
  * @see org.apache.wicket.markup.html.image.resource.RenderedDynamicImageResource
  * @author Jonathan Locke
@@ -64,7 +73,64 @@ public class BufferedDynamicImageResource extends DynamicImageResource
 	 */
 	public synchronized void setImage(final BufferedImage image)
 	{
-		imageData = toImageData(image);
+		if (Application.exists())
+		{
+			final String key = getImageCacheKey(image);
+			final DynamicImageCache cache = DynamicImageCache.get(Application.get());
+			byte[] data = cache.get(key);
+			if (data == null)
+			{
+				data = toImageData(image);
+				cache.put(key, data);
+			}
+			imageData = data;
+		}
+		else
+		{
+			imageData = toImageData(image);
+		}
+	}
+
+	/**
+	 * Gets the key of an image in the {@link DynamicImageCache}, consisting of the format, the
+	 * type, the size and a digest of the pixels of the image.
+	 * 
+	 * @param image
+	 * @return key
+	 */
+	private String getImageCacheKey(final BufferedImage image)
+	{
+		final MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		final int[] pixels = new int[width];
+		final byte[] bytes = new byte[width * 4];
+		for (int y = 0; y < height; y++)
+		{
+			image.getRGB(0, y, width, 1, pixels, 0, width);
+			for (int x = 0, i = 0; x < width; x++)
+			{
+				final int pixel = pixels[x];
+				bytes[i++] = (byte)(pixel >>> 24);
+				bytes[i++] = (byte)(pixel >>> 16);
+				bytes[i++] = (byte)(pixel >>> 8);
+				bytes[i++] = (byte)pixel;
+			}
+			digest.update(bytes);
+		}
+
+		return BufferedDynamicImageResource.class.getName() + '|' + getFormat() + '|' +
+			image.getType() + '|' + width + 'x' + height + '|' +
+			Strings.toHexString(digest.digest());
 	}
 
 	@Override
@@ -226,6 +226,40 @@ public class DefaultButtonImageResource extends RenderedDynamicImageResource
 		invalidate();
 	}
 
+	/**
+	 * Buttons with the same label, size and style share their image.
+	 * 
+	 * @see org.apache.wicket.markup.html.image.resource.RenderedDynamicImageResource#getImageCacheKey()
+	 */
+	@Override
+	protected synchronized String getImageCacheKey()
+	{
+		return new StringBuilder(128).append(getClass().getName())
+			.append('|')
+			.append(label)
+			.append('|')
+			.append(getWidth())
+			.append('x')
+			.append(getHeight())
+			.append('|')
+			.append(getType())
+			.append('|')
+			.append(getFormat())
+			.append('|')
+			.append(arcWidth)
+			.append('x')
+			.append(arcHeight)
+			.append('|')
+			.append(backgroundColorRgb)
+			.append('|')
+			.append(colorRgb)
+			.append('|')
+			.append(textColorRgb)
+			.append('|')
+			.append(fontAttributes)
+			.toString();
+	}
+
 	/**
 	 * Renders button image.
 	 * 
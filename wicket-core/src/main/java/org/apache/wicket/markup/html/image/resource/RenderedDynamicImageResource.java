@@ -20,6 +20,8 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.lang.ref.SoftReference;
 
+import org.apache.wicket.Application;
+import org.apache.wicket.request.resource.DynamicImageCache;
 import org.apache.wicket.request.resource.DynamicImageResource;
 import org.apache.wicket.util.time.Time;
 
@@ -34,6 +36,10 @@ import org.apache.wicket.util.time.Time;
  * The format of the image (and therefore the resource's extension) can be specified with
  * setFormat(String). The default format is "PNG" because JPEG is lossy and makes generated images
  * look bad and GIF has patent issues.
+ * <p>
+ * Subclasses rendering the same image for the same inputs should override
+ * {@link #getImageCacheKey()}, then all resources with equal inputs share their image through the
+ * application's {@link DynamicImageCache}.
  * 
  * @see org.apache.wicket.markup.html.image.resource.DefaultButtonImageResource
  * @see org.apache.wicket.markup.html.image.resource.DefaultButtonImageResourceFactory
@@ -161,13 +167,40 @@ public abstract class RenderedDynamicImageResource extends DynamicImageResource
 		}
 		if (data == null)
 		{
-			data = render(attributes);
+			final String key = Application.exists() ? getImageCacheKey() : null;
+			if (key == null)
+			{
+				data = render(attributes);
+			}
+			else
+			{
+				final DynamicImageCache cache = DynamicImageCache.get(Application.get());
+				data = cache.get(key);
+				if (data == null)
+				{
+					data = render(attributes);
+					cache.put(key, data);
+				}
+			}
 			imageData = new SoftReference<byte[]>(data);
 			setLastModifiedTime(Time.now());
 		}
 		return data;
 	}
 
+	/**
+	 * Gets the key of the image in the application's {@link DynamicImageCache}. The key has to
+	 * identify all inputs of the rendering, e.g. the size, the type and the format of the image and
+	 * all properties of the subclass the image depends on.
+	 * 
+	 * @return the key, or <code>null</code> if the image is not shared with other resources, the
+	 *         default
+	 */
+	protected String getImageCacheKey()
+	{
+		return null;
+	}
+
 	/**
 	 * Renders this image
 	 * 
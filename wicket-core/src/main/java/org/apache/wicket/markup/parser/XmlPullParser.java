@@ -28,8 +28,6 @@ import org.apache.wicket.util.io.FullyBufferedReader;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.XmlReader;
 import org.apache.wicket.util.lang.Args;
-import org.apache.wicket.util.parse.metapattern.parsers.TagNameParser;
-import org.apache.wicket.util.parse.metapattern.parsers.VariableAssignmentParser;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.apache.wicket.util.string.Strings;
 
@@ -224,11 +222,14 @@ public final class XmlPullParser implements IXmlPullParser
 		}
 
 		// Get the complete tag text
-		lastText = input.getSubstring(openBracketIndex, closeBracketIndex + 1);
-
-		// Get the tagtext between open and close brackets
-		String tagText = lastText.subSequence(1, lastText.length() - 1).toString();
-		if (tagText.length() == 0)
+		final String text = input.getSubstring(openBracketIndex, closeBracketIndex + 1)
+			.toString();
+		lastText = text;
+
+		// The tag text is scanned in place, between open and close brackets
+		int start = 1;
+		int end = text.length() - 1;
+		if (start == end)
 		{
 			throw new ParseException("Found empty tag: '<>' at" + getLineAndColumnText(),
 				input.getPosition());
@@ -238,16 +239,16 @@ public final class XmlPullParser implements IXmlPullParser
 		final TagType type;
 
 		// If the tag ends in '/', it's a "simple" tag like <foo/>
-		if (tagText.endsWith("/"))
+		if (text.charAt(end - 1) == '/')
 		{
 			type = TagType.OPEN_CLOSE;
-			tagText = tagText.substring(0, tagText.length() - 1);
+			end--;
 		}
-		else if (tagText.startsWith("/"))
+		else if (text.charAt(start) == '/')
 		{
 			// The tag text starts with a '/', it's a simple close tag
 			type = TagType.CLOSE;
-			tagText = tagText.substring(1);
+			start++;
 		}
 		else
 		{
@@ -255,16 +256,15 @@ public final class XmlPullParser implements IXmlPullParser
 			type = TagType.OPEN;
 
 			// If open tag and starts with "s" like "script" or "style", than ...
-			if ((tagText.length() > STYLE.length()) &&
-				((tagText.charAt(0) == 's') || (tagText.charAt(0) == 'S')))
+			if ((end - start > STYLE.length()) &&
+				((text.charAt(start) == 's') || (text.charAt(start) == 'S')))
 			{
-				final String lowerCase = tagText.substring(0, 6).toLowerCase();
-				if (lowerCase.startsWith(SCRIPT))
+				if (text.regionMatches(true, start, SCRIPT, 0, SCRIPT.length()))
 				{
 					// prepare to skip everything between the open and close tag
 					skipUntilText = SCRIPT;
 				}
-				else if (lowerCase.startsWith(STYLE))
+				else if (text.regionMatches(true, start, STYLE, 0, STYLE.length()))
 				{
 					// prepare to skip everything between the open and close tag
 					skipUntilText = STYLE;
@@ -272,27 +272,32 @@ public final class XmlPullParser implements IXmlPullParser
 			}
 		}
 
+		if (start == end)
+		{
+			throw new ParseException("Malformed tag" + getLineAndColumnText(), openBracketIndex);
+		}
+
 		// Handle special tags like <!-- and <![CDATA ...
-		final char firstChar = tagText.charAt(0);
+		final char firstChar = text.charAt(start);
 		if ((firstChar == '!') || (firstChar == '?'))
 		{
-			specialTagHandling(tagText, openBracketIndex, closeBracketIndex);
+			specialTagHandling(text.substring(start, end), openBracketIndex, closeBracketIndex);
 
 			input.countLinesTo(openBracketIndex);
-			TextSegment text = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
-				input.getColumnNumber());
-			lastTag = new XmlTag(text, type);
+			TextSegment segment = new TextSegment(lastText, openBracketIndex,
+				input.getLineNumber(), input.getColumnNumber());
+			lastTag = new XmlTag(segment, type);
 
 			return lastType;
 		}
 
-		TextSegment text = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
+		TextSegment segment = new TextSegment(lastText, openBracketIndex, input.getLineNumber(),
 			input.getColumnNumber());
-		XmlTag tag = new XmlTag(text, type);
+		XmlTag tag = new XmlTag(segment, type);
 		lastTag = tag;
 
 		// Parse the tag text and populate tag attributes
-		if (parseTagText(tag, tagText))
+		if (parseTagText(tag, text, start, end))
 		{
 			// Move to position after the tag
 			input.setPosition(closeBracketIndex + 1);
@@ -613,83 +618,189 @@ public final class XmlPullParser implements IXmlPullParser
 
 	/**
 	 * Parses the text between tags. For example, "a href=foo.html".
+	 * <p>
+	 * The text is scanned in place, following the rules of the former regular expressions: the tag
+	 * name is an xml name with an optional namespace, each attribute is a key with an optional
+	 * namespace and an optional value, which is either a word (letters, digits, '_', '-' and '.')
+	 * or quoted with double or single quotes. Anything not matching is skipped.
 	 * 
 	 * @param tag
-	 * @param tagText
-	 *            The text between tags
+	 * @param text
+	 *            The text of the tag including the brackets
+	 * @param start
+	 *            index of the first char after the bracket and slash
+	 * @param end
+	 *            index of the closing bracket or slash
 	 * @return false in case of an error
 	 * @throws ParseException
 	 */
-	private boolean parseTagText(final XmlTag tag, final String tagText) throws ParseException
+	private boolean parseTagText(final XmlTag tag, final String text, final int start,
+		final int end) throws ParseException
 	{
-		// Get the length of the tagtext
-		final int tagTextLength = tagText.length();
+		if (isNameStart(text.charAt(start)) == false)
+		{
+			return false;
+		}
 
-		// If we match tagname pattern
-		final TagNameParser tagnameParser = new TagNameParser(tagText);
-		if (tagnameParser.matcher().lookingAt())
+		// Extract the tag name and namespace
+		int pos = scanXmlName(text, start, end);
+		final int namespaceEnd = scanNamespace(text, start, end);
+		if (namespaceEnd != -1)
 		{
-			// Extract the tag from the pattern matcher
-			tag.name = tagnameParser.getName();
-			tag.namespace = tagnameParser.getNamespace();
+			tag.namespace = text.substring(start, namespaceEnd).toLowerCase();
+			tag.name = text.substring(namespaceEnd + 1, pos = scanXmlName(text,
+				namespaceEnd + 1, end));
+		}
+		else
+		{
+			tag.name = text.substring(start, pos);
+		}
 
-			// Are we at the end? Then there are no attributes, so we just
-			// return the tag
-			int pos = tagnameParser.matcher().end(0);
-			if (pos == tagTextLength)
+		// Extract attributes
+		while (pos < end)
+		{
+			// skip to the start of the next key
+			while ((pos < end) && (isNameStart(text.charAt(pos)) == false))
 			{
-				return true;
+				pos++;
 			}
-
-			// Extract attributes
-			final VariableAssignmentParser attributeParser = new VariableAssignmentParser(tagText);
-			while (attributeParser.matcher().find(pos))
+			if (pos == end)
 			{
-				// Get key and value using attribute pattern
-				String value = attributeParser.getValue();
-
-				// In case like <html xmlns:wicket> will the value be null
-				if (value == null)
-				{
-					value = "";
-				}
+				break;
+			}
 
-				// Set new position to end of attribute
-				pos = attributeParser.matcher().end(0);
+			final int keyStart = pos;
+			final int keyNamespaceEnd = scanNamespace(text, keyStart, end);
+			pos = scanXmlName(text, (keyNamespaceEnd == -1) ? keyStart : keyNamespaceEnd + 1, end);
+			final String key = text.substring(keyStart, pos);
 
-				// Chop off double quotes or single quotes
-				if (value.startsWith("\"") || value.startsWith("\'"))
+			// In case like <html xmlns:wicket> will the value be empty
+			String value = "";
+			int valueStart = skipWhitespace(text, pos, end);
+			if ((valueStart < end) && (text.charAt(valueStart) == '='))
+			{
+				valueStart = skipWhitespace(text, valueStart + 1, end);
+				if (valueStart < end)
 				{
-					value = value.substring(1, value.length() - 1);
+					final char c = text.charAt(valueStart);
+					if (isWordChar(c))
+					{
+						int valueEnd = valueStart + 1;
+						while ((valueEnd < end) && isWordChar(text.charAt(valueEnd)))
+						{
+							valueEnd++;
+						}
+						value = text.substring(valueStart, valueEnd);
+						pos = valueEnd;
+					}
+					else if ((c == '"') || (c == '\''))
+					{
+						// Chop off double quotes or single quotes
+						final int quoteEnd = text.indexOf(c, valueStart + 1);
+						if ((quoteEnd != -1) && (quoteEnd < end))
+						{
+							value = text.substring(valueStart + 1, quoteEnd);
+							pos = quoteEnd + 1;
+						}
+					}
 				}
+			}
 
-				// Trim trailing whitespace
-				value = value.trim();
+			// Trim trailing whitespace
+			value = value.trim();
 
-				// Unescape
-				value = Strings.unescapeMarkup(value).toString();
+			// Unescape
+			value = Strings.unescapeMarkup(value).toString();
 
-				// Get key
-				final String key = attributeParser.getKey();
+			// Put the attribute in the attributes hash
+			if (null != tag.getAttributes().put(key, value))
+			{
+				throw new ParseException("Same attribute found twice: " + key +
+					getLineAndColumnText(), input.getPosition());
+			}
+		}
 
-				// Put the attribute in the attributes hash
-				if (null != tag.getAttributes().put(key, value))
-				{
-					throw new ParseException("Same attribute found twice: " + key +
-						getLineAndColumnText(), input.getPosition());
-				}
+		return true;
+	}
 
-				// The input has to match exactly (no left over junk after
-				// attributes)
-				if (pos == tagTextLength)
-				{
-					return true;
-				}
+	/**
+	 * Scans an optional namespace, i.e. a variable name followed by a colon and an xml name.
+	 * 
+	 * @param text
+	 * @param start
+	 *            index of a name start char
+	 * @param end
+	 * @return the index of the colon or -1 if there is no namespace
+	 */
+	private static int scanNamespace(final String text, final int start, final int end)
+	{
+		int pos = start + 1;
+		while ((pos < end) && isVariableChar(text.charAt(pos)))
+		{
+			pos++;
+		}
+		if ((pos + 1 < end) && (text.charAt(pos) == ':') && isNameStart(text.charAt(pos + 1)))
+		{
+			return pos;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param text
+	 * @param start
+	 *            index of a name start char
+	 * @param end
+	 * @return the index after the xml name
+	 */
+	private static int scanXmlName(final String text, final int start, final int end)
+	{
+		int pos = start + 1;
+		while (pos < end)
+		{
+			final char c = text.charAt(pos);
+			if ((isVariableChar(c) == false) && (c != '.') && (c != '-'))
+			{
+				break;
 			}
+			pos++;
+		}
+		return pos;
+	}
 
-			return true;
+	/**
+	 * @param text
+	 * @param pos
+	 * @param end
+	 * @return the index of the first char which is no whitespace
+	 */
+	private static int skipWhitespace(final String text, int pos, final int end)
+	{
+		while (pos < end)
+		{
+			final char c = text.charAt(pos);
+			if ((c != ' ') && (c != '\t') && (c != '\n') && (c != '\r') && (c != '\f') &&
+				(c != '\u000B'))
+			{
+				break;
+			}
+			pos++;
 		}
+		return pos;
+	}
+
+	private static boolean isNameStart(final char c)
+	{
+		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || (c == '_');
+	}
 
-		return false;
+	private static boolean isVariableChar(final char c)
+	{
+		return isNameStart(c) || ((c >= '0') && (c <= '9'));
+	}
+
+	private static boolean isWordChar(final char c)
+	{
+		return isVariableChar(c) || (c == '-') || (c == '.');
 	}
 }
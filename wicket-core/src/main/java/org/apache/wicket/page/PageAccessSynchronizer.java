@@ -17,14 +17,12 @@
 package org.apache.wicket.page;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.settings.IExceptionSettings.ThreadDumpStrategy;
 import org.apache.wicket.util.IProvider;
 import org.apache.wicket.util.LazyInitializer;
+import org.apache.wicket.util.collections.ConcurrentIntHashMap;
 import org.apache.wicket.util.lang.Threads;
 import org.apache.wicket.util.time.Duration;
 import org.apache.wicket.util.time.Time;
@@ -43,14 +41,14 @@ public class PageAccessSynchronizer implements Serializable
 	private static final Logger logger = LoggerFactory.getLogger(PageAccessSynchronizer.class);
 
 	/** map of which pages are owned by which threads */
-	private final IProvider<ConcurrentMap<Integer, PageLock>> locks = new LazyInitializer<ConcurrentMap<Integer, PageLock>>()
+	private final IProvider<ConcurrentIntHashMap<PageLock>> locks = new LazyInitializer<ConcurrentIntHashMap<PageLock>>()
 	{
 		private static final long serialVersionUID = 1L;
 
 		@Override
-		protected ConcurrentMap<Integer, PageLock> createInstance()
+		protected ConcurrentIntHashMap<PageLock> createInstance()
 		{
-			return new ConcurrentHashMap<Integer, PageLock>();
+			return new ConcurrentIntHashMap<PageLock>();
 		}
 	};
 
@@ -177,7 +175,14 @@ public class PageAccessSynchronizer implements Serializable
 	 */
 	public void unlockAllPages()
 	{
-		internalUnlockPages(null);
+		final Thread thread = Thread.currentThread();
+		for (PageLock lock : locks.get().values())
+		{
+			if (lock.thread == thread)
+			{
+				unlock(lock);
+			}
+		}
 	}
 
 	/**
@@ -188,43 +193,37 @@ public class PageAccessSynchronizer implements Serializable
 	 */
 	public void unlockPage(int pageId)
 	{
-		internalUnlockPages(pageId);
+		final PageLock lock = locks.get().get(pageId);
+		if ((lock != null) && (lock.thread == Thread.currentThread()))
+		{
+			unlock(lock);
+		}
 	}
 
-	private void internalUnlockPages(final Integer pageId)
+	/**
+	 * Releases a lock held by the current thread.
+	 * 
+	 * @param lock
+	 */
+	private void unlock(final PageLock lock)
 	{
-		final Thread thread = Thread.currentThread();
-		final Iterator<PageLock> locks = this.locks.get().values().iterator();
-
 		final boolean isDebugEnabled = logger.isDebugEnabled();
 
-		while (locks.hasNext())
+		if (locks.get().remove(lock.pageId, lock))
 		{
-			// remove all locks held by this thread if 'pageId' is not specified
-			// otherwise just the lock for this 'pageId'
-			final PageLock lock = locks.next();
-			if ((pageId == null || pageId == lock.pageId) && lock.thread == thread)
+			if (isDebugEnabled)
+			{
+				logger.debug("'{}' released lock to page with id '{}'", lock.thread.getName(),
+					lock.pageId);
+			}
+			// notify threads waiting for the lock
+			synchronized (lock)
 			{
-				locks.remove();
 				if (isDebugEnabled)
 				{
-					logger.debug("'{}' released lock to page with id '{}'", thread.getName(),
-						lock.pageId);
-				}
-				// if any locks were removed notify threads waiting for a lock
-				synchronized (lock)
-				{
-					if (isDebugEnabled)
-					{
-						logger.debug("'{}' notifying blocked threads", thread.getName());
-					}
-					lock.notifyAll();
-				}
-				if (pageId != null)
-				{
-					// unlock just the page with the specified id
-					break;
+					logger.debug("'{}' notifying blocked threads", lock.thread.getName());
 				}
+				lock.notifyAll();
 			}
 		}
 	}
@@ -232,7 +231,7 @@ public class PageAccessSynchronizer implements Serializable
 	/*
 	 * used by tests
 	 */
-	IProvider<ConcurrentMap<Integer, PageLock>> getLocks()
+	IProvider<ConcurrentIntHashMap<PageLock>> getLocks()
 	{
 		return locks;
 	}
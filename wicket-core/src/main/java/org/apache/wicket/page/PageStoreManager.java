@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.wicket.pageStore.IBatchPageStore;
 import org.apache.wicket.pageStore.IPageStore;
 
 /**
@@ -156,10 +157,23 @@ public class PageStoreManager extends AbstractPageManager
 				sessionCache = new ArrayList<IManageablePage>();
 			}
 
-			for (Object o : afterReadObject)
+			IPageStore pageStore = getPageStore();
+			if (pageStore instanceof IBatchPageStore)
+			{
+				// e.g. the pages stripped by the store are loaded at once
+				IBatchPageStore batchPageStore = (IBatchPageStore)pageStore;
+				for (IManageablePage page : batchPageStore.convertToPages(afterReadObject.toArray()))
+				{
+					addPage(page);
+				}
+			}
+			else
 			{
-				IManageablePage page = getPageStore().convertToPage(o);
-				addPage(page);
+				for (Object o : afterReadObject)
+				{
+					IManageablePage page = pageStore.convertToPage(o);
+					addPage(page);
+				}
 			}
 
 			afterReadObject = null;
@@ -41,7 +41,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Matej Knopp
  */
-public class AsynchronousDataStore implements IDataStore
+public class AsynchronousDataStore implements IBatchDataStore
 {
 	/** Log for reporting. */
 	private static final Logger log = LoggerFactory.getLogger(AsynchronousDataStore.class);
@@ -152,6 +152,50 @@ public class AsynchronousDataStore implements IDataStore
 		return data;
 	}
 
+	/**
+	 * @see org.apache.wicket.pageStore.IBatchDataStore#getData(java.lang.String, int[])
+	 */
+	@Override
+	public byte[][] getData(final String sessionId, final int[] ids)
+	{
+		final byte[][] data = new byte[ids.length][];
+
+		// the data of entries not stored yet is taken from the queue, the rest is loaded at once
+		int stored = 0;
+		final int[] storedIndices = new int[ids.length];
+		for (int i = 0; i < ids.length; i++)
+		{
+			Entry entry = getEntry(sessionId, ids[i]);
+			if (entry != null)
+			{
+				data[i] = entry.data;
+			}
+			else
+			{
+				storedIndices[stored++] = i;
+			}
+		}
+
+		if (stored > 0)
+		{
+			final int[] storedIds = new int[stored];
+			for (int i = 0; i < stored; i++)
+			{
+				storedIds[i] = ids[storedIndices[i]];
+			}
+			final byte[][] storedData = DataStores.getData(dataStore, sessionId, storedIds);
+			for (int i = 0; i < stored; i++)
+			{
+				data[storedIndices[i]] = storedData[i];
+			}
+		}
+
+		log.debug("Returning the data of {} entries with sessionId '{}', {} of them stored",
+			new Object[] { ids.length, sessionId, stored });
+
+		return data;
+	}
+
 	/**
 	 * @see org.apache.wicket.pageStore.IDataStore#isReplicated()
 	 */
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+/**
+ * Utilities for {@link IDataStore}s.
+ */
+public final class DataStores
+{
+	/**
+	 * Construct.
+	 */
+	private DataStores()
+	{
+	}
+
+	/**
+	 * Gets the data of several pages at once if the data store is an {@link IBatchDataStore},
+	 * otherwise page by page.
+	 * 
+	 * @param dataStore
+	 * @param sessionId
+	 *            Session ID
+	 * @param ids
+	 *            Page IDs
+	 * @return the page data in the order of the ids, <code>null</code> for pages which are not
+	 *         persisted
+	 */
+	public static byte[][] getData(final IDataStore dataStore, final String sessionId,
+		final int[] ids)
+	{
+		if (dataStore instanceof IBatchDataStore)
+		{
+			return ((IBatchDataStore)dataStore).getData(sessionId, ids);
+		}
+
+		final byte[][] data = new byte[ids.length][];
+		for (int i = 0; i < ids.length; i++)
+		{
+			data[i] = dataStore.getData(sessionId, ids[i]);
+		}
+		return data;
+	}
+}
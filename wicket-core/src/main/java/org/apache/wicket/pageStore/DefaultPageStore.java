@@ -35,7 +35,7 @@ import org.slf4j.LoggerFactory;
  * direction when loading {@link SerializedPage} from the data store.
  * 
  */
-public class DefaultPageStore implements IPageStore
+public class DefaultPageStore implements IBatchPageStore
 {
 	private static final Logger LOG = LoggerFactory.getLogger(DefaultPageStore.class);
 
@@ -48,6 +48,9 @@ public class DefaultPageStore implements IPageStore
 	 */
 	private final ISerializer pageSerializer;
 
+	/** whether a subclass overrides {@link #getPageData(String, int)} */
+	private final boolean pageDataOverridden;
+
 	/**
 	 * Construct.
 	 * 
@@ -68,6 +71,31 @@ public class DefaultPageStore implements IPageStore
 		this.pageSerializer = pageSerializer;
 		pageDataStore = dataStore;
 		serializedPagesCache = new SerializedPagesCache(cacheSize);
+		pageDataOverridden = isPageDataOverridden(getClass());
+	}
+
+	/**
+	 * Checks whether a class overrides {@link #getPageData(String, int)}.
+	 * 
+	 * @param type
+	 * @return <code>true</code> if the data of each page has to be loaded with
+	 *         {@link #getPageData(String, int)}
+	 */
+	private static boolean isPageDataOverridden(final Class<?> type)
+	{
+		for (Class<?> c = type; c != DefaultPageStore.class; c = c.getSuperclass())
+		{
+			try
+			{
+				c.getDeclaredMethod("getPageData", String.class, int.class);
+				return true;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// not overridden in this class
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -90,6 +118,32 @@ public class DefaultPageStore implements IPageStore
 		return pageDataStore.getData(sessionId, pageId);
 	}
 
+	/**
+	 * Gets the data of several pages at once.
+	 * <p>
+	 * If a subclass overrides {@link #getPageData(String, int)}, the data of each page is loaded
+	 * with it. Otherwise the data is loaded from the data store in a single call, see
+	 * {@link DataStores#getData(IDataStore, String, int[])}. Subclasses loading the data in
+	 * another way should override both methods.
+	 * 
+	 * @param sessionId
+	 * @param pageIds
+	 * @return data of the pages
+	 */
+	protected byte[][] getPagesData(final String sessionId, final int[] pageIds)
+	{
+		if (pageDataOverridden)
+		{
+			final byte[][] data = new byte[pageIds.length][];
+			for (int i = 0; i < pageIds.length; i++)
+			{
+				data[i] = getPageData(sessionId, pageIds[i]);
+			}
+			return data;
+		}
+		return DataStores.getData(pageDataStore, sessionId, pageIds);
+	}
+
 	/**
 	 * @param sessionId
 	 * @param pageId
@@ -192,6 +246,59 @@ public class DefaultPageStore implements IPageStore
 		throw new IllegalArgumentException("Unknown object type " + type);
 	}
 
+	/**
+	 * Converts the page representations like {@link #convertToPage(Object)}, but loads the data of
+	 * all stripped {@link SerializedPage}s of a session with a single call to
+	 * {@link #getPagesData(String, int[])}.
+	 */
+	@Override
+	public IManageablePage[] convertToPages(final Object[] objects)
+	{
+		final IManageablePage[] pages = new IManageablePage[objects.length];
+
+		String sessionId = null;
+		final int[] strippedIndices = new int[objects.length];
+		int stripped = 0;
+		for (int i = 0; i < objects.length; i++)
+		{
+			if (objects[i] instanceof SerializedPage)
+			{
+				SerializedPage page = (SerializedPage)objects[i];
+				if (page.getData() == null)
+				{
+					if (sessionId == null)
+					{
+						sessionId = page.getSessionId();
+					}
+					if (sessionId.equals(page.getSessionId()))
+					{
+						strippedIndices[stripped++] = i;
+						continue;
+					}
+				}
+			}
+			pages[i] = convertToPage(objects[i]);
+		}
+
+		if (stripped > 0)
+		{
+			final int[] pageIds = new int[stripped];
+			for (int i = 0; i < stripped; i++)
+			{
+				pageIds[i] = ((SerializedPage)objects[strippedIndices[i]]).getPageId();
+			}
+			final byte[][] data = getPagesData(sessionId, pageIds);
+			for (int i = 0; i < stripped; i++)
+			{
+				if (data[i] != null)
+				{
+					pages[strippedIndices[i]] = deserializePage(data[i]);
+				}
+			}
+		}
+		return pages;
+	}
+
 	/**
 	 * Reloads the {@link SerializedPage} from the backing {@link IDataStore} if the
 	 * {@link SerializedPage#data} is stripped earlier
@@ -29,6 +29,7 @@ import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -47,7 +48,7 @@ import org.slf4j.LoggerFactory;
 /**
  * A data store implementation which stores the data on disk (in a file system)
  */
-public class DiskDataStore implements IDataStore
+public class DiskDataStore implements IBatchDataStore
 {
 	private static final Logger log = LoggerFactory.getLogger(DiskDataStore.class);
 
@@ -125,6 +126,27 @@ public class DiskDataStore implements IDataStore
 		return pageData;
 	}
 
+	/**
+	 * @see org.apache.wicket.pageStore.IBatchDataStore#getData(java.lang.String, int[])
+	 */
+	@Override
+	public byte[][] getData(final String sessionId, final int[] ids)
+	{
+		byte[][] pageData = null;
+		SessionEntry sessionEntry = getSessionEntry(sessionId, false);
+		if (sessionEntry != null)
+		{
+			pageData = sessionEntry.loadPages(ids);
+		}
+		else
+		{
+			pageData = new byte[ids.length][];
+		}
+
+		log.debug("Returning data for {} pages in session with id '{}'", ids.length, sessionId);
+		return pageData;
+	}
+
 	/**
 	 * @see org.apache.wicket.pageStore.IDataStore#isReplicated()
 	 */
@@ -455,6 +477,69 @@ public class DiskDataStore implements IDataStore
 			return result;
 		}
 
+		/**
+		 * Loads the data of several pages, reading the file once in the order of the page
+		 * windows.
+		 * 
+		 * @param ids
+		 * @return page data in the order of the ids, null for pages no longer in pagemap file
+		 */
+		public synchronized byte[][] loadPages(int[] ids)
+		{
+			byte[][] result = new byte[ids.length][];
+			if (unbound)
+			{
+				return result;
+			}
+
+			// sort by file offset, the lower bits keep the index of the id
+			long[] sweep = new long[ids.length];
+			PageWindow[] windows = new PageWindow[ids.length];
+			int count = 0;
+			for (int i = 0; i < ids.length; i++)
+			{
+				PageWindow window = getManager().getPageWindow(ids[i]);
+				if (window != null)
+				{
+					windows[i] = window;
+					sweep[count++] = ((long)window.getFilePartOffset() << 32) | i;
+				}
+			}
+			if (count == 0)
+			{
+				return result;
+			}
+			Arrays.sort(sweep, 0, count);
+
+			FileChannel channel = getFileChannel(false);
+			if (channel != null)
+			{
+				try
+				{
+					for (int i = 0; i < count; i++)
+					{
+						int index = (int)sweep[i];
+						PageWindow window = windows[index];
+						ByteBuffer buffer = ByteBuffer.allocate(window.getFilePartSize());
+						channel.read(buffer, window.getFilePartOffset());
+						if (buffer.hasArray())
+						{
+							result[index] = buffer.array();
+						}
+					}
+				}
+				catch (IOException e)
+				{
+					log.error("Error reading from file channel " + channel, e);
+				}
+				finally
+				{
+					IOUtils.closeQuietly(channel);
+				}
+			}
+			return result;
+		}
+
 		/**
 		 * Deletes all files for this session.
 		 */
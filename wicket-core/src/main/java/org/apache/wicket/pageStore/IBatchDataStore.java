@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+/**
+ * A data store which can load the data of several pages at once, e.g. with a single access to a
+ * file.
+ * <p>
+ * Use {@link DataStores#getData(IDataStore, String, int[])} to load the data of several pages from
+ * any data store.
+ * 
+ * @see IDataStore
+ */
+public interface IBatchDataStore extends IDataStore
+{
+	/**
+	 * Get data associated with the session id and several page ids at once, e.g. to restore all
+	 * pages of a session.
+	 * 
+	 * @param sessionId
+	 *            Session ID
+	 * @param ids
+	 *            Page IDs
+	 * @return the page data in the order of the ids, <code>null</code> for pages which are not
+	 *         persisted
+	 */
+	byte[][] getData(String sessionId, int[] ids);
+}
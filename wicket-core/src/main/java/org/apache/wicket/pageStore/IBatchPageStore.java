@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import org.apache.wicket.page.IManageablePage;
+
+/**
+ * A page store which can convert several page representations at once, e.g. to load all pages of
+ * a restored session from its {@link IDataStore} with a single call.
+ * 
+ * @see IPageStore
+ */
+public interface IBatchPageStore extends IPageStore
+{
+	/**
+	 * Converts several page representations to instances of {@link IManageablePage}, like
+	 * {@link #convertToPage(Object)} does for each of them.
+	 * 
+	 * @param pages
+	 *            some kind of page representations
+	 * @return the pages in the order of the representations
+	 */
+	IManageablePage[] convertToPages(Object[] pages);
+}
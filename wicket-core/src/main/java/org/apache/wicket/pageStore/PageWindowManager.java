@@ -20,7 +20,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.wicket.util.collections.IntHashMap;
+import org.apache.wicket.util.collections.IntIntHashMap;
 
 /**
  * Manages positions and size of serialized pages in the pagemap file.
@@ -60,9 +60,10 @@ public class PageWindowManager implements Serializable
 	/**
 	 * map from page id to list of pagewindow indices (referring to the windows list) - to improve
 	 * searching speed the index must be cleaned when the instances in the windows list change their
-	 * indexes (e.g. items are shifted on page window removal)
+	 * indexes (e.g. items are shifted on page window removal). Not serialized, it is rebuilt when
+	 * needed.
 	 */
-	private IntHashMap<Integer> idToWindowIndex = null;
+	private transient IntIntHashMap idToWindowIndex = null;
 
 	/** index of last added page */
 	private int indexPointer = -1;
@@ -103,7 +104,7 @@ public class PageWindowManager implements Serializable
 	private void rebuildIndices()
 	{
 		idToWindowIndex = null;
-		idToWindowIndex = new IntHashMap<Integer>();
+		idToWindowIndex = new IntIntHashMap(windows.size());
 		for (int i = 0; i < windows.size(); ++i)
 		{
 			PageWindowInternal window = windows.get(i);
@@ -124,8 +125,7 @@ public class PageWindowManager implements Serializable
 			rebuildIndices();
 		}
 
-		Integer result = idToWindowIndex.get(pageId);
-		return result != null ? result : -1;
+		return idToWindowIndex.get(pageId, -1);
 	}
 
 	/**
@@ -18,10 +18,14 @@ package org.apache.wicket.pageStore.memory;
 
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Bytes;
-import org.apache.wicket.core.util.lang.WicketObjects;
 
 /**
- * An eviction strategy that keeps the data store size up to configured bytes
+ * An eviction strategy that keeps the data store size up to configured bytes.
+ * 
+ * <p>
+ * The size of the data store is the sum of the sizes of the stored pages, as tracked by
+ * {@link PageTable} on each change. The (small) overhead of the table itself is not counted, so
+ * the table never has to be serialized to measure it.
  */
 public class MemorySizeEvictionStrategy implements IDataStoreEvictionStrategy
 {
@@ -48,17 +52,8 @@ public class MemorySizeEvictionStrategy implements IDataStoreEvictionStrategy
 	@Override
 	public void evict(PageTable pageTable)
 	{
-
-		long storeCurrentSize = WicketObjects.sizeof(pageTable);
-
-		if (storeCurrentSize > maxBytes.bytes())
-		{
-			PageTableCleaner cleaner = new PageTableCleaner();
-			cleaner.drop(pageTable, 1);
-
-			// recurse until enough space is cleaned
-			evict(pageTable);
-		}
+		// drop the least recently used pages in a single pass until enough space is cleaned
+		pageTable.removeOldest(maxBytes.bytes());
 	}
 
 }
@@ -16,108 +16,135 @@
  */
 package org.apache.wicket.pageStore.memory;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentMap;
-
+import org.apache.wicket.util.collections.IntLruMap;
 import org.apache.wicket.util.io.IClusterable;
 
 /**
  * A structure that holds page id => pageAsBytes.
  * 
  * <p>
- * Additionally it has an index of the least recently used pages
+ * Additionally it has an index of the least recently used pages and keeps track of the total
+ * number of bytes of all stored pages.
  */
 class PageTable implements IClusterable
 {
 	private static final long serialVersionUID = 1L;
 
-
 	/**
-	 * Holds the index of last/least recently used page ids. The most recently used page id is in
-	 * the tail, the least recently used is in the head.
+	 * The actual container for the pages, in access order: the least recently used page is the
+	 * first entry, the most recently used page is the last one. Moving a page to the end of the
+	 * index is a constant time operation and the page ids are not boxed.
+	 * 
+	 * <p>
+	 * page id => page as bytes
 	 */
 	/*
 	 * Can be replaced later with PriorityQueue to deal with lightweight (Ajax) and heavyweight
 	 * pages
 	 */
-	private final Queue<Integer> index;
+	private final IntLruMap<byte[]> pages;
 
 	/**
-	 * The actual container for the pages.
-	 * 
-	 * <p>
-	 * page id => page as bytes
+	 * The sum of the lengths of all stored pages. Updated with each change so the size of the
+	 * table never has to be measured.
 	 */
-	private final ConcurrentMap<Integer, byte[]> pages;
+	private long bytes;
 
 	public PageTable()
 	{
-		pages = new ConcurrentHashMap<Integer, byte[]>();
-		index = new ConcurrentLinkedQueue<Integer>();
+		pages = new IntLruMap<byte[]>();
 	}
 
-	void storePage(Integer pageId, byte[] pageAsBytes)
+	void storePage(int pageId, byte[] pageAsBytes)
 	{
-		synchronized (index)
+		synchronized (pages)
 		{
-			pages.put(pageId, pageAsBytes);
-
-			updateIndex(pageId);
+			// putting moves the page to the end of the index
+			byte[] previous = pages.put(pageId, pageAsBytes);
+			if (previous != null)
+			{
+				bytes -= previous.length;
+			}
+			bytes += pageAsBytes.length;
 		}
 	}
 
-	byte[] getPage(final Integer pageId)
+	byte[] getPage(final int pageId)
 	{
-		synchronized (index)
+		synchronized (pages)
 		{
-			updateIndex(pageId);
-
 			return pages.get(pageId);
 		}
 	}
 
-	public byte[] removePage(Integer pageId)
+	public byte[] removePage(int pageId)
 	{
-		synchronized (index)
+		synchronized (pages)
 		{
-			index.remove(pageId);
-
-			return pages.remove(pageId);
+			byte[] pageAsBytes = pages.remove(pageId);
+			if (pageAsBytes != null)
+			{
+				bytes -= pageAsBytes.length;
+			}
+			return pageAsBytes;
 		}
 	}
 
 	public void clear()
 	{
-		synchronized (index)
+		synchronized (pages)
 		{
-			index.clear();
 			pages.clear();
+			bytes = 0;
 		}
 	}
 
 	public int size()
 	{
-		return pages.size();
+		synchronized (pages)
+		{
+			return pages.size();
+		}
+	}
+
+	/**
+	 * @return the sum of the lengths of all stored pages
+	 */
+	long getBytes()
+	{
+		synchronized (pages)
+		{
+			return bytes;
+		}
 	}
 
 	Integer getOldest()
 	{
-		return index.peek();
+		synchronized (pages)
+		{
+			return pages.isEmpty() ? null : Integer.valueOf(pages.getEldestKey());
+		}
 	}
 
 	/**
-	 * Updates the index of last/least recently used pages by removing the page id from the index
-	 * (in case it is already in) and (re-)adding it at the head
+	 * Removes the least recently used pages until the stored pages take at most the given number
+	 * of bytes.
 	 * 
-	 * @param pageId
-	 *            the id of a recently used page
+	 * @param maxBytes
+	 *            the maximum number of bytes of all stored pages
+	 * @return the number of removed pages
 	 */
-	private void updateIndex(Integer pageId)
+	int removeOldest(long maxBytes)
 	{
-		index.remove(pageId);
-		index.offer(pageId);
+		synchronized (pages)
+		{
+			int removed = 0;
+			while ((bytes > maxBytes) && (pages.isEmpty() == false))
+			{
+				bytes -= pages.removeEldest().length;
+				removed++;
+			}
+			return removed;
+		}
 	}
-
 }
@@ -16,38 +16,17 @@
  */
 package org.apache.wicket.protocol.http;
 
-import java.util.Map;
-
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.collections.ConcurrentCache;
 import org.apache.wicket.util.time.Duration;
-import org.apache.wicket.util.time.Time;
 
 /**
  * A map that contains the buffered responses. It has a constraint on the maximum entries that it
  * can contain, and a constraint on the duration of time an entry is considered valid/non-expired
  */
-class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
+class StoredResponsesMap extends ConcurrentCache<String, BufferedWebResponse>
 {
 	private static final long serialVersionUID = 1L;
 
-	/**
-	 * The actual object that is stored as a value of the map. It wraps the buffered response and
-	 * assigns it a creation time.
-	 */
-	private static class Value
-	{
-		/** the original response to store */
-		private BufferedWebResponse response;
-
-		/** the time when this response is stored */
-		private Time creationTime;
-	}
-
-	/**
-	 * The duration of time before a {@link Value} is considered as expired
-	 */
-	private final Duration lifetime;
-
 	/**
 	 * Construct.
 	 * 
@@ -58,32 +37,17 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 	 */
 	public StoredResponsesMap(int maxEntries, Duration lifetime)
 	{
-		super(maxEntries);
-
-		this.lifetime = lifetime;
+		super(maxEntries, lifetime);
 	}
 
-	@Override
-	protected synchronized boolean removeEldestEntry(java.util.Map.Entry<String, Object> eldest)
-	{
-		boolean removed = super.removeEldestEntry(eldest);
-		if (removed == false)
-		{
-			Value value = (Value)eldest.getValue();
-			if (value != null)
-			{
-				Duration elapsedTime = Time.now().subtract(value.creationTime);
-				if (lifetime.lessThanOrEqual(elapsedTime))
-				{
-					removedValue = value.response;
-					removed = true;
-				}
-			}
-		}
-		return removed;
-	}
-
-	@Override
+	/**
+	 * Stores a response.
+	 * 
+	 * @param key
+	 * @param bufferedResponse
+	 *            the response, has to be a {@link BufferedWebResponse}
+	 * @return the response previously stored for the key
+	 */
 	public BufferedWebResponse put(String key, Object bufferedResponse)
 	{
 		if (!(bufferedResponse instanceof BufferedWebResponse))
@@ -92,59 +56,17 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 				" can store only instances of " + BufferedWebResponse.class.getSimpleName());
 		}
 
-		Value value = new Value();
-		value.creationTime = Time.now();
-		value.response = (BufferedWebResponse)bufferedResponse;
-
-		Value oldValue;
-		synchronized (this)
-		{
-			oldValue = (Value)super.put(key, value);
-		}
-
-		return oldValue != null ? oldValue.response : null;
-	}
-
-	@Override
-	public BufferedWebResponse get(Object key)
-	{
-		BufferedWebResponse result = null;
-		Value value;
-		synchronized (this)
-		{
-			value = (Value)super.get(key);
-		}
-		if (value != null)
-		{
-			Duration elapsedTime = Time.now().subtract(value.creationTime);
-			if (lifetime.greaterThan(elapsedTime))
-			{
-				result = value.response;
-			}
-			else
-			{
-				// expired, remove it
-				remove(key);
-			}
-		}
-		return result;
+		return put(key, (BufferedWebResponse)bufferedResponse);
 	}
 
+	/**
+	 * @return the number of responses which are not expired
+	 */
 	@Override
-	public BufferedWebResponse remove(Object key)
+	public int size()
 	{
-		Value removedValue;
-		synchronized (this)
-		{
-			removedValue = (Value)super.remove(key);
-		}
-
-		return removedValue != null ? removedValue.response : null;
-	}
+		removeExpired();
 
-	@Override
-	public void putAll(Map<? extends String, ?> m)
-	{
-		throw new UnsupportedOperationException();
+		return super.size();
 	}
 }
@@ -37,6 +37,7 @@ import org.apache.wicket.request.UrlRenderer;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.core.request.handler.BookmarkablePageRequestHandler;
 import org.apache.wicket.core.request.handler.IPageProvider;
+import org.apache.wicket.core.request.handler.ListenerInterfaceRequestHandler;
 import org.apache.wicket.core.request.handler.PageProvider;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
@@ -157,6 +158,14 @@ public class RequestCycle implements IRequestCycle, IEventSink
 		return originalResponse;
 	}
 
+	/**
+	 * @return the request mapper of this request cycle
+	 */
+	IRequestMapper getRequestMapper()
+	{
+		return requestMapper;
+	}
+
 	/**
 	 * Returns {@link UrlRenderer} for this {@link RequestCycle}.
 	 * 
@@ -488,6 +497,13 @@ public class RequestCycle implements IRequestCycle, IEventSink
 	 */
 	public CharSequence urlFor(IRequestHandler handler)
 	{
+		if ((handler instanceof ListenerInterfaceRequestHandler) && Application.exists() &&
+			Application.get().getRequestCycleSettings().getUseListenerUrlTemplates())
+		{
+			return UrlTemplateCache.get(this).urlFor(this,
+				(ListenerInterfaceRequestHandler)handler);
+		}
+
 		Url mappedUrl = mapUrlFor(handler);
 		CharSequence url = renderUrl(mappedUrl, handler);
 		return url;
@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.RequestListenerInterface;
+import org.apache.wicket.core.request.handler.ListenerInterfaceRequestHandler;
+import org.apache.wicket.core.request.handler.PageAndComponentProvider;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.lang.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request scoped cache of rendered URLs of {@link ListenerInterfaceRequestHandler}s, which
+ * differ only in their component path.
+ * <p>
+ * For each page, render count, listener interface, behavior index, page parameters and base url
+ * the handler is mapped and rendered once with a placeholder instead of the component path. The
+ * URLs of all further components are created by substituting their encoded path for the
+ * placeholder. A template is only used if it reproduces the URL mapped for the first component,
+ * thus mappers encrypting or otherwise transforming the component path, e.g. the
+ * {@link org.apache.wicket.core.request.mapper.CryptoMapper}, disable it.
+ */
+final class UrlTemplateCache
+{
+	private static final Logger log = LoggerFactory.getLogger(UrlTemplateCache.class);
+
+	private static final MetaDataKey<UrlTemplateCache> KEY = new MetaDataKey<UrlTemplateCache>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/** component path standing in for the actual path, isn't changed by any encoding */
+	private static final String PLACEHOLDER = "wicketUrlTemplatePath";
+
+	/** marker for keys without usable template */
+	private static final Template DISABLED = new Template("", "");
+
+	private final Map<Key, Template> templates = new HashMap<Key, Template>();
+
+	private final UrlTemplateStatistics statistics;
+
+	private UrlTemplateCache(final UrlTemplateStatistics statistics)
+	{
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Gets the cache of the request cycle.
+	 *
+	 * @param requestCycle
+	 * @return cache
+	 */
+	static UrlTemplateCache get(final RequestCycle requestCycle)
+	{
+		UrlTemplateCache cache = requestCycle.getMetaData(KEY);
+		if (cache == null)
+		{
+			cache = new UrlTemplateCache(UrlTemplateStatistics.get(Application.get()));
+			requestCycle.setMetaData(KEY, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Renders the URL for a handler, from a template if possible.
+	 *
+	 * @param requestCycle
+	 * @param handler
+	 * @return the rendered URL or <code>null</code> if the handler couldn't be mapped
+	 */
+	CharSequence urlFor(final RequestCycle requestCycle, final ListenerInterfaceRequestHandler handler)
+	{
+		final Key key = newKey(requestCycle, handler);
+		final String path = key != null ? encodeComponentPath(handler.getComponentPath()) : null;
+		if (path == null)
+		{
+			statistics.bypass();
+			return encode(requestCycle, render(requestCycle, handler));
+		}
+
+		Template template = templates.get(key);
+		if (template == null)
+		{
+			statistics.miss();
+
+			final String url = render(requestCycle, handler);
+
+			template = newTemplate(requestCycle, key);
+			if ((template == null) || (url == null) || (url.equals(template.render(path)) == false))
+			{
+				template = DISABLED;
+			}
+			templates.put(key, template);
+
+			return encode(requestCycle, url);
+		}
+		else if (template == DISABLED)
+		{
+			statistics.bypass();
+			return encode(requestCycle, render(requestCycle, handler));
+		}
+
+		statistics.hit();
+		return encode(requestCycle, template.render(path));
+	}
+
+	/**
+	 * Maps and renders the handler, without encoding it by the response.
+	 *
+	 * @param requestCycle
+	 * @param handler
+	 * @return rendered url or <code>null</code>
+	 */
+	private static String render(final RequestCycle requestCycle,
+		final ListenerInterfaceRequestHandler handler)
+	{
+		final Url url = requestCycle.mapUrlFor(handler);
+		return url != null ? requestCycle.getUrlRenderer().renderUrl(url) : null;
+	}
+
+	private static String encode(final RequestCycle requestCycle, final String url)
+	{
+		return url != null ? requestCycle.getOriginalResponse().encodeURL(url) : null;
+	}
+
+	/**
+	 * Creates the key of the handler.
+	 *
+	 * @param requestCycle
+	 * @param handler
+	 * @return key or <code>null</code> if the handler is not supported
+	 */
+	private static Key newKey(final RequestCycle requestCycle,
+		final ListenerInterfaceRequestHandler handler)
+	{
+		if ((handler.getClass() != ListenerInterfaceRequestHandler.class) ||
+			(handler.isPageInstanceCreated() == false))
+		{
+			return null;
+		}
+
+		final IRequestablePage page = handler.getPage();
+		return new Key(page, page.getPageId(), page.getRenderCount(),
+			handler.getListenerInterface(), handler.getBehaviorIndex(),
+			handler.getPageParameters(), requestCycle.getUrlRenderer().getBaseUrl());
+	}
+
+	/**
+	 * Maps a handler for the key with a placeholder path.
+	 *
+	 * @param requestCycle
+	 * @param key
+	 * @return template or <code>null</code> if the placeholder isn't contained in the URL
+	 */
+	private static Template newTemplate(final RequestCycle requestCycle, final Key key)
+	{
+		final ListenerInterfaceRequestHandler handler = new ListenerInterfaceRequestHandler(
+			new TemplateProvider(key.page, key.parameters), key.listenerInterface,
+			key.behaviorIndex);
+
+		final String url;
+		try
+		{
+			final Url mapped = requestCycle.getRequestMapper().mapHandler(handler);
+			url = mapped != null ? requestCycle.getUrlRenderer().renderUrl(mapped) : null;
+		}
+		catch (RuntimeException e)
+		{
+			log.debug("Cannot map URL template", e);
+			return null;
+		}
+
+		final int index = url != null ? url.indexOf(PLACEHOLDER) : -1;
+		if ((index == -1) || (index != url.lastIndexOf(PLACEHOLDER)))
+		{
+			return null;
+		}
+		return new Template(url.substring(0, index), url.substring(index + PLACEHOLDER.length()));
+	}
+
+	/**
+	 * Encodes a component path like {@link org.apache.wicket.request.mapper.info.ComponentInfo}
+	 * and the query string of an URL do.
+	 *
+	 * @param path
+	 * @return the encoded path or <code>null</code> if it contains characters which might be
+	 *         encoded differently
+	 */
+	private static String encodeComponentPath(final String path)
+	{
+		final StringBuilder encoded = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i++)
+		{
+			final char c = path.charAt(i);
+			if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) ||
+				((c >= '0') && (c <= '9')) || (c == '_') || (c == '.'))
+			{
+				encoded.append(c);
+			}
+			else if (c == ':')
+			{
+				encoded.append('-');
+			}
+			else if (c == '-')
+			{
+				encoded.append('~');
+			}
+			else
+			{
+				return null;
+			}
+		}
+		return encoded.toString();
+	}
+
+	/**
+	 * A rendered URL split at the placeholder.
+	 */
+	private static final class Template
+	{
+		private final String prefix;
+
+		private final String suffix;
+
+		private Template(final String prefix, final String suffix)
+		{
+			this.prefix = prefix;
+			this.suffix = suffix;
+		}
+
+		private String render(final String path)
+		{
+			return new StringBuilder(prefix.length() + path.length() + suffix.length()).append(
+				prefix)
+				.append(path)
+				.append(suffix)
+				.toString();
+		}
+	}
+
+	/**
+	 * Provides the page with the placeholder as component path.
+	 */
+	private static final class TemplateProvider extends PageAndComponentProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private TemplateProvider(final IRequestablePage page, final PageParameters parameters)
+		{
+			super(page, PLACEHOLDER);
+
+			if (parameters != null)
+			{
+				setPageParameters(parameters);
+			}
+		}
+	}
+
+	/**
+	 * Everything besides the component path a listener URL depends on.
+	 */
+	private static final class Key
+	{
+		private final IRequestablePage page;
+
+		private final int pageId;
+
+		private final int renderCount;
+
+		private final RequestListenerInterface listenerInterface;
+
+		private final Integer behaviorIndex;
+
+		private final PageParameters parameters;
+
+		private final Url baseUrl;
+
+		private Key(final IRequestablePage page, final int pageId, final int renderCount,
+			final RequestListenerInterface listenerInterface, final Integer behaviorIndex,
+			final PageParameters parameters, final Url baseUrl)
+		{
+			this.page = page;
+			this.pageId = pageId;
+			this.renderCount = renderCount;
+			this.listenerInterface = listenerInterface;
+			this.behaviorIndex = behaviorIndex;
+			this.parameters = parameters;
+			this.baseUrl = baseUrl;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (obj instanceof Key)
+			{
+				final Key other = (Key)obj;
+				return (page == other.page) && (pageId == other.pageId) &&
+					(renderCount == other.renderCount) &&
+					(listenerInterface == other.listenerInterface) &&
+					Objects.equal(behaviorIndex, other.behaviorIndex) &&
+					Objects.equal(parameters, other.parameters) &&
+					Objects.equal(baseUrl, other.baseUrl);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = System.identityHashCode(page);
+			hash = hash * 31 + pageId;
+			hash = hash * 31 + renderCount;
+			hash = hash * 31 + listenerInterface.hashCode();
+			return hash * 31 + (behaviorIndex != null ? behaviorIndex : -1);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.settings.IRequestCycleSettings;
+
+/**
+ * Statistics about the effectiveness of listener URL templates of an application, see
+ * {@link IRequestCycleSettings#setUseListenerUrlTemplates(boolean)}.
+ */
+public final class UrlTemplateStatistics
+{
+	private static final MetaDataKey<UrlTemplateStatistics> KEY = new MetaDataKey<UrlTemplateStatistics>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong bypasses = new AtomicLong();
+
+	private UrlTemplateStatistics()
+	{
+	}
+
+	/**
+	 * Gets the statistics of an application.
+	 *
+	 * @param application
+	 * @return statistics
+	 */
+	public static UrlTemplateStatistics get(final Application application)
+	{
+		UrlTemplateStatistics statistics = application.getMetaData(KEY);
+		if (statistics == null)
+		{
+			synchronized (application)
+			{
+				statistics = application.getMetaData(KEY);
+				if (statistics == null)
+				{
+					statistics = new UrlTemplateStatistics();
+					application.setMetaData(KEY, statistics);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * @return number of URLs rendered from a template
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return number of URLs which had to be mapped to create a template
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return number of URLs which were mapped because no template could be used for them
+	 */
+	public long getBypasses()
+	{
+		return bypasses.get();
+	}
+
+	/**
+	 * @return ratio of URLs rendered from a template to all listener URLs
+	 */
+	public double getHitRatio()
+	{
+		final long hits = getHits();
+		final long total = hits + getMisses() + getBypasses();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset()
+	{
+		hits.set(0);
+		misses.set(0);
+		bypasses.set(0);
+	}
+
+	void hit()
+	{
+		hits.incrementAndGet();
+	}
+
+	void miss()
+	{
+		misses.incrementAndGet();
+	}
+
+	void bypass()
+	{
+		bypasses.incrementAndGet();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "hits=" + getHits() + ", misses=" + getMisses() + ", bypasses=" + getBypasses();
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * An application wide cache of encoded images, shared by all {@link DynamicImageResource}s which
+ * render the same image from the same inputs. The key of an image has to identify all inputs of
+ * the rendering, e.g. a label, the size and the colors of a button.
+ * <p>
+ * The cache is bounded by the total size of the images, the least recently used images are evicted
+ * first. The images can be kept in direct buffers outside of the heap, then each access copies
+ * the image data.
+ * <p>
+ * Install a configured cache in {@link Application#init()}, otherwise a default cache is created
+ * on first access:
+ * 
+ * <pre>
+ * DynamicImageCache.set(this, new DynamicImageCache(Bytes.megabytes(16), true));
+ * </pre>
+ */
+public class DynamicImageCache
+{
+	/** the default maximum size of the images */
+	public static final Bytes DEFAULT_MAX_SIZE = Bytes.megabytes(4);
+
+	private static final MetaDataKey<DynamicImageCache> KEY = new MetaDataKey<DynamicImageCache>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private final long maxSize;
+
+	private final boolean offHeap;
+
+	/** byte arrays or direct buffers in access order */
+	private final LinkedHashMap<String, Object> images = new LinkedHashMap<String, Object>(16,
+		0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param maxSize
+	 *            the maximum size of all images
+	 * @param offHeap
+	 *            whether to keep the images in direct buffers outside of the heap
+	 */
+	public DynamicImageCache(final Bytes maxSize, final boolean offHeap)
+	{
+		Args.notNull(maxSize, "maxSize");
+
+		this.maxSize = maxSize.bytes();
+		this.offHeap = offHeap;
+	}
+
+	/**
+	 * Gets the cache of the application, creating a default one on first access.
+	 * 
+	 * @param application
+	 * @return the cache
+	 */
+	public static DynamicImageCache get(final Application application)
+	{
+		DynamicImageCache cache = application.getMetaData(KEY);
+		if (cache == null)
+		{
+			synchronized (application)
+			{
+				cache = application.getMetaData(KEY);
+				if (cache == null)
+				{
+					cache = new DynamicImageCache(DEFAULT_MAX_SIZE, false);
+					application.setMetaData(KEY, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Sets the cache of the application.
+	 * 
+	 * @param application
+	 * @param cache
+	 */
+	public static void set(final Application application, final DynamicImageCache cache)
+	{
+		application.setMetaData(KEY, cache);
+	}
+
+	/**
+	 * Gets an image.
+	 * 
+	 * @param key
+	 *            the key identifying the inputs of the image
+	 * @return the image data or <code>null</code> if the image is not cached
+	 */
+	public byte[] get(final String key)
+	{
+		final Object image;
+		synchronized (images)
+		{
+			image = images.get(key);
+			if (image == null)
+			{
+				misses++;
+				return null;
+			}
+			hits++;
+		}
+
+		if (image instanceof ByteBuffer)
+		{
+			final ByteBuffer buffer = ((ByteBuffer)image).duplicate();
+			final byte[] data = new byte[buffer.remaining()];
+			buffer.get(data);
+			return data;
+		}
+		return (byte[])image;
+	}
+
+	/**
+	 * Puts an image, evicting the least recently used images if the cache grows too large. Images
+	 * larger than the cache are not kept at all.
+	 * <p>
+	 * The data must not be modified after it was put into a cache on the heap.
+	 * 
+	 * @param key
+	 *            the key identifying the inputs of the image
+	 * @param data
+	 *            the image data
+	 */
+	public void put(final String key, final byte[] data)
+	{
+		Args.notNull(key, "key");
+		Args.notNull(data, "data");
+
+		if (data.length > maxSize)
+		{
+			return;
+		}
+
+		final Object image;
+		if (offHeap)
+		{
+			final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+			buffer.put(data);
+			buffer.flip();
+			image = buffer;
+		}
+		else
+		{
+			image = data;
+		}
+
+		synchronized (images)
+		{
+			final Object previous = images.put(key, image);
+			if (previous != null)
+			{
+				size -= sizeOf(previous);
+			}
+			size += data.length;
+
+			final Iterator<Map.Entry<String, Object>> iterator = images.entrySet().iterator();
+			while ((size > maxSize) && iterator.hasNext())
+			{
+				size -= sizeOf(iterator.next().getValue());
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all images.
+	 */
+	public void clear()
+	{
+		synchronized (images)
+		{
+			images.clear();
+			size = 0;
+		}
+	}
+
+	/**
+	 * @return the number of images
+	 */
+	public int getCount()
+	{
+		synchronized (images)
+		{
+			return images.size();
+		}
+	}
+
+	/**
+	 * @return the total size of the images
+	 */
+	public Bytes getSize()
+	{
+		synchronized (images)
+		{
+			return Bytes.bytes(size);
+		}
+	}
+
+	/**
+	 * @return the maximum size of the images
+	 */
+	public Bytes getMaxSize()
+	{
+		return Bytes.bytes(maxSize);
+	}
+
+	/**
+	 * @return whether the images are kept outside of the heap
+	 */
+	public boolean isOffHeap()
+	{
+		return offHeap;
+	}
+
+	/**
+	 * @return the number of images found in the cache
+	 */
+	public long getHits()
+	{
+		synchronized (images)
+		{
+			return hits;
+		}
+	}
+
+	/**
+	 * @return the number of images not found in the cache
+	 */
+	public long getMisses()
+	{
+		synchronized (images)
+		{
+			return misses;
+		}
+	}
+
+	private static int sizeOf(final Object image)
+	{
+		return (image instanceof ByteBuffer) ? ((ByteBuffer)image).capacity()
+			: ((byte[])image).length;
+	}
+}
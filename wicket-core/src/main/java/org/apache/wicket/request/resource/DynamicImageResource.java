@@ -19,8 +19,17 @@ package org.apache.wicket.request.resource;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.wicket.WicketRuntimeException;
@@ -34,6 +43,13 @@ public abstract class DynamicImageResource extends AbstractResource
 {
 	private static final long serialVersionUID = 1L;
 
+	/** the maximum number of idle image writers kept per format */
+	private static final int MAX_IDLE_WRITERS = 4;
+
+	/** idle image writers by format, reused because looking them up and creating them is costly */
+	private static final ConcurrentMap<String, Queue<ImageWriter>> IDLE_WRITERS =
+		new ConcurrentHashMap<String, Queue<ImageWriter>>();
+
 	/** The image type */
 	private String format = "png";
 
@@ -101,8 +117,26 @@ public abstract class DynamicImageResource extends AbstractResource
 			// Create output stream
 			final ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-			// Write image using any matching ImageWriter
-			ImageIO.write(image, format, out);
+			final ImageWriter writer = acquireWriter(format, image);
+			if (writer == null)
+			{
+				// Write image using any matching ImageWriter
+				ImageIO.write(image, format, out);
+			}
+			else
+			{
+				final ImageOutputStream stream = new MemoryCacheImageOutputStream(out);
+				try
+				{
+					writer.setOutput(stream);
+					writer.write(image);
+				}
+				finally
+				{
+					releaseWriter(format, writer);
+					stream.close();
+				}
+			}
 
 			// Return the image data
 			return out.toByteArray();
@@ -113,6 +147,71 @@ public abstract class DynamicImageResource extends AbstractResource
 		}
 	}
 
+	/**
+	 * Gets an idle writer of the format or a new one.
+	 * 
+	 * @param format
+	 * @param image
+	 * @return writer or <code>null</code> if the image has to be written by {@link ImageIO}
+	 */
+	private static ImageWriter acquireWriter(final String format, final BufferedImage image)
+	{
+		ImageWriter writer = null;
+		final Queue<ImageWriter> idle = IDLE_WRITERS.get(format);
+		if (idle != null)
+		{
+			writer = idle.poll();
+		}
+		if (writer == null)
+		{
+			final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+			if (writers.hasNext() == false)
+			{
+				return null;
+			}
+			writer = writers.next();
+		}
+
+		final ImageWriterSpi provider = writer.getOriginatingProvider();
+		if ((provider != null) && (provider.canEncodeImage(image) == false))
+		{
+			// let ImageIO look for a writer that can encode this type of image
+			releaseWriter(format, writer);
+			return null;
+		}
+		return writer;
+	}
+
+	/**
+	 * Keeps a writer for reuse.
+	 * 
+	 * @param format
+	 * @param writer
+	 */
+	private static void releaseWriter(final String format, final ImageWriter writer)
+	{
+		writer.reset();
+
+		Queue<ImageWriter> idle = IDLE_WRITERS.get(format);
+		if (idle == null)
+		{
+			idle = new ConcurrentLinkedQueue<ImageWriter>();
+			final Queue<ImageWriter> existing = IDLE_WRITERS.putIfAbsent(format, idle);
+			if (existing != null)
+			{
+				idle = existing;
+			}
+		}
+		if (idle.size() < MAX_IDLE_WRITERS)
+		{
+			idle.offer(writer);
+		}
+		else
+		{
+			writer.dispose();
+		}
+	}
+
 	/**
 	 * Get image data for our dynamic image resource. If the subclass regenerates the data, it
 	 * should set the {@link DynamicImageResource#setLastModifiedTime(Time)} when it does so. This
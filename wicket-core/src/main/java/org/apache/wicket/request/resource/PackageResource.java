@@ -26,6 +26,7 @@ import org.apache.wicket.Application;
 import org.apache.wicket.Session;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.settings.IResourceSettings;
 import org.apache.wicket.util.io.IOUtils;
@@ -163,12 +164,21 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 	private Locale getCurrentLocale()
 	{
-		return locale != null ? locale : Session.get().getLocale();
+		return locale != null ? locale : hasSession() ? Session.get().getLocale() : null;
 	}
 
 	private String getCurrentStyle()
 	{
-		return style != null ? style : Session.get().getStyle();
+		return style != null ? style : hasSession() ? Session.get().getStyle() : null;
+	}
+
+	/**
+	 * @return <code>false</code> outside of requests, e.g. while versions of resources are computed
+	 *         at startup
+	 */
+	private static boolean hasSession()
+	{
+		return Session.exists() || (RequestCycle.get() != null);
 	}
 
 	public Serializable getCacheKey()
@@ -16,35 +16,98 @@
  */
 package org.apache.wicket.request.resource.caching.version;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Collections;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
-import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.collections.ConcurrentCache;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.resource.IFixedLocationResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Caches the results of a delegating {@link IResourceVersion} instance
  * in a member variable. The cache will be valid for the lifetime of 
  * this instance. It will expire the oldest entries if the maximum number 
  * of entries is exceeded.
+ * <p>
+ * Each version is computed once, requests racing for the same resource
+ * wait for the first one to compute it.
+ * <p>
+ * Optionally the versions are kept in a file across restarts of the 
+ * application, thus a restarted node does not have to compute the digests 
+ * of all resources again. Only versions of resources deployed as files, or 
+ * as entries of jar files, are kept. A version read from the file is used 
+ * as long as the resource still has the same modification time and length, 
+ * and for a jar entry the jar file still has the same modification time and 
+ * length too. The versions are written to the file by {@link #write()}, 
+ * e.g. when the application is destroyed:
+ * 
+ * <pre>
+ * private CachingResourceVersion resourceVersion;
+ * 
+ * protected void init()
+ * {
+ * 	super.init();
+ * 
+ * 	resourceVersion = new CachingResourceVersion(new MessageDigestResourceVersion(), 5000,
+ * 		new File(getStoreSettings().getFileStoreFolder(), getName() + "-versions.cache"));
+ * 	getResourceSettings().setCachingStrategy(
+ * 		new FilenameWithVersionResourceCachingStrategy(resourceVersion));
+ * }
+ * 
+ * protected void onDestroy()
+ * {
+ * 	resourceVersion.write();
+ * }
+ * </pre>
+ * 
+ * The file is discarded if it was written with another delegate class.
+ * <p>
+ * A resource replaced by another one of the same length and modification 
+ * time keeps its old version though, e.g. if a build forces the times of 
+ * the files it creates. Delete the file when deploying such builds.
  * 
  * @autor Peter Ertl
  * 
  * @since 1.5
+ * 
+ * @see org.apache.wicket.application.StartupWarmUp
  */
 public class CachingResourceVersion implements IResourceVersion
 {
+	private static final Logger log = LoggerFactory.getLogger(CachingResourceVersion.class);
+
 	/**
 	 * default maximum entries in cache
 	 */
 	private static final int DEFAULT_MAX_CACHE_ENTRIES = 5000;
 
-	/**
-	 * null value replacement holder for storing <code>null</code> in the map 
-	 */
-	private static final String NULL_VALUE = "null";
+	/** identifies the format of the file */
+	private static final int MAGIC = 0x57525602;
 
 	/**
 	 * delegating resource version provider
@@ -54,7 +117,22 @@ public class CachingResourceVersion implements IResourceVersion
 	/**
 	 * cache for resource versions
 	 */
-	private final Map<Serializable, String> cache;
+	private final ConcurrentCache<Serializable, Version> cache;
+
+	/**
+	 * versions being computed, racing requests wait for them
+	 */
+	private final ConcurrentMap<Serializable, FutureTask<Version>> computing = new ConcurrentHashMap<Serializable, FutureTask<Version>>();
+
+	/**
+	 * versions read from the file, not yet requested
+	 */
+	private final ConcurrentMap<Serializable, Version> persisted = new ConcurrentHashMap<Serializable, Version>();
+
+	/**
+	 * the file holding the versions, may be <code>null</code>
+	 */
+	private final File file;
 
 	/**
 	 * create version cache
@@ -82,6 +160,23 @@ public class CachingResourceVersion implements IResourceVersion
 	 *          maximum number of cache entries
 	 */        
 	public CachingResourceVersion(IResourceVersion delegate, int maxEntries)
+	{
+		this(delegate, maxEntries, null);
+	}
+
+	/**
+	 * create version cache kept in a file
+	 * <p/>
+	 * the versions are read from the file if it exists.
+	 * 
+	 * @param delegate
+	 *          resource version provider
+	 * @param maxEntries
+	 *          maximum number of cache entries
+	 * @param file
+	 *          file holding the versions, <code>null</code> to not keep them
+	 */
+	public CachingResourceVersion(IResourceVersion delegate, int maxEntries, File file)
 	{
 		if (maxEntries < 1)
 		{
@@ -89,8 +184,21 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 
 		this.delegate = Args.notNull(delegate, "delegate");
-		this.cache = Collections.synchronizedMap(
-			new MostRecentlyUsedMap<Serializable, String>(maxEntries));
+		this.cache = new ConcurrentCache<Serializable, Version>(maxEntries);
+		this.file = file;
+
+		if (file != null)
+		{
+			read();
+		}
+	}
+
+	/**
+	 * @return the file holding the versions or <code>null</code>
+	 */
+	public final File getFile()
+	{
+		return file;
 	}
 
 	@Override
@@ -106,32 +214,16 @@ public class CachingResourceVersion implements IResourceVersion
 		}
 		
 		// lookup version in cache
-		String version = cache.get(key);
+		Version version = cache.get(key);
 
-		// if not found
+		// if not found compute it, once for all racing requests
 		if (version == null)
 		{
-			// get version from delegate
-			version = delegate.getVersion(resource);
-
-			// replace null values with holder
-			if (version == null)
-			{
-				version = NULL_VALUE;
-			}
-			// update cache
-			cache.put(key, version);
+			version = compute(key, resource);
 		}
 
-		//noinspection StringEquality
-		if (version == NULL_VALUE)
-		{
-			// replace holder with null value
-			return null;
-		}
-		
-		// return version string
-		return version;
+		// return version string, null if not available
+		return version.value;
 	}
 
 	/**
@@ -149,6 +241,314 @@ public class CachingResourceVersion implements IResourceVersion
 		if(key != null)
 		{
 			cache.remove(key);
+			persisted.remove(key);
+		}
+	}
+
+	/**
+	 * Computes the version of a resource unless another thread is already computing it, in which
+	 * case its result is awaited.
+	 * 
+	 * @param key
+	 * @param resource
+	 * @return the version
+	 */
+	private Version compute(final Serializable key, final IStaticCacheableResource resource)
+	{
+		final FutureTask<Version> task = new FutureTask<Version>(new Callable<Version>()
+		{
+			@Override
+			public Version call()
+			{
+				// the version may have been cached after the lookup of the caller
+				Version version = cache.get(key);
+				if (version == null)
+				{
+					version = load(key, resource);
+					cache.put(key, version);
+				}
+				return version;
+			}
+		});
+
+		FutureTask<Version> running = computing.putIfAbsent(key, task);
+		if (running == null)
+		{
+			running = task;
+			try
+			{
+				task.run();
+			}
+			finally
+			{
+				computing.remove(key, task);
+			}
+		}
+
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return running.get();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e)
+		{
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error)cause;
+			}
+			throw new WicketRuntimeException(cause);
+		}
+		finally
+		{
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Takes the version read from the file if the resource is still the same, otherwise gets it
+	 * from the delegate.
+	 * 
+	 * @param key
+	 * @param resource
+	 * @return the version
+	 */
+	private Version load(final Serializable key, final IStaticCacheableResource resource)
+	{
+		final String stamp = file != null ? stamp(resource) : null;
+
+		final Version version = persisted.remove(key);
+		if ((version != null) && (stamp != null) && stamp.equals(version.stamp))
+		{
+			return version;
+		}
+
+		return new Version(delegate.getVersion(resource), stamp);
+	}
+
+	/**
+	 * Describes the deployed resource by its location, modification time and length, along with
+	 * the modification time and length of the jar file containing it.
+	 * 
+	 * @param resource
+	 * @return the stamp or <code>null</code> if the resource is not deployed as a file or jar
+	 *         entry, or its modification time or length are unknown
+	 */
+	private static String stamp(final IStaticCacheableResource resource)
+	{
+		final IResourceStream stream = resource.getCacheableResourceStream();
+		if ((stream instanceof IFixedLocationResourceStream) == false)
+		{
+			return null;
+		}
+		try
+		{
+			final String location = ((IFixedLocationResourceStream)stream).locationAsString();
+			final Time time = stream.lastModifiedTime();
+			final Bytes length = stream.length();
+			if ((location == null) || (time == null) || (length == null))
+			{
+				return null;
+			}
+
+			final StringBuilder stamp = new StringBuilder(location).append('|')
+				.append(time.getMilliseconds())
+				.append('|')
+				.append(length.bytes());
+			if (location.startsWith("jar:"))
+			{
+				final int separator = location.indexOf("!/");
+				final File jar = separator != -1 ? toFile(location.substring(4, separator))
+					: null;
+				if ((jar == null) || (jar.isFile() == false))
+				{
+					return null;
+				}
+				stamp.append('|').append(jar.lastModified()).append('|').append(jar.length());
+			}
+			else
+			{
+				final File resourceFile = location.startsWith("file:") ? toFile(location)
+					: new File(location);
+				if ((resourceFile == null) || (resourceFile.isFile() == false))
+				{
+					return null;
+				}
+			}
+			return stamp.toString();
+		}
+		finally
+		{
+			IOUtils.closeQuietly(stream);
+		}
+	}
+
+	/**
+	 * @param url
+	 * @return the file of a file url, <code>null</code> for other urls
+	 */
+	private static File toFile(final String url)
+	{
+		try
+		{
+			return new File(new URI(url));
+		}
+		catch (URISyntaxException e)
+		{
+			return null;
+		}
+		catch (IllegalArgumentException e)
+		{
+			// not a file url
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the versions to the file, the cached ones as well as those not yet requested. Does
+	 * nothing if this cache is not kept in a file.
+	 */
+	public void write()
+	{
+		if (file == null)
+		{
+			return;
+		}
+
+		final File temp = new File(file.getPath() + ".tmp");
+		int count = 0;
+		try
+		{
+			final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+			try
+			{
+				out.writeInt(MAGIC);
+				out.writeUTF(delegate.getClass().getName());
+
+				for (Map.Entry<Serializable, Version> entry : persisted.entrySet())
+				{
+					count += write(out, entry.getKey(), entry.getValue());
+				}
+				for (Map.Entry<Serializable, Version> entry : cache.toMap().entrySet())
+				{
+					count += write(out, entry.getKey(), entry.getValue());
+				}
+				out.writeBoolean(false);
+			}
+			finally
+			{
+				out.close();
+			}
+
+			Files.remove(file);
+			if (temp.renameTo(file) == false)
+			{
+				throw new IOException("Can't rename " + temp + " to " + file);
+			}
+			log.debug("Wrote {} resource versions to {}", count, file);
+		}
+		catch (IOException e)
+		{
+			log.error("Couldn't write resource versions to file " + file, e);
+			Files.remove(temp);
+		}
+	}
+
+	/**
+	 * Writes a version, unless it is unknown or the resource can't be recognized after a restart.
+	 * 
+	 * @return the number of versions written
+	 */
+	private static int write(final ObjectOutputStream out, final Serializable key,
+		final Version version) throws IOException
+	{
+		if ((version.value == null) || (version.stamp == null))
+		{
+			return 0;
+		}
+		out.writeBoolean(true);
+		out.writeObject(key);
+		out.writeUTF(version.value);
+		out.writeUTF(version.stamp);
+		return 1;
+	}
+
+	/**
+	 * Reads the versions from the file, versions of another delegate are discarded.
+	 */
+	private void read()
+	{
+		if (file.exists() == false)
+		{
+			return;
+		}
+
+		InputStream stream = null;
+		try
+		{
+			stream = new FileInputStream(file);
+			final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(stream));
+			if ((in.readInt() != MAGIC) ||
+				(delegate.getClass().getName().equals(in.readUTF()) == false))
+			{
+				log.info("Discarding resource versions file {} of another format", file);
+				return;
+			}
+
+			while (in.readBoolean())
+			{
+				final Serializable key = (Serializable)in.readObject();
+				final String value = in.readUTF();
+				persisted.put(key, new Version(value, in.readUTF()));
+			}
+			log.debug("Read {} resource versions from {}", persisted.size(), file);
+		}
+		catch (Exception e)
+		{
+			log.warn("Couldn't read resource versions from file " + file, e);
+			persisted.clear();
+		}
+		finally
+		{
+			IOUtils.closeQuietly(stream);
+		}
+	}
+
+	/**
+	 * A version along with the stamp of the resource it was computed for.
+	 */
+	private static final class Version implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** the version, <code>null</code> if not available */
+		private final String value;
+
+		/** the stamp of the resource, <code>null</code> if it can't be kept in the file */
+		private final String stamp;
+
+		private Version(final String value, final String stamp)
+		{
+			this.value = value;
+			this.stamp = stamp;
 		}
 	}
 }
@@ -195,6 +195,12 @@ public interface IRequestCycleSettings
 	 */
 	Duration getTimeout();
 
+	/**
+	 * @return whether listener URLs are rendered from templates
+	 * @see #setUseListenerUrlTemplates(boolean)
+	 */
+	boolean getUseListenerUrlTemplates();
+
 	/**
 	 * @param bufferResponse
 	 *            True if this application should buffer responses.
@@ -278,4 +284,19 @@ public interface IRequestCycleSettings
 	 * @param timeout
 	 */
 	void setTimeout(Duration timeout);
+
+	/**
+	 * Sets whether the URLs of listener interfaces of components are rendered from templates.
+	 * Pages with many links render URLs differing only in the component path, with templates
+	 * each URL is mapped once per page, listener interface and behavior and the path is
+	 * substituted for all other components. Templates are not used if the request mapper
+	 * transforms the component path, e.g. encrypts it. Note that
+	 * {@link org.apache.wicket.request.cycle.IRequestCycleListener#onUrlMapped} is not notified
+	 * for URLs rendered from a template. See
+	 * {@link org.apache.wicket.request.cycle.UrlTemplateStatistics} for the effectiveness.
+	 * 
+	 * @param useListenerUrlTemplates
+	 *            <code>true</code> to use templates, defaults to <code>false</code>
+	 */
+	void setUseListenerUrlTemplates(boolean useListenerUrlTemplates);
 }
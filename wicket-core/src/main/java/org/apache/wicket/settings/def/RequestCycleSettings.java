@@ -71,6 +71,9 @@ public class RequestCycleSettings implements IRequestCycleSettings
 	 */
 	private Duration timeout = Duration.ONE_MINUTE;
 
+	/** whether listener URLs are rendered from templates */
+	private boolean useListenerUrlTemplates = false;
+
 // ****************************************************************************
 // IRequestCycleSettings Implementation
 // ****************************************************************************
@@ -149,6 +152,15 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		return timeout;
 	}
 
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#getUseListenerUrlTemplates()
+	 */
+	@Override
+	public boolean getUseListenerUrlTemplates()
+	{
+		return useListenerUrlTemplates;
+	}
+
 	/**
 	 * @see org.apache.wicket.settings.IRequestCycleSettings#setBufferResponse(boolean)
 	 */
@@ -198,4 +210,13 @@ public class RequestCycleSettings implements IRequestCycleSettings
 		}
 		this.timeout = timeout;
 	}
+
+	/**
+	 * @see org.apache.wicket.settings.IRequestCycleSettings#setUseListenerUrlTemplates(boolean)
+	 */
+	@Override
+	public void setUseListenerUrlTemplates(boolean useListenerUrlTemplates)
+	{
+		this.useListenerUrlTemplates = useListenerUrlTemplates;
+	}
 }
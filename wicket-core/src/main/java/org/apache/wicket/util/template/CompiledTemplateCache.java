@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.template;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Objects;
+import org.apache.wicket.util.time.Time;
+
+/**
+ * An application scoped cache of compiled templates, e.g. parsed template sources, keyed by the
+ * location of their resource. An entry is only valid as long as the resource has the same
+ * modification time as the one the template was compiled from, so modified resources are compiled
+ * anew.
+ * <p>
+ * Each kind of template has its own cache, identified by a {@link MetaDataKey} of the application:
+ * 
+ * <pre>
+ * private static final MetaDataKey&lt;CompiledTemplateCache&lt;Template&gt;&gt; KEY = new MetaDataKey&lt;CompiledTemplateCache&lt;Template&gt;&gt;()
+ * {
+ * };
+ * 
+ * CompiledTemplateCache&lt;Template&gt; cache = CompiledTemplateCache.get(application, KEY);
+ * </pre>
+ * 
+ * @param <T>
+ *            type of the compiled templates
+ */
+public class CompiledTemplateCache<T>
+{
+	private final ConcurrentMap<String, Entry<T>> entries =
+		new ConcurrentHashMap<String, Entry<T>>();
+
+	/**
+	 * Gets the cache of the application for the given key, creating it on first access.
+	 * 
+	 * @param <T>
+	 *            type of the compiled templates
+	 * @param application
+	 * @param key
+	 *            the key of the cache
+	 * @return the cache
+	 */
+	public static <T> CompiledTemplateCache<T> get(final Application application,
+		final MetaDataKey<CompiledTemplateCache<T>> key)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(key, "key");
+
+		CompiledTemplateCache<T> cache = application.getMetaData(key);
+		if (cache == null)
+		{
+			synchronized (application)
+			{
+				cache = application.getMetaData(key);
+				if (cache == null)
+				{
+					cache = new CompiledTemplateCache<T>();
+					application.setMetaData(key, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Gets the compiled template of a resource.
+	 * 
+	 * @param location
+	 *            the location of the resource
+	 * @param lastModified
+	 *            the current modification time of the resource, may be <code>null</code>
+	 * @return the template or <code>null</code> if there is none or the resource was modified
+	 *         since the template was compiled
+	 */
+	public T get(final String location, final Time lastModified)
+	{
+		final Entry<T> entry = entries.get(location);
+		if ((entry != null) && Objects.equal(entry.lastModified, lastModified))
+		{
+			return entry.template;
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the compiled template of a resource, replacing the one compiled from an older version.
+	 * 
+	 * @param location
+	 *            the location of the resource
+	 * @param lastModified
+	 *            the modification time of the resource the template was compiled from, may be
+	 *            <code>null</code>
+	 * @param template
+	 *            the compiled template
+	 */
+	public void put(final String location, final Time lastModified, final T template)
+	{
+		Args.notNull(location, "location");
+		Args.notNull(template, "template");
+
+		entries.put(location, new Entry<T>(lastModified, template));
+	}
+
+	/**
+	 * Removes the compiled template of a resource.
+	 * 
+	 * @param location
+	 */
+	public void remove(final String location)
+	{
+		entries.remove(location);
+	}
+
+	/**
+	 * Removes all compiled templates.
+	 */
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of compiled templates
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	private static final class Entry<T>
+	{
+		private final Time lastModified;
+
+		private final T template;
+
+		private Entry(final Time lastModified, final T template)
+		{
+			this.lastModified = lastModified;
+			this.template = template;
+		}
+	}
+}
@@ -20,18 +20,23 @@ import java.io.IOException;
 import java.util.Map;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.util.io.Streams;
 import org.apache.wicket.util.lang.Packages;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.apache.wicket.core.util.resource.locator.ResourceStreamLocator;
-import org.apache.wicket.util.string.interpolator.MapVariableInterpolator;
+import org.apache.wicket.util.string.interpolator.VariableTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * A <code>String</code> resource that can be appended to.
+ * <p>
+ * The contents of a package resource are read and split into literal text and variables once,
+ * then they are kept in an application scoped {@link CompiledTemplateCache} until the resource is
+ * modified.
  * 
  * @author Eelco Hillenius
  * @since 1.2.6
@@ -49,8 +54,18 @@ public class PackageTextTemplate extends TextTemplate
 	/** The encoding used if not provided in the constructor */
 	public static final String DEFAULT_ENCODING = null;
 
+	/** the compiled contents of package resources */
+	private static final MetaDataKey<CompiledTemplateCache<VariableTemplate>> TEMPLATES_KEY =
+		new MetaDataKey<CompiledTemplateCache<VariableTemplate>>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
 	/** contents */
-	private final StringBuilder buffer = new StringBuilder();
+	private String string;
+
+	/** the compiled contents, <code>null</code> until needed after an interpolation */
+	private VariableTemplate template;
 
 	/**
 	 * Constructor.
@@ -127,14 +142,25 @@ public class PackageTextTemplate extends TextTemplate
 
 		try
 		{
-			if (encoding != null)
-			{
-				buffer.append(Streams.readString(stream.getInputStream(), encoding));
-			}
-			else
+			CompiledTemplateCache<VariableTemplate> cache = CompiledTemplateCache.get(app,
+				TEMPLATES_KEY);
+			String location = path + "|" + encoding;
+			template = cache.get(location, stream.lastModifiedTime());
+			if (template == null)
 			{
-				buffer.append(Streams.readString(stream.getInputStream()));
+				final String contents;
+				if (encoding != null)
+				{
+					contents = Streams.readString(stream.getInputStream(), encoding);
+				}
+				else
+				{
+					contents = Streams.readString(stream.getInputStream());
+				}
+				template = VariableTemplate.parse(contents);
+				cache.put(location, stream.lastModifiedTime(), template);
 			}
+			string = template.toString();
 		}
 		catch (IOException e)
 		{
@@ -163,7 +189,18 @@ public class PackageTextTemplate extends TextTemplate
 	@Override
 	public String getString()
 	{
-		return buffer.toString();
+		return string;
+	}
+
+	/**
+	 * Interpolates with the compiled contents, without scanning them for variables again.
+	 * 
+	 * @see org.apache.wicket.util.template.TextTemplate#asString(java.util.Map)
+	 */
+	@Override
+	public String asString(final Map<String, ?> variables)
+	{
+		return getTemplate().interpolate(variables);
 	}
 
 	/**
@@ -187,12 +224,22 @@ public class PackageTextTemplate extends TextTemplate
 	{
 		if (variables != null)
 		{
-			String result = new MapVariableInterpolator(buffer.toString(), variables).toString();
-			buffer.delete(0, buffer.length());
-			buffer.append(result);
+			string = getTemplate().interpolate(variables);
+			template = null;
 		}
 		return this;
 	}
 
+	/**
+	 * @return the compiled contents
+	 */
+	private VariableTemplate getTemplate()
+	{
+		if (template == null)
+		{
+			template = VariableTemplate.parse(string);
+		}
+		return template;
+	}
 
 }
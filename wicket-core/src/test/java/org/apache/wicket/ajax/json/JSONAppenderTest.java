@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.ajax.json;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link JSONAppender}
+ */
+public class JSONAppenderTest extends Assert
+{
+	/**
+	 * The text is appended to the buffer, written like {@link JSONStringer} writes it.
+	 * 
+	 * @throws JSONException
+	 */
+	@Test
+	public void append() throws JSONException
+	{
+		StringBuilder buffer = new StringBuilder("var attrs = ");
+		new JSONAppender(buffer).object()
+			.key("a")
+			.value(1)
+			.key("b")
+			.array()
+			.value("x</script>\n\u2028")
+			.object()
+			.endObject()
+			.value(true)
+			.value(1.5)
+			.endArray()
+			.key("c")
+			.value(new StringBuilder("sb"))
+			.endObject();
+
+		JSONStringer stringer = new JSONStringer();
+		stringer.object()
+			.key("a")
+			.value(1)
+			.key("b")
+			.array()
+			.value("x</script>\n\u2028")
+			.object()
+			.endObject()
+			.value(true)
+			.value(1.5)
+			.endArray()
+			.key("c")
+			.value(new StringBuilder("sb"))
+			.endObject();
+
+		assertEquals("var attrs = " + stringer.toString(), buffer.toString());
+	}
+
+	/**
+	 * Members rendered before are separated from the other members, empty ones are skipped.
+	 */
+	@Test
+	public void members()
+	{
+		StringBuilder members = new StringBuilder();
+		new JSONAppender(members).key("b").value(true).key("c").value("x");
+
+		StringBuilder buffer = new StringBuilder();
+		new JSONAppender(buffer).object()
+			.members("")
+			.key("a")
+			.value(1)
+			.members(members)
+			.members("")
+			.key("d")
+			.value(2)
+			.endObject();
+
+		assertEquals("{\"a\":1,\"b\":true,\"c\":\"x\",\"d\":2}", buffer.toString());
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.util.Map;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.application.RenderProfiler.Histogram;
+import org.apache.wicket.application.RenderProfiler.Phase;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.basic.SimplePage;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RenderProfiler}.
+ */
+public class RenderProfilerTest extends WicketTestCase
+{
+	/**
+	 * Render and before render are profiled per component class.
+	 */
+	@Test
+	public void profile()
+	{
+		RenderProfiler profiler = RenderProfiler.install(tester.getApplication()).setSampleRate(1);
+		assertSame(profiler, RenderProfiler.get(tester.getApplication()));
+
+		tester.startPage(SimplePage.class);
+		tester.assertRenderedPage(SimplePage.class);
+		assertEquals(1, profiler.getProfiledRequests());
+		// the profiling behavior is removed with the request
+		assertTrue(tester.getLastRenderedPage().get("myLabel").getBehaviors().isEmpty());
+
+		for (Phase phase : Phase.values())
+		{
+			Map<Class<?>, Histogram> histograms = profiler.getHistograms(phase);
+			assertEquals(1, histograms.get(SimplePage.class).getCount());
+			assertTrue(histograms.get(Label.class).getCount() >= 2);
+
+			// the page includes its children
+			assertEquals(SimplePage.class, profiler.getSortedHistograms(phase).get(0).getKey());
+		}
+
+		profiler.reset();
+		assertTrue(profiler.getHistograms(Phase.RENDER).isEmpty());
+	}
+
+	/**
+	 * Only every n-th request is profiled.
+	 */
+	@Test
+	public void sampleRate()
+	{
+		RenderProfiler profiler = RenderProfiler.install(tester.getApplication()).setSampleRate(3);
+
+		for (int i = 0; i < 6; i++)
+		{
+			tester.startPage(SimplePage.class);
+		}
+		assertEquals(2, profiler.getProfiledRequests());
+		assertEquals(2, profiler.getHistograms(Phase.RENDER).get(SimplePage.class).getCount());
+
+		profiler.setSampleRate(0);
+		tester.startPage(SimplePage.class);
+		assertEquals(2, profiler.getProfiledRequests());
+
+		// nothing is attached to the components outside of profiled requests
+		assertTrue(new Label("label").getBehaviors().isEmpty());
+		assertTrue(tester.getLastRenderedPage().get("myLabel").getBehaviors().isEmpty());
+	}
+}
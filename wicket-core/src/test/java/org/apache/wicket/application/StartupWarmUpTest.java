@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupCache;
+import org.apache.wicket.markup.html.panel.FragmentTestPanel;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.request.resource.caching.version.CachingResourceVersion;
+import org.apache.wicket.request.resource.caching.version.IResourceVersion;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StartupWarmUp}.
+ */
+public class StartupWarmUpTest extends WicketTestCase
+{
+	/**
+	 * The component classes of a package are scanned and warmed up.
+	 */
+	@Test
+	public void warmUpPackage()
+	{
+		StartupWarmUp warmUp = new StartupWarmUp(tester.getApplication()).addPackage(
+			"org.apache.wicket.markup.html.panel")
+			.setLocales(Locale.ENGLISH, Locale.GERMAN)
+			.setThreads(4)
+			.setTimeBudget(Duration.minutes(1));
+
+		assertFalse(warmUp.getProgress().isFinished());
+
+		StartupWarmUp.Progress progress = warmUp.run();
+
+		assertTrue(progress.isFinished());
+		assertFalse(progress.isTimedOut());
+		assertTrue(progress.getClasses() > 10);
+		assertEquals(progress.getClasses(), progress.getWarmedUp());
+		assertTrue(progress.getMarkup() > 10);
+		assertEquals(2 * progress.getClasses(), progress.getProperties());
+	}
+
+	/**
+	 * A single class is warmed up.
+	 */
+	@Test
+	public void warmUpClass()
+	{
+		StartupWarmUp.Progress progress = new StartupWarmUp(tester.getApplication()).addClass(
+			FragmentTestPanel.class).run();
+
+		assertEquals(1, progress.getClasses());
+		assertEquals(1, progress.getMarkup());
+		assertEquals(0, progress.getErrors());
+	}
+
+	/**
+	 * The markup is parsed into the markup cache and found there on the first render.
+	 */
+	@Test
+	public void preloadMarkup()
+	{
+		tester.getApplication().getResourceSettings().setResourcePollFrequency(null);
+
+		StartupWarmUp.Progress progress = new StartupWarmUp(tester.getApplication()).addClass(
+			FragmentTestPanel.class).run();
+
+		assertEquals(0, progress.getErrors());
+		assertEquals(1, progress.getPreloadedMarkup());
+		MarkupCache cache = (MarkupCache)MarkupCache.get();
+		assertEquals(1, cache.size());
+		Markup preloaded = cache.getMarkupCache().getValues().iterator().next();
+
+		FragmentTestPanel panel = tester.startComponentInPage(new FragmentTestPanel("panel"));
+		assertSame(preloaded, panel.getAssociatedMarkup());
+	}
+
+	/**
+	 * Markup is not preloaded while resources are watched for changes.
+	 */
+	@Test
+	public void watchedMarkup()
+	{
+		tester.getApplication().getResourceSettings().setResourcePollFrequency(
+			Duration.seconds(1));
+
+		StartupWarmUp.Progress progress = new StartupWarmUp(tester.getApplication()).addClass(
+			FragmentTestPanel.class).run();
+
+		assertEquals(1, progress.getMarkup());
+		assertEquals(0, progress.getPreloadedMarkup());
+		assertEquals(0, MarkupCache.get().size());
+	}
+
+	/**
+	 * The warm-up stops when the time budget is exhausted.
+	 */
+	@Test
+	public void timeBudget()
+	{
+		StartupWarmUp.Progress progress = new StartupWarmUp(tester.getApplication())
+		{
+			@Override
+			protected void warmUp(Class<?> componentClass)
+			{
+				try
+				{
+					Thread.sleep(10000);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}.addClass(FragmentTestPanel.class).setTimeBudget(Duration.milliseconds(50)).run();
+
+		assertTrue(progress.isFinished());
+		assertTrue(progress.isTimedOut());
+	}
+
+	/**
+	 * The versions of package resources are computed.
+	 */
+	@Test
+	public void warmUpVersions()
+	{
+		final AtomicInteger computed = new AtomicInteger();
+		final CachingResourceVersion versions = new CachingResourceVersion(new IResourceVersion()
+		{
+			@Override
+			public String getVersion(IStaticCacheableResource resource)
+			{
+				computed.incrementAndGet();
+				return "1";
+			}
+		});
+		tester.getApplication()
+			.getResourceSettings()
+			.setCachingStrategy(new FilenameWithVersionResourceCachingStrategy(versions));
+
+		StartupWarmUp.Progress progress = new StartupWarmUp(tester.getApplication()).addClass(
+			ResourcePanel.class).run();
+
+		assertEquals(0, progress.getErrors());
+		assertEquals(1, progress.getVersions());
+		assertEquals(1, computed.get());
+
+		// computed already
+		assertEquals("1", versions.getVersion(ResourcePanel.SCRIPT.getResource()));
+		assertEquals(1, computed.get());
+	}
+
+	/**
+	 * A panel with a package resource.
+	 */
+	public static class ResourcePanel extends Panel
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final PackageResourceReference SCRIPT = new PackageResourceReference(
+			AbstractDefaultAjaxBehavior.class, "res/js/wicket-ajax-jquery.js");
+
+		/**
+		 * Construct.
+		 * 
+		 * @param id
+		 */
+		public ResourcePanel(String id)
+		{
+			super(id);
+		}
+	}
+}
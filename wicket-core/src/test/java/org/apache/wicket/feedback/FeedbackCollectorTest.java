@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.feedback;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FeedbackCollector} and {@link FeedbackIndex}
+ */
+public class FeedbackCollectorTest extends WicketTestCase
+{
+	private WebPage page;
+
+	private WebMarkupContainer container;
+
+	private WebMarkupContainer inner;
+
+	private WebMarkupContainer outer;
+
+	/**
+	 * Build a page
+	 */
+	@Before
+	public void before()
+	{
+		page = new WebPage()
+		{
+			private static final long serialVersionUID = 1L;
+		};
+		container = new WebMarkupContainer("container");
+		page.add(container);
+		inner = new WebMarkupContainer("inner");
+		container.add(inner);
+		outer = new WebMarkupContainer("outer");
+		page.add(outer);
+	}
+
+	/**
+	 * Messages are collected from the descendants of the component.
+	 */
+	@Test
+	public void collectsDescendants()
+	{
+		inner.error("inner");
+		outer.error("outer");
+
+		assertEquals(messages("inner", "outer"), collect(page));
+		assertEquals(messages("inner"), collect(container));
+		assertEquals(messages("inner"), collect(inner));
+	}
+
+	/**
+	 * Messages reported after a collection are collected too.
+	 */
+	@Test
+	public void collectsNewMessages()
+	{
+		outer.error("outer");
+		assertEquals(messages("outer"), collect(page));
+
+		inner.error("inner");
+		assertEquals(messages("inner", "outer"), collect(page));
+
+		// an empty messages instance gets a message
+		container.getFeedbackMessages();
+		assertEquals(messages("inner", "outer"), collect(page));
+		container.error("container");
+		assertEquals(messages("container", "inner", "outer"), collect(page));
+	}
+
+	/**
+	 * Removed components are no longer collected.
+	 */
+	@Test
+	public void skipsRemovedComponents()
+	{
+		inner.error("inner");
+		outer.error("outer");
+		assertEquals(messages("inner", "outer"), collect(page));
+
+		container.remove(inner);
+		assertEquals(messages("outer"), collect(page));
+
+		page.remove(outer);
+		container.add(outer);
+		assertEquals(messages("outer"), collect(container));
+	}
+
+	/**
+	 * Components holding messages already when they are added to the page are collected too.
+	 */
+	@Test
+	public void collectsAddedComponents()
+	{
+		WebMarkupContainer added = new WebMarkupContainer("added");
+		added.error("added");
+		inner.error("inner");
+		assertEquals(messages("inner"), collect(page));
+
+		container.add(added);
+		assertEquals(messages("inner", "added"), collect(page));
+
+		WebMarkupContainer replacement = new WebMarkupContainer("outer");
+		replacement.error("replacement");
+		page.replace(replacement);
+		assertEquals(messages("inner", "added", "replacement"), collect(page));
+	}
+
+	private List<Serializable> collect(MarkupContainer component)
+	{
+		List<Serializable> messages = new ArrayList<Serializable>();
+		for (FeedbackMessage message : new FeedbackCollector(component).setIncludeSession(false)
+			.collect())
+		{
+			messages.add(message.getMessage());
+		}
+		return messages;
+	}
+
+	private List<Serializable> messages(String... messages)
+	{
+		List<Serializable> list = new ArrayList<Serializable>();
+		for (String message : messages)
+		{
+			list.add(message);
+		}
+		return list;
+	}
+}
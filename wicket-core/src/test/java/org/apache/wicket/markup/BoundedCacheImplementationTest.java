@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.WicketTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BoundedCacheImplementation}.
+ */
+public class BoundedCacheImplementationTest extends WicketTestCase
+{
+	private BoundedCacheImplementation markupCache;
+
+	/**
+	 */
+	@Before
+	public void before()
+	{
+		final MarkupCache cache = new MarkupCache()
+		{
+			@Override
+			protected ICache<String, Markup> newMarkupCacheImplementation()
+			{
+				return new BoundedCacheImplementation(Long.MAX_VALUE);
+			}
+		};
+		tester.getApplication().getMarkupSettings().setMarkupFactory(new MarkupFactory()
+		{
+			@Override
+			public IMarkupCache getMarkupCache()
+			{
+				return cache;
+			}
+		});
+		markupCache = (BoundedCacheImplementation)cache.getMarkupCache();
+	}
+
+	/**
+	 * The least recently used markup is evicted.
+	 */
+	@Test
+	public void evictLeastRecentlyUsed()
+	{
+		Markup a = Markup.of("<p>aaaaaaaaaa</p>");
+		Markup b = Markup.of("<p>bbbbbbbbbb</p>");
+		Markup c = Markup.of("<p>cccccccccc</p>");
+
+		markupCache.put("a", a);
+		markupCache.put("b", b);
+		long weight = markupCache.getWeight();
+		assertTrue(weight > 0);
+
+		assertSame(a, markupCache.get("a"));
+		markupCache.setMaximumWeight(weight + weight / 4);
+		markupCache.put("c", c);
+
+		assertEquals(2, markupCache.size());
+		assertSame(a, markupCache.get("a"));
+		assertNull(markupCache.get("b"));
+		assertSame(c, markupCache.get("c"));
+		assertEquals(1, markupCache.getEvictions());
+		assertEquals(weight, markupCache.getWeight());
+
+		markupCache.remove("a");
+		markupCache.remove("c");
+		assertEquals(0, markupCache.getWeight());
+	}
+
+	/**
+	 * Derived markup is evicted with its base markup.
+	 */
+	@Test
+	public void evictDerivedWithBase()
+	{
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		IMarkupFragment markup = MarkupCache.get().getMarkup(tester.getLastRenderedPage(), null,
+			false);
+		assertTrue(markup instanceof MergedMarkup);
+		assertTrue(markupCache.size() >= 2);
+
+		// touch the derived markup, so its base is the least recently used
+		String key = ((MergedMarkup)markup).locationAsString();
+		assertSame(markup, markupCache.get(key));
+
+		markupCache.setMaximumWeight(markupCache.getWeight() - 1);
+
+		assertNull(markupCache.get(key));
+		for (Markup cached : markupCache.getValues())
+		{
+			assertNull(cached.getMarkupResourceStream().getBaseMarkupResourceStream());
+		}
+	}
+
+	/**
+	 * Hits, misses and loads are counted.
+	 */
+	@Test
+	public void statistics()
+	{
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		long loads = markupCache.getLoads();
+		assertTrue(loads > 0);
+		assertTrue(markupCache.getMisses() >= loads);
+		assertTrue(markupCache.getLoadTime(TimeUnit.NANOSECONDS) > 0);
+
+		long hits = markupCache.getHits();
+		tester.startPage(MarkupInheritanceExtension_1.class);
+		assertTrue(markupCache.getHits() > hits);
+		assertEquals(loads, markupCache.getLoads());
+
+		markupCache.resetStatistics();
+		assertEquals(0, markupCache.getHits());
+	}
+
+	/**
+	 * Misses whose markup is never put don't prevent measuring the load time of later misses.
+	 */
+	@Test
+	public void expirePendingMisses()
+	{
+		final AtomicLong now = new AtomicLong();
+		BoundedCacheImplementation cache = new BoundedCacheImplementation(Long.MAX_VALUE)
+		{
+			@Override
+			long nanoTime()
+			{
+				return now.get();
+			}
+		};
+
+		for (int i = 0; i < 2000; i++)
+		{
+			assertNull(cache.get("never-put-" + i));
+		}
+
+		now.set(TimeUnit.MINUTES.toNanos(2));
+		assertNull(cache.get("a"));
+		now.addAndGet(100);
+		cache.put("a", Markup.of("<p>a</p>"));
+
+		assertEquals(1, cache.getLoads());
+		assertEquals(100, cache.getLoadTime(TimeUnit.NANOSECONDS));
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.markup.parser.XmlPullParser;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.io.Streams;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTester;
+
+/**
+ * Measures parsing of a corpus of real markup files, i.e. the markup of Wicket's own components
+ * and examples, with the bare {@link XmlPullParser} and with the complete filter chain of the
+ * {@link MarkupParser}, and the rendering of a page with a table of labels.
+ * <p>
+ * Not run as part of the build, start {@link #main(String[])} manually from the wicket-core
+ * directory. Further directories with markup files can be given as arguments.
+ */
+public class MarkupParserBenchmark
+{
+	private static final int ROUNDS = 20;
+
+	private static final int RENDERS = 500;
+
+	/**
+	 * @param args
+	 *            additional directories to collect markup files from
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		List<String> corpus = new ArrayList<String>();
+		collect(new File("src/main/java"), corpus);
+		collect(new File("../wicket-extensions/src/main/java"), corpus);
+		collect(new File("../wicket-examples/src/main/java"), corpus);
+		for (String arg : args)
+		{
+			collect(new File(arg), corpus);
+		}
+
+		WicketTester tester = new WicketTester();
+		try
+		{
+			// markup which is not valid on its own, e.g. fragments of the examples, is skipped
+			long chars = 0;
+			for (Iterator<String> iterator = corpus.iterator(); iterator.hasNext();)
+			{
+				String markup = iterator.next();
+				try
+				{
+					new MarkupParser(markup).parse();
+					chars += markup.length();
+				}
+				catch (RuntimeException ex)
+				{
+					iterator.remove();
+				}
+			}
+			System.out.println(corpus.size() + " markup files, " + chars / 1024 + " KB");
+
+			for (int run = 0; run < 2; run++)
+			{
+				// the first run warms up
+				final boolean print = run == 1;
+
+				long start = System.nanoTime();
+				int elements = pullParse(corpus);
+				print(print, "XmlPullParser", start, elements);
+
+				start = System.nanoTime();
+				elements = markupParse(corpus);
+				print(print, "MarkupParser", start, elements);
+
+				start = System.nanoTime();
+				int length = 0;
+				for (int i = 0; i < RENDERS; i++)
+				{
+					tester.startPage(new TablePage());
+					length += tester.getLastResponseAsString().length();
+				}
+				print(print, "render", start, length);
+			}
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	private static void print(boolean print, String name, long start, int count)
+	{
+		if (print)
+		{
+			System.out.println(String.format("%-15s %5d ms (%d)", name,
+				(System.nanoTime() - start) / 1000000, count));
+		}
+	}
+
+	/**
+	 * Pulls all elements of the corpus from a {@link XmlPullParser}.
+	 *
+	 * @param corpus
+	 * @return number of elements
+	 * @throws Exception
+	 */
+	private static int pullParse(List<String> corpus) throws Exception
+	{
+		int elements = 0;
+		for (int i = 0; i < ROUNDS; i++)
+		{
+			for (String markup : corpus)
+			{
+				XmlPullParser parser = new XmlPullParser();
+				parser.parse(markup);
+				while (parser.next() != HttpTagType.NOT_INITIALIZED)
+				{
+					elements++;
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Parses the corpus with a {@link MarkupParser} with its default filters.
+	 *
+	 * @param corpus
+	 * @return number of markup elements
+	 * @throws Exception
+	 */
+	private static int markupParse(List<String> corpus) throws Exception
+	{
+		int elements = 0;
+		for (int i = 0; i < ROUNDS; i++)
+		{
+			for (String markup : corpus)
+			{
+				elements += new MarkupParser(markup).parse().size();
+			}
+		}
+		return elements;
+	}
+
+	private static void collect(File dir, List<String> corpus) throws IOException
+	{
+		File[] files = dir.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		for (File file : files)
+		{
+			if (file.isDirectory())
+			{
+				collect(file, corpus);
+			}
+			else if (file.getName().endsWith(".html"))
+			{
+				InputStream in = new FileInputStream(file);
+				try
+				{
+					corpus.add(Streams.readString(in, "UTF-8"));
+				}
+				finally
+				{
+					IOUtils.closeQuietly(in);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A page rendering a table of labels.
+	 */
+	public static class TablePage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public TablePage()
+		{
+			List<Integer> rows = new ArrayList<Integer>();
+			for (int i = 0; i < 100; i++)
+			{
+				rows.add(i);
+			}
+			add(new ListView<Integer>("rows", rows)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void populateItem(ListItem<Integer> item)
+				{
+					item.add(new Label("name", "row " + item.getModelObject()));
+					item.add(new Label("value", item.getModel()));
+				}
+			});
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><body><table>"
+				+ "<tr wicket:id=\"rows\"><td wicket:id=\"name\"></td><td wicket:id=\"value\"></td></tr>"
+				+ "</table></body></html>");
+		}
+	}
+}
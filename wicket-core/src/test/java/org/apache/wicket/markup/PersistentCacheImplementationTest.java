@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.header.inheritance.ConcretePage2;
+import org.apache.wicket.markup.parser.XmlTag;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PersistentCacheImplementation}.
+ */
+public class PersistentCacheImplementationTest extends WicketTestCase
+{
+	private File file;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		file = File.createTempFile("markup", ".cache");
+		file.delete();
+	}
+
+	/**
+	 */
+	@After
+	public void after()
+	{
+		file.delete();
+	}
+
+	private PersistentCacheImplementation install()
+	{
+		final MarkupCache cache = new MarkupCache()
+		{
+			@Override
+			protected ICache<String, Markup> newMarkupCacheImplementation()
+			{
+				return new PersistentCacheImplementation(tester.getApplication(), file);
+			}
+		};
+		tester.getApplication().getMarkupSettings().setMarkupFactory(new MarkupFactory()
+		{
+			@Override
+			public IMarkupCache getMarkupCache()
+			{
+				return cache;
+			}
+		});
+		return (PersistentCacheImplementation)cache.getMarkupCache();
+	}
+
+	/**
+	 * Inherited markup is restored from the file and renders the same.
+	 */
+	@Test
+	public void restore()
+	{
+		PersistentCacheImplementation markupCache = install();
+		tester.startPage(ConcretePage2.class);
+		String expected = tester.getLastResponseAsString();
+		int size = markupCache.size();
+		assertTrue(size > 0);
+
+		markupCache.shutdown();
+		assertTrue(file.exists());
+		assertEquals(0, markupCache.size());
+
+		markupCache = install();
+		assertEquals(size, markupCache.size());
+		assertTrue(markupCache.getValues().isEmpty());
+
+		tester.startPage(ConcretePage2.class);
+		assertEquals(expected, tester.getLastResponseAsString());
+
+		boolean merged = false;
+		for (Markup markup : markupCache.getValues())
+		{
+			if (markup instanceof MergedMarkup)
+			{
+				merged = true;
+				assertNotNull(markup.getMarkupResourceStream().getBaseMarkupResourceStream());
+			}
+		}
+		assertTrue(merged);
+	}
+
+	/**
+	 * Markup whose resource has been modified since it was persisted is not restored.
+	 * 
+	 * @throws URISyntaxException
+	 */
+	@Test
+	public void modified() throws URISyntaxException
+	{
+		PersistentCacheImplementation markupCache = install();
+		tester.startPage(ConcretePage2.class);
+		markupCache.shutdown();
+
+		File html = new File(ConcretePage2.class.getResource("ConcretePage2.html").toURI());
+		long lastModified = html.lastModified();
+		html.setLastModified(lastModified - 10000);
+		try
+		{
+			markupCache = install();
+
+			int restored = 0;
+			for (String key : markupCache.getKeys())
+			{
+				if (key.contains("ConcretePage2.html"))
+				{
+					assertNull(markupCache.get(key));
+				}
+				else if (markupCache.get(key) != null)
+				{
+					restored++;
+				}
+			}
+			assertTrue(restored > 0);
+		}
+		finally
+		{
+			html.setLastModified(lastModified);
+		}
+	}
+
+	/**
+	 * Persisting markup must not make the markup classes serializable, otherwise markup held by
+	 * components would silently end up in serialized pages.
+	 */
+	@Test
+	public void markupIsNotSerializable()
+	{
+		assertFalse(Serializable.class.isAssignableFrom(Markup.class));
+		assertFalse(Serializable.class.isAssignableFrom(MarkupElement.class));
+		assertFalse(Serializable.class.isAssignableFrom(XmlTag.class));
+	}
+}
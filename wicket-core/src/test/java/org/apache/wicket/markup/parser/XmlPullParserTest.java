@@ -18,9 +18,14 @@ package org.apache.wicket.markup.parser;
 
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.util.parse.metapattern.parsers.TagNameParser;
+import org.apache.wicket.util.parse.metapattern.parsers.VariableAssignmentParser;
 import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.string.Strings;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -432,4 +437,79 @@ public class XmlPullParserTest extends Assert
 		type = parser.next();
 		assertEquals(HttpTagType.CONDITIONAL_COMMENT_ENDIF, type);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The tag text is scanned without regular expressions, the result has to be the same as with
+	 * the former {@link TagNameParser} and {@link VariableAssignmentParser}.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public final void scannedLikePatterns() throws Exception
+	{
+		String[] tags = { "<wicket:panel  xmlns:wicket=\"http://wicket.apache.org\" >",
+				"<ns-x:y z=1>", "</ns-x:y>", "<x:1 y>", "<a:b:c d:e:f=\"1\" g-h:i=2>",
+				"<_x _y=_z __:a=b #junk=\"q\" $=1 .a=2>", "<hr a=b/>", "<br />",
+				"<a href=x\"y\" b='' c=\"\">", "<a\ttab=\"1\"\n nl=\"2\" x = y z=  \"q\" w='a b'>",
+				"<tag a=foo/bar b=&amp;x c=\"&lt;x&gt;\" d=\" spaced  \" e= f=>",
+				"<t a=1 a:b:c=2 ab-:x=3 d.=4 -e=5 f=-6 g=.7 h=a.b-c_d i=\"\" j=''/>",
+				"<t a=\"1\"b=\"2\"c=3d=4/>", "<t a= \"x\" / >", "<p a=\"1\" A=\"2\"></p>" };
+
+		for (String markup : tags)
+		{
+			final XmlPullParser parser = new XmlPullParser();
+			parser.parse(markup);
+			XmlTag tag;
+			while ((tag = parser.nextTag()) != null)
+			{
+				String text = parser.getString().toString();
+				text = text.substring(1, text.length() - 1);
+				if (tag.isOpenClose())
+				{
+					text = text.substring(0, text.length() - 1);
+				}
+				else if (tag.isClose())
+				{
+					text = text.substring(1);
+				}
+
+				TagNameParser tagNameParser = new TagNameParser(text);
+				assertTrue(markup, tagNameParser.matcher().lookingAt());
+				assertEquals(markup, tagNameParser.getName(), tag.getName());
+				assertEquals(markup, tagNameParser.getNamespace(), tag.getNamespace());
+
+				Map<String, String> attributes = new HashMap<String, String>();
+				VariableAssignmentParser attributeParser = new VariableAssignmentParser(text);
+				int pos = tagNameParser.matcher().end(0);
+				while ((pos < text.length()) && attributeParser.matcher().find(pos))
+				{
+					String value = attributeParser.getValue();
+					if (value == null)
+					{
+						value = "";
+					}
+					if (value.startsWith("\"") || value.startsWith("'"))
+					{
+						value = value.substring(1, value.length() - 1);
+					}
+					attributes.put(attributeParser.getKey(),
+						Strings.unescapeMarkup(value.trim()).toString());
+					pos = attributeParser.matcher().end(0);
+				}
+				assertEquals(markup, attributes, new HashMap<String, Object>(tag.getAttributes()));
+			}
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test(expected = ParseException.class)
+	public final void closeTagWithoutName() throws Exception
+	{
+		final XmlPullParser parser = new XmlPullParser();
+		parser.parse("<a></>");
+		parser.nextTag();
+		parser.nextTag();
+	}
+}
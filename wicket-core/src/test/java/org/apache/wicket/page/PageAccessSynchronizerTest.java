@@ -17,13 +17,13 @@
 package org.apache.wicket.page;
 
 import java.util.Random;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.MockPage;
 import org.apache.wicket.mock.MockPageManager;
 import org.apache.wicket.page.PageAccessSynchronizer.PageLock;
 import org.apache.wicket.util.SlowTests;
+import org.apache.wicket.util.collections.ConcurrentIntHashMap;
 import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.util.time.Duration;
 import org.apache.wicket.util.time.Time;
@@ -317,15 +317,15 @@ public class PageAccessSynchronizerTest extends Assert
 		IPageManager pageManager = new MockPageManager();
 		IPageManager synchronizedPageManager = synchronizer.adapt(pageManager);
 		synchronizedPageManager.getPage(0);
-		ConcurrentMap<Integer, PageLock> locks = synchronizer.getLocks().get();
-		PageLock pageLock = locks.get(Integer.valueOf(0));
+		ConcurrentIntHashMap<PageLock> locks = synchronizer.getLocks().get();
+		PageLock pageLock = locks.get(0);
 		assertNull(pageLock);
 
 		int pageId = 1;
 		IManageablePage page = new MockPage(pageId);
 		synchronizedPageManager.touchPage(page);
 		synchronizedPageManager.getPage(pageId);
-		PageLock pageLock2 = locks.get(Integer.valueOf(pageId));
+		PageLock pageLock2 = locks.get(pageId);
 		assertNotNull(pageLock2);
 	}
 }
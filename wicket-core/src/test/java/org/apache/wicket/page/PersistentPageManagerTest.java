@@ -23,10 +23,12 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.ThreadContext;
 import org.apache.wicket.pageStore.DefaultPageStore;
+import org.apache.wicket.pageStore.IBatchDataStore;
 import org.apache.wicket.pageStore.IDataStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.pageStore.memory.DummyPageManagerContext;
@@ -104,6 +106,93 @@ public class PersistentPageManagerTest
 		newPageManager.destroy();
 	}
 
+	/**
+	 * The pages of a restored session are loaded from the data store at once.
+	 * 
+	 * @throws ClassNotFoundException
+	 * @throws IOException
+	 */
+	@Test
+	public void restoreSessionWithSeveralPages() throws IOException, ClassNotFoundException
+	{
+		CountingDataStore dataStore = new CountingDataStore();
+		restoreSession(new DefaultPageStore(new JavaSerializer(APP_NAME), dataStore, 4));
+
+		assertEquals(1, dataStore.batchLoads.get());
+		assertEquals(0, dataStore.singleLoads.get());
+	}
+
+	/**
+	 * The pages of a restored session are loaded with an overridden
+	 * {@link DefaultPageStore#getPageData(String, int)}.
+	 * 
+	 * @throws ClassNotFoundException
+	 * @throws IOException
+	 */
+	@Test
+	public void restoreSessionWithOverriddenPageData() throws IOException, ClassNotFoundException
+	{
+		CountingDataStore dataStore = new CountingDataStore();
+		final AtomicInteger pageDataLoads = new AtomicInteger();
+		restoreSession(new DefaultPageStore(new JavaSerializer(APP_NAME), dataStore, 4)
+		{
+			@Override
+			protected byte[] getPageData(String sessionId, int pageId)
+			{
+				pageDataLoads.incrementAndGet();
+				return super.getPageData(sessionId, pageId);
+			}
+		});
+
+		assertEquals(2, pageDataLoads.get());
+		assertEquals(0, dataStore.batchLoads.get());
+	}
+
+	/**
+	 * Restores a session with two pages, stripped from the replicated session entry, from the
+	 * page store.
+	 * 
+	 * @param pageStore
+	 *            the page store of the restored session
+	 * @throws ClassNotFoundException
+	 * @throws IOException
+	 */
+	private void restoreSession(IPageStore pageStore) throws IOException, ClassNotFoundException
+	{
+		ThreadContext.detach();
+
+		IPageManager pageManager = newPersistentPageManager(APP_NAME);
+		TestPage page1 = new TestPage();
+		TestPage page2 = new TestPage();
+		pageManager.touchPage(page1);
+		pageManager.touchPage(page2);
+		pageManager.commitRequest();
+
+		// replicate the session entry while the page store is available
+		Serializable sessionEntry = pageManager.getContext().getSessionAttribute(null);
+		byte[] serializedSessionEntry = new JavaSerializer(APP_NAME).serialize(sessionEntry);
+		pageManager.destroy();
+
+		IPageManager newPageManager = new PageStoreManager(APP_NAME, pageStore,
+			new DummyPageManagerContext());
+		try
+		{
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+				serializedSessionEntry));
+			assertEquals(APP_NAME, in.readObject());
+			newPageManager.getContext().setSessionAttribute(null, (Serializable)in.readObject());
+
+			TestPage restored1 = (TestPage)newPageManager.getPage(page1.getPageId());
+			TestPage restored2 = (TestPage)newPageManager.getPage(page2.getPageId());
+			assertEquals(page1.instanceID, restored1.instanceID);
+			assertEquals(page2.instanceID, restored2.instanceID);
+		}
+		finally
+		{
+			newPageManager.destroy();
+		}
+	}
+
 	private PageStoreManager newPersistentPageManager(String appName)
 	{
 		IDataStore dataStore = new InMemoryPageStore();
@@ -147,4 +236,30 @@ public class PersistentPageManagerTest
 			return false;
 		}
 	}
+
+	private static class CountingDataStore extends InMemoryPageStore implements IBatchDataStore
+	{
+		private final AtomicInteger singleLoads = new AtomicInteger();
+
+		private final AtomicInteger batchLoads = new AtomicInteger();
+
+		@Override
+		public byte[] getData(String sessionId, int pageId)
+		{
+			singleLoads.incrementAndGet();
+			return super.getData(sessionId, pageId);
+		}
+
+		@Override
+		public byte[][] getData(String sessionId, int[] pageIds)
+		{
+			batchLoads.incrementAndGet();
+			byte[][] data = new byte[pageIds.length][];
+			for (int i = 0; i < pageIds.length; i++)
+			{
+				data[i] = super.getData(sessionId, pageIds[i]);
+			}
+			return data;
+		}
+	}
 }
@@ -381,6 +381,44 @@ public class DiskDataStoreTest extends Assert
 		dataStore.destroy();
 	}
 
+	/**
+	 * Several pages are loaded at once, in the order of the requested ids.
+	 */
+	@Test
+	public void getDataOfSeveralPages()
+	{
+		IStoreSettings storeSettings = new StoreSettings(null);
+		java.io.File fileStoreFolder = storeSettings.getFileStoreFolder();
+
+		DiskDataStore store = new DiskDataStore("getDataOfSeveralPages", fileStoreFolder,
+			MAX_SIZE_PER_SESSION);
+		try
+		{
+			String sessionId = "sessionId";
+			for (int id = 1; id <= 5; id++)
+			{
+				store.storeData(sessionId, id, new byte[] { (byte)id, (byte)id });
+			}
+
+			byte[][] data = store.getData(sessionId, new int[] { 5, 99, 1, 3 });
+			assertEquals(4, data.length);
+			assertArrayEquals(new byte[] { 5, 5 }, data[0]);
+			assertNull(data[1]);
+			assertArrayEquals(new byte[] { 1, 1 }, data[2]);
+			assertArrayEquals(new byte[] { 3, 3 }, data[3]);
+
+			data = store.getData("unknown", new int[] { 1, 2 });
+			assertNull(data[0]);
+			assertNull(data[1]);
+
+			store.removeData(sessionId);
+		}
+		finally
+		{
+			store.destroy();
+		}
+	}
+
 	/**
 	 * https://issues.apache.org/jira/browse/WICKET-4478
 	 *
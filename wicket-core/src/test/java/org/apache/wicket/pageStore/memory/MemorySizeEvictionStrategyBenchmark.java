@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.memory;
+
+import java.util.Random;
+
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * Measures storing pages into a {@link PageTable} of a session with many pages, evicted by a
+ * {@link MemorySizeEvictionStrategy}, and compares it to measuring the table's size by
+ * serialization as done by earlier versions of the strategy.
+ * <p>
+ * Not run as part of the build, start {@link #main(String[])} manually.
+ */
+public class MemorySizeEvictionStrategyBenchmark
+{
+	private static final int PAGES = 150;
+
+	private static final int PAGE_SIZE = 20 * 1024;
+
+	private static final int STORES = 2000;
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		// warm up
+		run(false);
+		run(true);
+
+		System.out.println("incremental: " + run(false) + " ms for " + STORES + " stores");
+		System.out.println("serialized:  " + run(true) + " ms for " + STORES + " stores");
+	}
+
+	/**
+	 * Stores pages into a table holding at most {@link #PAGES} pages.
+	 * 
+	 * @param serialize
+	 *            whether to measure the table by serialization too
+	 * @return duration in milliseconds
+	 */
+	private static long run(boolean serialize)
+	{
+		Random random = new Random(42);
+		PageTable pageTable = new PageTable();
+		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(
+			Bytes.bytes(PAGES * PAGE_SIZE));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < STORES; i++)
+		{
+			byte[] page = new byte[PAGE_SIZE];
+			random.nextBytes(page);
+
+			pageTable.storePage(i, page);
+			strategy.evict(pageTable);
+
+			if (serialize)
+			{
+				WicketObjects.sizeof(pageTable);
+			}
+
+			// revisit a random recent page
+			pageTable.getPage(i - random.nextInt(PAGES));
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
@@ -17,10 +17,8 @@
 package org.apache.wicket.pageStore.memory;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 import org.apache.wicket.util.lang.Bytes;
-import org.apache.wicket.core.util.lang.WicketObjects;
 import org.junit.Test;
 
 /***/
@@ -35,31 +33,42 @@ public class MemorySizeEvictionStrategyTest
 	{
 		PageTable pageTable = new PageTable();
 
-		long sizeOfEmptyPageTable = WicketObjects.sizeof(pageTable);
-
 		// evict to empty page table
-		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(
-			Bytes.bytes(sizeOfEmptyPageTable));
+		MemorySizeEvictionStrategy strategy = new MemorySizeEvictionStrategy(Bytes.bytes(0));
 		pageTable.storePage(PAGE1.length, PAGE1);
 		assertEquals(1, pageTable.size());
 		strategy.evict(pageTable);
 		assertEquals(0, pageTable.size());
-		long currentSize = WicketObjects.sizeof(pageTable);
-		assertTrue("Current size: |" + currentSize + "|, strategy size: |" + sizeOfEmptyPageTable +
-			"|", currentSize <= sizeOfEmptyPageTable);
+		assertEquals(0, pageTable.getBytes());
 
-		// evict to page table with size: empty + PAGE2
+		// evict to page table with size: PAGE2
 		pageTable.storePage(PAGE2.length, PAGE2);
-		long sizeOfWithPage2 = WicketObjects.sizeof(pageTable);
-		strategy = new MemorySizeEvictionStrategy(Bytes.bytes(sizeOfWithPage2));
+		strategy = new MemorySizeEvictionStrategy(Bytes.bytes(PAGE2.length));
 		pageTable.storePage(PAGE1.length, PAGE1);
 		assertEquals(2, pageTable.size());
 		strategy.evict(pageTable);
-		// the following assertion depends on the fact that PAGE2 has
-		// bigger size than PAGE1
+		// the least recently used PAGE2 has been dropped
 		assertEquals(1, pageTable.size());
-		currentSize = WicketObjects.sizeof(pageTable);
-		assertTrue("Current size: |" + currentSize + "|, strategy size: |" + sizeOfWithPage2 + "|",
-			currentSize <= sizeOfWithPage2);
+		assertEquals(PAGE1.length, pageTable.getBytes());
+	}
+
+	/**
+	 * All pages which don't fit are dropped at once, least recently used first.
+	 */
+	@Test
+	public void evictSeveral()
+	{
+		PageTable pageTable = new PageTable();
+		for (int i = 0; i < 10; i++)
+		{
+			pageTable.storePage(i, new byte[100]);
+		}
+		pageTable.getPage(0);
+
+		new MemorySizeEvictionStrategy(Bytes.bytes(350)).evict(pageTable);
+
+		assertEquals(3, pageTable.size());
+		assertEquals(300, pageTable.getBytes());
+		assertEquals(Integer.valueOf(8), pageTable.getOldest());
 	}
 }
@@ -55,4 +55,28 @@ public class PageTableTest
 		// index: 1, 3
 		assertEquals(Integer.valueOf(3), pageTable.getOldest());
 	}
+
+	/***/
+	@Test
+	public void bytes()
+	{
+		PageTable pageTable = new PageTable();
+
+		pageTable.storePage(1, new byte[10]);
+		pageTable.storePage(2, new byte[20]);
+		assertEquals(30, pageTable.getBytes());
+
+		// replacing a page accounts for the difference only
+		pageTable.storePage(1, new byte[5]);
+		assertEquals(25, pageTable.getBytes());
+
+		pageTable.removePage(2);
+		assertEquals(5, pageTable.getBytes());
+
+		pageTable.removePage(3);
+		assertEquals(5, pageTable.getBytes());
+
+		pageTable.clear();
+		assertEquals(0, pageTable.getBytes());
+	}
 }
@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.request.cycle;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.wicket.mock.MockWebRequest;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.UrlRenderer;
@@ -217,4 +220,85 @@ public class UrlRendererTest extends Assert
 		String fullUrl = renderer.renderFullUrl(Url.parse("/four")); // url starting with slash is considered absolute
 		assertEquals("http://www.example.com:8888/four", fullUrl);
 	}
+
+	/**
+	 * Rendering into a buffer appends the same urls as the segment list based algorithm.
+	 */
+	@Test
+	public void renderIntoBuffer()
+	{
+		String[] bases = { "", "foo", "foo/", "foo/bar/baz?a=b", "/foo/bar", "a/b/c/d" };
+		String[] urls = { "", "foo", "foo/", "foo/bar", "foo/bar/", "foo/bar/baz",
+				"foo/bar/baz/xyz?x=y", "x/y?p=%20q", "foo/..", "..", "?a", "a/b/c/d/..",
+				"/abs/olute?x" };
+		for (String base : bases)
+		{
+			UrlRenderer renderer = new UrlRenderer(new MockWebRequest(Url.parse(base)));
+			for (String url : urls)
+			{
+				StringBuilder buffer = new StringBuilder("<");
+				renderer.renderUrl(Url.parse(url), buffer);
+				assertEquals(base + " - " + url,
+					"<" + renderRelative(Url.parse(base), Url.parse(url)), buffer.toString());
+				assertEquals(buffer.substring(1), renderer.renderUrl(Url.parse(url)));
+			}
+		}
+	}
+
+	/**
+	 * The former implementation of {@link UrlRenderer#renderRelativeUrl(Url)}.
+	 */
+	private static String renderRelative(Url baseUrl, Url url)
+	{
+		if (url.isAbsolute())
+		{
+			return url.toString();
+		}
+		List<String> baseUrlSegments = baseUrl.getSegments();
+		List<String> urlSegments = new ArrayList<String>(url.getSegments());
+		List<String> newSegments = new ArrayList<String>();
+		int common = 0;
+		String last = null;
+		for (String s : baseUrlSegments)
+		{
+			if (!urlSegments.isEmpty() && s.equals(urlSegments.get(0)))
+			{
+				++common;
+				last = urlSegments.remove(0);
+			}
+			else
+			{
+				break;
+			}
+		}
+		if ((last != null) && (urlSegments.isEmpty() || (baseUrlSegments.size() == common)))
+		{
+			--common;
+			urlSegments.add(0, last);
+		}
+		int baseUrlSize = baseUrlSegments.size();
+		if (common + 1 == baseUrlSize && urlSegments.isEmpty())
+		{
+			newSegments.add(".");
+		}
+		else
+		{
+			for (int i = common + 1; i < baseUrlSize; ++i)
+			{
+				newSegments.add("..");
+			}
+		}
+		newSegments.addAll(urlSegments);
+
+		String renderedUrl = new Url(newSegments, url.getQueryParameters()).toString();
+		if (!renderedUrl.startsWith(".."))
+		{
+			renderedUrl = "./" + renderedUrl;
+		}
+		if (renderedUrl.endsWith(".."))
+		{
+			renderedUrl = renderedUrl + '/';
+		}
+		return renderedUrl;
+	}
 }
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.behavior.IBehaviorListener;
+import org.apache.wicket.core.request.mapper.CryptoMapper;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.link.ILinkListener;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link UrlTemplateCache}
+ */
+public class UrlTemplateCacheTest extends WicketTestCase
+{
+	private WebPage page;
+
+	private List<Link<Void>> links;
+
+	private UrlTemplateStatistics statistics;
+
+	/**
+	 * Build a page with links
+	 */
+	@Before
+	public void before()
+	{
+		page = new WebPage()
+		{
+			private static final long serialVersionUID = 1L;
+		};
+
+		WebMarkupContainer container = new WebMarkupContainer("con-tainer");
+		page.add(container);
+		RepeatingView repeater = new RepeatingView("repeater");
+		container.add(repeater);
+
+		links = new ArrayList<Link<Void>>();
+		for (int i = 0; i < 10; i++)
+		{
+			Link<Void> link = new Link<Void>(repeater.newChildId())
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick()
+				{
+				}
+			};
+			link.add(new AbstractAjaxBehavior()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onRequest()
+				{
+				}
+			});
+			repeater.add(link);
+			links.add(link);
+		}
+
+		statistics = UrlTemplateStatistics.get(tester.getApplication());
+		statistics.reset();
+	}
+
+	/**
+	 * Templates render the same URLs as the mappers.
+	 */
+	@Test
+	public void sameUrls()
+	{
+		List<String> expected = urls();
+		assertEquals(0, statistics.getHits() + statistics.getMisses() + statistics.getBypasses());
+
+		tester.getApplication().getRequestCycleSettings().setUseListenerUrlTemplates(true);
+		assertEquals(expected, urls());
+		assertEquals(18, statistics.getHits());
+		assertEquals(2, statistics.getMisses());
+		assertEquals(0, statistics.getBypasses());
+
+		assertEquals(expected, urls());
+		assertEquals(38, statistics.getHits());
+	}
+
+	/**
+	 * Paths which might be encoded differently are not rendered from templates.
+	 */
+	@Test
+	public void unsupportedPath()
+	{
+		Link<Void> link = new Link<Void>("l\u00e4nk")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void onClick()
+			{
+			}
+		};
+		page.add(link);
+
+		String expected = link.urlFor(ILinkListener.INTERFACE, new PageParameters()).toString();
+
+		tester.getApplication().getRequestCycleSettings().setUseListenerUrlTemplates(true);
+		urls();
+		assertEquals(expected, link.urlFor(ILinkListener.INTERFACE, new PageParameters())
+			.toString());
+		assertEquals(1, statistics.getBypasses());
+	}
+
+	/**
+	 * Encrypted URLs can't be rendered from templates.
+	 */
+	@Test
+	public void cryptoMapper()
+	{
+		tester.getApplication().setRootRequestMapper(
+			new CryptoMapper(tester.getApplication().getRootRequestMapper(),
+				tester.getApplication()));
+		// the next request cycle uses the new mapper
+		tester.startPage(MockHomePage.class);
+
+		List<String> expected = urls();
+		assertTrue(expected.get(0).contains("ILinkListener") == false);
+
+		tester.getApplication().getRequestCycleSettings().setUseListenerUrlTemplates(true);
+		assertEquals(expected, urls());
+		assertEquals(0, statistics.getHits());
+		assertEquals(2, statistics.getMisses());
+		assertEquals(18, statistics.getBypasses());
+	}
+
+	/**
+	 * @return URLs of the links and their behaviors
+	 */
+	private List<String> urls()
+	{
+		List<String> urls = new ArrayList<String>();
+		for (Link<Void> link : links)
+		{
+			urls.add(link.urlFor(ILinkListener.INTERFACE, new PageParameters()).toString());
+
+			Behavior behavior = link.getBehaviors().get(0);
+			urls.add(link.urlFor(behavior, IBehaviorListener.INTERFACE, new PageParameters())
+				.toString());
+		}
+		return urls;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.html.image.resource.BufferedDynamicImageResource;
+import org.apache.wicket.markup.html.image.resource.DefaultButtonImageResource;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DynamicImageCache}
+ */
+public class DynamicImageCacheTest extends WicketTestCase
+{
+	/**
+	 * The least recently used images are evicted when the cache grows too large.
+	 */
+	@Test
+	public void evictLeastRecentlyUsed()
+	{
+		DynamicImageCache cache = new DynamicImageCache(Bytes.bytes(10), false);
+		cache.put("a", new byte[4]);
+		cache.put("b", new byte[4]);
+		assertNotNull(cache.get("a"));
+
+		cache.put("c", new byte[4]);
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertEquals(8, cache.getSize().bytes());
+
+		cache.put("d", new byte[11]);
+		assertNull(cache.get("d"));
+		assertEquals(2, cache.getCount());
+	}
+
+	/**
+	 * Images outside of the heap are copied on access.
+	 */
+	@Test
+	public void offHeap()
+	{
+		DynamicImageCache cache = new DynamicImageCache(Bytes.kilobytes(1), true);
+		byte[] data = { 1, 2, 3 };
+		cache.put("a", data);
+
+		byte[] cached = cache.get("a");
+		assertArrayEquals(data, cached);
+		assertNotSame(data, cached);
+		assertEquals(3, cache.getSize().bytes());
+		assertEquals(1, cache.getHits());
+	}
+
+	/**
+	 * Buttons with equal inputs share their image.
+	 */
+	@Test
+	public void sharedButtonImages()
+	{
+		DynamicImageCache cache = DynamicImageCache.get(tester.getApplication());
+
+		tester.startResource(new DefaultButtonImageResource("ok"));
+		byte[] first = tester.getLastResponse().getBinaryContent();
+		assertEquals(1, cache.getCount());
+
+		tester.startResource(new DefaultButtonImageResource("ok"));
+		assertArrayEquals(first, tester.getLastResponse().getBinaryContent());
+		assertEquals(1, cache.getCount());
+		assertEquals(1, cache.getHits());
+
+		DefaultButtonImageResource red = new DefaultButtonImageResource("ok");
+		red.setColor(Color.RED);
+		tester.startResource(red);
+		assertEquals(2, cache.getCount());
+	}
+
+	/**
+	 * Buffered images with the same pixels are encoded once.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void sharedBufferedImages() throws IOException
+	{
+		DynamicImageCache cache = DynamicImageCache.get(tester.getApplication());
+
+		BufferedDynamicImageResource first = new BufferedDynamicImageResource();
+		first.setImage(newImage(Color.BLUE));
+		BufferedDynamicImageResource second = new BufferedDynamicImageResource();
+		second.setImage(newImage(Color.BLUE));
+		assertEquals(1, cache.getCount());
+		assertEquals(1, cache.getHits());
+
+		BufferedDynamicImageResource third = new BufferedDynamicImageResource();
+		third.setImage(newImage(Color.GREEN));
+		assertEquals(2, cache.getCount());
+
+		tester.startResource(third);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+			tester.getLastResponse().getBinaryContent()));
+		assertEquals(20, image.getWidth());
+		assertEquals(Color.GREEN.getRGB(), image.getRGB(5, 5));
+	}
+
+	private static BufferedImage newImage(Color color)
+	{
+		BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(color);
+		graphics.fillRect(0, 0, 20, 10);
+		graphics.dispose();
+		return image;
+	}
+}
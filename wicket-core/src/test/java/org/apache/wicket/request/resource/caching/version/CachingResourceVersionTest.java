@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource.caching.version;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.wicket.core.util.resource.UrlResourceStream;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.time.Time;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link CachingResourceVersion}
+ */
+public class CachingResourceVersionTest extends Assert
+{
+	/**
+	 * Racing requests compute a version once.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void computedOnce() throws Exception
+	{
+		final CountingResourceVersion delegate = new CountingResourceVersion(50);
+		final CachingResourceVersion versions = new CachingResourceVersion(delegate);
+		final TestResource resource = new TestResource("key", 1000);
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger errors = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+						if ("v1".equals(versions.getVersion(resource)) == false)
+						{
+							errors.incrementAndGet();
+						}
+					}
+					catch (InterruptedException e)
+					{
+						errors.incrementAndGet();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(0, errors.get());
+		assertEquals(1, delegate.count.get());
+	}
+
+	/**
+	 * Unknown versions are cached too.
+	 */
+	@Test
+	public void nullVersion()
+	{
+		final CountingResourceVersion delegate = new CountingResourceVersion(0)
+		{
+			@Override
+			public String getVersion(IStaticCacheableResource resource)
+			{
+				super.getVersion(resource);
+				return null;
+			}
+		};
+		final CachingResourceVersion versions = new CachingResourceVersion(delegate);
+		final TestResource resource = new TestResource("key", 1000);
+
+		assertNull(versions.getVersion(resource));
+		assertNull(versions.getVersion(resource));
+		assertEquals(1, delegate.count.get());
+	}
+
+	/**
+	 * Versions kept in a file are reused after a restart unless the resource was modified.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void persisted() throws IOException
+	{
+		final File file = File.createTempFile("versions", ".cache");
+		final File a = createResourceFile("a", 1000);
+		final File b = createResourceFile("b", 1000);
+		final File c = createResourceFile("c", 1000);
+		try
+		{
+			CountingResourceVersion delegate = new CountingResourceVersion(0);
+			CachingResourceVersion versions = new CachingResourceVersion(delegate, 10, file);
+			assertEquals("v1", versions.getVersion(new FileResource(a)));
+			assertEquals("v2", versions.getVersion(new FileResource(b)));
+			assertEquals("v3", versions.getVersion(new FileResource(c)));
+			assertEquals("v4", versions.getVersion(new TestResource("d", 1000)));
+			versions.write();
+
+			// restart
+			b.setLastModified(2000);
+			writeResourceFile(c, "cc", 1000);
+			delegate = new CountingResourceVersion(0);
+			versions = new CachingResourceVersion(delegate, 10, file);
+			assertEquals("v1", versions.getVersion(new FileResource(a)));
+			assertEquals(0, delegate.count.get());
+
+			// modified resources
+			assertEquals("v1", versions.getVersion(new FileResource(b)));
+			assertEquals("v2", versions.getVersion(new FileResource(c)));
+
+			// not deployed as a file
+			assertEquals("v3", versions.getVersion(new TestResource("d", 1000)));
+			assertEquals(3, delegate.count.get());
+		}
+		finally
+		{
+			Files.remove(file);
+			Files.remove(a);
+			Files.remove(b);
+			Files.remove(c);
+		}
+	}
+
+	/**
+	 * Versions of jar entries kept in a file are reused after a restart unless the jar was
+	 * modified.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void persistedJarEntry() throws IOException
+	{
+		final File file = File.createTempFile("versions", ".cache");
+		final File jar = File.createTempFile("resources", ".jar");
+		try
+		{
+			writeJar(jar, "a", 1000);
+			CountingResourceVersion delegate = new CountingResourceVersion(0);
+			CachingResourceVersion versions = new CachingResourceVersion(delegate, 10, file);
+			assertEquals("v1", versions.getVersion(new JarEntryResource(jar)));
+			versions.write();
+
+			// restart
+			delegate = new CountingResourceVersion(0);
+			versions = new CachingResourceVersion(delegate, 10, file);
+			assertEquals("v1", versions.getVersion(new JarEntryResource(jar)));
+			assertEquals(0, delegate.count.get());
+			versions.write();
+
+			// restart with a rebuilt jar, the entry has the same time and length
+			writeJar(jar, "b", 1000);
+			jar.setLastModified(jar.lastModified() + 2000);
+			delegate = new CountingResourceVersion(0);
+			versions = new CachingResourceVersion(delegate, 10, file);
+			assertEquals("v1", versions.getVersion(new JarEntryResource(jar)));
+			assertEquals(1, delegate.count.get());
+		}
+		finally
+		{
+			Files.remove(file);
+			Files.remove(jar);
+		}
+	}
+
+	private static void writeJar(File jar, String content, long lastModified) throws IOException
+	{
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try
+		{
+			JarEntry entry = new JarEntry("resource.txt");
+			entry.setTime(lastModified);
+			out.putNextEntry(entry);
+			out.write(content.getBytes("UTF-8"));
+			out.closeEntry();
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private static File createResourceFile(String content, long lastModified)
+		throws IOException
+	{
+		File file = File.createTempFile("resource", ".txt");
+		writeResourceFile(file, content, lastModified);
+		return file;
+	}
+
+	private static void writeResourceFile(File file, String content, long lastModified)
+		throws IOException
+	{
+		Files.writeTo(file, new ByteArrayInputStream(content.getBytes("UTF-8")));
+		file.setLastModified(lastModified);
+	}
+
+	/**
+	 * Counts the computed versions, each one is different.
+	 */
+	private static class CountingResourceVersion implements IResourceVersion
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		private final long delay;
+
+		private CountingResourceVersion(long delay)
+		{
+			this.delay = delay;
+		}
+
+		@Override
+		public String getVersion(IStaticCacheableResource resource)
+		{
+			try
+			{
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			return "v" + count.incrementAndGet();
+		}
+	}
+
+	private static class FileResource implements IStaticCacheableResource
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final File file;
+
+		private FileResource(File file)
+		{
+			this.file = file;
+		}
+
+		@Override
+		public void respond(Attributes attributes)
+		{
+		}
+
+		@Override
+		public Serializable getCacheKey()
+		{
+			return file.getName();
+		}
+
+		@Override
+		public IResourceStream getCacheableResourceStream()
+		{
+			return new FileResourceStream(file);
+		}
+	}
+
+	private static class JarEntryResource implements IStaticCacheableResource
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final File jar;
+
+		private JarEntryResource(File jar)
+		{
+			this.jar = jar;
+		}
+
+		@Override
+		public void respond(Attributes attributes)
+		{
+		}
+
+		@Override
+		public Serializable getCacheKey()
+		{
+			return "resource.txt";
+		}
+
+		@Override
+		public IResourceStream getCacheableResourceStream()
+		{
+			try
+			{
+				return new UrlResourceStream(new URL("jar:" + jar.toURI() + "!/resource.txt"));
+			}
+			catch (MalformedURLException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static class TestResource implements IStaticCacheableResource
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String key;
+
+		private final long lastModified;
+
+		private TestResource(String key, long lastModified)
+		{
+			this.key = key;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public void respond(Attributes attributes)
+		{
+		}
+
+		@Override
+		public Serializable getCacheKey()
+		{
+			return key;
+		}
+
+		@Override
+		public IResourceStream getCacheableResourceStream()
+		{
+			StringResourceStream stream = new StringResourceStream(key);
+			stream.setLastModified(Time.millis(lastModified));
+			return stream;
+		}
+	}
+}
@@ -54,13 +54,20 @@ class PageWindowModel extends AbstractReadOnlyModel<DefaultTreeModel>
 	{
 		ISerializer serializer = Application.get().getFrameworkSettings().getSerializer();
 
-		for (PageWindow pageWindow : pageWindows)
+		int[] pageIds = new int[pageWindows.size()];
+		for (int i = 0; i < pageIds.length; i++)
 		{
-			int pageId = pageWindow.getPageId();
+			pageIds[i] = pageWindows.get(i).getPageId();
+		}
+		byte[][] pagesData = dataStore.getData(sessionId, pageIds);
+
+		for (int i = 0; i < pageIds.length; i++)
+		{
+			int pageId = pageIds[i];
 			DefaultMutableTreeNode pageIdNode = new DefaultMutableTreeNode(pageId);
 			root.add(pageIdNode);
 
-			byte[] data = dataStore.getData(sessionId, pageId);
+			byte[] data = pagesData[i];
 			Object page = serializer.deserialize(data);
 			DefaultMutableTreeNode pageNameNode = new DefaultMutableTreeNode(page.getClass()
 				.getName());
@@ -16,15 +16,11 @@
  */
 package org.apache.wicket.devutils.diskstore.browser;
 
-import org.apache.wicket.Application;
-import org.apache.wicket.devutils.diskstore.DebugDiskDataStore;
-import org.apache.wicket.devutils.diskstore.DebugPageManagerProvider;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
 import org.apache.wicket.extensions.markup.html.repeater.data.table.PropertyColumn;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.model.IModel;
-import org.apache.wicket.serialize.ISerializer;
 
 /**
  * A column that shows the page attributes (id, name, size)
@@ -52,15 +48,7 @@ class PageWindowColumn extends PropertyColumn<PageWindowDescription>
 		PageWindowDescription windowDescription = rowModel.getObject();
 		if ("name".equals(getPropertyExpression()))
 		{
-			int pageId = windowDescription.getId();
-			DebugPageManagerProvider pageManagerProvider = (DebugPageManagerProvider)Application.get()
-				.getPageManagerProvider();
-			DebugDiskDataStore dataStore = pageManagerProvider.getDataStore();
-			String sessionId = windowDescription.getSessionId();
-			byte[] data = dataStore.getData(sessionId, pageId);
-			ISerializer serializer = Application.get().getFrameworkSettings().getSerializer();
-			Object page = serializer.deserialize(data);
-			label = page.getClass().getName();
+			label = windowDescription.getName();
 		}
 		else if ("id".equals(getPropertyExpression()))
 		{
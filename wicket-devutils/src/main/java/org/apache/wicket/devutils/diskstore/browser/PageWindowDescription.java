@@ -33,11 +33,15 @@ class PageWindowDescription implements IClusterable
 	/** the id of the session for which this page has been used */
 	private final String sessionId;
 
-	PageWindowDescription(PageWindow pageWindow, String sessionId)
+	/** the class name of the page, null if it can't be loaded */
+	private final String name;
+
+	PageWindowDescription(PageWindow pageWindow, String sessionId, String name)
 	{
 		id = pageWindow.getPageId();
 		size = pageWindow.getFilePartSize();
 		this.sessionId = sessionId;
+		this.name = name;
 	}
 
 	public String getSessionId()
@@ -54,4 +58,9 @@ class PageWindowDescription implements IClusterable
 	{
 		return size;
 	}
+
+	public String getName()
+	{
+		return name;
+	}
 }
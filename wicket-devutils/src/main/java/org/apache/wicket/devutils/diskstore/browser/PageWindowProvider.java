@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.wicket.Application;
 import org.apache.wicket.devutils.diskstore.DebugDiskDataStore;
 import org.apache.wicket.extensions.markup.html.repeater.data.sort.ISortState;
 import org.apache.wicket.extensions.markup.html.repeater.data.table.ISortableDataProvider;
@@ -27,6 +28,7 @@ import org.apache.wicket.markup.repeater.data.IDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.pageStore.PageWindowManager.PageWindow;
+import org.apache.wicket.serialize.ISerializer;
 
 /**
  * An {@link IDataProvider} that extracts the information about the stored pages
@@ -49,10 +51,30 @@ class PageWindowProvider implements ISortableDataProvider<PageWindowDescription>
 	{
 		List<PageWindow> lastPageWindows = getPageWindows();
 		List<PageWindow> subList = lastPageWindows.subList((int)first, (int)(first + count));
+
+		// load the pages of the sublist at once
+		int[] pageIds = new int[subList.size()];
+		for (int i = 0; i < pageIds.length; i++)
+		{
+			pageIds[i] = subList.get(i).getPageId();
+		}
+		String sessId = sessionId.getObject();
+		byte[][] data = DataStoreHelper.getDataStore().getData(sessId, pageIds);
+		ISerializer serializer = Application.get().getFrameworkSettings().getSerializer();
+
 		List<PageWindowDescription> pageDescriptions = new ArrayList<PageWindowDescription>();
-		for (PageWindow pw : subList)
+		for (int i = 0; i < pageIds.length; i++)
 		{
-			pageDescriptions.add(new PageWindowDescription(pw, sessionId.getObject()));
+			String name = null;
+			if (data[i] != null)
+			{
+				Object page = serializer.deserialize(data[i]);
+				if (page != null)
+				{
+					name = page.getClass().getName();
+				}
+			}
+			pageDescriptions.add(new PageWindowDescription(subList.get(i), sessId, name));
 		}
 
 		return pageDescriptions.iterator();
@@ -64,6 +64,7 @@ public final class InspectorPage extends DevUtilsPage
 			// Ignore
 		}
 		add(new PageView("page", (Page)page));
+		add(new RenderProfilerView("renderProfiler"));
 		add(new Image("bug", new PackageResourceReference(InspectorPage.class, "bug.png")));
 		add(new BookmarkablePageLink<Void>("allsessions", LiveSessionsPage.class));
 		add(new Label("wicketVersion", getApplication().getFrameworkSettings().getVersion()));
@@ -38,6 +38,8 @@ import org.slf4j.LoggerFactory;
  * </pre>
  * 
  * </p>
+ * For a low-overhead alternative suited to production use
+ * {@link org.apache.wicket.application.RenderProfiler}.
  */
 public class RenderPerformanceListener implements IComponentInstantiationListener
 {
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.devutils.inspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.application.RenderProfiler;
+import org.apache.wicket.application.RenderProfiler.Histogram;
+import org.apache.wicket.application.RenderProfiler.Phase;
+import org.apache.wicket.devutils.DevUtilsPanel;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.util.io.IClusterable;
+
+/**
+ * A Wicket panel that shows the render times per component class collected by the
+ * {@link RenderProfiler} of the application. Invisible if no profiler is installed.
+ */
+public final class RenderProfilerView extends DevUtilsPanel
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param id
+	 *            Component id
+	 */
+	public RenderProfilerView(final String id)
+	{
+		super(id);
+
+		add(new Label("profiledRequests", new AbstractReadOnlyModel<Long>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Long getObject()
+			{
+				return getProfiler().getProfiledRequests();
+			}
+		}));
+		add(new Label("sampleRate", new AbstractReadOnlyModel<Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Integer getObject()
+			{
+				return getProfiler().getSampleRate();
+			}
+		}));
+		add(new HistogramListView("render", Phase.RENDER));
+		add(new HistogramListView("beforeRender", Phase.BEFORE_RENDER));
+	}
+
+	@Override
+	protected void onConfigure()
+	{
+		super.onConfigure();
+
+		setVisible(getProfiler() != null);
+	}
+
+	private static RenderProfiler getProfiler()
+	{
+		return RenderProfiler.get(Application.get());
+	}
+
+	/**
+	 * Lists the histograms of a phase.
+	 */
+	private static class HistogramListView extends ListView<Row>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private HistogramListView(final String id, final Phase phase)
+		{
+			super(id, new LoadableDetachableModel<List<Row>>()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected List<Row> load()
+				{
+					List<Row> rows = new ArrayList<Row>();
+					for (Map.Entry<Class<?>, Histogram> entry : getProfiler().getSortedHistograms(
+						phase))
+					{
+						rows.add(new Row(entry.getKey().getName(), entry.getValue()));
+					}
+					return rows;
+				}
+			});
+		}
+
+		@Override
+		protected void populateItem(final ListItem<Row> item)
+		{
+			Row row = item.getModelObject();
+			item.add(new Label("componentClass", row.componentClass));
+			item.add(new Label("count", Long.toString(row.count)));
+			item.add(new Label("total", millis(row.total)));
+			item.add(new Label("mean", millis(row.mean)));
+			item.add(new Label("percentile", millis(row.percentile)));
+			item.add(new Label("max", millis(row.max)));
+		}
+
+		private static String millis(final long nanos)
+		{
+			return String.format("%.3f ms", nanos / 1e6);
+		}
+	}
+
+	/**
+	 * The statistics of a component class.
+	 */
+	private static class Row implements IClusterable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String componentClass;
+
+		private final long count;
+
+		private final long total;
+
+		private final long mean;
+
+		private final long percentile;
+
+		private final long max;
+
+		private Row(final String componentClass, final Histogram histogram)
+		{
+			this.componentClass = componentClass;
+			count = histogram.getCount();
+			total = histogram.getTotalTime();
+			mean = histogram.getMeanTime();
+			percentile = histogram.getPercentile(90);
+			max = histogram.getMaxTime();
+		}
+	}
+}
@@ -19,6 +19,7 @@ package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
 
 import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxChannel;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
@@ -95,7 +96,7 @@ public abstract class AbstractAutoCompleteBehavior extends AbstractDefaultAjaxBe
 		}
 
 		String initJS = String.format("new Wicket.AutoComplete('%s','%s',%s,%s);", id,
-			getCallbackUrl(), constructSettingsJS(), indicatorId);
+			getChoicesUrl(), constructSettingsJS(), indicatorId);
 		response.render(OnDomReadyHeaderItem.forScript(initJS));
 	}
 
@@ -121,10 +122,36 @@ public abstract class AbstractAutoCompleteBehavior extends AbstractDefaultAjaxBe
 		{
 			sb.append(",className: '").append(settings.getCssClassName()).append('\'');
 		}
+		final AjaxChannel channel = getChoicesChannel();
+		if (channel != null)
+		{
+			sb.append(",channel: '").append(channel).append('\'');
+		}
 		sb.append('}');
 		return sb.toString();
 	}
 
+	/**
+	 * Returns the url the choices are requested from.
+	 * 
+	 * @return the callback url of this behavior by default
+	 */
+	protected CharSequence getChoicesUrl()
+	{
+		return getCallbackUrl();
+	}
+
+	/**
+	 * Returns the Ajax channel the requests for choices are sent through.
+	 * 
+	 * @return the channel or <code>null</code> for the default channel shared with the other Ajax
+	 *         requests of the page
+	 */
+	protected AjaxChannel getChoicesChannel()
+	{
+		return null;
+	}
+
 	/**
 	 * Callback for the ajax event generated by the javascript. This is where we need to generate
 	 * our response.
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.util.collections.ConcurrentCache;
+import org.apache.wicket.util.lang.Args;
+
+
+/**
+ * A resource serving the choices of an autocomplete field independently of any page. In contrast
+ * to {@link AutoCompleteBehavior} a request for choices doesn't have to wait for the lock of the
+ * page, so a quickly typing user doesn't pile up requests blocking each other and other Ajax
+ * requests of the page.
+ * <p>
+ * Since the resource is not tied to a component, {@link #getChoices(String)} must not access any
+ * page or component. Register the resource as a shared resource and attach a
+ * {@link AutoCompleteResourceBehavior} to the text field:
+ *
+ * <pre>
+ * // in Application#init()
+ * getSharedResources().add(&quot;countries&quot;, new AutoCompleteResource&lt;String&gt;(
+ * 	StringAutoCompleteRenderer.INSTANCE)
+ * {
+ * 	protected Iterator&lt;String&gt; getChoices(String input)
+ * 	{
+ * 		return countryService.find(input).iterator();
+ * 	}
+ * });
+ *
+ * // in the page
+ * field.add(new AutoCompleteResourceBehavior(new SharedResourceReference(&quot;countries&quot;)));
+ * </pre>
+ *
+ * Optionally the choices can be cached for the most recently requested inputs, see
+ * {@link #setCacheSize(int)}. The cache is shared by all users, so it must only be enabled if the
+ * choices don't depend on the current user. If {@link #setPrefixFiltering(boolean) prefix
+ * filtering} is enabled, the choices for an input are filtered from the cached choices of a
+ * shorter prefix of it.
+ *
+ * @param <T>
+ *            the type of the choices
+ *
+ * @see AutoCompleteResourceBehavior
+ */
+public abstract class AutoCompleteResource<T> extends AbstractResource
+{
+	private static final long serialVersionUID = 1L;
+
+	private final IAutoCompleteRenderer<T> renderer;
+
+	private String parameterName = "q";
+
+	private int maxChoices = Integer.MAX_VALUE;
+
+	private boolean prefixFiltering = false;
+
+	/** the cached choices keyed by input, <code>null</code> if caching is disabled */
+	private volatile ConcurrentCache<String, List<T>> cache;
+
+	/**
+	 * Constructor
+	 *
+	 * @param renderer
+	 *            renderer that will be used to generate output
+	 */
+	public AutoCompleteResource(final IAutoCompleteRenderer<T> renderer)
+	{
+		this.renderer = Args.notNull(renderer, "renderer");
+	}
+
+	/**
+	 * Sets the name of the request parameter carrying the input, has to be the same as
+	 * {@link AutoCompleteSettings#getParameterName()} of the behavior.
+	 *
+	 * @param parameterName
+	 *            name of the parameter, defaults to <code>q</code>
+	 * @return this for chaining
+	 */
+	public AutoCompleteResource<T> setParameterName(final String parameterName)
+	{
+		this.parameterName = Args.notEmpty(parameterName, "parameterName");
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of choices {@link #getChoices(String)} returns. Cached choices of
+	 * this size are considered truncated and are not used for prefix filtering.
+	 *
+	 * @param maxChoices
+	 *            the maximum number of choices
+	 * @return this for chaining
+	 */
+	public AutoCompleteResource<T> setMaxChoices(final int maxChoices)
+	{
+		this.maxChoices = maxChoices;
+		return this;
+	}
+
+	/**
+	 * Enables caching of the choices for the given number of most recently requested inputs.
+	 *
+	 * @param cacheSize
+	 *            number of cached inputs, <code>0</code> disables caching
+	 * @return this for chaining
+	 */
+	public AutoCompleteResource<T> setCacheSize(final int cacheSize)
+	{
+		if (cacheSize > 0)
+		{
+			cache = new ConcurrentCache<String, List<T>>(cacheSize);
+		}
+		else
+		{
+			cache = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Enables filtering of cached choices of a prefix of the input, see
+	 * {@link #matches(Object, String)}. Has effect only if caching is enabled.
+	 *
+	 * @param prefixFiltering
+	 *            <code>true</code> to filter choices of prefixes
+	 * @return this for chaining
+	 */
+	public AutoCompleteResource<T> setPrefixFiltering(final boolean prefixFiltering)
+	{
+		this.prefixFiltering = prefixFiltering;
+		return this;
+	}
+
+	/**
+	 * Discards all cached choices, e.g. after the underlying data has changed.
+	 */
+	public void clearCache()
+	{
+		final ConcurrentCache<String, List<T>> cache = this.cache;
+		if (cache != null)
+		{
+			cache.clear();
+		}
+	}
+
+	@Override
+	protected ResourceResponse newResourceResponse(final Attributes attributes)
+	{
+		final String input = attributes.getRequest()
+			.getRequestParameters()
+			.getParameterValue(parameterName)
+			.toString("");
+
+		final List<T> choices = findChoices(input);
+
+		final ResourceResponse response = new ResourceResponse();
+		response.setContentType("text/xml");
+		response.setTextEncoding(Application.get()
+			.getRequestCycleSettings()
+			.getResponseRequestEncoding());
+		response.disableCaching();
+		response.setWriteCallback(new WriteCallback()
+		{
+			@Override
+			public void writeData(final Attributes attributes)
+			{
+				final Response r = attributes.getResponse();
+
+				renderer.renderHeader(r);
+				for (T choice : choices)
+				{
+					renderer.render(choice, r, input);
+				}
+				renderer.renderFooter(r, choices.size());
+			}
+		});
+		return response;
+	}
+
+	/**
+	 * Gets the choices for the input, from the cache if possible.
+	 *
+	 * @param input
+	 *            the input entered so far
+	 * @return choices
+	 */
+	final List<T> findChoices(final String input)
+	{
+		final ConcurrentCache<String, List<T>> cache = this.cache;
+		if (cache == null)
+		{
+			return load(input);
+		}
+
+		List<T> choices = cache.get(input);
+		if (choices == null)
+		{
+			choices = filterPrefix(cache, input);
+			if (choices == null)
+			{
+				choices = load(input);
+			}
+			cache.put(input, choices);
+		}
+		return choices;
+	}
+
+	/**
+	 * Filters the choices of the longest cached prefix of the input.
+	 *
+	 * @param cache
+	 * @param input
+	 * @return the filtered choices or <code>null</code> if no complete choices of a prefix are
+	 *         cached
+	 */
+	private List<T> filterPrefix(final ConcurrentCache<String, List<T>> cache, final String input)
+	{
+		if (prefixFiltering == false)
+		{
+			return null;
+		}
+
+		for (int length = input.length() - 1; length >= 0; length--)
+		{
+			final List<T> prefixChoices = cache.get(input.substring(0, length));
+			if ((prefixChoices != null) && (prefixChoices.size() < maxChoices))
+			{
+				final List<T> choices = new ArrayList<T>();
+				for (T choice : prefixChoices)
+				{
+					if (matches(choice, input))
+					{
+						choices.add(choice);
+					}
+				}
+				return choices;
+			}
+		}
+		return null;
+	}
+
+	private List<T> load(final String input)
+	{
+		final List<T> choices = new ArrayList<T>();
+		final Iterator<T> iterator = getChoices(input);
+		while (iterator.hasNext())
+		{
+			choices.add(iterator.next());
+		}
+		return Collections.unmodifiableList(choices);
+	}
+
+	/**
+	 * Decides whether a choice of a prefix of the input is also a choice of the input. Has to be
+	 * consistent with {@link #getChoices(String)} if prefix filtering is enabled.
+	 * <p>
+	 * The default implementation tests whether the string representation of the choice starts
+	 * with the input, ignoring case.
+	 *
+	 * @param choice
+	 *            a choice of a prefix of the input
+	 * @param input
+	 *            the input entered so far
+	 * @return <code>true</code> if the choice matches the input
+	 */
+	protected boolean matches(final T choice, final String input)
+	{
+		return String.valueOf(choice).regionMatches(true, 0, input, 0, input.length());
+	}
+
+	/**
+	 * Callback method that should return an iterator over all possible choice objects. These
+	 * objects will be passed to the renderer to generate output. Note that no page or component
+	 * is available when this method is called.
+	 *
+	 * @param input
+	 *            current input
+	 * @return iterator over all possible choice objects
+	 */
+	protected abstract Iterator<T> getChoices(String input);
+}
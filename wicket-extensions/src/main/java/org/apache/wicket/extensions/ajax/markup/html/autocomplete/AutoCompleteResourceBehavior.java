@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import org.apache.wicket.ajax.AjaxChannel;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+
+/**
+ * An autocomplete behavior requesting its choices from an {@link AutoCompleteResource} instead of
+ * a listener of the page. The requests don't lock the page and are sent through an Ajax channel
+ * of their own, superseded requests are aborted.
+ *
+ * @see AutoCompleteResource
+ */
+public class AutoCompleteResourceBehavior extends AbstractAutoCompleteBehavior
+{
+	private static final long serialVersionUID = 1L;
+
+	private final ResourceReference reference;
+
+	private final PageParameters parameters;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reference
+	 *            reference to the {@link AutoCompleteResource}
+	 */
+	public AutoCompleteResourceBehavior(final ResourceReference reference)
+	{
+		this(reference, null, new AutoCompleteSettings());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param reference
+	 *            reference to the {@link AutoCompleteResource}
+	 * @param parameters
+	 *            parameters for the resource, may be <code>null</code>
+	 * @param settings
+	 *            settings for the autocomplete list
+	 */
+	public AutoCompleteResourceBehavior(final ResourceReference reference,
+		final PageParameters parameters, final AutoCompleteSettings settings)
+	{
+		super(settings);
+
+		this.reference = Args.notNull(reference, "reference");
+		this.parameters = parameters;
+	}
+
+	@Override
+	protected CharSequence getChoicesUrl()
+	{
+		return RequestCycle.get().urlFor(reference, parameters);
+	}
+
+	@Override
+	protected AjaxChannel getChoicesChannel()
+	{
+		// drop pending requests, only the latest input is of interest
+		return new AjaxChannel(getComponent().getMarkupId() + "-autocomplete",
+			AjaxChannel.Type.DROP);
+	}
+
+	/**
+	 * Not used, the choices are served by the resource.
+	 */
+	@Override
+	protected void onRequest(final String input, final RequestCycle requestCycle)
+	{
+	}
+}
@@ -76,6 +76,12 @@ Wicket.AutoComplete=function(elementId, callbackUrl, cfg, indicatorId){
 	var localThrottler = new Wicket.Throttler(true);
 	var throttleDelay = cfg.throttleDelay;
 
+	// the sequence number of the latest request for choices, responses
+	// to superseded requests are ignored
+	var requestSequence = 0;
+	// the request for choices currently in flight
+	var pendingRequest = null;
+
     function initialize(){
     	var isShowing = false;
 		// Remove the autocompletion menu if still present from
@@ -355,34 +361,51 @@ Wicket.AutoComplete=function(elementId, callbackUrl, cfg, indicatorId){
 
     function actualUpdateChoicesShowAll()
     {
-		showIndicator();
-
-		var paramName = cfg.parameterName;
-		var attrs = {
-			u: callbackUrl,
-			dt: 'html',
-			ep: {},
-			wr: false,
-			sh: [ doUpdateChoices ]
-		};
-		attrs.ep[paramName] = '';
-		Wicket.Ajax.ajax(attrs);
+		requestChoices('');
     }
 
     function actualUpdateChoices()
+    {
+		requestChoices(Wicket.$(elementId).value);
+    }
+
+    function requestChoices(value)
     {
 		showIndicator();
-		var paramName = cfg.parameterName;
-		var value = Wicket.$(elementId).value;
-       	var attrs = {
+
+		var sequence = ++requestSequence;
+		var attrs = {
 			u: callbackUrl,
 			wr: false,
 			ep: {},
 			dt: 'html',
-			sh: [ doUpdateChoices ]
+			pre: [ function () {
+				// cancel the request if another one was issued while it was waiting in the channel
+				return sequence === requestSequence;
+			} ],
+			bh: [ function (attrs, jqXHR) {
+				// abort the superseded request still in flight
+				if (pendingRequest !== null) {
+					pendingRequest.abort();
+				}
+				pendingRequest = jqXHR;
+			} ],
+			sh: [ function (data) {
+				if (sequence === requestSequence) {
+					doUpdateChoices(data);
+				}
+			} ],
+			coh: [ function (jqXHR) {
+				if (pendingRequest === jqXHR) {
+					pendingRequest = null;
+				}
+			} ]
 		};
-	    attrs.ep[paramName] = value;
-	    Wicket.Ajax.ajax(attrs);
+		if (cfg.channel) {
+			attrs.ch = cfg.channel;
+		}
+		attrs.ep[cfg.parameterName] = value;
+		Wicket.Ajax.ajax(attrs);
     }
     
     function showIndicator() {
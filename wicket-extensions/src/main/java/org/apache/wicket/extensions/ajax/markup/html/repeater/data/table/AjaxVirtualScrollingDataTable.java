@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.repeater.data.table;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxChannel;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.HeadersToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.MarkupStream;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.repeater.data.IDataProvider;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+
+/**
+ * A data table that renders its rows inside a scrollable viewport and keeps only a window of rows
+ * around the visible ones rendered, regardless of the number of rows the data provider offers.
+ * <p>
+ * The rows before and after the window are represented by spacer rows, so the scrollbar reflects
+ * the complete result. When the user scrolls the visible rows out of the window, the next window
+ * is fetched from the data provider via Ajax and the table body is replaced. Only the current
+ * window is kept on the server, so the size of the page doesn't grow with the number of rows.
+ * <p>
+ * All rows have to have the same height, it is measured from the rendered rows.
+ * <p>
+ * Example
+ *
+ * <pre>
+ * AjaxVirtualScrollingDataTable&lt;User&gt; table = new AjaxVirtualScrollingDataTable&lt;User&gt;(
+ * 	&quot;table&quot;, columns, provider, 100);
+ * table.addTopToolbar(new AjaxFallbackHeadersToolbar(table, provider));
+ * </pre>
+ *
+ * Note: {@link #getDataProvider()} returns a provider that is shifted to the first row of the
+ * current window and paging toolbars are not supported.
+ *
+ * @see DataTable
+ * @see HeadersToolbar
+ *
+ * @param <T>
+ *            The model object type
+ */
+public class AjaxVirtualScrollingDataTable<T> extends DataTable<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final ResourceReference VIRTUAL_SCROLLING_JS = new JavaScriptResourceReference(
+		AjaxVirtualScrollingDataTable.class, "wicket-virtual-scrolling.js");
+
+	/** css class of the spacer rows, used by the javascript */
+	private static final String SPACER_CLASS = "wicket-virtual-scrolling-spacer";
+
+	/** name of the request parameter carrying the first row of the requested window */
+	private static final String FIRST_PARAMETER = "first";
+
+	private final WindowDataProvider<T> windowDataProvider;
+
+	/**
+	 * Constructor
+	 *
+	 * @param id
+	 *            component id
+	 * @param columns
+	 *            list of columns
+	 * @param dataProvider
+	 *            data provider
+	 * @param windowSize
+	 *            number of rows kept rendered, should be a multiple of the visible rows
+	 */
+	@SuppressWarnings("unchecked")
+	public AjaxVirtualScrollingDataTable(final String id, final List<IColumn<T>> columns,
+		final IDataProvider<T> dataProvider, final long windowSize)
+	{
+		super(id, columns, new WindowDataProvider<T>(dataProvider), windowSize);
+
+		windowDataProvider = (WindowDataProvider<T>)getDataProvider();
+
+		setOutputMarkupId(true);
+		setVersioned(false);
+
+		add(new VirtualScrollingBehavior());
+	}
+
+	/**
+	 * @return the index of the first row of the rendered window
+	 */
+	public final long getFirstRow()
+	{
+		return windowDataProvider.getFirst();
+	}
+
+	/**
+	 * Moves the rendered window to start with the given row.
+	 *
+	 * @param first
+	 *            index of the first row
+	 */
+	public final void setFirstRow(final long first)
+	{
+		long max = Math.max(0, windowDataProvider.getDelegate().size() - getItemsPerPage());
+		windowDataProvider.setFirst(Math.max(0, Math.min(first, max)));
+	}
+
+	/**
+	 * Returns the css height of the scrollable viewport wrapping the table.
+	 *
+	 * @return the height of the viewport, defaults to <code>400px</code>
+	 */
+	protected String getViewportHeight()
+	{
+		return "400px";
+	}
+
+	/**
+	 * Called after a new window of rows has been requested by the browser.
+	 *
+	 * @param target
+	 *            the request target
+	 */
+	protected void onWindowChanged(final AjaxRequestTarget target)
+	{
+	}
+
+	@Override
+	protected WebMarkupContainer newBodyContainer(final String id)
+	{
+		WebMarkupContainer body = new WebMarkupContainer(id)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onComponentTag(final ComponentTag tag)
+			{
+				super.onComponentTag(tag);
+
+				tag.put("data-first", String.valueOf(getFirstRow()));
+				tag.put("data-total", String.valueOf(getFirstRow() + getRowCount()));
+			}
+
+			@Override
+			public void onComponentTagBody(final MarkupStream markupStream,
+				final ComponentTag openTag)
+			{
+				final long rows = getRowCount();
+				final long rendered = Math.min(rows, getItemsPerPage());
+
+				renderSpacer(getResponse(), getFirstRow());
+				super.onComponentTagBody(markupStream, openTag);
+				renderSpacer(getResponse(), rows - rendered);
+			}
+		};
+		body.setOutputMarkupId(true);
+		return body;
+	}
+
+	/**
+	 * Writes a row standing in for the given number of rows outside of the window.
+	 *
+	 * @param response
+	 * @param rows
+	 *            number of rows represented by the spacer
+	 */
+	private void renderSpacer(final Response response, final long rows)
+	{
+		response.write("<tr class=\"" + SPACER_CLASS + "\" data-rows=\"" + rows + "\"");
+		if (rows <= 0)
+		{
+			response.write(" style=\"display:none\"");
+		}
+		response.write("><td colspan=\"" + getColumns().size() + "\"></td></tr>");
+	}
+
+	/**
+	 * Initializes the viewport and fetches the windows requested while scrolling.
+	 */
+	private class VirtualScrollingBehavior extends AbstractDefaultAjaxBehavior
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void respond(final AjaxRequestTarget target)
+		{
+			long first = getComponent().getRequest()
+				.getRequestParameters()
+				.getParameterValue(FIRST_PARAMETER)
+				.toLong(getFirstRow());
+			setFirstRow(first);
+
+			target.add(get("body"));
+			target.appendJavaScript("Wicket.VirtualScrolling.update('" +
+				getComponent().getMarkupId() + "');");
+
+			onWindowChanged(target);
+		}
+
+		@Override
+		protected void updateAjaxAttributes(final AjaxRequestAttributes attributes)
+		{
+			super.updateAjaxAttributes(attributes);
+
+			// only the latest window is of interest
+			attributes.setChannel(new AjaxChannel(getComponent().getMarkupId(),
+				AjaxChannel.Type.DROP));
+		}
+
+		@Override
+		public void renderHead(final Component component, final IHeaderResponse response)
+		{
+			super.renderHead(component, response);
+
+			response.render(JavaScriptHeaderItem.forReference(VIRTUAL_SCROLLING_JS));
+			response.render(OnDomReadyHeaderItem.forScript("Wicket.VirtualScrolling.init('" +
+				component.getMarkupId() + "', {callback: " + getCallbackFunction(FIRST_PARAMETER) +
+				", height: '" + getViewportHeight() + "', windowSize: " + getItemsPerPage() +
+				"});"));
+		}
+	}
+
+	/**
+	 * Shifts the rows of another data provider to the first row of the current window.
+	 *
+	 * @param <T>
+	 */
+	private static class WindowDataProvider<T> implements IDataProvider<T>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final IDataProvider<T> delegate;
+
+		private long first;
+
+		/**
+		 * Construct.
+		 *
+		 * @param delegate
+		 */
+		public WindowDataProvider(final IDataProvider<T> delegate)
+		{
+			this.delegate = Args.notNull(delegate, "dataProvider");
+		}
+
+		public IDataProvider<T> getDelegate()
+		{
+			return delegate;
+		}
+
+		public long getFirst()
+		{
+			return first;
+		}
+
+		public void setFirst(final long first)
+		{
+			this.first = first;
+		}
+
+		@Override
+		public Iterator<? extends T> iterator(final long first, final long count)
+		{
+			return delegate.iterator(this.first + first, count);
+		}
+
+		@Override
+		public long size()
+		{
+			return Math.max(0, delegate.size() - first);
+		}
+
+		@Override
+		public IModel<T> model(final T object)
+		{
+			return delegate.model(object);
+		}
+
+		@Override
+		public void detach()
+		{
+			delegate.detach();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*jshint strict: true, curly: true, eqeqeq: true */
+/*global jQuery: false, Wicket: true, window: false */
+
+/*
+ * Wicket virtual scrolling table
+ *
+ * Keeps a window of rows rendered inside a scrollable viewport. Rows outside of the window are
+ * represented by spacer rows, whose height is derived from the height of the rendered rows. When
+ * the visible rows leave the window, a new window around them is requested from the server.
+ */
+
+;(function (undefined) {
+	'use strict';
+
+	if (typeof(Wicket.VirtualScrolling) === 'object') {
+		return;
+	}
+
+	var SPACER_CLASS = 'wicket-virtual-scrolling-spacer';
+	var VIEWPORT_CLASS = 'wicket-virtual-scrolling';
+
+	var tables = {};
+
+	Wicket.VirtualScrolling = {
+
+		/**
+		 * Initializes (or re-initializes after an Ajax update) a virtual scrolling table.
+		 *
+		 * @param tableId the markup id of the table
+		 * @param cfg {callback: function (first), height: viewport height, windowSize: rows per window}
+		 */
+		init: function (tableId, cfg) {
+			var table = jQuery('#' + tableId);
+			var viewport = table.parent('.' + VIEWPORT_CLASS);
+
+			if (viewport.length === 0) {
+				table.wrap('<div class="' + VIEWPORT_CLASS + '"></div>');
+				viewport = table.parent();
+				viewport.css({'height': cfg.height, 'overflow-y': 'auto'});
+				viewport.on('scroll', function () {
+					Wicket.VirtualScrolling.onScroll(tableId);
+				});
+			}
+
+			tables[tableId] = {
+				cfg: cfg,
+				timer: null,
+				requested: -1
+			};
+
+			Wicket.VirtualScrolling.update(tableId);
+		},
+
+		/**
+		 * Sizes the spacer rows after the window of rows has been (re-)rendered.
+		 */
+		update: function (tableId) {
+			var state = tables[tableId];
+			if (!state) {
+				return;
+			}
+
+			var body = jQuery('#' + tableId).children('tbody').has('tr.' + SPACER_CLASS).first();
+			var rows = body.children('tr').not('.' + SPACER_CLASS);
+
+			if (rows.length > 0) {
+				state.rowHeight = rows.first().outerHeight();
+			}
+			state.body = body;
+			state.first = parseInt(body.attr('data-first'), 10) || 0;
+			state.total = parseInt(body.attr('data-total'), 10) || 0;
+			state.count = rows.length;
+			state.requested = -1;
+
+			body.children('tr.' + SPACER_CLASS).each(function () {
+				var spacer = jQuery(this);
+				var count = parseInt(spacer.attr('data-rows'), 10) || 0;
+				spacer.height(count * (state.rowHeight || 0));
+				spacer.toggle(count > 0);
+			});
+
+			Wicket.VirtualScrolling.check(tableId);
+		},
+
+		onScroll: function (tableId) {
+			var state = tables[tableId];
+			if (!state) {
+				return;
+			}
+
+			// debounce the scroll events
+			if (state.timer) {
+				window.clearTimeout(state.timer);
+			}
+			state.timer = window.setTimeout(function () {
+				state.timer = null;
+				Wicket.VirtualScrolling.check(tableId);
+			}, 100);
+		},
+
+		/**
+		 * Requests a new window of rows if the visible rows are not covered by the rendered ones.
+		 */
+		check: function (tableId) {
+			var state = tables[tableId];
+			if (!state || !state.rowHeight || !state.body) {
+				return;
+			}
+
+			var viewport = jQuery('#' + tableId).parent('.' + VIEWPORT_CLASS);
+			var offset = Math.max(0, viewport.scrollTop() - state.body[0].offsetTop);
+			var firstVisible = Math.floor(offset / state.rowHeight);
+			var visibleCount = Math.ceil(viewport.innerHeight() / state.rowHeight);
+			var lastVisible = Math.min(firstVisible + visibleCount, state.total);
+
+			if (firstVisible >= state.first && lastVisible <= state.first + state.count) {
+				return;
+			}
+
+			// center the new window around the visible rows
+			var first = firstVisible - Math.floor((state.cfg.windowSize - visibleCount) / 2);
+			first = Math.max(0, Math.min(first, state.total - state.cfg.windowSize));
+
+			if (first !== state.requested && first !== state.first) {
+				state.requested = first;
+				state.cfg.callback(first);
+			}
+		}
+	};
+})();
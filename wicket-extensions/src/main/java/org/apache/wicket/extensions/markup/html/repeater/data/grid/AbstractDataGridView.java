@@ -16,9 +16,19 @@
  */
 package org.apache.wicket.extensions.markup.html.repeater.data.grid;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.IMarkupFragment;
+import org.apache.wicket.markup.MarkupException;
+import org.apache.wicket.markup.MarkupStream;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.parser.XmlTag.TagType;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.RefreshingView;
 import org.apache.wicket.markup.repeater.RepeatingView;
@@ -26,6 +36,7 @@ import org.apache.wicket.markup.repeater.data.DataViewBase;
 import org.apache.wicket.markup.repeater.data.IDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
+import org.apache.wicket.request.Response;
 
 
 /**
@@ -48,6 +59,8 @@ public abstract class AbstractDataGridView<T> extends DataViewBase<T>
 
 	private final List<? extends ICellPopulator<T>> populators;
 
+	private boolean renderOnlyRows = false;
+
 	/**
 	 * Constructor
 	 * 
@@ -120,6 +133,78 @@ public abstract class AbstractDataGridView<T> extends DataViewBase<T>
 	}
 
 
+	/**
+	 * Enables or disables render-only rows. Render-only rows don't get cell items and components,
+	 * instead their cells are written directly into the response by {@link ICellRenderer}s. These
+	 * rows are discarded after the request so they don't end up in the serialized page.
+	 * <p>
+	 * Rows are rendered this way only if {@link #isRenderOnlyRow(IModel)} returns
+	 * <code>true</code> for them, which by default is the case when all populators implement
+	 * {@link ICellRenderer} and {@link ICellRenderer#canRenderCells() can render their cells}. All
+	 * other rows are populated with components as usual.
+	 * 
+	 * @param renderOnlyRows
+	 *            <code>true</code> to render rows without components
+	 * @return this for chaining
+	 */
+	public AbstractDataGridView<T> setRenderOnlyRows(final boolean renderOnlyRows)
+	{
+		if (this.renderOnlyRows != renderOnlyRows)
+		{
+			addStateChange();
+			this.renderOnlyRows = renderOnlyRows;
+		}
+		return this;
+	}
+
+	/**
+	 * @return <code>true</code> if render-only rows are enabled
+	 * @see #setRenderOnlyRows(boolean)
+	 */
+	public boolean getRenderOnlyRows()
+	{
+		return renderOnlyRows;
+	}
+
+	/**
+	 * Decides whether a row is rendered without cell items and components when render-only rows
+	 * are enabled. Override to materialize rows which need components, e.g. a selected row showing
+	 * edit links.
+	 * 
+	 * @param rowModel
+	 *            the model of the row
+	 * @return <code>true</code> if all populators are {@link ICellRenderer}s able to render their
+	 *         cells
+	 */
+	protected boolean isRenderOnlyRow(final IModel<T> rowModel)
+	{
+		for (ICellPopulator<T> populator : populators)
+		{
+			if (!(populator instanceof ICellRenderer) ||
+				!((ICellRenderer<T>)populator).canRenderCells())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Called for the tag of each cell written by a render-only row. Override to modify the cell's
+	 * tag, e.g. to add a css class.
+	 * 
+	 * @param tag
+	 *            the mutable tag of the cell
+	 * @param index
+	 *            the index of the cell
+	 * @param populator
+	 *            the populator of the cell
+	 */
+	protected void onRenderOnlyCellTag(final ComponentTag tag, final int index,
+		final ICellPopulator<T> populator)
+	{
+	}
+
 	/**
 	 * @see org.apache.wicket.markup.repeater.data.DataViewBase#onDetach()
 	 */
@@ -134,6 +219,48 @@ public abstract class AbstractDataGridView<T> extends DataViewBase<T>
 				populator.detach();
 			}
 		}
+
+		removeRenderOnlyRows();
+	}
+
+	/**
+	 * Removes all render-only rows, they are not needed after they have been rendered.
+	 */
+	private void removeRenderOnlyRows()
+	{
+		List<Component> rows = null;
+		for (Component row : this)
+		{
+			if (((MarkupContainer)row).get(CELL_REPEATER_ID) instanceof RenderOnlyCells)
+			{
+				if (rows == null)
+				{
+					rows = new ArrayList<Component>();
+				}
+				rows.add(row);
+			}
+		}
+
+		if (rows != null)
+		{
+			// the rows are gone either way on the next render, so don't create a new page version
+			final Page page = findPage();
+			final boolean frozen = page != null && page.setFreezePageId(true);
+			try
+			{
+				for (Component row : rows)
+				{
+					remove(row);
+				}
+			}
+			finally
+			{
+				if (page != null)
+				{
+					page.setFreezePageId(frozen);
+				}
+			}
+		}
 	}
 
 	/**
@@ -142,6 +269,12 @@ public abstract class AbstractDataGridView<T> extends DataViewBase<T>
 	@Override
 	protected final void populateItem(final Item<T> item)
 	{
+		if (renderOnlyRows && isRenderOnlyRow(item.getModel()))
+		{
+			item.add(new RenderOnlyCells<T>(CELL_REPEATER_ID, item.getModel(), this));
+			return;
+		}
+
 		RepeatingView cells = new RepeatingView(CELL_REPEATER_ID);
 		item.add(cells);
 
@@ -166,4 +299,59 @@ public abstract class AbstractDataGridView<T> extends DataViewBase<T>
 		}
 
 	}
+
+	/**
+	 * Renders all cells of a render-only row into the response, repeating the cell tag for each
+	 * populator.
+	 */
+	private static class RenderOnlyCells<T> extends WebComponent
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final AbstractDataGridView<T> grid;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param id
+		 * @param rowModel
+		 * @param grid
+		 */
+		public RenderOnlyCells(final String id, final IModel<T> rowModel,
+			final AbstractDataGridView<T> grid)
+		{
+			super(id, rowModel);
+			this.grid = grid;
+		}
+
+		@Override
+		protected void onRender()
+		{
+			final IMarkupFragment markup = getMarkup();
+			if (markup == null)
+			{
+				throw new MarkupException("Markup not found. Component: " + toString());
+			}
+			final ComponentTag openTag = new MarkupStream(markup).getTag();
+
+			@SuppressWarnings("unchecked")
+			final IModel<T> rowModel = (IModel<T>)getDefaultModel();
+			final Response response = getResponse();
+
+			int populatorsNumber = grid.populators.size();
+			for (int i = 0; i < populatorsNumber; i++)
+			{
+				ICellRenderer<T> renderer = (ICellRenderer<T>)grid.populators.get(i);
+
+				ComponentTag tag = openTag.mutable();
+				tag.setType(TagType.OPEN);
+				grid.onRenderOnlyCellTag(tag, i, renderer);
+				renderComponentTag(tag);
+
+				renderer.renderCell(response, rowModel, this);
+
+				response.write(tag.syntheticCloseTagString());
+			}
+		}
+	}
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.markup.html.repeater.data.grid;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.request.Response;
+
+/**
+ * A cell populator that is able to write the content of its cells directly into the response.
+ * <p>
+ * If all populators of a {@link AbstractDataGridView data-grid view} implement this interface, are
+ * able to {@link #canRenderCells() render their cells} and
+ * {@link AbstractDataGridView#setRenderOnlyRows(boolean) render-only rows} are enabled, the rows of
+ * the view are not populated with cell items and components. Instead their cells are written
+ * straight into the response and the rows are discarded after the request, so they neither
+ * contribute to the component tree nor to the size of the serialized page.
+ * <p>
+ * Cells that need components, e.g. because they contain links or form components, have to be
+ * provided by populators that don't implement this interface.
+ * 
+ * @see AbstractDataGridView#setRenderOnlyRows(boolean)
+ * 
+ * @param <T>
+ *            Model object type
+ */
+public interface ICellRenderer<T> extends ICellPopulator<T>
+{
+	/**
+	 * Tells whether the cells of this populator can be written by
+	 * {@link #renderCell(Response, IModel, Component)}. Populators which depend on
+	 * {@link #populateItem(org.apache.wicket.markup.repeater.Item, String, IModel)} being called,
+	 * e.g. because a subclass overrides it, return <code>false</code> and get their cells populated
+	 * with components.
+	 * 
+	 * @return <code>true</code> if cells can be rendered without components
+	 */
+	boolean canRenderCells();
+
+	/**
+	 * Writes the content of a cell into the response. The enclosing cell tag is rendered by the
+	 * data-grid view.
+	 * <p>
+	 * <b>Implementations are responsible for escaping the written content.</b>
+	 * 
+	 * @param response
+	 *            the response to write to
+	 * @param rowModel
+	 *            the model of the row being rendered
+	 * @param component
+	 *            the component rendering the row's cells, e.g. to look up the locale, converters
+	 *            or localized strings
+	 */
+	void renderCell(final Response response, final IModel<T> rowModel, final Component component);
+}
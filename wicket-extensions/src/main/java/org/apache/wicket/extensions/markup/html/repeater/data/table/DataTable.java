@@ -22,6 +22,8 @@ import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.Component;
 import org.apache.wicket.behavior.Behavior;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.DataGridView;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellRenderer;
 import org.apache.wicket.markup.ComponentTag;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
@@ -166,6 +168,20 @@ public class DataTable<T> extends Panel implements IPageableItems
 			{
 				return DataTable.this.newRowItem(id, index, model);
 			}
+
+			@Override
+			protected void onRenderOnlyCellTag(final ComponentTag tag, final int index,
+				final ICellPopulator<T> populator)
+			{
+				if (populator instanceof IStyledColumn)
+				{
+					String className = ((IStyledColumn<?>)populator).getCssClass();
+					if (!Strings.isEmpty(className))
+					{
+						tag.append("class", className, " ");
+					}
+				}
+			}
 		};
 		datagrid.setItemsPerPage(rowsPerPage);
 		body.add(datagrid);
@@ -309,6 +325,23 @@ public class DataTable<T> extends Panel implements IPageableItems
 		return this;
 	}
 
+	/**
+	 * Enables or disables render-only rows. The cells of render-only rows are written directly into
+	 * the response by columns implementing {@link ICellRenderer}, without creating any components
+	 * for the row, its cells or their content.
+	 * 
+	 * @see DataGridView#setRenderOnlyRows(boolean)
+	 * 
+	 * @param renderOnlyRows
+	 *            <code>true</code> to render rows without components
+	 * @return this for chaining
+	 */
+	public final DataTable<T> setRenderOnlyRows(final boolean renderOnlyRows)
+	{
+		datagrid.setRenderOnlyRows(renderOnlyRows);
+		return this;
+	}
+
 	/**
 	 * Sets the number of items to be displayed per page
 	 * 
@@ -16,11 +16,17 @@
  */
 package org.apache.wicket.extensions.markup.html.repeater.data.table;
 
+import org.apache.wicket.Component;
 import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellRenderer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.util.collections.ClassMetaCache;
+import org.apache.wicket.util.convert.IConverter;
+import org.apache.wicket.util.string.Strings;
 
 
 /**
@@ -43,10 +49,13 @@ import org.apache.wicket.model.PropertyModel;
  * @param <T>
  *            The Model object type
  */
-public class PropertyColumn<T> extends AbstractColumn<T>
+public class PropertyColumn<T> extends AbstractColumn<T> implements ICellRenderer<T>
 {
 	private static final long serialVersionUID = 1L;
 
+	/** caches per column class whether its cells can be rendered without components */
+	private static final ClassMetaCache<Boolean> CAN_RENDER_CELLS = new ClassMetaCache<Boolean>();
+
 	private final String propertyExpression;
 
 	/**
@@ -93,6 +102,62 @@ public class PropertyColumn<T> extends AbstractColumn<T>
 		item.add(new Label(componentId, createLabelModel(rowModel)));
 	}
 
+	/**
+	 * Cells are rendered without components unless a subclass overrides
+	 * {@link #populateItem(Item, String, IModel)} without overriding
+	 * {@link #renderCell(Response, IModel, Component)} too, so customized cells are never bypassed.
+	 * 
+	 * @see ICellRenderer#canRenderCells()
+	 */
+	public boolean canRenderCells()
+	{
+		final Class<?> type = getClass();
+		Boolean canRender = CAN_RENDER_CELLS.get(type);
+		if (canRender == null)
+		{
+			try
+			{
+				final Class<?> populating = type.getMethod("populateItem", Item.class,
+					String.class, IModel.class).getDeclaringClass();
+				final Class<?> rendering = type.getMethod("renderCell", Response.class,
+					IModel.class, Component.class).getDeclaringClass();
+				canRender = populating.isAssignableFrom(rendering);
+			}
+			catch (NoSuchMethodException e)
+			{
+				canRender = false;
+			}
+			CAN_RENDER_CELLS.put(type, canRender);
+		}
+		return canRender;
+	}
+
+	/**
+	 * Writes the escaped, converted value of the property expression evaluated against
+	 * rowModelObject. Used instead of {@link #populateItem(Item, String, IModel)} for render-only
+	 * rows, subclasses which override <code>populateItem()</code> have to override this method too
+	 * to keep rendering their cells without components.
+	 * 
+	 * @see ICellRenderer#renderCell(Response, IModel, Component)
+	 */
+	public void renderCell(final Response response, final IModel<T> rowModel,
+		final Component component)
+	{
+		final Object value = createLabelModel(rowModel).getObject();
+
+		if (value != null)
+		{
+			@SuppressWarnings("unchecked")
+			final IConverter<Object> converter = (IConverter<Object>)component.getConverter(
+				value.getClass());
+			final String string = converter.convertToString(value, component.getLocale());
+			if (string != null)
+			{
+				response.write(Strings.escapeMarkup(string));
+			}
+		}
+	}
+
 	/**
 	 * Factory method for generating a model that will generated the displayed value. Typically the
 	 * model is a property model using the {@link #propertyExpression} specified in the constructor.
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.markup.html.repeater.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.ISortState;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.ISortStateLocator;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.ISortableDataProvider;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NavigationToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NavigatorLabel;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NoRecordsToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.filter.IFilterStateLocator;
+import org.apache.wicket.markup.repeater.data.IDataProvider;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Generics;
+import org.apache.wicket.util.lang.Objects;
+
+
+/**
+ * A data provider decorator that remembers the results of {@link #size()} and
+ * {@link #iterator(long, long)} of another data provider for the duration of a request.
+ * <p>
+ * A data table asks its data provider for the number of rows several times per request, e.g. for
+ * the table itself, the {@link NavigationToolbar}, the {@link NavigatorLabel} and the
+ * {@link NoRecordsToolbar}. Wrapping the data provider lets all of them share a single count
+ * query and a single query per range of rows:
+ *
+ * <pre>
+ * DataTable&lt;User&gt; table = new DataTable&lt;User&gt;(&quot;users&quot;, columns,
+ * 	new CachingDataProvider&lt;User&gt;(userProvider), 10);
+ * </pre>
+ *
+ * The cached results are discarded when the decorator is detached, when another request is
+ * processed or when the sort state or filter state of the wrapped provider changes. Sort state is
+ * compared by its current {@link SortParam} if it is a {@link SingleSortState}. Filter state is
+ * often modified in place, so it is compared by a snapshot taken when the results are cached,
+ * see {@link #getFilterKey(Object)}.
+ *
+ * @param <T>
+ *            the model object type
+ */
+public class CachingDataProvider<T> implements ISortableDataProvider<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final IDataProvider<T> delegate;
+
+	/** the sort state offered if the wrapped data provider has none */
+	private SingleSortState<?> sortState;
+
+	/** the request the cached results belong to */
+	private transient RequestCycle cachedCycle;
+
+	/** the sort state the cached results belong to */
+	private transient Object cachedSort;
+
+	/** the key of the filter state the cached results belong to */
+	private transient Object cachedFilter;
+
+	/** the cached result of <code>size()</code>, <code>-1</code> if none */
+	private transient long cachedSize = -1;
+
+	/** the cached results of <code>iterator()</code> keyed by their range */
+	private transient Map<Range, List<T>> cachedRanges;
+
+	/**
+	 * Construct.
+	 *
+	 * @param delegate
+	 *            the data provider whose results are cached
+	 */
+	public CachingDataProvider(final IDataProvider<T> delegate)
+	{
+		this.delegate = Args.notNull(delegate, "delegate");
+	}
+
+	/**
+	 * @return the wrapped data provider
+	 */
+	public final IDataProvider<T> getDelegate()
+	{
+		return delegate;
+	}
+
+	/**
+	 * @see IDataProvider#iterator(long, long)
+	 */
+	@Override
+	public Iterator<? extends T> iterator(final long first, final long count)
+	{
+		validateCache();
+
+		if (cachedRanges == null)
+		{
+			cachedRanges = Generics.newHashMap();
+		}
+
+		final Range range = new Range(first, count);
+		List<T> rows = cachedRanges.get(range);
+		if (rows == null)
+		{
+			rows = new ArrayList<T>((int)Math.min(count, 1024));
+			Iterator<? extends T> iterator = delegate.iterator(first, count);
+			while (iterator.hasNext())
+			{
+				rows.add(iterator.next());
+			}
+			cachedRanges.put(range, rows);
+		}
+		return rows.iterator();
+	}
+
+	/**
+	 * @see IDataProvider#size()
+	 */
+	@Override
+	public long size()
+	{
+		validateCache();
+
+		if (cachedSize < 0)
+		{
+			cachedSize = delegate.size();
+		}
+		return cachedSize;
+	}
+
+	/**
+	 * @see IDataProvider#model(Object)
+	 */
+	@Override
+	public IModel<T> model(final T object)
+	{
+		return delegate.model(object);
+	}
+
+	/**
+	 * Returns the sort state of the wrapped data provider.
+	 *
+	 * @return the sort state, an unsorted state of its own if the wrapped data provider is no
+	 *         {@link ISortStateLocator}
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <S> ISortState<S> getSortState()
+	{
+		if (delegate instanceof ISortStateLocator)
+		{
+			return ((ISortStateLocator)delegate).getSortState();
+		}
+		if (sortState == null)
+		{
+			sortState = new SingleSortState<S>();
+		}
+		return (ISortState<S>)sortState;
+	}
+
+	/**
+	 * Discards the cached results, e.g. after the data has been modified.
+	 */
+	public void clear()
+	{
+		cachedCycle = null;
+		cachedSort = null;
+		cachedFilter = null;
+		cachedSize = -1;
+		cachedRanges = null;
+	}
+
+	/**
+	 * Discards the cached results and detaches the wrapped data provider.
+	 *
+	 * @see IDataProvider#detach()
+	 */
+	@Override
+	public void detach()
+	{
+		clear();
+
+		delegate.detach();
+	}
+
+	/**
+	 * Discards the cached results if they were cached in another request or for another sort or
+	 * filter state.
+	 */
+	private void validateCache()
+	{
+		final RequestCycle cycle = RequestCycle.get();
+		final Object sort = getSort();
+		final Object filter = getFilterKey(getFilter());
+
+		if ((cycle != cachedCycle) || (Objects.equal(sort, cachedSort) == false) ||
+			(equalFilterKeys(filter, cachedFilter) == false))
+		{
+			clear();
+			cachedCycle = cycle;
+			cachedSort = sort;
+			cachedFilter = filter;
+		}
+	}
+
+	/**
+	 * Gets a key for the filter state which the cached results are valid for. The key is kept
+	 * together with the results and compared to the key of the filter state of later calls, so it
+	 * must not change when the filter state is modified in place.
+	 * <p>
+	 * By default this is the serialized form of the filter state. A filter state which can't be
+	 * serialized gets a new key on each call, i.e. nothing is cached for it. Subclasses may return
+	 * a cheaper immutable key, e.g. a copy of the filter criteria.
+	 *
+	 * @param filterState
+	 *            the current filter state of the wrapped data provider, may be <code>null</code>
+	 * @return the key, compared with {@link Object#equals(Object)} or by content for byte arrays
+	 */
+	protected Object getFilterKey(final Object filterState)
+	{
+		if (filterState == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			final ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(filterState);
+			out.close();
+			return bytes.toByteArray();
+		}
+		catch (IOException e)
+		{
+			return new Object();
+		}
+	}
+
+	private static boolean equalFilterKeys(final Object key1, final Object key2)
+	{
+		if ((key1 instanceof byte[]) && (key2 instanceof byte[]))
+		{
+			return Arrays.equals((byte[])key1, (byte[])key2);
+		}
+		return Objects.equal(key1, key2);
+	}
+
+	/**
+	 * @return the current sort of the wrapped data provider, <code>null</code> if unknown
+	 */
+	private Object getSort()
+	{
+		final ISortState<Object> sortState = getSortState();
+		if (sortState instanceof SingleSortState)
+		{
+			return ((SingleSortState<Object>)sortState).getSort();
+		}
+		return null;
+	}
+
+	/**
+	 * @return the current filter state of the wrapped data provider, <code>null</code> if unknown
+	 */
+	private Object getFilter()
+	{
+		if (delegate instanceof IFilterStateLocator)
+		{
+			return ((IFilterStateLocator<?>)delegate).getFilterState();
+		}
+		return null;
+	}
+
+	/**
+	 * A range of rows.
+	 */
+	private static final class Range
+	{
+		private final long first;
+
+		private final long count;
+
+		private Range(final long first, final long count)
+		{
+			this.first = first;
+			this.count = count;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (obj instanceof Range)
+			{
+				Range other = (Range)obj;
+				return (first == other.first) && (count == other.count);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (int)(first ^ (first >>> 32)) * 31 + (int)(count ^ (count >>> 32));
+		}
+	}
+}
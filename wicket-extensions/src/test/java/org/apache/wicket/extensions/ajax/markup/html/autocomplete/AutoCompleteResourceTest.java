@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.request.resource.SharedResourceReference;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AutoCompleteResource} and {@link AutoCompleteResourceBehavior}
+ */
+public class AutoCompleteResourceTest extends WicketTestCase
+{
+	/**
+	 * The choices are rendered without a page.
+	 */
+	@Test
+	public void rendersChoices()
+	{
+		tester.getRequest().setParameter("q", "ba");
+		tester.startResource(new CountingResource());
+
+		assertEquals("<ul><li textvalue=\"bar\">bar</li><li textvalue=\"baz\">baz</li></ul>",
+			tester.getLastResponseAsString());
+	}
+
+	/**
+	 * Cached choices are reused.
+	 */
+	@Test
+	public void cachesChoices()
+	{
+		CountingResource resource = new CountingResource();
+		resource.setCacheSize(10);
+
+		assertEquals(Arrays.asList("bar", "baz"), resource.findChoices("ba"));
+		assertEquals(Arrays.asList("bar", "baz"), resource.findChoices("ba"));
+		assertEquals(1, resource.loads);
+
+		resource.clearCache();
+		resource.findChoices("ba");
+		assertEquals(2, resource.loads);
+	}
+
+	/**
+	 * Choices of a longer input are filtered from the choices of a cached prefix.
+	 */
+	@Test
+	public void filtersPrefix()
+	{
+		CountingResource resource = new CountingResource();
+		resource.setCacheSize(10).setPrefixFiltering(true);
+
+		resource.findChoices("b");
+		assertEquals(Arrays.asList("baz"), resource.findChoices("baz"));
+		assertEquals(1, resource.loads);
+
+		// truncated choices are not filtered
+		resource.clearCache();
+		resource.setMaxChoices(3);
+		resource.findChoices("b");
+		resource.findChoices("baz");
+		assertEquals(3, resource.loads);
+	}
+
+	/**
+	 * The behavior requests the choices from the resource through a channel of its own.
+	 */
+	@Test
+	public void behaviorUsesResource()
+	{
+		tester.getApplication().getSharedResources().add("choices", new CountingResource());
+
+		tester.startPage(AutoCompletePage.class);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("new Wicket.AutoComplete('field1','../resource/" +
+			"org.apache.wicket.Application/choices'"));
+		assertTrue(document.contains("channel: 'field1-autocomplete|d'"));
+	}
+
+	private static class CountingResource extends AutoCompleteResource<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int loads;
+
+		@SuppressWarnings("unchecked")
+		private CountingResource()
+		{
+			super(StringAutoCompleteRenderer.INSTANCE);
+		}
+
+		@Override
+		protected Iterator<String> getChoices(String input)
+		{
+			loads++;
+
+			List<String> choices = new ArrayList<String>();
+			for (String choice : Arrays.asList("bar", "baz", "bla", "foo"))
+			{
+				if (choice.startsWith(input))
+				{
+					choices.add(choice);
+				}
+			}
+			return choices.iterator();
+		}
+	}
+
+	/**
+	 * A page with a text field completed from a shared resource.
+	 */
+	public static class AutoCompletePage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public AutoCompletePage()
+		{
+			Form<Void> form = new Form<Void>("form");
+			add(form);
+
+			TextField<String> field = new TextField<String>("field", Model.of(""));
+			field.add(new AutoCompleteResourceBehavior(new SharedResourceReference("choices")));
+			form.add(field);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><head></head><body><form wicket:id='form'>" +
+				"<input type='text' wicket:id='field'/></form></body></html>");
+		}
+	}
+}
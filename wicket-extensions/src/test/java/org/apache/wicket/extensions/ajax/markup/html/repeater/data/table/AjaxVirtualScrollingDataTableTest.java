@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html.repeater.data.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketTestCase;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.PropertyColumn;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.repeater.data.ListDataProvider;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AjaxVirtualScrollingDataTable}
+ */
+public class AjaxVirtualScrollingDataTableTest extends WicketTestCase
+{
+	/**
+	 * Only the window is rendered, the remaining rows are represented by a spacer.
+	 */
+	@Test
+	public void rendersWindow()
+	{
+		tester.startPage(VirtualScrollingPage.class);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("data-first=\"0\""));
+		assertTrue(document.contains("data-total=\"1000\""));
+		assertTrue(document.contains("data-rows=\"950\""));
+		assertTrue(document.contains(">49</"));
+		assertFalse(document.contains(">50</"));
+		assertTrue(document.contains("wicket-virtual-scrolling.js"));
+		assertTrue(document.contains("Wicket.VirtualScrolling.init("));
+	}
+
+	/**
+	 * Scrolling requests another window which replaces the table body.
+	 */
+	@Test
+	public void fetchesWindow()
+	{
+		VirtualScrollingPage page = tester.startPage(VirtualScrollingPage.class);
+		AjaxVirtualScrollingDataTable<?> table = page.table;
+
+		tester.getRequest().setParameter("first", "500");
+		tester.executeBehavior((AbstractAjaxBehavior)table.getBehaviors().get(0));
+
+		assertEquals(500, table.getFirstRow());
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("data-first=\"500\""));
+		assertTrue(document.contains("data-rows=\"500\""));
+		assertTrue(document.contains("data-rows=\"450\""));
+		assertTrue(document.contains(">500</"));
+		assertTrue(document.contains(">549</"));
+		assertFalse(document.contains(">550</"));
+		assertTrue(document.contains("Wicket.VirtualScrolling.update("));
+	}
+
+	/**
+	 * The first row is clamped to the rows of the data provider.
+	 */
+	@Test
+	public void clampsFirstRow()
+	{
+		VirtualScrollingPage page = tester.startPage(VirtualScrollingPage.class);
+
+		page.table.setFirstRow(5000);
+		assertEquals(950, page.table.getFirstRow());
+
+		page.table.setFirstRow(-1);
+		assertEquals(0, page.table.getFirstRow());
+	}
+
+	/**
+	 * A page with a virtual scrolling table of 1000 numbers.
+	 */
+	public static class VirtualScrollingPage extends WebPage implements
+		IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final AjaxVirtualScrollingDataTable<Integer> table;
+
+		/**
+		 * Construct.
+		 */
+		public VirtualScrollingPage()
+		{
+			List<Integer> numbers = new ArrayList<Integer>();
+			for (int i = 0; i < 1000; i++)
+			{
+				numbers.add(i);
+			}
+
+			List<IColumn<Integer>> columns = new ArrayList<IColumn<Integer>>();
+			columns.add(new PropertyColumn<Integer>(Model.of("value"), "intValue"));
+
+			table = new AjaxVirtualScrollingDataTable<Integer>("table", columns,
+				new ListDataProvider<Integer>(numbers), 50);
+			add(table);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><head></head><body><table wicket:id='table'></table></body></html>");
+		}
+	}
+}
@@ -23,9 +23,13 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.extensions.markup.html.repeater.data.grid.ICellPopulator;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.data.IDataProvider;
+import org.apache.wicket.markup.repeater.data.ListDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
@@ -160,6 +164,109 @@ public class DataTableTest extends Assert
 
 	}
 
+	/**
+	 * Tests that render-only rows are written without cell components and are discarded after the
+	 * request
+	 */
+	@Test
+	public void renderOnlyRows()
+	{
+		RenderOnlyRowsPage page = new RenderOnlyRowsPage();
+		tester.startPage(page);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("<td wicket:id=\"cells\">John</td>"));
+		assertTrue(document.contains("<td wicket:id=\"cells\" class=\"last-name\">&lt;Doe&gt;</td>"));
+		assertTrue(document.contains("<td wicket:id=\"cells\">Jane</td>"));
+
+		assertEquals(0, ((MarkupContainer)page.table.get("body:rows")).size());
+	}
+
+	/**
+	 * Tests that a column overriding populateItem() is not bypassed by render-only rows
+	 */
+	@Test
+	public void renderOnlyRowsWithCustomizedColumn()
+	{
+		RenderOnlyRowsPage page = new RenderOnlyRowsPage(new PropertyColumn<Contact>(
+			Model.of("Name"), "firstName")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void populateItem(Item<ICellPopulator<Contact>> item, String componentId,
+				IModel<Contact> rowModel)
+			{
+				item.add(new Label(componentId, "custom"));
+			}
+		});
+		tester.startPage(page);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("<wicket:container wicket:id=\"cell\">custom</wicket:container>"));
+		assertTrue(document.contains("<wicket:container wicket:id=\"cell\">John</wicket:container>"));
+
+		assertEquals(2, ((MarkupContainer)page.table.get("body:rows")).size());
+	}
+
+	/**
+	 * A page with a DataTable rendering all its rows without components
+	 */
+	public static class RenderOnlyRowsPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final DataTable<Contact> table;
+
+		/**
+		 * Construct.
+		 */
+		public RenderOnlyRowsPage()
+		{
+			this(null);
+		}
+
+		/**
+		 * Construct.
+		 * 
+		 * @param extraColumn
+		 *            an additional column, may be <code>null</code>
+		 */
+		public RenderOnlyRowsPage(IColumn<Contact> extraColumn)
+		{
+			List<IColumn<Contact>> columns = new ArrayList<IColumn<Contact>>();
+			columns.add(new PropertyColumn<Contact>(Model.of("First Name"), "firstName"));
+			columns.add(new PropertyColumn<Contact>(Model.of("Last Name"), "lastName")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public String getCssClass()
+				{
+					return "last-name";
+				}
+			});
+			if (extraColumn != null)
+			{
+				columns.add(extraColumn);
+			}
+
+			List<Contact> contacts = Arrays.asList(new Contact("John", "<Doe>"), new Contact(
+				"Jane", "Roe"));
+			table = new DataTable<Contact>("table", columns,
+				new ListDataProvider<Contact>(contacts), 10);
+			table.setRenderOnlyRows(true);
+			add(table);
+		}
+
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><table wicket:id='table'></table></body></html>");
+		}
+	}
+
 	/**
 	 * A page with a DataTable that either has items (tbody) or header and footer (thead/tfoot)
 	 */
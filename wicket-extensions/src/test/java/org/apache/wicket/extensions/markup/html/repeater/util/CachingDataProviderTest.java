@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.markup.html.repeater.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.filter.IFilterStateLocator;
+import org.apache.wicket.markup.repeater.data.ListDataProvider;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CachingDataProvider}.
+ */
+public class CachingDataProviderTest extends Assert
+{
+	private final CountingProvider provider = new CountingProvider();
+
+	private final CachingDataProvider<String> caching = new CachingDataProvider<String>(provider);
+
+	/**
+	 * Repeated calls are answered from the cache.
+	 */
+	@Test
+	public void cachesResults()
+	{
+		assertEquals(3, caching.size());
+		assertEquals(3, caching.size());
+		assertEquals(1, provider.sizeCalls);
+
+		assertEquals("B", caching.iterator(1, 2).next());
+		assertEquals("B", caching.iterator(1, 2).next());
+		assertEquals(1, provider.iteratorCalls);
+
+		assertEquals("A", caching.iterator(0, 2).next());
+		assertEquals(2, provider.iteratorCalls);
+	}
+
+	/**
+	 * Detaching discards the cached results.
+	 */
+	@Test
+	public void detachClearsCache()
+	{
+		caching.size();
+		caching.iterator(0, 3);
+		caching.detach();
+		caching.size();
+		caching.iterator(0, 3);
+
+		assertEquals(2, provider.sizeCalls);
+		assertEquals(2, provider.iteratorCalls);
+		assertEquals(1, provider.detachCalls);
+	}
+
+	/**
+	 * A change of the sort or filter state discards the cached results.
+	 */
+	@Test
+	public void stateChangeClearsCache()
+	{
+		caching.iterator(0, 3);
+
+		provider.setSort("value", SortOrder.DESCENDING);
+		Iterator<? extends String> iterator = caching.iterator(0, 3);
+		assertEquals("C", iterator.next());
+		assertEquals(2, provider.iteratorCalls);
+
+		provider.setFilterState(new StringBuilder("B"));
+		assertEquals(1, caching.size());
+		caching.iterator(0, 3);
+		assertEquals(3, provider.iteratorCalls);
+	}
+
+	/**
+	 * A filter state modified in place discards the cached results too, although it is still equal
+	 * to itself.
+	 */
+	@Test
+	public void filterModifiedInPlaceClearsCache()
+	{
+		provider.setFilterState(new StringBuilder("B"));
+		assertEquals("B", caching.iterator(0, 3).next());
+
+		provider.getFilterState().replace(0, 1, "C");
+		assertEquals("C", caching.iterator(0, 3).next());
+		assertEquals(2, provider.iteratorCalls);
+
+		caching.iterator(0, 3);
+		assertEquals(2, provider.iteratorCalls);
+	}
+
+	/**
+	 * A data provider without sort state gets an unsorted one, as sortable headers expect it.
+	 */
+	@Test
+	public void unsortedDelegate()
+	{
+		CachingDataProvider<String> unsorted = new CachingDataProvider<String>(
+			new ListDataProvider<String>(Arrays.asList("A", "B")));
+
+		assertNotNull(unsorted.getSortState());
+		assertSame(unsorted.getSortState(), unsorted.getSortState());
+		assertEquals(2, unsorted.size());
+	}
+
+	private static class CountingProvider extends SortableDataProvider<String> implements
+		IFilterStateLocator<StringBuilder>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private StringBuilder filter;
+
+		private int sizeCalls;
+
+		private int iteratorCalls;
+
+		private int detachCalls;
+
+		private List<String> getRows()
+		{
+			List<String> rows = Arrays.asList("A", "B", "C");
+			if (filter != null)
+			{
+				rows = Arrays.asList(filter.toString());
+			}
+			if ((getSort() != null) && (getSort().isAscending() == false))
+			{
+				Collections.reverse(rows);
+			}
+			return rows;
+		}
+
+		@Override
+		public Iterator<? extends String> iterator(long first, long count)
+		{
+			iteratorCalls++;
+			List<String> rows = getRows();
+			return rows.subList((int)first, (int)Math.min(first + count, rows.size())).iterator();
+		}
+
+		@Override
+		public long size()
+		{
+			sizeCalls++;
+			return getRows().size();
+		}
+
+		@Override
+		public IModel<String> model(String object)
+		{
+			return Model.of(object);
+		}
+
+		@Override
+		public void detach()
+		{
+			detachCalls++;
+		}
+
+		@Override
+		public StringBuilder getFilterState()
+		{
+			return filter;
+		}
+
+		@Override
+		public void setFilterState(StringBuilder state)
+		{
+			filter = state;
+		}
+	}
+}
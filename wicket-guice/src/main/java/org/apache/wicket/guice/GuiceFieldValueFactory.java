@@ -24,13 +24,18 @@ import com.google.inject.BindingAnnotation;
 import com.google.inject.Inject;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.injection.IFieldValueFactory;
+import org.apache.wicket.injection.IFieldValueSource;
+import org.apache.wicket.injection.IFieldValueSourceFactory;
 import org.apache.wicket.proxy.IProxyTargetLocator;
 import org.apache.wicket.proxy.LazyInitProxyFactory;
 
 /**
- * 
+ * {@link IFieldValueFactory} for fields annotated with Guice's or JSR-330's {@link Inject}.
+ * <p>
+ * When used by an {@link org.apache.wicket.injection.Injector} the binding of each field is
+ * resolved once per class, each injection only creates the proxy.
  */
-public class GuiceFieldValueFactory implements IFieldValueFactory
+public class GuiceFieldValueFactory implements IFieldValueSourceFactory
 {
 	private final boolean wrapInProxies;
 
@@ -96,6 +101,47 @@ public class GuiceFieldValueFactory implements IFieldValueFactory
 		return target;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public IFieldValueSource newFieldValueSource(final Field field)
+	{
+		if (!supportsField(field) || Modifier.isStatic(field.getModifiers()))
+		{
+			return null;
+		}
+
+		final IProxyTargetLocator locator;
+		try
+		{
+			Inject injectAnnotation = field.getAnnotation(Inject.class);
+			Annotation bindingAnnotation = findBindingAnnotation(field.getAnnotations());
+			locator = new GuiceProxyTargetLocator(field, bindingAnnotation,
+				injectAnnotation != null ? injectAnnotation.optional() : false);
+		}
+		catch (MoreThanOneBindingException e)
+		{
+			throw new RuntimeException("Can't have more than one BindingAnnotation on field " +
+				field.getName() + " of class " + field.getDeclaringClass().getName());
+		}
+
+		final Class<?> type = field.getType();
+		return new IFieldValueSource()
+		{
+			public Object getFieldValue(final Object fieldOwner)
+			{
+				if (wrapInProxies)
+				{
+					return LazyInitProxyFactory.createProxy(type, locator);
+				}
+				else
+				{
+					return locator.locateProxyTarget();
+				}
+			}
+		};
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
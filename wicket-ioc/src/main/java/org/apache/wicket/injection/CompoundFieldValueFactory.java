@@ -33,7 +33,7 @@ import org.apache.wicket.util.lang.Args;
  * @author Igor Vaynberg (ivaynberg)
  * 
  */
-public class CompoundFieldValueFactory implements IFieldValueFactory
+public class CompoundFieldValueFactory implements IFieldValueSourceFactory
 {
 	private final List<IFieldValueFactory> delegates = new ArrayList<IFieldValueFactory>();
 
@@ -105,6 +105,48 @@ public class CompoundFieldValueFactory implements IFieldValueFactory
 		return null;
 	}
 
+	/**
+	 * @see org.apache.wicket.injection.IFieldValueSourceFactory#newFieldValueSource(java.lang.reflect.Field)
+	 */
+	public IFieldValueSource newFieldValueSource(final Field field)
+	{
+		final List<IFieldValueSource> sources = new ArrayList<IFieldValueSource>(delegates.size());
+		for (IFieldValueFactory factory : delegates)
+		{
+			IFieldValueSource source = InjectionPlan.newFieldValueSource(field, factory);
+			if (source != null)
+			{
+				sources.add(source);
+			}
+		}
+
+		if (sources.isEmpty())
+		{
+			return null;
+		}
+		else if (sources.size() == 1)
+		{
+			return sources.get(0);
+		}
+
+		final IFieldValueSource[] array = sources.toArray(new IFieldValueSource[sources.size()]);
+		return new IFieldValueSource()
+		{
+			public Object getFieldValue(final Object fieldOwner)
+			{
+				for (IFieldValueSource source : array)
+				{
+					Object object = source.getFieldValue(fieldOwner);
+					if (object != null)
+					{
+						return object;
+					}
+				}
+				return null;
+			}
+		};
+	}
+
 	/**
 	 * @see org.apache.wicket.injection.IFieldValueFactory#supportsField(java.lang.reflect.Field)
 	 */
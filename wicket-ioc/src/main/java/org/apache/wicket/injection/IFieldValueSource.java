@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.injection;
+
+/**
+ * Provides the values of one field, with everything needed to obtain them resolved beforehand,
+ * e.g. the annotations of the field and the locator of its dependency.
+ * 
+ * @see IFieldValueSourceFactory
+ */
+public interface IFieldValueSource
+{
+	/**
+	 * Returns the value the field will be set to
+	 * 
+	 * @param fieldOwner
+	 *            instance of object being injected
+	 * @return new field value or <code>null</code> if the field should not be set
+	 */
+	Object getFieldValue(Object fieldOwner);
+}
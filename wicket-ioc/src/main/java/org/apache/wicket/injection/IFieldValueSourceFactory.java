@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.injection;
+
+import java.lang.reflect.Field;
+
+/**
+ * An {@link IFieldValueFactory} which can resolve a field once into an {@link IFieldValueSource},
+ * so the {@link Injector} does not have to ask the factory for each injected object.
+ */
+public interface IFieldValueSourceFactory extends IFieldValueFactory
+{
+	/**
+	 * Resolves a field, i.e. reads its annotations and prepares the lookup of its values.
+	 * 
+	 * @param field
+	 *            a field supported by this factory
+	 * @return the source of the field's values or <code>null</code> if the factory will never
+	 *         provide a value for the field
+	 */
+	IFieldValueSource newFieldValueSource(Field field);
+}
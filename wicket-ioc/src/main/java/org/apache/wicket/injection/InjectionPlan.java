@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.injection;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The injection of the objects of one class: the injectable fields of the class and its
+ * superclasses together with the sources of their values. The plan is computed once per class, so
+ * injecting an object only needs to set its fields.
+ * 
+ * @see IFieldValueSourceFactory
+ */
+public final class InjectionPlan
+{
+	private final IFieldValueFactory factory;
+
+	private final Field[] fields;
+
+	private final IFieldValueSource[] sources;
+
+	private InjectionPlan(final IFieldValueFactory factory, final Field[] fields,
+		final IFieldValueSource[] sources)
+	{
+		this.factory = factory;
+		this.fields = fields;
+		this.sources = sources;
+	}
+
+	/**
+	 * Computes the plan for a class.
+	 * 
+	 * @param clazz
+	 *            the class of the objects to inject
+	 * @param factory
+	 *            the factory providing the values of the fields
+	 * @return plan
+	 */
+	public static InjectionPlan of(Class<?> clazz, final IFieldValueFactory factory)
+	{
+		final List<Field> fields = new ArrayList<Field>();
+		final List<IFieldValueSource> sources = new ArrayList<IFieldValueSource>();
+
+		while (clazz != null)
+		{
+			for (final Field field : clazz.getDeclaredFields())
+			{
+				if (factory.supportsField(field))
+				{
+					final IFieldValueSource source = newFieldValueSource(field, factory);
+					if (source != null)
+					{
+						if (!field.isAccessible())
+						{
+							field.setAccessible(true);
+						}
+						fields.add(field);
+						sources.add(source);
+					}
+				}
+			}
+			clazz = clazz.getSuperclass();
+		}
+
+		return new InjectionPlan(factory, fields.toArray(new Field[fields.size()]),
+			sources.toArray(new IFieldValueSource[sources.size()]));
+	}
+
+	/**
+	 * Gets the source of the values of a field, asking the factory for each value if it cannot
+	 * resolve fields in advance.
+	 * 
+	 * @param field
+	 * @param factory
+	 * @return source or <code>null</code> if the factory will never provide a value
+	 */
+	static IFieldValueSource newFieldValueSource(final Field field,
+		final IFieldValueFactory factory)
+	{
+		if (factory instanceof IFieldValueSourceFactory)
+		{
+			return ((IFieldValueSourceFactory)factory).newFieldValueSource(field);
+		}
+
+		return new IFieldValueSource()
+		{
+			public Object getFieldValue(final Object fieldOwner)
+			{
+				return factory.getFieldValue(field, fieldOwner);
+			}
+		};
+	}
+
+	/**
+	 * Sets all injectable fields of the object which are <code>null</code>.
+	 * 
+	 * @param object
+	 *            the object to inject, an instance of the class of the plan
+	 */
+	public void inject(final Object object)
+	{
+		for (int i = 0; i < fields.length; i++)
+		{
+			final Field field = fields[i];
+			try
+			{
+				if (field.get(object) == null)
+				{
+					Object value = sources[i].getFieldValue(object);
+
+					if (value != null)
+					{
+						field.set(object, value);
+					}
+				}
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw new RuntimeException("error while injecting object [" + object.toString() +
+					"] of type [" + object.getClass().getName() + "]", e);
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new RuntimeException("error while injecting object [" + object.toString() +
+					"] of type [" + object.getClass().getName() + "]", e);
+			}
+		}
+	}
+
+	/**
+	 * @return the factory the plan was computed with
+	 */
+	public IFieldValueFactory getFactory()
+	{
+		return factory;
+	}
+
+	/**
+	 * @return the injectable fields
+	 */
+	public Field[] getFields()
+	{
+		return fields.clone();
+	}
+}
@@ -16,10 +16,6 @@
  */
 package org.apache.wicket.injection;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.wicket.Application;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.util.collections.ClassMetaCache;
@@ -39,7 +35,7 @@ public abstract class Injector
 		private static final long serialVersionUID = 1L;
 	};
 
-	private final ClassMetaCache<Field[]> cache = new ClassMetaCache<Field[]>();
+	private final ClassMetaCache<InjectionPlan> cache = new ClassMetaCache<InjectionPlan>();
 
 	/**
 	 * Binds current instance of the injector to the Application. After this method is called this
@@ -73,7 +69,8 @@ public abstract class Injector
 
 	/**
 	 * traverse fields in the class hierarchy of the object and set their value with a locator
-	 * provided by the locator factory.
+	 * provided by the locator factory. The fields and the sources of their values are resolved
+	 * once per class into an {@link InjectionPlan}.
 	 * 
 	 * @param object
 	 * @param factory
@@ -82,78 +79,18 @@ public abstract class Injector
 	{
 		final Class<?> clazz = object.getClass();
 
-		Field[] fields = null;
-
 		// try cache
-		fields = cache.get(clazz);
+		InjectionPlan plan = cache.get(clazz);
 
-		if (fields == null)
+		if ((plan == null) || (plan.getFactory() != factory))
 		{
-			// cache miss, discover fields
-			fields = findFields(clazz, factory);
+			// cache miss, discover fields and resolve them
+			plan = InjectionPlan.of(clazz, factory);
 
 			// write to cache
-			cache.put(clazz, fields);
+			cache.put(clazz, plan);
 		}
 
-		for (final Field field : fields)
-		{
-			if (!field.isAccessible())
-			{
-				field.setAccessible(true);
-			}
-			try
-			{
-
-				if (field.get(object) == null)
-				{
-
-					Object value = factory.getFieldValue(field, object);
-
-					if (value != null)
-					{
-						field.set(object, value);
-					}
-				}
-			}
-			catch (IllegalArgumentException e)
-			{
-				throw new RuntimeException("error while injecting object [" + object.toString() +
-					"] of type [" + object.getClass().getName() + "]", e);
-			}
-			catch (IllegalAccessException e)
-			{
-				throw new RuntimeException("error while injecting object [" + object.toString() +
-					"] of type [" + object.getClass().getName() + "]", e);
-			}
-		}
+		plan.inject(object);
 	}
-
-	/**
-	 * Returns an array of fields that can be injected using the given field value factory
-	 * 
-	 * @param clazz
-	 * @param factory
-	 * @return an array of fields that can be injected using the given field value factory
-	 */
-	private Field[] findFields(Class<?> clazz, final IFieldValueFactory factory)
-	{
-		List<Field> matched = new ArrayList<Field>();
-
-		while (clazz != null)
-		{
-			Field[] fields = clazz.getDeclaredFields();
-			for (final Field field : fields)
-			{
-				if (factory.supportsField(field))
-				{
-					matched.add(field);
-				}
-			}
-			clazz = clazz.getSuperclass();
-		}
-
-		return matched.toArray(new Field[matched.size()]);
-	}
-
 }
@@ -18,22 +18,31 @@ package org.apache.wicket.proxy;
 
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import net.sf.cglib.core.CodeGenerationException;
 import net.sf.cglib.core.DefaultNamingPolicy;
 import net.sf.cglib.core.Predicate;
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
+import net.sf.cglib.reflect.FastClass;
 import org.apache.wicket.util.io.IClusterable;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.util.collections.ClassMetaCache;
 
 /**
  * A factory class that creates lazy init proxies given a type and a {@link IProxyTargetLocator}
@@ -109,9 +118,38 @@ public class LazyInitProxyFactory
 		Float.class, double.class, Double.class, char.class, Character.class, boolean.class,
 		Boolean.class);
 
+	/** dispatch of {@link Object#finalize()} */
+	private static final int FINALIZE = -1;
+
+	/** dispatch of {@link Object#equals(Object)} */
+	private static final int EQUALS = -2;
+
+	/** dispatch of {@link Object#hashCode()} */
+	private static final int HASH_CODE = -3;
+
+	/** dispatch of {@link Object#toString()} */
+	private static final int TO_STRING = -4;
+
+	/** dispatch of {@link IWriteReplace#writeReplace()} */
+	private static final int WRITE_REPLACE = -5;
+
+	/** dispatch of {@link ILazyInitProxy#getObjectLocator()} */
+	private static final int OBJECT_LOCATOR = -6;
+
+	/** dispatch of a method invoked on the target by reflection */
+	private static final int INVOKE = -7;
+
+	/** proxy classes of interfaces */
+	private static final ClassMetaCache<JdkProxyClass> JDK_PROXY_CLASSES = new ClassMetaCache<JdkProxyClass>();
+
+	/** proxy classes of concrete classes */
+	private static final ClassMetaCache<CGLibProxyClass> CGLIB_PROXY_CLASSES = new ClassMetaCache<CGLibProxyClass>();
+
 	/**
 	 * Create a lazy init proxy for the specified type. The target object will be located using the
 	 * provided locator upon first method invocation.
+	 * <p>
+	 * The proxy classes are generated once for each type and class loader.
 	 * 
 	 * @param type
 	 *            type that proxy will represent
@@ -131,13 +169,27 @@ public class LazyInitProxyFactory
 		}
 		else if (type.isInterface())
 		{
-			JdkHandler handler = new JdkHandler(type, locator);
+			final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+			// proxy classes are cached only along with the class loader of their type, so that
+			// the cache doesn't keep another class loader in memory
+			final boolean cacheable = (classLoader != null) &&
+				(classLoader == type.getClassLoader());
+
+			JdkProxyClass proxyClass = cacheable ? JDK_PROXY_CLASSES.get(type) : null;
+			if (proxyClass != null)
+			{
+				return proxyClass.newInstance(type, new JdkHandler(type, locator, proxyClass));
+			}
+
+			proxyClass = cacheable ? new JdkProxyClass(type) : null;
+			JdkHandler handler = new JdkHandler(type, locator, proxyClass);
 
+			Object proxy;
 			try
 			{
-				return Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
-					new Class[] { type, Serializable.class, ILazyInitProxy.class,
-							IWriteReplace.class }, handler);
+				proxy = Proxy.newProxyInstance(classLoader, new Class[] { type,
+						Serializable.class, ILazyInitProxy.class, IWriteReplace.class }, handler);
 			}
 			catch (IllegalArgumentException e)
 			{
@@ -147,21 +199,35 @@ public class LazyInitProxyFactory
 				 * happens, we can try and fall back to the classloader (current) that actually
 				 * loaded this class.
 				 */
-				return Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
+				proxy = Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
 					new Class[] { type, Serializable.class, ILazyInitProxy.class,
 							IWriteReplace.class }, handler);
 			}
 
+			if (cacheable && (proxy.getClass().getClassLoader() == classLoader))
+			{
+				proxyClass.setProxyClass(proxy.getClass());
+				JDK_PROXY_CLASSES.put(type, proxyClass);
+			}
+
+			return proxy;
 		}
 		else
 		{
-			CGLibInterceptor handler = new CGLibInterceptor(type, locator);
+			CGLibProxyClass proxyClass = CGLIB_PROXY_CLASSES.get(type);
+			if (proxyClass != null)
+			{
+				return proxyClass.prototype.newInstance(new CGLibInterceptor(type, locator,
+					proxyClass));
+			}
+
+			proxyClass = new CGLibProxyClass();
 
 			Enhancer e = new Enhancer();
 			e.setInterfaces(new Class[] { Serializable.class, ILazyInitProxy.class,
 					IWriteReplace.class });
 			e.setSuperclass(type);
-			e.setCallback(handler);
+			e.setCallbackType(MethodInterceptor.class);
 			e.setNamingPolicy(new DefaultNamingPolicy()
 			{
 				@Override
@@ -172,7 +238,29 @@ public class LazyInitProxyFactory
 				}
 			});
 
-			return e.create();
+			Class<?> generatedClass = e.createClass();
+
+			// proxies are created by a prototype, whose callback holds neither a locator nor a
+			// target
+			Enhancer.registerCallbacks(generatedClass,
+				new Callback[] { PrototypeInterceptor.INSTANCE });
+			try
+			{
+				proxyClass.prototype = (Factory)ReflectUtils.newInstance(generatedClass);
+			}
+			finally
+			{
+				Enhancer.registerCallbacks(generatedClass, null);
+			}
+
+			if ((type.getClassLoader() != null) &&
+				(generatedClass.getClassLoader() == type.getClassLoader()))
+			{
+				CGLIB_PROXY_CLASSES.put(type, proxyClass);
+			}
+
+			return proxyClass.prototype.newInstance(new CGLibInterceptor(type, locator,
+				proxyClass));
 		}
 	}
 
@@ -261,6 +349,8 @@ public class LazyInitProxyFactory
 
 		private transient Object target;
 
+		private transient ProxyClass proxyClass;
+
 		/**
 		 * Constructor
 		 * 
@@ -269,12 +359,16 @@ public class LazyInitProxyFactory
 		 * 
 		 * @param locator
 		 *            object locator used to locate the object this proxy represents
+		 * @param proxyClass
+		 *            the proxy class
 		 */
-		public CGLibInterceptor(final Class<?> type, final IProxyTargetLocator locator)
+		public CGLibInterceptor(final Class<?> type, final IProxyTargetLocator locator,
+			final ProxyClass proxyClass)
 		{
 			super();
 			typeName = type.getName();
 			this.locator = locator;
+			this.proxyClass = proxyClass;
 		}
 
 		/**
@@ -284,30 +378,21 @@ public class LazyInitProxyFactory
 		public Object intercept(final Object object, final Method method, final Object[] args,
 			final MethodProxy proxy) throws Throwable
 		{
-			if (isFinalizeMethod(method))
-			{
-				// swallow finalize call
-				return null;
-			}
-			else if (isEqualsMethod(method))
-			{
-				return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
-			}
-			else if (isHashCodeMethod(method))
-			{
-				return hashCode();
-			}
-			else if (isToStringMethod(method))
-			{
-				return toString();
-			}
-			else if (isWriteReplaceMethod(method))
-			{
-				return writeReplace();
-			}
-			else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
+			switch (getDispatch(proxyClass, method))
 			{
-				return getObjectLocator();
+				case FINALIZE :
+					// swallow finalize call
+					return null;
+				case EQUALS :
+					return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
+				case HASH_CODE :
+					return hashCode();
+				case TO_STRING :
+					return toString();
+				case WRITE_REPLACE :
+					return writeReplace();
+				case OBJECT_LOCATOR :
+					return getObjectLocator();
 			}
 
 			if (target == null)
@@ -334,6 +419,25 @@ public class LazyInitProxyFactory
 		}
 	}
 
+	/**
+	 * Callback of the prototypes of cglib proxies, calls the methods of the proxied class itself,
+	 * e.g. while the prototype is constructed.
+	 */
+	private static class PrototypeInterceptor implements MethodInterceptor
+	{
+		private static final PrototypeInterceptor INSTANCE = new PrototypeInterceptor();
+
+		/**
+		 * @see net.sf.cglib.proxy.MethodInterceptor#intercept(java.lang.Object,
+		 *      java.lang.reflect.Method, java.lang.Object[], net.sf.cglib.proxy.MethodProxy)
+		 */
+		public Object intercept(final Object object, final Method method, final Object[] args,
+			final MethodProxy proxy) throws Throwable
+		{
+			return proxy.invokeSuper(object, args);
+		}
+	}
+
 	/**
 	 * Invocation handler for proxies representing interface based object. For interface backed
 	 * objects dynamic jdk proxies are used.
@@ -356,6 +460,8 @@ public class LazyInitProxyFactory
 
 		private transient Object target;
 
+		private transient JdkProxyClass proxyClass;
+
 		/**
 		 * Constructor
 		 * 
@@ -364,12 +470,16 @@ public class LazyInitProxyFactory
 		 * 
 		 * @param locator
 		 *            object locator used to locate the object this proxy represents
+		 * @param proxyClass
+		 *            the proxy class
 		 */
-		public JdkHandler(final Class<?> type, final IProxyTargetLocator locator)
+		public JdkHandler(final Class<?> type, final IProxyTargetLocator locator,
+			final JdkProxyClass proxyClass)
 		{
 			super();
 			this.locator = locator;
 			typeName = type.getName();
+			this.proxyClass = proxyClass;
 		}
 
 		/**
@@ -379,39 +489,35 @@ public class LazyInitProxyFactory
 		public Object invoke(final Object proxy, final Method method, final Object[] args)
 			throws Throwable
 		{
-			if (isFinalizeMethod(method))
-			{
-				// swallow finalize call
-				return null;
-			}
-			else if (isEqualsMethod(method))
-			{
-				return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
-			}
-			else if (isHashCodeMethod(method))
-			{
-				return hashCode();
-			}
-			else if (isToStringMethod(method))
+			final int dispatch = getDispatch(proxyClass, method);
+			switch (dispatch)
 			{
-				return toString();
-			}
-			else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
-			{
-				return getObjectLocator();
-			}
-			else if (isWriteReplaceMethod(method))
-			{
-				return writeReplace();
+				case FINALIZE :
+					// swallow finalize call
+					return null;
+				case EQUALS :
+					return (equals(args[0])) ? Boolean.TRUE : Boolean.FALSE;
+				case HASH_CODE :
+					return hashCode();
+				case TO_STRING :
+					return toString();
+				case WRITE_REPLACE :
+					return writeReplace();
+				case OBJECT_LOCATOR :
+					return getObjectLocator();
 			}
 
 			if (target == null)
 			{
-
 				target = locator.locateProxyTarget();
 			}
 			try
 			{
+				if (dispatch >= 0)
+				{
+					// generated invocation of the interface method
+					return proxyClass.fastClass.invoke(dispatch, target, args);
+				}
 				return method.invoke(target, args);
 			}
 			catch (InvocationTargetException e)
@@ -437,6 +543,190 @@ public class LazyInitProxyFactory
 		}
 	}
 
+	/**
+	 * Gets how a method invoked on a proxy is dispatched.
+	 * 
+	 * @param proxyClass
+	 *            the proxy class, may be <code>null</code> after a handler was deserialized
+	 * @param method
+	 * @return dispatch
+	 */
+	private static int getDispatch(final ProxyClass proxyClass, final Method method)
+	{
+		if (proxyClass == null)
+		{
+			return getObjectDispatch(method);
+		}
+
+		Integer dispatch = proxyClass.dispatches.get(method);
+		if (dispatch == null)
+		{
+			dispatch = proxyClass.getDispatch(method);
+			proxyClass.dispatches.put(method, dispatch);
+		}
+		return dispatch;
+	}
+
+	/**
+	 * @param method
+	 * @return the dispatch of a method handled by the proxy itself or {@link #INVOKE}
+	 */
+	private static int getObjectDispatch(final Method method)
+	{
+		if (isFinalizeMethod(method))
+		{
+			return FINALIZE;
+		}
+		else if (isEqualsMethod(method))
+		{
+			return EQUALS;
+		}
+		else if (isHashCodeMethod(method))
+		{
+			return HASH_CODE;
+		}
+		else if (isToStringMethod(method))
+		{
+			return TO_STRING;
+		}
+		else if (isWriteReplaceMethod(method))
+		{
+			return WRITE_REPLACE;
+		}
+		else if (method.getDeclaringClass().equals(ILazyInitProxy.class))
+		{
+			return OBJECT_LOCATOR;
+		}
+		return INVOKE;
+	}
+
+	/**
+	 * A generated proxy class along with the dispatch of its methods.
+	 */
+	private static class ProxyClass
+	{
+		/** dispatch of the methods invoked so far */
+		private final ConcurrentMap<Method, Integer> dispatches = new ConcurrentHashMap<Method, Integer>();
+
+		/**
+		 * @param method
+		 * @return the dispatch of the method
+		 */
+		int getDispatch(final Method method)
+		{
+			return getObjectDispatch(method);
+		}
+	}
+
+	/**
+	 * A cglib proxy class of a concrete class.
+	 */
+	private static class CGLibProxyClass extends ProxyClass
+	{
+		/** a proxy of the class used to instantiate the proxies */
+		private volatile Factory prototype;
+	}
+
+	/**
+	 * A jdk dynamic proxy class of an interface, defined by the class loader of the interface. The
+	 * methods of the interface are invoked on the target through a generated {@link FastClass}
+	 * instead of reflection.
+	 */
+	private static class JdkProxyClass extends ProxyClass
+	{
+		private final FastClass fastClass;
+
+		private volatile Constructor<?> constructor;
+
+		private JdkProxyClass(final Class<?> type)
+		{
+			FastClass fastClass;
+			try
+			{
+				fastClass = FastClass.create(type);
+			}
+			catch (CodeGenerationException e)
+			{
+				// e.g. an interface not accessible from its package, fall back to reflection
+				fastClass = null;
+			}
+			this.fastClass = fastClass;
+		}
+
+		/**
+		 * Sets the generated proxy class.
+		 * 
+		 * @param proxyClass
+		 */
+		void setProxyClass(final Class<?> proxyClass)
+		{
+			try
+			{
+				constructor = proxyClass.getConstructor(InvocationHandler.class);
+				constructor.setAccessible(true);
+			}
+			catch (Exception e)
+			{
+				// instantiate through Proxy
+				constructor = null;
+			}
+		}
+
+		/**
+		 * Creates a new proxy.
+		 * 
+		 * @param type
+		 * @param handler
+		 * @return proxy
+		 */
+		Object newInstance(final Class<?> type, final JdkHandler handler)
+		{
+			final Constructor<?> constructor = this.constructor;
+			if (constructor != null)
+			{
+				try
+				{
+					return constructor.newInstance(handler);
+				}
+				catch (InvocationTargetException e)
+				{
+					throw new WicketRuntimeException(e.getTargetException());
+				}
+				catch (Exception e)
+				{
+					throw new WicketRuntimeException(e);
+				}
+			}
+
+			final Class<?>[] interfaces = { type, Serializable.class,
+					ILazyInitProxy.class, IWriteReplace.class };
+			try
+			{
+				return Proxy.newProxyInstance(type.getClassLoader(), interfaces, handler);
+			}
+			catch (IllegalArgumentException e)
+			{
+				return Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
+					interfaces, handler);
+			}
+		}
+
+		@Override
+		int getDispatch(final Method method)
+		{
+			int dispatch = super.getDispatch(method);
+			if ((dispatch == INVOKE) && (fastClass != null))
+			{
+				int index = fastClass.getIndex(method.getName(), method.getParameterTypes());
+				if (index >= 0)
+				{
+					dispatch = index;
+				}
+			}
+			return dispatch;
+		}
+	}
+
 	/**
 	 * Checks if the method is derived from Object.equals()
 	 * 
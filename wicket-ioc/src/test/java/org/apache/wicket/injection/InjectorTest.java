@@ -75,5 +75,50 @@ public class InjectorTest extends Assert
 		assertEquals(testObject.getDependency4().getMessage(), "inject");
 	}
 
+	/**
+	 * Tests that the sources of the field values are resolved once per class
+	 */
+	@Test
+	public void sourcesResolvedOncePerClass()
+	{
+		final int[] resolved = { 0 };
+		IFieldValueSourceFactory sourceFactory = new IFieldValueSourceFactory()
+		{
+			public IFieldValueSource newFieldValueSource(final Field field)
+			{
+				resolved[0]++;
+				return new IFieldValueSource()
+				{
+					public Object getFieldValue(final Object fieldOwner)
+					{
+						return dependency;
+					}
+				};
+			}
+
+			public Object getFieldValue(final Field field, final Object fieldOwner)
+			{
+				throw new UnsupportedOperationException();
+			}
+
+			public boolean supportsField(final Field field)
+			{
+				return field.getType() == MockDependency.class;
+			}
+		};
+
+		TestInjector injector = new TestInjector();
+		TestObject first = new TestObject();
+		injector.inject(first, sourceFactory);
+		int fields = resolved[0];
+		assertTrue(fields > 0);
+
+		TestObject second = new TestObject();
+		injector.inject(second, sourceFactory);
+		assertEquals(fields, resolved[0]);
+		assertSame(dependency, second.getDependency1());
+		assertSame(dependency, second.getDependency4());
+		assertEquals("dont-inject", second.getDependency2().getMessage());
+	}
 
 }
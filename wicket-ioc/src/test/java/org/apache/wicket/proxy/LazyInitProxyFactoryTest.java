@@ -16,6 +16,7 @@
  */
 package org.apache.wicket.proxy;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Proxy;
 
 import org.apache.wicket.proxy.LazyInitProxyFactory.ProxyReplacement;
@@ -163,6 +164,111 @@ public class LazyInitProxyFactoryTest extends Assert
 		assertTrue(tester.isValid());
 	}
 
+	/**
+	 * Tests that proxies of a type share their class but not their targets
+	 */
+	@Test
+	public void proxyClassesShared()
+	{
+		IInterface interfaceProxy = (IInterface)LazyInitProxyFactory.createProxy(
+			IInterface.class, interfaceObjectLocator);
+		IInterface interfaceProxy2 = (IInterface)LazyInitProxyFactory.createProxy(
+			IInterface.class, new MessageLocator("other interface", false));
+		assertSame(interfaceProxy.getClass(), interfaceProxy2.getClass());
+		assertEquals("interface", interfaceProxy.getMessage());
+		assertEquals("other interface", interfaceProxy2.getMessage());
+
+		ConcreteObject concreteProxy = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			ConcreteObject.class, concreteObjectLocator);
+		ConcreteObject concreteProxy2 = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			ConcreteObject.class, new MessageLocator("other concrete", true));
+		assertSame(concreteProxy.getClass(), concreteProxy2.getClass());
+		assertEquals("concrete", concreteProxy.getMessage());
+		assertEquals("other concrete", concreteProxy2.getMessage());
+		assertSame(concreteObjectLocator, ((ILazyInitProxy)concreteProxy).getObjectLocator());
+	}
+
+	/**
+	 * Tests that the proxy classes kept for further proxies don't keep the locator of the first
+	 * proxy in memory
+	 */
+	@Test
+	public void locatorNotKeptByPrototype()
+	{
+		IProxyTargetLocator locator = new PrototypeLocator("located");
+		ConcreteObject proxy = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			PrototypeObject.class, locator);
+		assertEquals("located", proxy.getMessage());
+
+		WeakReference<IProxyTargetLocator> reference = new WeakReference<IProxyTargetLocator>(
+			locator);
+		locator = null;
+		proxy = null;
+		for (int i = 0; (i < 10) && (reference.get() != null); i++)
+		{
+			System.gc();
+		}
+		assertNull(reference.get());
+
+		ConcreteObject proxy2 = (ConcreteObject)LazyInitProxyFactory.createProxy(
+			PrototypeObject.class, new PrototypeLocator("other"));
+		assertEquals("other", proxy2.getMessage());
+	}
+
+	/**
+	 * Tests proxies of interfaces of the system class loader, which aren't cached
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void systemInterface()
+	{
+		Comparable<String> proxy = (Comparable<String>)LazyInitProxyFactory.createProxy(
+			Comparable.class, new IProxyTargetLocator()
+			{
+				private static final long serialVersionUID = 1L;
+
+				public Object locateProxyTarget()
+				{
+					return "b";
+				}
+			});
+		assertEquals(1, proxy.compareTo("a"));
+	}
+
+	/**
+	 * Tests that exceptions of the target are thrown by the proxy
+	 */
+	@Test
+	public void targetExceptionThrown()
+	{
+		IInterface proxy = (IInterface)LazyInitProxyFactory.createProxy(IInterface.class,
+			new IProxyTargetLocator()
+			{
+				private static final long serialVersionUID = 1L;
+
+				public Object locateProxyTarget()
+				{
+					return new IInterface()
+					{
+						public String getMessage()
+						{
+							throw new IllegalStateException("target");
+						}
+					};
+				}
+			});
+
+		try
+		{
+			proxy.getMessage();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("target", e.getMessage());
+		}
+	}
+
 	/**
 	 * Tests lazy init concrete replacement replacement
 	 */
@@ -188,4 +294,64 @@ public class LazyInitProxyFactoryTest extends Assert
 		String proxy = (String)LazyInitProxyFactory.createProxy(String.class, stringObjectLocator);
 		assertEquals("StringLiteral", proxy);
 	}
+
+	/**
+	 * A class proxied by one test only
+	 */
+	public static class PrototypeObject extends ConcreteObject
+	{
+		/**
+		 * Construct.
+		 */
+		public PrototypeObject()
+		{
+		}
+
+		/**
+		 * Construct.
+		 * 
+		 * @param message
+		 */
+		public PrototypeObject(final String message)
+		{
+			super(message);
+		}
+	}
+
+	private static class PrototypeLocator implements IProxyTargetLocator
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String message;
+
+		private PrototypeLocator(final String message)
+		{
+			this.message = message;
+		}
+
+		public Object locateProxyTarget()
+		{
+			return new PrototypeObject(message);
+		}
+	}
+
+	private static class MessageLocator implements IProxyTargetLocator
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String message;
+
+		private final boolean concrete;
+
+		private MessageLocator(final String message, final boolean concrete)
+		{
+			this.message = message;
+			this.concrete = concrete;
+		}
+
+		public Object locateProxyTarget()
+		{
+			return concrete ? new ConcreteObject(message) : new InterfaceObject(message);
+		}
+	}
 }
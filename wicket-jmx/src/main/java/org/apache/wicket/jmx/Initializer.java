@@ -178,6 +178,8 @@ public class Initializer implements IInitializer
 				":type=Application,name=DebugSettings"));
 			register(new MarkupSettings(application), new ObjectName(domain +
 				":type=Application,name=MarkupSettings"));
+			register(new MarkupCache(application), new ObjectName(domain +
+				":type=Application,name=MarkupCache"));
 			register(new ResourceSettings(application), new ObjectName(domain +
 				":type=Application,name=ResourceSettings"));
 			register(new PageSettings(application), new ObjectName(domain +
@@ -191,6 +193,9 @@ public class Initializer implements IInitializer
 			register(new StoreSettings(application), new ObjectName(domain +
 				":type=Application,name=StoreSettings"));
 
+			register(new RenderProfiler(application), new ObjectName(domain +
+				":type=RenderProfiler"));
+
 			RequestLogger sessionsBean = new RequestLogger(application);
 			ObjectName sessionsBeanName = new ObjectName(domain + ":type=RequestLogger");
 			register(sessionsBean, sessionsBeanName);
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.markup.BoundedCacheImplementation;
+import org.apache.wicket.markup.IMarkupCache;
+
+/**
+ * Exposes the markup cache for JMX.
+ */
+public class MarkupCache implements MarkupCacheMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Create.
+	 * 
+	 * @param application
+	 */
+	public MarkupCache(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	/**
+	 * @return the markup cache of the application, may be <code>null</code> if caching is
+	 *         disabled
+	 */
+	private IMarkupCache getMarkupCache()
+	{
+		return application.getMarkupSettings().getMarkupFactory().getMarkupCache();
+	}
+
+	/**
+	 * @return the bounded cache implementation or <code>null</code>
+	 */
+	private BoundedCacheImplementation getBoundedCache()
+	{
+		IMarkupCache markupCache = getMarkupCache();
+		if (markupCache instanceof org.apache.wicket.markup.MarkupCache)
+		{
+			Object cache = ((org.apache.wicket.markup.MarkupCache)markupCache).getMarkupCache();
+			if (cache instanceof BoundedCacheImplementation)
+			{
+				return (BoundedCacheImplementation)cache;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getSize()
+	 */
+	public int getSize()
+	{
+		IMarkupCache markupCache = getMarkupCache();
+		return markupCache != null ? markupCache.size() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getWeight()
+	 */
+	public Long getWeight()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getWeight() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getMaximumWeight()
+	 */
+	public Long getMaximumWeight()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getMaximumWeight() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#setMaximumWeight(long)
+	 */
+	public void setMaximumWeight(final long maximumWeight)
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		if (cache != null)
+		{
+			cache.setMaximumWeight(maximumWeight);
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getHits()
+	 */
+	public Long getHits()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getHits() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getMisses()
+	 */
+	public Long getMisses()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getMisses() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getHitRatio()
+	 */
+	public Double getHitRatio()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		if (cache == null)
+		{
+			return null;
+		}
+		long hits = cache.getHits();
+		long lookups = hits + cache.getMisses();
+		return lookups > 0 ? (double)hits / lookups : 0d;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getEvictions()
+	 */
+	public Long getEvictions()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getEvictions() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getLoads()
+	 */
+	public Long getLoads()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		return cache != null ? cache.getLoads() : null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#getAverageLoadTime()
+	 */
+	public Double getAverageLoadTime()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		if (cache == null)
+		{
+			return null;
+		}
+		long loads = cache.getLoads();
+		return loads > 0 ? cache.getLoadTime(TimeUnit.MICROSECONDS) / 1000d / loads : 0d;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#resetStatistics()
+	 */
+	public void resetStatistics()
+	{
+		BoundedCacheImplementation cache = getBoundedCache();
+		if (cache != null)
+		{
+			cache.resetStatistics();
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.MarkupCacheMBean#clear()
+	 */
+	public void clear()
+	{
+		IMarkupCache markupCache = getMarkupCache();
+		if (markupCache != null)
+		{
+			markupCache.clear();
+		}
+	}
+}
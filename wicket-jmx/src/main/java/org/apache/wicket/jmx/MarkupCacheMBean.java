@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import org.apache.wicket.markup.BoundedCacheImplementation;
+
+/**
+ * Markup cache. The statistics are available only if the cache is a
+ * {@link BoundedCacheImplementation}, otherwise they are <code>null</code>.
+ */
+public interface MarkupCacheMBean
+{
+	/**
+	 * @return the number of markup in the cache
+	 */
+	int getSize();
+
+	/**
+	 * @return the number of characters of all markup in the cache
+	 */
+	Long getWeight();
+
+	/**
+	 * @return the maximum number of characters of all markup in the cache
+	 */
+	Long getMaximumWeight();
+
+	/**
+	 * Sets the maximum number of characters of all markup in the cache, evicting markup if it's
+	 * exceeded.
+	 * 
+	 * @param maximumWeight
+	 */
+	void setMaximumWeight(long maximumWeight);
+
+	/**
+	 * @return the number of times markup was found in the cache
+	 */
+	Long getHits();
+
+	/**
+	 * @return the number of times markup was not found in the cache
+	 */
+	Long getMisses();
+
+	/**
+	 * @return the ratio of hits to all lookups, between 0 and 1
+	 */
+	Double getHitRatio();
+
+	/**
+	 * @return the number of markup evicted because of the maximum weight
+	 */
+	Long getEvictions();
+
+	/**
+	 * @return the number of markup loaded after a miss
+	 */
+	Long getLoads();
+
+	/**
+	 * @return the average time in milliseconds it took to load markup after a miss
+	 */
+	Double getAverageLoadTime();
+
+	/**
+	 * Resets the statistics.
+	 */
+	void resetStatistics();
+
+	/**
+	 * Clears the markup cache.
+	 */
+	void clear();
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.application.RenderProfiler.Histogram;
+import org.apache.wicket.application.RenderProfiler.Phase;
+
+/**
+ * Exposes the {@link org.apache.wicket.application.RenderProfiler} for JMX.
+ */
+public class RenderProfiler implements RenderProfilerMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Create.
+	 * 
+	 * @param application
+	 */
+	public RenderProfiler(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	private org.apache.wicket.application.RenderProfiler getProfiler()
+	{
+		return org.apache.wicket.application.RenderProfiler.get(application);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#isInstalled()
+	 */
+	public boolean isInstalled()
+	{
+		return getProfiler() != null;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#getSampleRate()
+	 */
+	public int getSampleRate()
+	{
+		org.apache.wicket.application.RenderProfiler profiler = getProfiler();
+		return profiler != null ? profiler.getSampleRate() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#setSampleRate(int)
+	 */
+	public void setSampleRate(final int sampleRate)
+	{
+		org.apache.wicket.application.RenderProfiler profiler = getProfiler();
+		if (profiler != null)
+		{
+			profiler.setSampleRate(sampleRate);
+		}
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#getProfiledRequests()
+	 */
+	public long getProfiledRequests()
+	{
+		org.apache.wicket.application.RenderProfiler profiler = getProfiler();
+		return profiler != null ? profiler.getProfiledRequests() : 0;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#getBeforeRenderStatistics()
+	 */
+	public String[] getBeforeRenderStatistics()
+	{
+		return getStatistics(Phase.BEFORE_RENDER);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#getRenderStatistics()
+	 */
+	public String[] getRenderStatistics()
+	{
+		return getStatistics(Phase.RENDER);
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.RenderProfilerMBean#reset()
+	 */
+	public void reset()
+	{
+		org.apache.wicket.application.RenderProfiler profiler = getProfiler();
+		if (profiler != null)
+		{
+			profiler.reset();
+		}
+	}
+
+	private String[] getStatistics(final Phase phase)
+	{
+		org.apache.wicket.application.RenderProfiler profiler = getProfiler();
+		if (profiler == null)
+		{
+			return new String[0];
+		}
+
+		List<Map.Entry<Class<?>, Histogram>> histograms = profiler.getSortedHistograms(phase);
+		String[] statistics = new String[histograms.size()];
+		for (int i = 0; i < statistics.length; i++)
+		{
+			Map.Entry<Class<?>, Histogram> entry = histograms.get(i);
+			statistics[i] = entry.getKey().getName() + ": " + entry.getValue();
+		}
+		return statistics;
+	}
+}
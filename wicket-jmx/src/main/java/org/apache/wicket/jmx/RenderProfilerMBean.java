@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+/**
+ * Render profiler, available if a {@link org.apache.wicket.application.RenderProfiler} is
+ * installed with the application.
+ */
+public interface RenderProfilerMBean
+{
+	/**
+	 * @return <code>true</code> if a render profiler is installed
+	 */
+	boolean isInstalled();
+
+	/**
+	 * @return every how many requests one is profiled
+	 */
+	int getSampleRate();
+
+	/**
+	 * Sets every how many requests one is profiled.
+	 * 
+	 * @param sampleRate
+	 *            <code>1</code> to profile all requests, <code>0</code> to profile none
+	 */
+	void setSampleRate(int sampleRate);
+
+	/**
+	 * @return the number of profiled requests
+	 */
+	long getProfiledRequests();
+
+	/**
+	 * @return the statistics of {@link org.apache.wicket.Component#onBeforeRender()} per component
+	 *         class, the one with the largest total time first
+	 */
+	String[] getBeforeRenderStatistics();
+
+	/**
+	 * @return the statistics of {@link org.apache.wicket.Component#onRender()} per component class,
+	 *         the one with the largest total time first
+	 */
+	String[] getRenderStatistics();
+
+	/**
+	 * Discards all collected statistics.
+	 */
+	void reset();
+}
@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.nio2.watch;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Generics;
+import org.apache.wicket.util.listener.IChangeListener;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.IFixedLocationResourceStream;
+import org.apache.wicket.util.thread.ICode;
+import org.apache.wicket.util.thread.Task;
+import org.apache.wicket.util.time.Duration;
+import org.apache.wicket.util.watch.IModifiable;
+import org.apache.wicket.util.watch.IModificationWatcher;
+import org.apache.wicket.util.watch.ModificationWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * An {@link IModificationWatcher} that is notified by the file system about changes of local files
+ * instead of asking every watched <code>IModifiable</code> for its modification time.
+ * <p>
+ * The parent folder of each watched file is registered with a {@link WatchService}. Change events
+ * are collected and debounced, i.e. the listeners of a file are notified once no further event has
+ * been received for that file during the debounce delay. That way several events caused by a
+ * single save in an editor end up in a single notification.
+ * <p>
+ * <code>IModifiable</code>s that don't resolve to a local file (e.g. resources inside jars) are
+ * polled at the given poll frequency just like {@link ModificationWatcher} does.
+ * <p>
+ * Note: this class requires Java 7 or newer, that's why it lives in its own module. Register it
+ * with <code>IResourceSettings#setResourceWatcher(IModificationWatcher)</code>.
+ *
+ * @since 6.0
+ */
+public class Nio2ModificationWatcher extends ModificationWatcher
+{
+	/** logger */
+	private static final Logger log = LoggerFactory.getLogger(Nio2ModificationWatcher.class);
+
+	/** the default delay to wait for further events before listeners are notified */
+	public static final Duration DEFAULT_DEBOUNCE_DELAY = Duration.milliseconds(100);
+
+	/** the file system's watch service */
+	private final WatchService watchService;
+
+	/** the delay to wait for further events before listeners are notified */
+	private final Duration debounceDelay;
+
+	/** maps registered folders to their watch keys */
+	private final ConcurrentMap<Path, WatchKey> folderToKey = Generics.newConcurrentHashMap();
+
+	/** maps watched files to the <code>IModifiable</code>s backed by them */
+	private final ConcurrentMap<Path, Set<IModifiable>> fileToModifiables =
+		Generics.newConcurrentHashMap();
+
+	/** maps <code>IModifiable</code>s watched through the file system to their files */
+	private final ConcurrentMap<IModifiable, Path> modifiableToFile = Generics.newConcurrentHashMap();
+
+	/**
+	 * files with pending changes mapped to the time of their latest event. Accessed by the event
+	 * task only.
+	 */
+	private final Map<Path, Long> pendingChanges = Generics.newHashMap();
+
+	/** the <code>Task</code> processing the events of the watch service */
+	private Task eventTask;
+
+	/**
+	 * Constructor for two-phase construction.
+	 */
+	public Nio2ModificationWatcher()
+	{
+		this(DEFAULT_DEBOUNCE_DELAY);
+	}
+
+	/**
+	 * Constructor for two-phase construction.
+	 *
+	 * @param debounceDelay
+	 *            the delay to wait for further events of a file before its listeners are notified
+	 */
+	public Nio2ModificationWatcher(final Duration debounceDelay)
+	{
+		this.debounceDelay = Args.notNull(debounceDelay, "debounceDelay");
+
+		try
+		{
+			watchService = FileSystems.getDefault().newWatchService();
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to create a watch service", e);
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pollFrequency
+	 *            how often to check on <code>IModifiable</code>s which are not local files
+	 * @param debounceDelay
+	 *            the delay to wait for further events of a file before its listeners are notified
+	 */
+	public Nio2ModificationWatcher(final Duration pollFrequency, final Duration debounceDelay)
+	{
+		this(debounceDelay);
+
+		start(pollFrequency);
+	}
+
+	@Override
+	public boolean add(final IModifiable modifiable, final IChangeListener listener)
+	{
+		final boolean result = super.add(modifiable, listener);
+
+		// only watch modifiables which are accepted by the polling watcher too
+		if ((getEntry(modifiable) != null) && (modifiableToFile.containsKey(modifiable) == false))
+		{
+			final Path file = getFile(modifiable);
+			if ((file != null) && (file.getParent() != null) && watchFolder(file.getParent()))
+			{
+				Set<IModifiable> modifiables = fileToModifiables.get(file);
+				if (modifiables == null)
+				{
+					Set<IModifiable> newModifiables = Collections.newSetFromMap(
+						Generics.<IModifiable, Boolean> newConcurrentHashMap());
+					modifiables = fileToModifiables.putIfAbsent(file, newModifiables);
+					if (modifiables == null)
+					{
+						modifiables = newModifiables;
+					}
+				}
+				modifiables.add(modifiable);
+				modifiableToFile.put(modifiable, file);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public IModifiable remove(final IModifiable modifiable)
+	{
+		final Path file = modifiableToFile.remove(modifiable);
+		if (file != null)
+		{
+			final Set<IModifiable> modifiables = fileToModifiables.get(file);
+			if (modifiables != null)
+			{
+				modifiables.remove(modifiable);
+			}
+		}
+		return super.remove(modifiable);
+	}
+
+	@Override
+	public void start(final Duration pollFrequency)
+	{
+		super.start(pollFrequency);
+
+		eventTask = new Task("Nio2ModificationWatcher");
+		eventTask.run(debounceDelay, new ICode()
+		{
+			@Override
+			public void run(final Logger log)
+			{
+				processEvents();
+			}
+		});
+	}
+
+	@Override
+	public void destroy()
+	{
+		super.destroy();
+
+		if (eventTask != null)
+		{
+			eventTask.interrupt();
+		}
+
+		try
+		{
+			watchService.close();
+		}
+		catch (IOException e)
+		{
+			log.debug("Unable to close the watch service", e);
+		}
+	}
+
+	/**
+	 * Polls only the entries which are not watched through the file system.
+	 */
+	@Override
+	protected void checkModified(final Entry entry)
+	{
+		if (modifiableToFile.containsKey(entry.modifiable) == false)
+		{
+			super.checkModified(entry);
+		}
+	}
+
+	/**
+	 * Collects the events of the watch service and notifies the listeners of all files which did
+	 * not change for at least the debounce delay.
+	 */
+	protected void processEvents()
+	{
+		final long now = System.currentTimeMillis();
+
+		try
+		{
+			WatchKey key;
+			while ((key = watchService.poll()) != null)
+			{
+				collectEvents(key, now);
+			}
+		}
+		catch (ClosedWatchServiceException e)
+		{
+			return;
+		}
+
+		notifyPendingChanges(now);
+	}
+
+	/**
+	 * Registers a pending change of a watched file.
+	 *
+	 * @param file
+	 *            the changed file
+	 * @param time
+	 *            the time of the change in milliseconds
+	 */
+	final void changed(final Path file, final long time)
+	{
+		if (fileToModifiables.containsKey(file))
+		{
+			pendingChanges.put(file, time);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of all files which did not change for at least the debounce delay.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 */
+	final void notifyPendingChanges(final long now)
+	{
+		final long threshold = now - debounceDelay.getMilliseconds();
+		Iterator<Map.Entry<Path, Long>> pending = pendingChanges.entrySet().iterator();
+		while (pending.hasNext())
+		{
+			Map.Entry<Path, Long> change = pending.next();
+			if (change.getValue() <= threshold)
+			{
+				pending.remove();
+				notifyChanged(change.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Registers the changed files reported by a watch key as pending changes.
+	 *
+	 * @param key
+	 *            the signalled key
+	 * @param now
+	 *            the current time in milliseconds
+	 */
+	private void collectEvents(final WatchKey key, final long now)
+	{
+		final Path folder = (Path)key.watchable();
+
+		for (WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+			{
+				// events got lost - consider all files in this folder as changed
+				for (Path file : fileToModifiables.keySet())
+				{
+					if (folder.equals(file.getParent()))
+					{
+						changed(file, now);
+					}
+				}
+			}
+			else
+			{
+				changed(folder.resolve((Path)event.context()), now);
+			}
+		}
+
+		if (key.reset() == false)
+		{
+			// the folder is not accessible anymore
+			folderToKey.remove(folder);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of all <code>IModifiable</code>s backed by a changed file.
+	 *
+	 * @param file
+	 *            the changed file
+	 */
+	private void notifyChanged(final Path file)
+	{
+		final Set<IModifiable> modifiables = fileToModifiables.get(file);
+		if (modifiables == null)
+		{
+			return;
+		}
+
+		for (IModifiable modifiable : modifiables)
+		{
+			final Entry entry = getEntry(modifiable);
+			if (entry != null)
+			{
+				// compare the modification time to filter out spurious events
+				super.checkModified(entry);
+			}
+		}
+	}
+
+	/**
+	 * Registers a folder with the watch service.
+	 *
+	 * @param folder
+	 *            the folder to watch
+	 * @return <code>true</code> if the folder is being watched
+	 */
+	private boolean watchFolder(final Path folder)
+	{
+		if (folderToKey.containsKey(folder))
+		{
+			return true;
+		}
+
+		try
+		{
+			final WatchKey key = folder.register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+			folderToKey.putIfAbsent(folder, key);
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.info("Cannot watch folder '{}', falling back to polling: {}", folder,
+				e.getMessage());
+		}
+		catch (ClosedWatchServiceException e)
+		{
+			log.debug("The watch service is already closed");
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves the local file an <code>IModifiable</code> is backed by. Resources which are not
+	 * local files (e.g. located inside a jar) yield <code>null</code> and will be polled.
+	 *
+	 * @param modifiable
+	 *            the watched object
+	 * @return the absolute path of the file, or <code>null</code> if there is none
+	 */
+	protected Path getFile(final IModifiable modifiable)
+	{
+		java.io.File file = null;
+
+		if (modifiable instanceof java.io.File)
+		{
+			file = (java.io.File)modifiable;
+		}
+		else if (modifiable instanceof FileResourceStream)
+		{
+			file = ((FileResourceStream)modifiable).getFile();
+		}
+		else if (modifiable instanceof IFixedLocationResourceStream)
+		{
+			final String location = ((IFixedLocationResourceStream)modifiable).locationAsString();
+			if ((location != null) && location.startsWith("file:"))
+			{
+				try
+				{
+					file = Files.getLocalFileFromUrl(URLDecoder.decode(location, "UTF-8"));
+				}
+				catch (UnsupportedEncodingException e)
+				{
+					return null;
+				}
+			}
+		}
+
+		if ((file == null) || (file.isFile() == false))
+		{
+			return null;
+		}
+		return file.toPath().toAbsolutePath().normalize();
+	}
+}
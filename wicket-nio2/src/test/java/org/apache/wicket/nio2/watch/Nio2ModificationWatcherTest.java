@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.nio2.watch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.util.file.File;
+import org.apache.wicket.util.listener.IChangeListener;
+import org.apache.wicket.util.time.Duration;
+import org.apache.wicket.util.time.Time;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Nio2ModificationWatcher}. The watcher is not started, the events are fed in
+ * directly so that the tests don't depend on the timing of the file system's watch service.
+ */
+public class Nio2ModificationWatcherTest extends Assert
+{
+	private Nio2ModificationWatcher watcher;
+
+	private File file;
+
+	private Path path;
+
+	private final AtomicInteger changes = new AtomicInteger();
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void before() throws IOException
+	{
+		file = new File(java.io.File.createTempFile("wicket-test--", ".tmp"));
+		watcher = new Nio2ModificationWatcher(Duration.milliseconds(50));
+		watcher.add(file, new IChangeListener()
+		{
+			@Override
+			public void onChange()
+			{
+				changes.incrementAndGet();
+			}
+		});
+		path = watcher.getFile(file);
+
+		file.setLastModified(Time.now().getMilliseconds() + 10000);
+	}
+
+	/**
+	 */
+	@After
+	public void after()
+	{
+		watcher.destroy();
+		file.delete();
+	}
+
+	/**
+	 * A change of a local file is reported once the debounce delay has passed.
+	 */
+	@Test
+	public void notifiesChangedFile()
+	{
+		assertNotNull(path);
+
+		watcher.changed(path, 1000);
+		watcher.notifyPendingChanges(1010);
+		assertEquals(0, changes.get());
+
+		watcher.notifyPendingChanges(1050);
+		assertEquals(1, changes.get());
+
+		watcher.notifyPendingChanges(2000);
+		assertEquals(1, changes.get());
+	}
+
+	/**
+	 * Several events within the debounce delay result in a single notification.
+	 */
+	@Test
+	public void debouncesEvents()
+	{
+		watcher.changed(path, 1000);
+		watcher.changed(path, 1040);
+		watcher.notifyPendingChanges(1060);
+		assertEquals(0, changes.get());
+
+		watcher.notifyPendingChanges(1090);
+		assertEquals(1, changes.get());
+	}
+
+	/**
+	 * Removed modifiables are no longer reported.
+	 */
+	@Test
+	public void removedFileIsNotNotified()
+	{
+		assertSame(file, watcher.remove(file));
+		assertTrue(watcher.getEntries().isEmpty());
+
+		watcher.changed(path, 1000);
+		watcher.notifyPendingChanges(2000);
+
+		assertEquals(0, changes.get());
+	}
+}
@@ -63,9 +63,26 @@ public final class Url implements Serializable
 
 	private static final String DEFAULT_CHARSET_NAME = "UTF-8";
 
-	private final List<String> segments;
+	/** the charset of urls created without one */
+	static final Charset DEFAULT_CHARSET = Charset.forName(DEFAULT_CHARSET_NAME);
 
-	private final List<QueryParameter> parameters;
+	/** the decoded segments, <code>null</code> until the {@link #encodedPath} is decoded */
+	private volatile List<String> segments;
+
+	/** the decoded parameters, <code>null</code> until the {@link #encodedQuery} is decoded */
+	private volatile List<QueryParameter> parameters;
+
+	/**
+	 * the path of a parsed url, decoded into {@link #segments} on first access. Kept after decoding
+	 * so that concurrent readers never see it cleared.
+	 */
+	private String encodedPath;
+
+	/**
+	 * the query string of a parsed url, decoded into {@link #parameters} on first access. Kept
+	 * after decoding so that concurrent readers never see it cleared.
+	 */
+	private String encodedQuery;
 
 	private String charsetName;
 	private transient Charset _charset;
@@ -124,8 +141,22 @@ public final class Url implements Serializable
 		this.protocol = url.protocol;
 		this.host = url.host;
 		this.port = url.port;
-		this.segments = new ArrayList<String>(url.segments);
-		this.parameters = new ArrayList<QueryParameter>(url.parameters);
+		if (url.segments == null)
+		{
+			this.encodedPath = url.encodedPath;
+		}
+		else
+		{
+			this.segments = new ArrayList<String>(url.segments);
+		}
+		if (url.parameters == null)
+		{
+			this.encodedQuery = url.encodedQuery;
+		}
+		else
+		{
+			this.parameters = new ArrayList<QueryParameter>(url.parameters);
+		}
 		this.charsetName = url.charsetName;
 		this._charset = url._charset;
 	}
@@ -184,128 +215,119 @@ public final class Url implements Serializable
 
 	/**
 	 * Parses the given URL string.
+	 * <p>
+	 * Only protocol, host and port are extracted immediately, the segments and query parameters
+	 * are decoded on first access. Urls which are just rendered again or only checked for their
+	 * host don't pay for decoding.
 	 * 
 	 * @param url
 	 *            absolute or relative url with query string
 	 * @param charset
 	 * @return Url object
 	 */
-	public static Url parse(String url, Charset charset)
+	public static Url parse(final String url, final Charset charset)
 	{
 		Args.notNull(url, "url");
 
 		final Url result = new Url(charset);
 
-		// the url object resolved the charset, use that
-		charset = result.getCharset();
-
-		// extract query string part
-		final String queryString;
-		final String absoluteUrl;
-
 		final int queryAt = url.indexOf('?');
-
-		if (queryAt == -1)
-		{
-			queryString = "";
-			absoluteUrl = url;
-		}
-		else
-		{
-			absoluteUrl = url.substring(0, queryAt);
-			queryString = url.substring(queryAt + 1);
-		}
-
-		// get absolute / relative part of url
-		String relativeUrl;
+		final int absoluteEnd = (queryAt == -1) ? url.length() : queryAt;
 
 		// absolute urls contain a scheme://
-		final int protocolAt = absoluteUrl.indexOf("://");
+		final int protocolAt = url.indexOf("://");
 
-		if (protocolAt != -1)
+		final String relativeUrl;
+		if ((protocolAt != -1) && (protocolAt < absoluteEnd))
 		{
-			result.protocol = absoluteUrl.substring(0, protocolAt).toLowerCase(Locale.US);
+			result.protocol = url.substring(0, protocolAt).toLowerCase(Locale.US);
 
-			final String afterProto = absoluteUrl.substring(protocolAt + 3);
-			final String hostAndPort;
-
-			final int relativeAt = afterProto.indexOf('/');
-
-			if (relativeAt == -1)
-			{
-				relativeUrl = "";
-				hostAndPort = afterProto;
-			}
-			else
+			final int hostAt = protocolAt + 3;
+			int relativeAt = url.indexOf('/', hostAt);
+			if (relativeAt >= absoluteEnd)
 			{
-				relativeUrl = afterProto.substring(relativeAt);
-				hostAndPort = afterProto.substring(0, relativeAt);
+				relativeAt = -1;
 			}
 
-			final int portAt = hostAndPort.lastIndexOf(':');
+			final int hostEnd = (relativeAt == -1) ? absoluteEnd : relativeAt;
+			final int portAt = url.lastIndexOf(':', hostEnd - 1);
 
-			if (portAt == -1)
+			if (portAt < hostAt)
 			{
-				result.host = hostAndPort;
+				result.host = url.substring(hostAt, hostEnd);
 				result.port = getDefaultPortForProtocol(result.protocol);
 			}
 			else
 			{
-				result.host = hostAndPort.substring(0, portAt);
-				result.port = Integer.parseInt(hostAndPort.substring(portAt + 1));
+				result.host = url.substring(hostAt, portAt);
+				result.port = Integer.parseInt(url.substring(portAt + 1, hostEnd));
 			}
 
-			if (relativeAt < 0)
-			{
-				relativeUrl = "/";
-			}
+			relativeUrl = (relativeAt == -1) ? "/" : url.substring(relativeAt, absoluteEnd);
 		}
 		else
 		{
-			relativeUrl = absoluteUrl;
+			relativeUrl = url.substring(0, absoluteEnd);
 		}
 
-		if (relativeUrl.length() > 0)
-		{
-			boolean removeLast = false;
-			if (relativeUrl.endsWith("/"))
-			{
-				// we need to append something and remove it after splitting
-				// because otherwise the
-				// trailing slashes will be lost
-				relativeUrl += "/x";
-				removeLast = true;
-			}
-
-			String segmentArray[] = Strings.split(relativeUrl, '/');
+		// decoded on first access
+		result.segments = null;
+		result.parameters = null;
+		result.encodedPath = relativeUrl;
+		result.encodedQuery = (queryAt == -1) ? "" : url.substring(queryAt + 1);
 
-			if (removeLast)
-			{
-				segmentArray[segmentArray.length - 1] = null;
-			}
+		return result;
+	}
 
-			for (String s : segmentArray)
+	/**
+	 * Decodes the segments of a path, each slash separates two segments.
+	 * 
+	 * @param path
+	 * @param charset
+	 * @return decoded segments
+	 */
+	private static List<String> decodeSegments(final String path, final Charset charset)
+	{
+		final List<String> segments = new ArrayList<String>();
+		if (path.length() > 0)
+		{
+			int start = 0;
+			int end;
+			while ((end = path.indexOf('/', start)) != -1)
 			{
-				if (s != null)
-				{
-					result.segments.add(decodeSegment(s, charset));
-				}
+				segments.add(decodeSegment(path.substring(start, end), charset));
+				start = end + 1;
 			}
+			segments.add(decodeSegment(path.substring(start), charset));
 		}
+		return segments;
+	}
 
-		if (queryString.length() > 0)
+	/**
+	 * Decodes the parameters of a query string, empty parameters are skipped.
+	 * 
+	 * @param query
+	 * @param charset
+	 * @return decoded query parameters
+	 */
+	private static List<QueryParameter> decodeQuery(final String query, final Charset charset)
+	{
+		final List<QueryParameter> parameters = new ArrayList<QueryParameter>();
+		int start = 0;
+		while (start < query.length())
 		{
-			String queryArray[] = Strings.split(queryString, '&');
-			for (String s : queryArray)
+			int end = query.indexOf('&', start);
+			if (end == -1)
 			{
-				if (Strings.isEmpty(s) == false)
-				{
-					result.parameters.add(parseQueryParameter(s, charset));
-				}
+				end = query.length();
 			}
+			if (end > start)
+			{
+				parameters.add(parseQueryParameter(query.substring(start, end), charset));
+			}
+			start = end + 1;
 		}
-
-		return result;
+		return parameters;
 	}
 
 	/**
@@ -316,15 +338,21 @@ public final class Url implements Serializable
 	 */
 	private static QueryParameter parseQueryParameter(final String qp, final Charset charset)
 	{
-		if (qp.indexOf('=') == -1)
+		final int equalsAt = qp.indexOf('=');
+		if (equalsAt == -1)
 		{
 			// name => empty value
 			return new QueryParameter(decodeParameter(qp, charset), "");
 		}
 
-		String parts[] = Strings.split(qp, '=');
-		return new QueryParameter(decodeParameter(parts[0], charset), decodeParameter(parts[1],
-			charset));
+		// anything after a second '=' is ignored
+		int valueEnd = qp.indexOf('=', equalsAt + 1);
+		if (valueEnd == -1)
+		{
+			valueEnd = qp.length();
+		}
+		return new QueryParameter(decodeParameter(qp.substring(0, equalsAt), charset),
+			decodeParameter(qp.substring(equalsAt + 1, valueEnd), charset));
 	}
 
 	/**
@@ -396,6 +424,20 @@ public final class Url implements Serializable
 	 */
 	public List<String> getSegments()
 	{
+		List<String> segments = this.segments;
+		if (segments == null)
+		{
+			synchronized (this)
+			{
+				segments = this.segments;
+				if (segments == null)
+				{
+					segments = (encodedPath == null) ? new ArrayList<String>() : decodeSegments(
+						encodedPath, getCharset());
+					this.segments = segments;
+				}
+			}
+		}
 		return segments;
 	}
 
@@ -406,6 +448,20 @@ public final class Url implements Serializable
 	 */
 	public List<QueryParameter> getQueryParameters()
 	{
+		List<QueryParameter> parameters = this.parameters;
+		if (parameters == null)
+		{
+			synchronized (this)
+			{
+				parameters = this.parameters;
+				if (parameters == null)
+				{
+					parameters = (encodedQuery == null) ? new ArrayList<QueryParameter>()
+						: decodeQuery(encodedQuery, getCharset());
+					this.parameters = parameters;
+				}
+			}
+		}
 		return parameters;
 	}
 
@@ -444,11 +500,9 @@ public final class Url implements Serializable
 	 */
 	public void removeLeadingSegments(final int count)
 	{
+		final List<String> segments = getSegments();
 		Args.withinRange(0, segments.size(), count, "count");
-		for (int i = 0; i < count; i++)
-		{
-			segments.remove(0);
-		}
+		segments.subList(0, count).clear();
 	}
 
 	/**
@@ -459,7 +513,7 @@ public final class Url implements Serializable
 	public void prependLeadingSegments(final List<String> newSegments)
 	{
 		Args.notNull(newSegments, "segments");
-		segments.addAll(0, newSegments);
+		getSegments().addAll(0, newSegments);
 	}
 
 	/**
@@ -499,7 +553,7 @@ public final class Url implements Serializable
 	 */
 	public QueryParameter getQueryParameter(final String name)
 	{
-		for (QueryParameter parameter : parameters)
+		for (QueryParameter parameter : getQueryParameters())
 		{
 			if (Objects.equal(name, parameter.getName()))
 			{
@@ -677,8 +731,26 @@ public final class Url implements Serializable
 	 */
 	public String toString(StringMode mode, Charset charset)
 	{
-		StringBuilder result = new StringBuilder();
-		final String path = getPath(charset);
+		return appendTo(new StringBuilder(), mode, charset).toString();
+	}
+
+	/**
+	 * Stringizes this url into the given buffer, avoiding the intermediate strings of
+	 * {@link #toString(StringMode, Charset)}.
+	 * 
+	 * @param buffer
+	 *            the buffer to append to
+	 * @param mode
+	 *            {@link StringMode} that determins how to stringize the url
+	 * @param charset
+	 *            charset
+	 * @return the buffer
+	 */
+	public StringBuilder appendTo(final StringBuilder buffer, final StringMode mode,
+		final Charset charset)
+	{
+		Args.notNull(buffer, "buffer");
+		Args.notNull(charset, "charset");
 
 		if (StringMode.FULL == mode)
 		{
@@ -695,33 +767,76 @@ public final class Url implements Serializable
 			}
 
 			// output scheme://host:port if specified
-			result.append(protocol);
-			result.append("://");
-			result.append(host);
+			buffer.append(protocol);
+			buffer.append("://");
+			buffer.append(host);
 
 			if (port != null && port.equals(getDefaultPortForProtocol(protocol)) == false)
 			{
-				result.append(':');
-				result.append(port);
+				buffer.append(':');
+				buffer.append(port);
 			}
 
-			if (path.contains(".."))
+			final int pathStart = buffer.length();
+			appendPath(buffer, getSegments(), 0, charset);
+
+			if (buffer.indexOf("..", pathStart) != -1)
 			{
 				throw new IllegalStateException("Cannot render this url in " +
 					StringMode.FULL.name() + " mode because it has a `..` segment: " + toString());
 			}
 
-			if (!path.startsWith("/"))
+			if ((buffer.length() == pathStart) || (buffer.charAt(pathStart) != '/'))
 			{
-				result.append("/");
+				buffer.insert(pathStart, '/');
 			}
-
 		}
+		else
+		{
+			appendPath(buffer, getSegments(), 0, charset);
+		}
+
+		appendQueryString(buffer, getQueryParameters(), charset);
+		return buffer;
+	}
 
+	/**
+	 * Appends the encoded segments separated by slashes.
+	 * 
+	 * @param buffer
+	 * @param segments
+	 * @param from
+	 *            index of the first segment to append
+	 * @param charset
+	 */
+	static void appendPath(final StringBuilder buffer, final List<String> segments,
+		final int from, final Charset charset)
+	{
+		for (int i = from; i < segments.size(); i++)
+		{
+			if (i > from)
+			{
+				buffer.append('/');
+			}
+			buffer.append(encodeSegment(segments.get(i), charset));
+		}
+	}
 
-		result.append(path);
-		result.append(getQueryString(charset));
-		return result.toString();
+	/**
+	 * Appends the query string, starting with <code>?</code> unless there are no parameters.
+	 * 
+	 * @param buffer
+	 * @param parameters
+	 * @param charset
+	 */
+	static void appendQueryString(final StringBuilder buffer,
+		final List<QueryParameter> parameters, final Charset charset)
+	{
+		for (int i = 0; i < parameters.size(); i++)
+		{
+			buffer.append(i == 0 ? '?' : '&');
+			parameters.get(i).appendTo(buffer, charset);
+		}
 	}
 
 	/**
@@ -754,6 +869,7 @@ public final class Url implements Serializable
 	 */
 	private boolean isLastSegmentReal()
 	{
+		final List<String> segments = getSegments();
 		if (segments.isEmpty())
 		{
 			return false;
@@ -782,7 +898,7 @@ public final class Url implements Serializable
 	 */
 	private boolean isLastSegmentEmpty()
 	{
-		return isLastSegmentEmpty(segments);
+		return isLastSegmentEmpty(getSegments());
 	}
 
 	/**
@@ -809,6 +925,7 @@ public final class Url implements Serializable
 	 */
 	public void concatSegments(List<String> segments)
 	{
+		final List<String> thisSegments = getSegments();
 		boolean checkedLastSegment = false;
 
 		if (!isAtLeastOneSegmentReal(segments) && !isLastSegmentEmpty(segments))
@@ -823,9 +940,9 @@ public final class Url implements Serializable
 			{
 				continue;
 			}
-			else if ("..".equals(s) && !this.segments.isEmpty())
+			else if ("..".equals(s) && !thisSegments.isEmpty())
 			{
-				this.segments.remove(this.segments.size() - 1);
+				thisSegments.remove(thisSegments.size() - 1);
 			}
 			else
 			{
@@ -833,17 +950,17 @@ public final class Url implements Serializable
 				{
 					if (isLastSegmentReal() || isLastSegmentEmpty())
 					{
-						this.segments.remove(this.segments.size() - 1);
+						thisSegments.remove(thisSegments.size() - 1);
 					}
 					checkedLastSegment = true;
 				}
-				this.segments.add(s);
+				thisSegments.add(s);
 			}
 		}
 
-		if ((this.segments.size() == 1) && (this.segments.get(0).length() == 0))
+		if ((thisSegments.size() == 1) && (thisSegments.get(0).length() == 0))
 		{
-			this.segments.clear();
+			thisSegments.clear();
 		}
 	}
 
@@ -931,7 +1048,7 @@ public final class Url implements Serializable
 		@Override
 		public String toString()
 		{
-			return toString(Charset.forName(DEFAULT_CHARSET_NAME));
+			return toString(DEFAULT_CHARSET);
 		}
 
 		/**
@@ -941,14 +1058,24 @@ public final class Url implements Serializable
 		 */
 		public String toString(final Charset charset)
 		{
-			StringBuilder result = new StringBuilder();
-			result.append(encodeParameter(getName(), charset));
+			return appendTo(new StringBuilder(), charset).toString();
+		}
+
+		/**
+		 * 
+		 * @param buffer
+		 * @param charset
+		 * @return the buffer
+		 */
+		private StringBuilder appendTo(final StringBuilder buffer, final Charset charset)
+		{
+			buffer.append(encodeParameter(getName(), charset));
 			if (!Strings.isEmpty(getValue()))
 			{
-				result.append('=');
-				result.append(encodeParameter(getValue(), charset));
+				buffer.append('=');
+				buffer.append(encodeParameter(getValue(), charset));
 			}
-			return result.toString();
+			return buffer;
 		}
 	}
 
@@ -1017,8 +1144,8 @@ public final class Url implements Serializable
 		getSegments().addAll(relative.getSegments());
 
 		// replace query params with the ones from relative
-		parameters.clear();
-		parameters.addAll(relative.getQueryParameters());
+		getQueryParameters().clear();
+		getQueryParameters().addAll(relative.getQueryParameters());
 	}
 
 	/**
@@ -1094,17 +1221,7 @@ public final class Url implements Serializable
 		Args.notNull(charset, "charset");
 
 		StringBuilder path = new StringBuilder();
-		boolean slash = false;
-
-		for (String segment : getSegments())
-		{
-			if (slash)
-			{
-				path.append('/');
-			}
-			path.append(encodeSegment(segment, charset));
-			slash = true;
-		}
+		appendPath(path, getSegments(), 0, charset);
 		return path.toString();
 	}
 
@@ -1131,12 +1248,7 @@ public final class Url implements Serializable
 		Args.notNull(charset, "charset");
 
 		StringBuilder query = new StringBuilder();
-
-		for (QueryParameter parameter : getQueryParameters())
-		{
-			query.append(query.length() == 0 ? '?' : '&');
-			query.append(parameter.toString(charset));
-		}
+		appendQueryString(query, getQueryParameters(), charset);
 		return query.toString();
 	}
 
@@ -1184,11 +1296,12 @@ public final class Url implements Serializable
 	public Url canonical()
 	{
 		Url url = new Url(this);
-		url.segments.clear();
+		final List<String> segments = getSegments();
+		url.getSegments().clear();
 
-		for (int i = 0; i < this.segments.size(); i++)
+		for (int i = 0; i < segments.size(); i++)
 		{
-			final String segment = this.segments.get(i);
+			final String segment = segments.get(i);
 
 			// drop '.' from path  
 			if (".".equals(segment))
@@ -1197,13 +1310,13 @@ public final class Url implements Serializable
 			}
 
 			// skip segment if following segment is a '..'
-			if ((i + 1) < this.segments.size() && "..".equals(this.segments.get(i + 1)))
+			if ((i + 1) < segments.size() && "..".equals(segments.get(i + 1)))
 			{
 				i++;
 				continue;
 			}
 
-			url.segments.add(segment);
+			url.getSegments().add(segment);
 		}
 		return url;
 	}
@@ -71,6 +71,11 @@ public class UrlDecoder
 	 */
 	public String decode(final String s, final Charset enc)
 	{
+		if ((s == null) || ((s.indexOf('%') == -1) && (s.indexOf('+') == -1)))
+		{
+			// nothing to decode
+			return s;
+		}
 		return decode(s, enc.name());
 	}
 
@@ -246,7 +246,31 @@ public class UrlEncoder
 	 */
 	public String encode(final String s, final Charset charset)
 	{
-		return encode(s, charset.name());
+		if (isUnchanged(s))
+		{
+			return s;
+		}
+		return encode(s, charset, new StringBuilder(s.length() + 16));
+	}
+
+	/**
+	 * Tests whether encoding leaves a string unchanged, i.e. it contains no character which has to
+	 * be escaped and no space.
+	 * 
+	 * @param s
+	 * @return <code>true</code> if the string can be used as is
+	 */
+	private boolean isUnchanged(final String s)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			final char c = s.charAt(i);
+			if ((c == ' ') || (c == stopChar) || (dontNeedEncoding.get(c) == false))
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -259,10 +283,7 @@ public class UrlEncoder
 	 */
 	public String encode(final String s, final String charsetName)
 	{
-		boolean needToChange = false;
-		StringBuilder out = new StringBuilder(s.length());
 		Charset charset;
-		CharArrayWriter charArrayWriter = new CharArrayWriter();
 
 		Args.notNull(charsetName, "charsetName");
 
@@ -279,6 +300,25 @@ public class UrlEncoder
 			throw new RuntimeException(new UnsupportedEncodingException(charsetName));
 		}
 
+		return encode(s, charset, new StringBuilder(s.length()));
+	}
+
+	/**
+	 * Encodes the string into the given buffer.
+	 * 
+	 * @param s
+	 *            string to encode
+	 * @param charset
+	 *            charset to use for encoding
+	 * @param out
+	 *            the buffer to use
+	 * @return encoded string
+	 */
+	private String encode(final String s, final Charset charset, final StringBuilder out)
+	{
+		boolean needToChange = false;
+		CharArrayWriter charArrayWriter = new CharArrayWriter();
+
 		boolean stopEncoding = false;
 		for (int i = 0; i < s.length();)
 		{
@@ -16,7 +16,6 @@
  */
 package org.apache.wicket.request;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -102,6 +101,27 @@ public class UrlRenderer
 		}
 	}
 
+	/**
+	 * Renders the Url into the given buffer. Relative urls are appended without intermediate
+	 * strings, see {@link #renderRelativeUrl(Url, StringBuilder)}.
+	 * 
+	 * @param url
+	 * @param buffer
+	 *            the buffer to append to
+	 * @return the buffer
+	 */
+	public StringBuilder renderUrl(final Url url, final StringBuilder buffer)
+	{
+		if (shouldRenderAsFull(url))
+		{
+			return buffer.append(renderFullUrl(url));
+		}
+		else
+		{
+			return renderRelativeUrl(url, buffer);
+		}
+	}
+
 	/**
 	 * Renders a full URL in the {@code protocol://hostname:port/path} format
 	 * 
@@ -194,71 +214,93 @@ public class UrlRenderer
 	 * @return Url rendered as string
 	 */
 	public String renderRelativeUrl(final Url url)
+	{
+		return renderRelativeUrl(url, new StringBuilder()).toString();
+	}
+
+	/**
+	 * Renders the Url relative to currently set Base Url into the given buffer.
+	 * 
+	 * @param url
+	 * @param buffer
+	 *            the buffer to append to
+	 * @return the buffer
+	 * @see #renderRelativeUrl(Url)
+	 */
+	public StringBuilder renderRelativeUrl(final Url url, final StringBuilder buffer)
 	{
 		Args.notNull(url, "url");
+		Args.notNull(buffer, "buffer");
 
 		if (url.isAbsolute())
 		{
-			return url.toString();
+			return url.appendTo(buffer, Url.StringMode.LOCAL, url.getCharset());
 		}
-		else
-		{
-			List<String> baseUrlSegments = getBaseUrl().getSegments();
-			List<String> urlSegments = new ArrayList<String>(url.getSegments());
 
-			List<String> newSegments = new ArrayList<String>();
+		final List<String> baseUrlSegments = getBaseUrl().getSegments();
+		final List<String> urlSegments = url.getSegments();
+		final int baseUrlSize = baseUrlSegments.size();
+		final int urlSize = urlSegments.size();
 
-			int common = 0;
+		int common = 0;
+		while ((common < baseUrlSize) && (common < urlSize) &&
+			baseUrlSegments.get(common).equals(urlSegments.get(common)))
+		{
+			++common;
+		}
 
-			String last = null;
+		// we want the new URL to have at least one segment (other than possible ../)
+		if ((common > 0) && ((common == urlSize) || (common == baseUrlSize)))
+		{
+			--common;
+		}
 
-			for (String s : baseUrlSegments)
+		final int start = buffer.length();
+		if ((common + 1 == baseUrlSize) && (common == urlSize))
+		{
+			buffer.append('.');
+		}
+		else
+		{
+			for (int i = common + 1; i < baseUrlSize; ++i)
 			{
-				if (!urlSegments.isEmpty() && s.equals(urlSegments.get(0)))
+				if (i > common + 1)
 				{
-					++common;
-					last = urlSegments.remove(0);
-				}
-				else
-				{
-					break;
+					buffer.append('/');
 				}
+				buffer.append("..");
 			}
-
-			// we want the new URL to have at least one segment (other than possible ../)
-			if ((last != null) && (urlSegments.isEmpty() || (baseUrlSegments.size() == common)))
+			if ((buffer.length() > start) && (common < urlSize))
 			{
-				--common;
-				urlSegments.add(0, last);
-			}
-
-			int baseUrlSize = baseUrlSegments.size();
-			if (common + 1 == baseUrlSize && urlSegments.isEmpty())
-			{
-				newSegments.add(".");
-			}
-			else
-			{
-				for (int i = common + 1; i < baseUrlSize; ++i)
-				{
-					newSegments.add("..");
-				}
+				buffer.append('/');
 			}
-			newSegments.addAll(urlSegments);
+			Url.appendPath(buffer, urlSegments, common, Url.DEFAULT_CHARSET);
+		}
+		Url.appendQueryString(buffer, url.getQueryParameters(), Url.DEFAULT_CHARSET);
 
-			String renderedUrl = new Url(newSegments, url.getQueryParameters()).toString();
-			if (!renderedUrl.startsWith(".."))
-			{
-				// WICKET-4260
-				renderedUrl = "./" + renderedUrl;
-			}
-			if (renderedUrl.endsWith(".."))
-			{
-				// WICKET-4401
-				renderedUrl = renderedUrl + '/';
-			}
-			return renderedUrl;
+		if (startsWithParent(buffer, start) == false)
+		{
+			// WICKET-4260
+			buffer.insert(start, "./");
 		}
+		if ((buffer.length() - start >= 2) && (buffer.charAt(buffer.length() - 1) == '.') &&
+			(buffer.charAt(buffer.length() - 2) == '.'))
+		{
+			// WICKET-4401
+			buffer.append('/');
+		}
+		return buffer;
+	}
+
+	/**
+	 * @param buffer
+	 * @param start
+	 * @return <code>true</code> if the rendered url starts with <code>..</code>
+	 */
+	private static boolean startsWithParent(final StringBuilder buffer, final int start)
+	{
+		return (buffer.length() - start >= 2) && (buffer.charAt(start) == '.') &&
+			(buffer.charAt(start + 1) == '.');
 	}
 
 	/**
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Measures parsing and rendering of urls of the shapes Wicket produces: page instances, listener
+ * interfaces, versioned resources, mounted pages with query parameters and full urls.
+ * <p>
+ * Not run as part of the build, start {@link #main(String[])} manually.
+ */
+public class UrlBenchmark
+{
+	private static final int ITERATIONS = 1000000;
+
+	private static final String[] URLS = { "wicket/page?3",
+			"wicket/bookmarkable/org.example.HomePage?2-1.ILinkListener-form-link",
+			"wicket/resource/org.apache.wicket.ajax.AbstractDefaultAjaxBehavior/res/js/wicket-ajax-jquery-ver-1357.js",
+			"products/shoes/running/12345?color=red&size=43&sort=price%20asc",
+			"https://www.example.com:8443/checkout/address?step=2" };
+
+	private static final Url BASE = Url.parse("products/shoes/running/12345?color=red");
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		final UrlRenderer renderer = new UrlRenderer(new BenchmarkRequest());
+
+		for (int run = 0; run < 2; run++)
+		{
+			// the first run warms up
+			final boolean print = run == 1;
+
+			measure("parse", print, new Task()
+			{
+				@Override
+				int run(String url, StringBuilder buffer)
+				{
+					return Url.parse(url).getPort() != null ? 1 : 0;
+				}
+			});
+			measure("parse and decode", print, new Task()
+			{
+				@Override
+				int run(String url, StringBuilder buffer)
+				{
+					Url parsed = Url.parse(url);
+					return parsed.getSegments().size() + parsed.getQueryParameters().size();
+				}
+			});
+			measure("render to string", print, new Task()
+			{
+				@Override
+				int run(String url, StringBuilder buffer)
+				{
+					return renderer.renderUrl(Url.parse(url)).length();
+				}
+			});
+			measure("render into buffer", print, new Task()
+			{
+				@Override
+				int run(String url, StringBuilder buffer)
+				{
+					buffer.setLength(0);
+					return renderer.renderUrl(Url.parse(url), buffer).length();
+				}
+			});
+		}
+	}
+
+	private static void measure(String name, boolean print, Task task)
+	{
+		final StringBuilder buffer = new StringBuilder(256);
+		final long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			hash += task.run(URLS[i % URLS.length], buffer);
+		}
+		final long time = (System.nanoTime() - start) / 1000000;
+		if (print)
+		{
+			System.out.println(String.format("%-20s %5d ms (%d)", name, time, hash));
+		}
+	}
+
+	private static abstract class Task
+	{
+		abstract int run(String url, StringBuilder buffer);
+	}
+
+	private static class BenchmarkRequest extends Request
+	{
+		@Override
+		public Url getUrl()
+		{
+			return BASE;
+		}
+
+		@Override
+		public Url getClientUrl()
+		{
+			return BASE;
+		}
+
+		@Override
+		public Locale getLocale()
+		{
+			return Locale.ENGLISH;
+		}
+
+		@Override
+		public Charset getCharset()
+		{
+			return Url.DEFAULT_CHARSET;
+		}
+
+		@Override
+		public Object getContainerRequest()
+		{
+			return null;
+		}
+	}
+}
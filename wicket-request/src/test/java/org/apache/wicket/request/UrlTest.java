@@ -737,4 +737,67 @@ public class UrlTest extends Assert
 		assertEquals(host, copy.getHost());
 		assertEquals(port, copy.getPort());
 	}
+
+	/**
+	 * Parsed urls decode their segments and parameters on first access, copies and serialized
+	 * forms of an undecoded url have to be equal to the original.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void lazilyDecoded() throws Exception
+	{
+		Url url = Url.parse("http://host:8080/foo/b%20r/?a=1&&b=x%3Dy=z&c");
+		assertEquals("http", url.getProtocol());
+		assertEquals("host", url.getHost());
+		assertEquals(Integer.valueOf(8080), url.getPort());
+
+		Url copy = new Url(url);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(url);
+		oos.close();
+		Url deserialized = (Url)new ObjectInputStream(new ByteArrayInputStream(
+			out.toByteArray())).readObject();
+
+		for (Url u : Arrays.asList(url, copy, deserialized))
+		{
+			checkSegments(u, "", "foo", "b r", "");
+			checkQueryParams(u, "a", "1", "b", "x=y", "c", "");
+		}
+
+		// the copy is independent of the original
+		copy.getSegments().add("baz");
+		checkSegments(url, "", "foo", "b r", "");
+
+		// host without path and query string containing a scheme
+		url = Url.parse("https://host?u=http://other/");
+		assertEquals("host", url.getHost());
+		assertEquals(Integer.valueOf(443), url.getPort());
+		checkSegments(url, "", "");
+		checkQueryParams(url, "u", "http://other/");
+
+		url = Url.parse("foo?u=http://other:80/");
+		assertNull(url.getProtocol());
+		checkSegments(url, "foo");
+	}
+
+	/**
+	 * 
+	 */
+	@Test
+	public void appendTo()
+	{
+		Url url = Url.parse("foo/b%20r?a=1&b=%3F");
+		StringBuilder buffer = new StringBuilder("prefix:");
+		assertSame(buffer, url.appendTo(buffer, StringMode.LOCAL, url.getCharset()));
+		assertEquals("prefix:" + url.toString(), buffer.toString());
+
+		url.setHost("host");
+		buffer.setLength(0);
+		url.appendTo(buffer, StringMode.FULL, url.getCharset());
+		assertEquals("http://host/foo/b%20r?a=1&b=%3F", buffer.toString());
+		assertEquals(url.toString(StringMode.FULL), buffer.toString());
+	}
 }
@@ -27,6 +27,8 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.wicket.injection.IFieldValueFactory;
+import org.apache.wicket.injection.IFieldValueSource;
+import org.apache.wicket.injection.IFieldValueSourceFactory;
 import org.apache.wicket.proxy.LazyInitProxyFactory;
 import org.apache.wicket.spring.ISpringContextLocator;
 import org.apache.wicket.spring.SpringBeanLocator;
@@ -64,6 +66,10 @@ import org.springframework.context.support.AbstractApplicationContext;
  * This class will also cache any produced proxies so that the same proxy is always returned for the
  * same spring dependency. This helps cut down on session size beacause proxies for the same
  * dependency will not be serialized twice.
+ * <p>
+ * When used by an {@link org.apache.wicket.injection.Injector} the bean name of each field is
+ * resolved once per class, and the proxy of a singleton bean is kept by the field's
+ * {@link IFieldValueSource}.
  * 
  * @see LazyInitProxyFactory
  * @see SpringBean
@@ -72,7 +78,7 @@ import org.springframework.context.support.AbstractApplicationContext;
  * @author Igor Vaynberg (ivaynberg)
  * @author Istvan Devai
  */
-public class AnnotProxyFieldValueFactory implements IFieldValueFactory
+public class AnnotProxyFieldValueFactory implements IFieldValueSourceFactory
 {
 	private final ISpringContextLocator contextLocator;
 
@@ -119,31 +125,88 @@ public class AnnotProxyFieldValueFactory implements IFieldValueFactory
 			SpringBeanLocator locator = new SpringBeanLocator(beanName, field.getType(),
 				contextLocator);
 
-			// only check the cache if the bean is a singleton
-			Object cachedValue = cache.get(locator);
-			if (cachedValue != null)
-			{
-				return cachedValue;
-			}
+			return getFieldValue(locator);
+		}
+		return null;
+	}
 
-			final Object target;
-			if (wrapInProxies)
-			{
-				target = LazyInitProxyFactory.createProxy(field.getType(), locator);
-			}
-			else
+	/**
+	 * @see org.apache.wicket.injection.IFieldValueSourceFactory#newFieldValueSource(java.lang.reflect.Field)
+	 */
+	public IFieldValueSource newFieldValueSource(final Field field)
+	{
+		if (supportsField(field) == false)
+		{
+			return null;
+		}
+
+		final String beanName = getBeanName(field);
+		if (beanName == null)
+		{
+			// the bean may be registered later on, look for it on each injection
+			return new IFieldValueSource()
 			{
-				target = locator.locateProxyTarget();
-			}
+				public Object getFieldValue(final Object fieldOwner)
+				{
+					return AnnotProxyFieldValueFactory.this.getFieldValue(field, fieldOwner);
+				}
+			};
+		}
+
+		final SpringBeanLocator locator = new SpringBeanLocator(beanName, field.getType(),
+			contextLocator);
+		return new IFieldValueSource()
+		{
+			/** the proxy or bean of a singleton */
+			private volatile Object singleton;
 
-			// only put the proxy into the cache if the bean is a singleton
-			if (locator.isSingletonBean())
+			public Object getFieldValue(final Object fieldOwner)
 			{
-				cache.put(locator, target);
+				Object value = singleton;
+				if (value == null)
+				{
+					value = AnnotProxyFieldValueFactory.this.getFieldValue(locator);
+					if (cache.get(locator) == value)
+					{
+						singleton = value;
+					}
+				}
+				return value;
 			}
-			return target;
+		};
+	}
+
+	/**
+	 * Gets the proxy or the bean of a locator, returning the cached one of a singleton.
+	 * 
+	 * @param locator
+	 * @return value
+	 */
+	private Object getFieldValue(final SpringBeanLocator locator)
+	{
+		// only check the cache if the bean is a singleton
+		Object cachedValue = cache.get(locator);
+		if (cachedValue != null)
+		{
+			return cachedValue;
 		}
-		return null;
+
+		final Object target;
+		if (wrapInProxies)
+		{
+			target = LazyInitProxyFactory.createProxy(locator.getBeanType(), locator);
+		}
+		else
+		{
+			target = locator.locateProxyTarget();
+		}
+
+		// only put the proxy into the cache if the bean is a singleton
+		if (locator.isSingletonBean())
+		{
+			cache.put(locator, target);
+		}
+		return target;
 	}
 
 	/**
@@ -0,0 +1,712 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.util.io.IClusterable;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * A bounded cache for concurrent access, a replacement for a synchronized
+ * {@link MostRecentlyUsedMap}.
+ * <p>
+ * The entries are spread over a number of stripes, each guarded by its own lock, so threads
+ * accessing different keys rarely wait for each other. Each stripe holds an equal share of the
+ * maximum weight and evicts its own entries, either the least recently used ones or the least
+ * frequently used of its oldest entries. Thus eviction is approximate for the cache as a whole.
+ * <p>
+ * By default each entry weighs <code>1</code>, i.e. the maximum weight is the maximum number of
+ * entries. Optionally entries expire a fixed duration after they were written. Expired entries
+ * are never returned, they are removed when accessed, when a stripe evicts entries or by
+ * {@link #removeExpired()}.
+ * <p>
+ * Neither keys nor values may be <code>null</code>.
+ * 
+ * @param <K>
+ *            the type of the keys
+ * @param <V>
+ *            the type of the values
+ */
+public class ConcurrentCache<K, V> implements IClusterable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The eviction policy of a cache.
+	 */
+	public static enum Eviction {
+		/** evicts the least recently used entries */
+		LRU,
+
+		/**
+		 * evicts the least frequently used entries among the oldest entries, the frequencies of
+		 * the entries surviving an eviction are halved so former popularity fades
+		 */
+		LFU
+	}
+
+	/**
+	 * Computes the weight of an entry.
+	 * 
+	 * @param <K>
+	 *            the type of the keys
+	 * @param <V>
+	 *            the type of the values
+	 */
+	public static interface IWeigher<K, V> extends IClusterable
+	{
+		/**
+		 * @param key
+		 * @param value
+		 * @return the weight of the entry, not negative
+		 */
+		long weigh(K key, V value);
+	}
+
+	/**
+	 * Loads the value of a key missing in the cache.
+	 * 
+	 * @param <K>
+	 *            the type of the keys
+	 * @param <V>
+	 *            the type of the values
+	 * 
+	 * @see ConcurrentCache#get(Object, ILoader)
+	 */
+	public static interface ILoader<K, V>
+	{
+		/**
+		 * @param key
+		 * @return the value or <code>null</code> if there is none
+		 */
+		V load(K key);
+	}
+
+	/** the default maximum number of stripes */
+	private static final int MAX_STRIPES = 16;
+
+	/** the minimum weight of each stripe when choosing the number of stripes */
+	private static final int MIN_STRIPE_WEIGHT = 32;
+
+	/** the number of oldest entries of a stripe from which a LFU eviction picks */
+	private static final int LFU_SAMPLE = 8;
+
+	private final Stripe<K, V>[] stripes;
+
+	private final long maxWeight;
+
+	private final IWeigher<? super K, ? super V> weigher;
+
+	/** milliseconds after writing an entry expires, <code>0</code> for never */
+	private final long timeToLive;
+
+	private final Eviction eviction;
+
+	/**
+	 * Creates a LRU cache of a maximum number of entries.
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of entries
+	 */
+	public ConcurrentCache(final int maxEntries)
+	{
+		this(maxEntries, null);
+	}
+
+	/**
+	 * Creates a LRU cache of a maximum number of entries expiring after some time.
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of entries
+	 * @param timeToLive
+	 *            the duration after which a written entry expires, <code>null</code> for never
+	 */
+	public ConcurrentCache(final int maxEntries, final Duration timeToLive)
+	{
+		this(maxEntries, null, timeToLive, Eviction.LRU, 0);
+	}
+
+	/**
+	 * Creates a cache.
+	 * 
+	 * @param maxWeight
+	 *            the maximum total weight of the entries
+	 * @param weigher
+	 *            the weigher of the entries, <code>null</code> to weigh each entry <code>1</code>
+	 * @param timeToLive
+	 *            the duration after which a written entry expires, <code>null</code> for never
+	 * @param eviction
+	 *            the eviction policy
+	 * @param stripes
+	 *            the number of stripes, rounded up to a power of two, <code>0</code> to choose a
+	 *            number fitting the maximum weight
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentCache(final long maxWeight, final IWeigher<? super K, ? super V> weigher,
+		final Duration timeToLive, final Eviction eviction, int stripes)
+	{
+		if (maxWeight <= 0)
+		{
+			throw new IllegalArgumentException("maxWeight must be greater than zero");
+		}
+		if (stripes < 0)
+		{
+			throw new IllegalArgumentException("stripes must not be negative");
+		}
+
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.eviction = Args.notNull(eviction, "eviction");
+		this.timeToLive = timeToLive != null ? Math.max(1, timeToLive.getMilliseconds()) : 0;
+
+		if (stripes == 0)
+		{
+			stripes = (int)Math.min(MAX_STRIPES, Math.max(1, maxWeight / MIN_STRIPE_WEIGHT));
+		}
+		stripes = Integer.highestOneBit(stripes - 1) << 1;
+		if (stripes == 0)
+		{
+			stripes = 1;
+		}
+
+		// each stripe gets an equal share, rounded up
+		final long stripeWeight = (maxWeight + stripes - 1) / stripes;
+		this.stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++)
+		{
+			this.stripes[i] = new Stripe<K, V>(stripeWeight, eviction == Eviction.LRU);
+		}
+	}
+
+	/**
+	 * Gets the value of a key.
+	 * 
+	 * @param key
+	 * @return the value or <code>null</code> if the key is not cached or expired
+	 */
+	public V get(final K key)
+	{
+		final Stripe<K, V> stripe = stripe(key);
+		final long now = now();
+		synchronized (stripe)
+		{
+			final CachedValue<V> entry = stripe.map.get(key);
+			if ((entry == null) || isExpired(entry, now))
+			{
+				if (entry != null)
+				{
+					stripe.remove(key);
+				}
+				stripe.misses++;
+				return null;
+			}
+
+			if (entry.frequency < Integer.MAX_VALUE)
+			{
+				entry.frequency++;
+			}
+			stripe.hits++;
+			return entry.value;
+		}
+	}
+
+	/**
+	 * Gets the value of a key, loading and caching it if it is missing. The value is loaded
+	 * without holding any lock, so concurrent threads may load the same key, the value cached
+	 * first wins.
+	 * 
+	 * @param key
+	 * @param loader
+	 *            the loader of a missing value
+	 * @return the cached or loaded value, <code>null</code> if the loader has none
+	 */
+	public V get(final K key, final ILoader<? super K, ? extends V> loader)
+	{
+		V value = get(key);
+		if (value == null)
+		{
+			value = loader.load(key);
+			if (value != null)
+			{
+				final V existing = put(key, value, true);
+				if (existing != null)
+				{
+					value = existing;
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Checks whether a key is cached, without counting a hit or miss. For {@link Eviction#LRU} it
+	 * marks the entry as recently used though, just like {@link #get(Object)}: the access ordered
+	 * map offers no lookup which leaves the order alone.
+	 * 
+	 * @param key
+	 * @return <code>true</code> if the key is cached and not expired
+	 */
+	public boolean containsKey(final K key)
+	{
+		final Stripe<K, V> stripe = stripe(key);
+		final long now = now();
+		synchronized (stripe)
+		{
+			final CachedValue<V> entry = stripe.map.get(key);
+			return (entry != null) && (isExpired(entry, now) == false);
+		}
+	}
+
+	/**
+	 * Caches a value.
+	 * 
+	 * @param key
+	 * @param value
+	 * @return the value previously cached for the key, <code>null</code> if there was none
+	 */
+	public V put(final K key, final V value)
+	{
+		return put(key, value, false);
+	}
+
+	/**
+	 * Caches a value unless the key is already cached.
+	 * 
+	 * @param key
+	 * @param value
+	 * @return the value cached for the key, <code>null</code> if the given one was cached
+	 */
+	public V putIfAbsent(final K key, final V value)
+	{
+		return put(key, value, true);
+	}
+
+	private V put(final K key, final V value, final boolean ifAbsent)
+	{
+		Args.notNull(key, "key");
+		Args.notNull(value, "value");
+
+		final long weight = weigher != null ? weigher.weigh(key, value) : 1;
+		if (weight < 0)
+		{
+			throw new IllegalArgumentException("weight of " + key + " must not be negative");
+		}
+
+		final Stripe<K, V> stripe = stripe(key);
+		final long now = now();
+		synchronized (stripe)
+		{
+			CachedValue<V> old = stripe.map.get(key);
+			if ((old != null) && isExpired(old, now))
+			{
+				stripe.remove(key);
+				old = null;
+			}
+			if ((old != null) && ifAbsent)
+			{
+				return old.value;
+			}
+
+			if (old != null)
+			{
+				stripe.remove(key);
+			}
+			final CachedValue<V> entry = new CachedValue<V>(value, weight, now);
+			if (old != null)
+			{
+				entry.frequency = old.frequency;
+			}
+			stripe.map.put(key, entry);
+			stripe.weight += weight;
+			if (ifAbsent)
+			{
+				stripe.loads++;
+			}
+
+			evict(stripe, now, key);
+
+			return old != null ? old.value : null;
+		}
+	}
+
+	/**
+	 * Removes a key.
+	 * 
+	 * @param key
+	 * @return the removed value, <code>null</code> if the key was not cached or expired
+	 */
+	public V remove(final K key)
+	{
+		final Stripe<K, V> stripe = stripe(key);
+		final long now = now();
+		synchronized (stripe)
+		{
+			final CachedValue<V> entry = stripe.remove(key);
+			return (entry != null) && (isExpired(entry, now) == false) ? entry.value : null;
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
+	{
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				stripe.map.clear();
+				stripe.weight = 0;
+			}
+		}
+	}
+
+	/**
+	 * Removes all expired entries.
+	 */
+	public void removeExpired()
+	{
+		if (timeToLive == 0)
+		{
+			return;
+		}
+
+		final long now = now();
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				final Iterator<CachedValue<V>> iterator = stripe.map.values().iterator();
+				while (iterator.hasNext())
+				{
+					final CachedValue<V> entry = iterator.next();
+					if (isExpired(entry, now))
+					{
+						iterator.remove();
+						stripe.weight -= entry.weight;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the entries which are not expired, e.g. to persist them. Neither hits nor the order of
+	 * the entries are affected.
+	 * 
+	 * @return a snapshot of the entries
+	 */
+	public Map<K, V> toMap()
+	{
+		final Map<K, V> map = new HashMap<K, V>();
+		final long now = now();
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				for (Map.Entry<K, CachedValue<V>> entry : stripe.map.entrySet())
+				{
+					if (isExpired(entry.getValue(), now) == false)
+					{
+						map.put(entry.getKey(), entry.getValue().value);
+					}
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @return the number of entries, including expired ones which are not removed yet
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				size += stripe.map.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the total weight of the entries
+	 */
+	public long getWeight()
+	{
+		long weight = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				weight += stripe.weight;
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * @return the maximum total weight of the entries
+	 */
+	public long getMaxWeight()
+	{
+		return maxWeight;
+	}
+
+	/**
+	 * @return the eviction policy
+	 */
+	public Eviction getEviction()
+	{
+		return eviction;
+	}
+
+	/**
+	 * @return the number of stripes
+	 */
+	public int getStripes()
+	{
+		return stripes.length;
+	}
+
+	/**
+	 * @return the number of lookups which found a value
+	 */
+	public long getHits()
+	{
+		long hits = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				hits += stripe.hits;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups which found no value
+	 */
+	public long getMisses()
+	{
+		long misses = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				misses += stripe.misses;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * @return the number of values cached by {@link #get(Object, ILoader)} and
+	 *         {@link #putIfAbsent(Object, Object)}
+	 */
+	public long getLoads()
+	{
+		long loads = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				loads += stripe.loads;
+			}
+		}
+		return loads;
+	}
+
+	/**
+	 * @return the number of entries evicted to stay within the maximum weight
+	 */
+	public long getEvictions()
+	{
+		long evictions = 0;
+		for (Stripe<K, V> stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				evictions += stripe.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ConcurrentCache [size=" + size() + ", weight=" + getWeight() + ", maxWeight=" +
+			maxWeight + ", hits=" + getHits() + ", misses=" + getMisses() + "]";
+	}
+
+	/**
+	 * Evicts entries until the stripe is within its maximum weight, expired entries at the head of
+	 * the stripe first. The entry just written is evicted last, it had no chance to be used yet.
+	 * 
+	 * @param stripe
+	 * @param now
+	 * @param written
+	 *            the key written
+	 */
+	private void evict(final Stripe<K, V> stripe, final long now, final K written)
+	{
+		if (timeToLive > 0)
+		{
+			final Iterator<CachedValue<V>> iterator = stripe.map.values().iterator();
+			while (iterator.hasNext())
+			{
+				final CachedValue<V> entry = iterator.next();
+				if (isExpired(entry, now) == false)
+				{
+					break;
+				}
+				iterator.remove();
+				stripe.weight -= entry.weight;
+			}
+		}
+
+		while ((stripe.weight > stripe.maxWeight) && (stripe.map.isEmpty() == false))
+		{
+			final Iterator<Map.Entry<K, CachedValue<V>>> iterator = stripe.map.entrySet()
+				.iterator();
+
+			Map.Entry<K, CachedValue<V>> first = iterator.next();
+			if ((stripe.map.size() > 1) && first.getKey().equals(written))
+			{
+				first = iterator.next();
+			}
+
+			K victim = first.getKey();
+			if (eviction == Eviction.LFU)
+			{
+				CachedValue<V> victimEntry = first.getValue();
+				for (int i = 1; (i < LFU_SAMPLE) && iterator.hasNext(); i++)
+				{
+					final Map.Entry<K, CachedValue<V>> candidate = iterator.next();
+					if (candidate.getKey().equals(written))
+					{
+						continue;
+					}
+					if (candidate.getValue().frequency < victimEntry.frequency)
+					{
+						victimEntry.frequency >>= 1;
+						victim = candidate.getKey();
+						victimEntry = candidate.getValue();
+					}
+					else
+					{
+						candidate.getValue().frequency >>= 1;
+					}
+				}
+			}
+
+			stripe.remove(victim);
+			stripe.evictions++;
+		}
+	}
+
+	private boolean isExpired(final CachedValue<V> entry, final long now)
+	{
+		return (timeToLive > 0) && (now - entry.written >= timeToLive);
+	}
+
+	private long now()
+	{
+		return timeToLive > 0 ? System.currentTimeMillis() : 0;
+	}
+
+	private Stripe<K, V> stripe(final Object key)
+	{
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		hash ^= (hash >>> 7);
+		return stripes[hash & (stripes.length - 1)];
+	}
+
+	/**
+	 * A stripe of the cache, guarded by its own monitor.
+	 */
+	private static class Stripe<K, V> implements IClusterable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** the entries, in access order for LRU, in insertion order for LFU */
+		private final LinkedHashMap<K, CachedValue<V>> map;
+
+		private final long maxWeight;
+
+		private long weight;
+
+		private long hits;
+
+		private long misses;
+
+		private long loads;
+
+		private long evictions;
+
+		private Stripe(final long maxWeight, final boolean accessOrder)
+		{
+			this.maxWeight = maxWeight;
+			map = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, accessOrder);
+		}
+
+		private CachedValue<V> remove(final Object key)
+		{
+			final CachedValue<V> entry = map.remove(key);
+			if (entry != null)
+			{
+				weight -= entry.weight;
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * A cached value.
+	 */
+	private static class CachedValue<V> implements IClusterable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final V value;
+
+		private final long weight;
+
+		/** the time the entry was written */
+		private final long written;
+
+		private int frequency;
+
+		private CachedValue(final V value, final long weight, final long written)
+		{
+			this.value = value;
+			this.weight = weight;
+			this.written = written;
+		}
+	}
+}
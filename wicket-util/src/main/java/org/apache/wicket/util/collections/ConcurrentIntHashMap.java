@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A thread safe map from int keys to values, the counterpart of a
+ * {@link java.util.concurrent.ConcurrentHashMap} with {@link Integer} keys. The keys are not boxed
+ * and no objects are created for the entries.
+ * <p>
+ * The entries are spread over stripes, each an open addressing table guarded by its own lock.
+ * Values may not be <code>null</code>.
+ * 
+ * @param <V>
+ *            the type of the values
+ */
+public class ConcurrentIntHashMap<V> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** the default number of stripes */
+	private static final int DEFAULT_STRIPES = 16;
+
+	private final Stripe[] stripes;
+
+	/**
+	 * Constructor
+	 */
+	public ConcurrentIntHashMap()
+	{
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param stripes
+	 *            the number of stripes, i.e. of threads which can access the map without waiting
+	 *            for each other, rounded up to a power of two
+	 */
+	public ConcurrentIntHashMap(final int stripes)
+	{
+		if ((stripes < 1) || (stripes > (1 << 16)))
+		{
+			throw new IllegalArgumentException("stripes must be between 1 and 65536");
+		}
+
+		int count = 1;
+		while (count < stripes)
+		{
+			count <<= 1;
+		}
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++)
+		{
+			this.stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return the value of the key or <code>null</code> if it is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final int key)
+	{
+		final int hash = IntHashing.hash(key);
+		final Stripe stripe = stripe(hash);
+		synchronized (stripe)
+		{
+			return (V)stripe.values[stripe.slot(key, hash)];
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return <code>true</code> if the key is mapped
+	 */
+	public boolean containsKey(final int key)
+	{
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps a key to a value.
+	 * 
+	 * @param key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value of the key or <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final int key, final V value)
+	{
+		checkValue(value);
+
+		final int hash = IntHashing.hash(key);
+		final Stripe stripe = stripe(hash);
+		synchronized (stripe)
+		{
+			return (V)stripe.put(key, hash, value, false);
+		}
+	}
+
+	/**
+	 * Maps a key to a value unless it is already mapped.
+	 * 
+	 * @param key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the current value of the key or <code>null</code> if the given value was mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(final int key, final V value)
+	{
+		checkValue(value);
+
+		final int hash = IntHashing.hash(key);
+		final Stripe stripe = stripe(hash);
+		synchronized (stripe)
+		{
+			return (V)stripe.put(key, hash, value, true);
+		}
+	}
+
+	/**
+	 * Removes a key.
+	 * 
+	 * @param key
+	 * @return the value of the key or <code>null</code> if it was not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final int key)
+	{
+		final int hash = IntHashing.hash(key);
+		final Stripe stripe = stripe(hash);
+		synchronized (stripe)
+		{
+			return (V)stripe.remove(key, hash, null);
+		}
+	}
+
+	/**
+	 * Removes a key if it is mapped to the given value.
+	 * 
+	 * @param key
+	 * @param value
+	 * @return <code>true</code> if the key was removed
+	 */
+	public boolean remove(final int key, final Object value)
+	{
+		checkValue(value);
+
+		final int hash = IntHashing.hash(key);
+		final Stripe stripe = stripe(hash);
+		synchronized (stripe)
+		{
+			return stripe.remove(key, hash, value) != null;
+		}
+	}
+
+	/**
+	 * Gets the current values, the stripes are locked one after another.
+	 * 
+	 * @return a copy of the values
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values()
+	{
+		final List<V> result = new ArrayList<V>();
+		for (Stripe stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				if (stripe.size > 0)
+				{
+					for (Object value : stripe.values)
+					{
+						if (value != null)
+						{
+							result.add((V)value);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	public void clear()
+	{
+		for (Stripe stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				Arrays.fill(stripe.values, null);
+				stripe.size = 0;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of mapped keys
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Stripe stripe : stripes)
+		{
+			synchronized (stripe)
+			{
+				size += stripe.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return <code>true</code> if no key is mapped
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	private Stripe stripe(final int hash)
+	{
+		// the low bits select the slot within a stripe
+		return stripes[(hash >>> 16) & (stripes.length - 1)];
+	}
+
+	private static void checkValue(final Object value)
+	{
+		if (value == null)
+		{
+			throw new IllegalArgumentException("value must not be null");
+		}
+	}
+
+	/**
+	 * An open addressing table, guarded by its own monitor.
+	 */
+	private static class Stripe implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int[] keys = new int[4];
+
+		/** the values, <code>null</code> for an empty slot */
+		private Object[] values = new Object[4];
+
+		private int size;
+
+		/**
+		 * @param key
+		 * @param hash
+		 * @return the slot of the key or the empty slot it would be put into
+		 */
+		private int slot(final int key, final int hash)
+		{
+			final int mask = keys.length - 1;
+			int slot = hash & mask;
+			while ((values[slot] != null) && (keys[slot] != key))
+			{
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private Object put(final int key, final int hash, final Object value,
+			final boolean ifAbsent)
+		{
+			int slot = slot(key, hash);
+			final Object previous = values[slot];
+			if (previous == null)
+			{
+				if (IntHashing.isFull(size, keys.length))
+				{
+					resize();
+					slot = slot(key, hash);
+				}
+				keys[slot] = key;
+				values[slot] = value;
+				size++;
+			}
+			else if (ifAbsent == false)
+			{
+				values[slot] = value;
+			}
+			return previous;
+		}
+
+		/**
+		 * @param key
+		 * @param hash
+		 * @param expected
+		 *            the value to remove only, <code>null</code> for any value
+		 * @return the removed value or <code>null</code>
+		 */
+		private Object remove(final int key, final int hash, final Object expected)
+		{
+			int removed = slot(key, hash);
+			final Object value = values[removed];
+			if ((value == null) || ((expected != null) && (expected.equals(value) == false)))
+			{
+				return null;
+			}
+
+			// shift following entries of the probe sequence back, so lookups need no markers
+			final int mask = keys.length - 1;
+			int slot = removed;
+			while (true)
+			{
+				slot = (slot + 1) & mask;
+				if (values[slot] == null)
+				{
+					break;
+				}
+				if (IntHashing.shift(removed, slot, IntHashing.hash(keys[slot]) & mask))
+				{
+					keys[removed] = keys[slot];
+					values[removed] = values[slot];
+					removed = slot;
+				}
+			}
+			values[removed] = null;
+			size--;
+			return value;
+		}
+
+		private void resize()
+		{
+			final int[] oldKeys = keys;
+			final Object[] oldValues = values;
+
+			final int capacity = IntHashing.grow(keys.length);
+			keys = new int[capacity];
+			values = new Object[capacity];
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldValues[i] != null)
+				{
+					final int slot = slot(oldKeys[i], IntHashing.hash(oldKeys[i]));
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+/**
+ * Helpers of the open addressing tables of the int keyed collections.
+ */
+final class IntHashing
+{
+	/** the maximum capacity of a table */
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private IntHashing()
+	{
+	}
+
+	/**
+	 * Spreads the bits of a key, consecutive keys like page ids end up far apart.
+	 * 
+	 * @param key
+	 * @return hash
+	 */
+	static int hash(final int key)
+	{
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of entries the table should hold without being resized
+	 * @return capacity of a table, a power of two
+	 */
+	static int capacity(final int expectedSize)
+	{
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+		}
+
+		int capacity = 4;
+		while ((capacity < MAXIMUM_CAPACITY) && (isFull(expectedSize, capacity)))
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	/**
+	 * @param capacity
+	 *            the current capacity of a table
+	 * @return the capacity of the table after it is resized
+	 */
+	static int grow(final int capacity)
+	{
+		if (capacity >= MAXIMUM_CAPACITY)
+		{
+			throw new IllegalStateException("Maximum capacity of " + MAXIMUM_CAPACITY +
+				" exceeded");
+		}
+		return capacity << 1;
+	}
+
+	/**
+	 * @param size
+	 * @param capacity
+	 * @return <code>true</code> if a table with this capacity is too full for the size, the load
+	 *         factor is 3/4
+	 */
+	static boolean isFull(final int size, final int capacity)
+	{
+		return size >= capacity - (capacity >>> 2);
+	}
+
+	/**
+	 * Checks whether an entry removed at a slot has to be replaced by the entry at a later slot of
+	 * its probe sequence, i.e. whether the home slot of that entry is not cyclically within the
+	 * removed slot (exclusive) and the slot of the entry (inclusive).
+	 * 
+	 * @param removed
+	 *            the slot emptied
+	 * @param slot
+	 *            the slot of an entry following it
+	 * @param home
+	 *            the slot the hash of the entry points to
+	 * @return <code>true</code> if the entry has to be moved into the removed slot
+	 */
+	static boolean shift(final int removed, final int slot, final int home)
+	{
+		if (removed <= slot)
+		{
+			return (home <= removed) || (home > slot);
+		}
+		else
+		{
+			return (home <= removed) && (home > slot);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values, neither keys nor values are boxed and no objects are created
+ * for the entries. Not thread safe.
+ * 
+ * @see IntHashMap
+ */
+public class IntIntHashMap implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private int[] keys;
+
+	private int[] values;
+
+	private boolean[] used;
+
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public IntIntHashMap()
+	{
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param expectedSize
+	 *            the number of entries the map should hold without being resized
+	 */
+	public IntIntHashMap(final int expectedSize)
+	{
+		allocate(IntHashing.capacity(expectedSize));
+	}
+
+	private void allocate(final int capacity)
+	{
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+	}
+
+	/**
+	 * @param key
+	 * @param defaultValue
+	 *            the value to return if the key is not mapped
+	 * @return the value of the key or the default value
+	 */
+	public int get(final int key, final int defaultValue)
+	{
+		final int slot = slot(key);
+		return used[slot] ? values[slot] : defaultValue;
+	}
+
+	/**
+	 * @param key
+	 * @return <code>true</code> if the key is mapped
+	 */
+	public boolean containsKey(final int key)
+	{
+		return used[slot(key)];
+	}
+
+	/**
+	 * Maps a key to a value.
+	 * 
+	 * @param key
+	 * @param value
+	 */
+	public void put(final int key, final int value)
+	{
+		int slot = slot(key);
+		if (used[slot] == false)
+		{
+			if (IntHashing.isFull(size, keys.length))
+			{
+				resize();
+				slot = slot(key);
+			}
+			used[slot] = true;
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Removes a key.
+	 * 
+	 * @param key
+	 * @return <code>true</code> if the key was mapped
+	 */
+	public boolean remove(final int key)
+	{
+		int removed = slot(key);
+		if (used[removed] == false)
+		{
+			return false;
+		}
+
+		// shift following entries of the probe sequence back, so lookups need no markers
+		final int mask = keys.length - 1;
+		int slot = removed;
+		while (true)
+		{
+			slot = (slot + 1) & mask;
+			if (used[slot] == false)
+			{
+				break;
+			}
+			if (IntHashing.shift(removed, slot, IntHashing.hash(keys[slot]) & mask))
+			{
+				keys[removed] = keys[slot];
+				values[removed] = values[slot];
+				removed = slot;
+			}
+		}
+		used[removed] = false;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	public void clear()
+	{
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * @return the number of mapped keys
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return <code>true</code> if no key is mapped
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @param key
+	 * @return the slot of the key or the empty slot it would be put into
+	 */
+	private int slot(final int key)
+	{
+		final int mask = keys.length - 1;
+		int slot = IntHashing.hash(key) & mask;
+		while (used[slot] && (keys[slot] != key))
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void resize()
+	{
+		final int[] oldKeys = keys;
+		final int[] oldValues = values;
+		final boolean[] oldUsed = used;
+
+		allocate(IntHashing.grow(keys.length));
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldUsed[i])
+			{
+				final int slot = slot(oldKeys[i]);
+				used[slot] = true;
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from int keys to values ordered from the least recently used entry to the most recently
+ * used one, like a {@link java.util.LinkedHashMap} in access order. The keys are not boxed and no
+ * objects are created for the entries, the order is kept in arrays of slot indices. Not thread
+ * safe.
+ * 
+ * @param <V>
+ *            the type of the values
+ */
+public class IntLruMap<V> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** marks the end of the order */
+	private static final int NONE = -1;
+
+	private int[] keys;
+
+	/** the values, <code>null</code> for an empty slot */
+	private Object[] values;
+
+	/** the slot of the entry used before the one in a slot */
+	private int[] before;
+
+	/** the slot of the entry used after the one in a slot */
+	private int[] after;
+
+	/** slot of the least recently used entry */
+	private int eldest = NONE;
+
+	/** slot of the most recently used entry */
+	private int youngest = NONE;
+
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public IntLruMap()
+	{
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param expectedSize
+	 *            the number of entries the map should hold without being resized
+	 */
+	public IntLruMap(final int expectedSize)
+	{
+		allocate(IntHashing.capacity(expectedSize));
+	}
+
+	private void allocate(final int capacity)
+	{
+		keys = new int[capacity];
+		values = new Object[capacity];
+		before = new int[capacity];
+		after = new int[capacity];
+	}
+
+	/**
+	 * Gets the value of a key, making it the most recently used entry.
+	 * 
+	 * @param key
+	 * @return the value or <code>null</code> if the key is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final int key)
+	{
+		final int slot = slot(key);
+		if (values[slot] == null)
+		{
+			return null;
+		}
+		moveToYoungest(slot);
+		return (V)values[slot];
+	}
+
+	/**
+	 * @param key
+	 * @return <code>true</code> if the key is mapped, its entry is not used by this check
+	 */
+	public boolean containsKey(final int key)
+	{
+		return values[slot(key)] != null;
+	}
+
+	/**
+	 * Maps a key to a value, making it the most recently used entry.
+	 * 
+	 * @param key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value of the key or <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final int key, final V value)
+	{
+		if (value == null)
+		{
+			throw new IllegalArgumentException("value must not be null");
+		}
+
+		int slot = slot(key);
+		final V previous = (V)values[slot];
+		if (previous == null)
+		{
+			if (IntHashing.isFull(size, keys.length))
+			{
+				resize();
+				slot = slot(key);
+			}
+			keys[slot] = key;
+			values[slot] = value;
+			size++;
+			link(slot);
+		}
+		else
+		{
+			values[slot] = value;
+			moveToYoungest(slot);
+		}
+		return previous;
+	}
+
+	/**
+	 * Removes a key.
+	 * 
+	 * @param key
+	 * @return the value of the key or <code>null</code> if the key was not mapped
+	 */
+	public V remove(final int key)
+	{
+		final int slot = slot(key);
+		return values[slot] != null ? removeSlot(slot) : null;
+	}
+
+	/**
+	 * @return the key of the least recently used entry
+	 * @throws NoSuchElementException
+	 *             if the map is empty
+	 */
+	public int getEldestKey()
+	{
+		if (eldest == NONE)
+		{
+			throw new NoSuchElementException();
+		}
+		return keys[eldest];
+	}
+
+	/**
+	 * Removes the least recently used entry.
+	 * 
+	 * @return its value
+	 * @throws NoSuchElementException
+	 *             if the map is empty
+	 */
+	public V removeEldest()
+	{
+		if (eldest == NONE)
+		{
+			throw new NoSuchElementException();
+		}
+		return removeSlot(eldest);
+	}
+
+	/**
+	 * Gets the keys from the least to the most recently used one.
+	 * 
+	 * @return keys
+	 */
+	public int[] keys()
+	{
+		final int[] result = new int[size];
+		int i = 0;
+		for (int slot = eldest; slot != NONE; slot = after[slot])
+		{
+			result[i++] = keys[slot];
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		eldest = NONE;
+		youngest = NONE;
+		size = 0;
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return <code>true</code> if there are no entries
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @param key
+	 * @return the slot of the key or the empty slot it would be put into
+	 */
+	private int slot(final int key)
+	{
+		final int mask = keys.length - 1;
+		int slot = IntHashing.hash(key) & mask;
+		while ((values[slot] != null) && (keys[slot] != key))
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Appends an entry to the order.
+	 * 
+	 * @param slot
+	 */
+	private void link(final int slot)
+	{
+		before[slot] = youngest;
+		after[slot] = NONE;
+		if (youngest == NONE)
+		{
+			eldest = slot;
+		}
+		else
+		{
+			after[youngest] = slot;
+		}
+		youngest = slot;
+	}
+
+	/**
+	 * Removes an entry from the order.
+	 * 
+	 * @param slot
+	 */
+	private void unlink(final int slot)
+	{
+		if (before[slot] == NONE)
+		{
+			eldest = after[slot];
+		}
+		else
+		{
+			after[before[slot]] = after[slot];
+		}
+		if (after[slot] == NONE)
+		{
+			youngest = before[slot];
+		}
+		else
+		{
+			before[after[slot]] = before[slot];
+		}
+	}
+
+	private void moveToYoungest(final int slot)
+	{
+		if (slot != youngest)
+		{
+			unlink(slot);
+			link(slot);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int removed)
+	{
+		final V value = (V)values[removed];
+		unlink(removed);
+
+		// shift following entries of the probe sequence back, so lookups need no markers
+		final int mask = keys.length - 1;
+		int slot = removed;
+		while (true)
+		{
+			slot = (slot + 1) & mask;
+			if (values[slot] == null)
+			{
+				break;
+			}
+			if (IntHashing.shift(removed, slot, IntHashing.hash(keys[slot]) & mask))
+			{
+				move(slot, removed);
+				removed = slot;
+			}
+		}
+		values[removed] = null;
+		size--;
+		return value;
+	}
+
+	/**
+	 * Moves an entry to another slot, keeping its position in the order.
+	 * 
+	 * @param from
+	 * @param to
+	 */
+	private void move(final int from, final int to)
+	{
+		keys[to] = keys[from];
+		values[to] = values[from];
+		before[to] = before[from];
+		after[to] = after[from];
+
+		if (before[to] == NONE)
+		{
+			eldest = to;
+		}
+		else
+		{
+			after[before[to]] = to;
+		}
+		if (after[to] == NONE)
+		{
+			youngest = to;
+		}
+		else
+		{
+			before[after[to]] = to;
+		}
+	}
+
+	private void resize()
+	{
+		final int[] oldKeys = keys;
+		final Object[] oldValues = values;
+		final int[] oldAfter = after;
+		final int oldEldest = eldest;
+
+		allocate(IntHashing.grow(keys.length));
+		eldest = NONE;
+		youngest = NONE;
+
+		// re-insert in order
+		for (int old = oldEldest; old != NONE; old = oldAfter[old])
+		{
+			final int slot = slot(oldKeys[old]);
+			keys[slot] = oldKeys[old];
+			values[slot] = oldValues[old];
+			link(slot);
+		}
+	}
+}
@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.io.Serializable;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * The common subset of {@link SimpleDateFormat} patterns, parsed and formatted without a
+ * {@link DateFormat} instance.
+ * <p>
+ * Supported are lenient formats of the gregorian calendar with numeric day, month and year fields
+ * separated by literals, e.g. <code>M/d/yy</code> or <code>dd.MM.yy</code>. Two digit years are
+ * interpreted relative to the default century of {@link SimpleDateFormat}. Text containing
+ * anything else than digits and the literals of the pattern is not handled, the callers fall back
+ * to the {@link DateFormat} for it.
+ */
+final class DatePattern implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** marker for locales without a supported pattern */
+	static final DatePattern UNSUPPORTED = new DatePattern(new char[0], new int[0],
+		new String[0], null);
+
+	/** maximum number of digits parsed for a field */
+	private static final int MAX_DIGITS = 9;
+
+	/** calendars reused by each thread */
+	private static final ThreadLocal<GregorianCalendar> CALENDARS = new ThreadLocal<GregorianCalendar>();
+
+	/** the field letters of the pattern, <code>0</code> for a literal */
+	private final char[] letters;
+
+	/** the number of pattern letters of each field */
+	private final int[] counts;
+
+	/** the literals, <code>null</code> for a field */
+	private final String[] literals;
+
+	/** the time zone, <code>null</code> for the current default time zone */
+	private final TimeZone timeZone;
+
+	private DatePattern(final char[] letters, final int[] counts, final String[] literals,
+		final TimeZone timeZone)
+	{
+		this.letters = letters;
+		this.counts = counts;
+		this.literals = literals;
+		this.timeZone = timeZone;
+	}
+
+	/**
+	 * Gets the pattern of the date format the converter uses for the locale, analyzing the format
+	 * once per locale.
+	 *
+	 * @param patterns
+	 *            the patterns of the converter keyed by locale
+	 * @param converter
+	 *            the converter
+	 * @param locale
+	 *            the locale, may be <code>null</code> for the default locale
+	 * @return pattern or <code>null</code> if the format is not supported
+	 */
+	static DatePattern get(final Map<Locale, DatePattern> patterns,
+		final DateConverter converter, Locale locale)
+	{
+		if (locale == null)
+		{
+			locale = Locale.getDefault();
+		}
+
+		DatePattern pattern = patterns.get(locale);
+		if (pattern == null)
+		{
+			pattern = of(converter.getDateFormat(locale));
+			if (pattern == null)
+			{
+				pattern = UNSUPPORTED;
+			}
+			patterns.put(locale, pattern);
+		}
+		return pattern == UNSUPPORTED ? null : pattern;
+	}
+
+	/**
+	 * Analyzes a date format.
+	 *
+	 * @param format
+	 * @return the equivalent pattern or <code>null</code> if the format is not supported
+	 */
+	static DatePattern of(final DateFormat format)
+	{
+		if (((format instanceof SimpleDateFormat) == false) || (format.isLenient() == false) ||
+			(format.getCalendar().getClass() != GregorianCalendar.class) ||
+			((format.getNumberFormat() instanceof DecimalFormat) == false))
+		{
+			return null;
+		}
+
+		final SimpleDateFormat simpleFormat = (SimpleDateFormat)format;
+		final GregorianCalendar calendar = (GregorianCalendar)simpleFormat.getCalendar();
+		final DecimalFormat numberFormat = (DecimalFormat)simpleFormat.getNumberFormat();
+		if ((numberFormat.getDecimalFormatSymbols().getZeroDigit() != '0') ||
+			(calendar.getGregorianChange().equals(new GregorianCalendar().getGregorianChange()) == false))
+		{
+			return null;
+		}
+
+		// the two digit year start has to be the default one, 80 years before now
+		final GregorianCalendar centuryStart = new GregorianCalendar(calendar.getTimeZone());
+		centuryStart.add(Calendar.YEAR, -80);
+		if (Math.abs(centuryStart.getTimeInMillis() -
+			simpleFormat.get2DigitYearStart().getTime()) > 60 * 1000)
+		{
+			return null;
+		}
+
+		final List<Character> letters = new ArrayList<Character>();
+		final List<Integer> counts = new ArrayList<Integer>();
+		final List<String> literals = new ArrayList<String>();
+		final String pattern = simpleFormat.toPattern();
+		int fields = 0;
+		for (int i = 0; i < pattern.length();)
+		{
+			final char c = pattern.charAt(i);
+			int end = i + 1;
+			if ((c == 'd') || (c == 'M') || (c == 'y'))
+			{
+				while ((end < pattern.length()) && (pattern.charAt(end) == c))
+				{
+					end++;
+				}
+				if (((c != 'y') && (end - i > 2)) || (fields & field(c)) != 0 ||
+					(letters.isEmpty() == false && letters.get(letters.size() - 1) != 0))
+				{
+					// text months, repeated fields and abutting fields are not supported
+					return null;
+				}
+				fields |= field(c);
+				letters.add(c);
+				counts.add(end - i);
+				literals.add(null);
+			}
+			else
+			{
+				while ((end < pattern.length()) && isLiteral(pattern.charAt(end)))
+				{
+					end++;
+				}
+				if (isLiteral(c) == false)
+				{
+					return null;
+				}
+				letters.add((char)0);
+				counts.add(0);
+				literals.add(pattern.substring(i, end));
+			}
+			i = end;
+		}
+
+		if (fields != (field('d') | field('M') | field('y')))
+		{
+			return null;
+		}
+
+		final char[] letterArray = new char[letters.size()];
+		final int[] countArray = new int[counts.size()];
+		for (int i = 0; i < letterArray.length; i++)
+		{
+			letterArray[i] = letters.get(i);
+			countArray[i] = counts.get(i);
+		}
+
+		TimeZone timeZone = calendar.getTimeZone();
+		if (timeZone.equals(TimeZone.getDefault()))
+		{
+			timeZone = null;
+		}
+
+		return new DatePattern(letterArray, countArray, literals.toArray(new String[literals.size()]),
+			timeZone);
+	}
+
+	/**
+	 * Parses the text like a lenient {@link SimpleDateFormat}.
+	 *
+	 * @param text
+	 * @return the date or <code>null</code> if the text is not supported
+	 */
+	Date parse(final String text)
+	{
+		int index = 0;
+		int day = 0;
+		int month = 0;
+		int year = 0;
+		boolean twoDigitYear = false;
+
+		for (int i = 0; i < letters.length; i++)
+		{
+			if (letters[i] == 0)
+			{
+				if (text.startsWith(literals[i], index) == false)
+				{
+					return null;
+				}
+				index += literals[i].length();
+			}
+			else
+			{
+				final int start = index;
+				int value = 0;
+				while ((index < text.length()) && isDigit(text.charAt(index)))
+				{
+					if (index - start == MAX_DIGITS)
+					{
+						return null;
+					}
+					value = value * 10 + (text.charAt(index) - '0');
+					index++;
+				}
+				if (index == start)
+				{
+					return null;
+				}
+
+				switch (letters[i])
+				{
+					case 'd' :
+						day = value;
+						break;
+					case 'M' :
+						month = value;
+						break;
+					default :
+						year = value;
+						twoDigitYear = (counts[i] <= 2) && (index - start == 2);
+				}
+			}
+		}
+
+		if (index != text.length())
+		{
+			return null;
+		}
+
+		final GregorianCalendar calendar = getCalendar();
+
+		boolean ambiguousYear = false;
+		long centuryStart = 0;
+		if (twoDigitYear)
+		{
+			calendar.setTimeInMillis(System.currentTimeMillis());
+			calendar.add(Calendar.YEAR, -80);
+			centuryStart = calendar.getTimeInMillis();
+
+			final int centuryStartYear = calendar.get(Calendar.YEAR);
+			final int ambiguousTwoDigitYear = centuryStartYear % 100;
+			ambiguousYear = (year == ambiguousTwoDigitYear);
+			year += (centuryStartYear / 100) * 100 + (year < ambiguousTwoDigitYear ? 100 : 0);
+		}
+
+		calendar.clear();
+		calendar.set(year, month - 1, day);
+		long time = calendar.getTimeInMillis();
+		if (ambiguousYear && (time < centuryStart))
+		{
+			calendar.clear();
+			calendar.set(year + 100, month - 1, day);
+			time = calendar.getTimeInMillis();
+		}
+		return new Date(time);
+	}
+
+	/**
+	 * Formats the date like a {@link SimpleDateFormat}.
+	 *
+	 * @param date
+	 * @return the formatted date or <code>null</code> if it is not supported
+	 */
+	String format(final Date date)
+	{
+		final GregorianCalendar calendar = getCalendar();
+		calendar.setTime(date);
+		if (calendar.get(Calendar.ERA) != GregorianCalendar.AD)
+		{
+			return null;
+		}
+
+		final StringBuilder builder = new StringBuilder(10);
+		for (int i = 0; i < letters.length; i++)
+		{
+			switch (letters[i])
+			{
+				case 0 :
+					builder.append(literals[i]);
+					break;
+				case 'd' :
+					append(builder, calendar.get(Calendar.DAY_OF_MONTH), counts[i]);
+					break;
+				case 'M' :
+					append(builder, calendar.get(Calendar.MONTH) + 1, counts[i]);
+					break;
+				default :
+					final int year = calendar.get(Calendar.YEAR);
+					if (counts[i] == 2)
+					{
+						append(builder, year % 100, 2);
+					}
+					else
+					{
+						append(builder, year, counts[i]);
+					}
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return the calendar of the current thread set to the time zone of this pattern
+	 */
+	private GregorianCalendar getCalendar()
+	{
+		GregorianCalendar calendar = CALENDARS.get();
+		if (calendar == null)
+		{
+			calendar = new GregorianCalendar();
+			CALENDARS.set(calendar);
+		}
+		calendar.setTimeZone(timeZone != null ? timeZone : TimeZone.getDefault());
+		return calendar;
+	}
+
+	/**
+	 * Appends the value padded with zeros to the minimum number of digits.
+	 *
+	 * @param builder
+	 * @param value
+	 * @param digits
+	 */
+	private static void append(final StringBuilder builder, final int value, final int digits)
+	{
+		for (int limit = 10, i = 1; i < digits; limit *= 10, i++)
+		{
+			if (value < limit)
+			{
+				builder.append('0');
+			}
+		}
+		builder.append(value);
+	}
+
+	private static int field(final char letter)
+	{
+		return letter == 'd' ? 1 : letter == 'M' ? 2 : 4;
+	}
+
+	/**
+	 * @param c
+	 * @return <code>true</code> if the character is a literal of a pattern which can be matched
+	 *         exactly, {@link SimpleDateFormat} skips whitespace before fields
+	 */
+	private static boolean isLiteral(final char c)
+	{
+		return ((c < 'a') || (c > 'z')) && ((c < 'A') || (c > 'Z')) && (c != '\'') && (c != ' ') &&
+			(c != '\t') && (isDigit(c) == false);
+	}
+
+	private static boolean isDigit(final char c)
+	{
+		return (c >= '0') && (c <= '9');
+	}
+}
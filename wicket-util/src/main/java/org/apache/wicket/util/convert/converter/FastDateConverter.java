@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A {@link DateConverter} which parses and formats common numeric date patterns without creating
+ * a {@link java.text.DateFormat}, falling back to it for all other patterns and input.
+ * <p>
+ * The pattern of a locale is analyzed on first use of {@link #getDateFormat(Locale)}, so
+ * subclasses have to return the same format for a locale each time.
+ */
+public class FastDateConverter extends DateConverter
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Map<Locale, DatePattern> patterns = new ConcurrentHashMap<Locale, DatePattern>();
+
+	@Override
+	public Date convertToObject(final String value, final Locale locale)
+	{
+		final DatePattern pattern = DatePattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			final Date date = pattern.parse(value);
+			if (date != null)
+			{
+				return date;
+			}
+		}
+		return super.convertToObject(value, locale);
+	}
+
+	@Override
+	public String convertToString(final Date value, final Locale locale)
+	{
+		final DatePattern pattern = DatePattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			final String string = pattern.format(value);
+			if (string != null)
+			{
+				return string;
+			}
+		}
+		return super.convertToString(value, locale);
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.util.convert.IConverter;
+
+
+/**
+ * An {@link IntegerConverter} which parses and formats common number patterns without cloning a
+ * {@link java.text.NumberFormat}, falling back to it for all other patterns and input.
+ */
+public class FastIntegerConverter extends IntegerConverter
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The singleton instance for a fast integer converter
+	 */
+	public static final IConverter<Integer> INSTANCE = new FastIntegerConverter();
+
+	private final Map<Locale, NumberPattern> patterns = new ConcurrentHashMap<Locale, NumberPattern>();
+
+	@Override
+	public Integer convertToObject(final String value, final Locale locale)
+	{
+		final NumberPattern pattern = NumberPattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			final long parsed = pattern.parse(value);
+			if (parsed != NumberPattern.FAILED)
+			{
+				final long number = NumberPattern.unscaled(parsed);
+				if ((number >= Integer.MIN_VALUE) && (number <= Integer.MAX_VALUE))
+				{
+					return (int)number;
+				}
+			}
+		}
+		return super.convertToObject(value, locale);
+	}
+
+	@Override
+	public String convertToString(final Integer value, final Locale locale)
+	{
+		final NumberPattern pattern = NumberPattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			return pattern.format(value.longValue());
+		}
+		return super.convertToString(value, locale);
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.util.convert.IConverter;
+
+
+/**
+ * A {@link LongConverter} which parses and formats common number patterns without cloning a
+ * {@link java.text.NumberFormat}, falling back to it for all other patterns and input.
+ */
+public class FastLongConverter extends LongConverter
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The singleton instance for a fast long converter
+	 */
+	public static final IConverter<Long> INSTANCE = new FastLongConverter();
+
+	private final Map<Locale, NumberPattern> patterns = new ConcurrentHashMap<Locale, NumberPattern>();
+
+	@Override
+	public Long convertToObject(final String value, final Locale locale)
+	{
+		final NumberPattern pattern = NumberPattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			final long parsed = pattern.parse(value);
+			if (parsed != NumberPattern.FAILED)
+			{
+				return NumberPattern.unscaled(parsed);
+			}
+		}
+		return super.convertToObject(value, locale);
+	}
+
+	@Override
+	public String convertToString(final Long value, final Locale locale)
+	{
+		final NumberPattern pattern = NumberPattern.get(patterns, this, locale);
+		if ((pattern != null) && (value != null))
+		{
+			return pattern.format(value.longValue());
+		}
+		return super.convertToString(value, locale);
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The common subset of {@link DecimalFormat} patterns, parsed and formatted without a
+ * {@link NumberFormat} instance.
+ * <p>
+ * Supported are patterns without prefixes and suffixes besides a negative prefix, with ASCII
+ * digits, optional grouping by three and <code>HALF_EVEN</code> rounding, e.g.
+ * <code>#,##0.###</code> for most locales. Values which would need rounding, an exponent or more
+ * than {@value #MAX_DIGITS} digits are not handled, the callers fall back to the
+ * {@link NumberFormat} for them.
+ * <p>
+ * Parse results are encoded into a single <code>long</code> to avoid allocations, see
+ * {@link #unscaled(long)} and {@link #scale(long)}.
+ */
+final class NumberPattern implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** result of {@link #parse(String)} if the text can't be parsed */
+	static final long FAILED = Long.MIN_VALUE;
+
+	/** marker for locales without a supported pattern */
+	static final NumberPattern UNSUPPORTED = new NumberPattern("-", (char)0, '.', 0, true);
+
+	/** maximum number of parsed digits, so that the encoded result fits into a long */
+	private static final int MAX_DIGITS = 17;
+
+	/** bits used for the scale in the encoded result */
+	private static final int SCALE_BITS = 5;
+
+	private static final double[] POWERS_OF_TEN = new double[MAX_DIGITS + 1];
+
+	static
+	{
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+		{
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private final String negativePrefix;
+
+	/** the grouping separator or <code>0</code> if grouping is not used */
+	private final char groupingSeparator;
+
+	private final char decimalSeparator;
+
+	private final int maximumFractionDigits;
+
+	/** whether parsing stops at the decimal separator */
+	private final boolean parseIntegerOnly;
+
+	private NumberPattern(final String negativePrefix, final char groupingSeparator,
+		final char decimalSeparator, final int maximumFractionDigits, final boolean parseIntegerOnly)
+	{
+		this.negativePrefix = negativePrefix;
+		this.groupingSeparator = groupingSeparator;
+		this.decimalSeparator = decimalSeparator;
+		this.maximumFractionDigits = maximumFractionDigits;
+		this.parseIntegerOnly = parseIntegerOnly;
+	}
+
+	/**
+	 * Gets the pattern of the number format the converter uses for the locale, analyzing the
+	 * format once per locale.
+	 *
+	 * @param patterns
+	 *            the patterns of the converter keyed by locale
+	 * @param converter
+	 *            the converter
+	 * @param locale
+	 *            the locale, may be <code>null</code> for the default locale
+	 * @return pattern or <code>null</code> if the format is not supported
+	 */
+	static NumberPattern get(final Map<Locale, NumberPattern> patterns,
+		final AbstractNumberConverter<?> converter, Locale locale)
+	{
+		if (locale == null)
+		{
+			locale = Locale.getDefault();
+		}
+
+		NumberPattern pattern = patterns.get(locale);
+		if (pattern == null)
+		{
+			pattern = of(converter.getNumberFormat(locale));
+			if (pattern == null)
+			{
+				pattern = UNSUPPORTED;
+			}
+			patterns.put(locale, pattern);
+		}
+		return pattern == UNSUPPORTED ? null : pattern;
+	}
+
+	/**
+	 * Analyzes a number format.
+	 *
+	 * @param format
+	 * @return the equivalent pattern or <code>null</code> if the format is not supported
+	 */
+	static NumberPattern of(final NumberFormat format)
+	{
+		if ((format instanceof DecimalFormat) == false)
+		{
+			return null;
+		}
+
+		final DecimalFormat decimalFormat = (DecimalFormat)format;
+		final DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+		final String negativePrefix = decimalFormat.getNegativePrefix();
+
+		if ((symbols.getZeroDigit() != '0') || (decimalFormat.getMultiplier() != 1) ||
+			(decimalFormat.getPositivePrefix().length() != 0) ||
+			(decimalFormat.getPositiveSuffix().length() != 0) ||
+			(decimalFormat.getNegativeSuffix().length() != 0) || (negativePrefix.length() == 0) ||
+			isDigit(negativePrefix.charAt(0)) || decimalFormat.isDecimalSeparatorAlwaysShown() ||
+			(decimalFormat.getMinimumIntegerDigits() != 1) ||
+			(decimalFormat.getMaximumIntegerDigits() < MAX_DIGITS + 2) ||
+			(decimalFormat.getMinimumFractionDigits() != 0) ||
+			(decimalFormat.getMaximumFractionDigits() > MAX_DIGITS) ||
+			(decimalFormat.getRoundingMode() != RoundingMode.HALF_EVEN))
+		{
+			return null;
+		}
+
+		char groupingSeparator = 0;
+		if (decimalFormat.isGroupingUsed())
+		{
+			if (decimalFormat.getGroupingSize() != 3)
+			{
+				return null;
+			}
+			groupingSeparator = symbols.getGroupingSeparator();
+		}
+
+		// a decimal is parsed into a BigDecimal, see AbstractDecimalConverter#setNumberFormat()
+		if ((decimalFormat.isParseIntegerOnly() == false) &&
+			(decimalFormat.isParseBigDecimal() == false))
+		{
+			return null;
+		}
+
+		final char decimalSeparator = symbols.getDecimalSeparator();
+		if (isDigit(groupingSeparator) || isDigit(decimalSeparator) ||
+			(groupingSeparator == decimalSeparator))
+		{
+			return null;
+		}
+
+		return new NumberPattern(negativePrefix, groupingSeparator, decimalSeparator,
+			decimalFormat.getMaximumFractionDigits(), decimalFormat.isParseIntegerOnly());
+	}
+
+	/**
+	 * Parses digits with optional negative prefix, grouping separators and decimal separator.
+	 *
+	 * @param text
+	 * @return the encoded number or {@link #FAILED} if the text is not supported
+	 */
+	long parse(final String text)
+	{
+		final int length = text.length();
+
+		int index = 0;
+		boolean negative = false;
+		if (text.startsWith(negativePrefix))
+		{
+			negative = true;
+			index = negativePrefix.length();
+		}
+
+		long unscaled = 0;
+		int digits = 0;
+		int scale = -1;
+		boolean grouping = false;
+		for (; index < length; index++)
+		{
+			final char c = text.charAt(index);
+			if (isDigit(c))
+			{
+				if (digits == MAX_DIGITS)
+				{
+					return FAILED;
+				}
+				unscaled = unscaled * 10 + (c - '0');
+				digits++;
+				if (scale >= 0)
+				{
+					scale++;
+				}
+				grouping = false;
+			}
+			else if (isGroupingSeparator(c) && (digits > 0) && (scale < 0) && (grouping == false))
+			{
+				grouping = true;
+			}
+			else if ((c == decimalSeparator) && (parseIntegerOnly == false) && (digits > 0) &&
+				(scale < 0) && (grouping == false))
+			{
+				scale = 0;
+			}
+			else
+			{
+				return FAILED;
+			}
+		}
+
+		if ((digits == 0) || grouping)
+		{
+			return FAILED;
+		}
+
+		final long encoded = (unscaled << SCALE_BITS) | Math.max(scale, 0);
+		return negative ? -encoded : encoded;
+	}
+
+	/**
+	 * @param parsed
+	 *            result of {@link #parse(String)}
+	 * @return the unscaled value of the parsed number
+	 */
+	static long unscaled(final long parsed)
+	{
+		return parsed < 0 ? -(-parsed >> SCALE_BITS) : parsed >> SCALE_BITS;
+	}
+
+	/**
+	 * @param parsed
+	 *            result of {@link #parse(String)}
+	 * @return the number of fraction digits of the parsed number
+	 */
+	static int scale(final long parsed)
+	{
+		return (int)(Math.abs(parsed) & ((1 << SCALE_BITS) - 1));
+	}
+
+	/**
+	 * Converts a parsed number to a double, if this is possible without rounding errors.
+	 *
+	 * @param parsed
+	 *            result of {@link #parse(String)}
+	 * @return the double or {@link Double#NaN} if it can't be computed exactly
+	 */
+	static double toDouble(final long parsed)
+	{
+		final long unscaled = unscaled(parsed);
+		if (Math.abs(unscaled) >= (1L << 53))
+		{
+			return Double.NaN;
+		}
+
+		// both operands are exact, thus the quotient is rounded correctly
+		return unscaled / POWERS_OF_TEN[scale(parsed)];
+	}
+
+	/**
+	 * Converts a parsed number to a big decimal.
+	 *
+	 * @param parsed
+	 *            result of {@link #parse(String)}
+	 * @return big decimal with the scale of the parsed text
+	 */
+	static BigDecimal toBigDecimal(final long parsed)
+	{
+		return BigDecimal.valueOf(unscaled(parsed), scale(parsed));
+	}
+
+	/**
+	 * @param value
+	 * @return the formatted value
+	 */
+	String format(final long value)
+	{
+		final String digits = Long.toString(value);
+		return format(value < 0, digits, value < 0 ? 1 : 0, digits.length(), digits.length());
+	}
+
+	/**
+	 * @param value
+	 * @return the formatted value or <code>null</code> if it has to be rounded or is too large
+	 */
+	String format(final double value)
+	{
+		if (Double.isNaN(value) || Double.isInfinite(value) ||
+			((value == 0) && (Double.doubleToRawLongBits(value) != 0)))
+		{
+			// negative zero is formatted as "-0"
+			return null;
+		}
+
+		final String plain = Double.toString(Math.abs(value));
+		if (plain.indexOf('E') >= 0)
+		{
+			return null;
+		}
+		return formatPlain(value < 0, plain);
+	}
+
+	/**
+	 * @param value
+	 * @return the formatted value or <code>null</code> if it has to be rounded
+	 */
+	String format(final BigDecimal value)
+	{
+		final int signum = value.signum();
+		return formatPlain(signum < 0, (signum < 0 ? value.negate() : value).toPlainString());
+	}
+
+	/**
+	 * @param negative
+	 * @param plain
+	 *            the absolute value without exponent
+	 * @return the formatted value or <code>null</code> if it has to be rounded
+	 */
+	private String formatPlain(final boolean negative, final String plain)
+	{
+		int integerEnd = plain.indexOf('.');
+		int fractionEnd = plain.length();
+		if (integerEnd < 0)
+		{
+			integerEnd = fractionEnd;
+		}
+		else
+		{
+			while ((fractionEnd > integerEnd + 1) && (plain.charAt(fractionEnd - 1) == '0'))
+			{
+				fractionEnd--;
+			}
+			if (fractionEnd - integerEnd - 1 > maximumFractionDigits)
+			{
+				return null;
+			}
+		}
+		return format(negative, plain, 0, integerEnd, fractionEnd);
+	}
+
+	/**
+	 * Formats the integer digits with grouping and the fraction digits following the dot.
+	 *
+	 * @param negative
+	 * @param digits
+	 * @param integerStart
+	 * @param integerEnd
+	 * @param fractionEnd
+	 * @return formatted number
+	 */
+	private String format(final boolean negative, final String digits, final int integerStart,
+		final int integerEnd, final int fractionEnd)
+	{
+		final int integerDigits = integerEnd - integerStart;
+		final StringBuilder builder = new StringBuilder(negativePrefix.length() + integerDigits +
+			integerDigits / 3 + fractionEnd - integerEnd);
+
+		if (negative)
+		{
+			builder.append(negativePrefix);
+		}
+
+		for (int i = integerStart; i < integerEnd; i++)
+		{
+			if ((groupingSeparator != 0) && (i > integerStart) && ((integerEnd - i) % 3 == 0))
+			{
+				builder.append(groupingSeparator);
+			}
+			builder.append(digits.charAt(i));
+		}
+
+		if (fractionEnd > integerEnd + 1)
+		{
+			builder.append(decimalSeparator);
+			builder.append(digits, integerEnd + 1, fractionEnd);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @param c
+	 * @return <code>true</code> if the character separates groups, a space is accepted for a
+	 *         no-break space like {@link AbstractNumberConverter} does
+	 */
+	private boolean isGroupingSeparator(final char c)
+	{
+		return (groupingSeparator != 0) &&
+			((c == groupingSeparator) || ((c == ' ') && (groupingSeparator == '\u00A0')));
+	}
+
+	private static boolean isDigit(final char c)
+	{
+		return (c >= '0') && (c <= '9');
+	}
+}
@@ -252,12 +252,13 @@ public final class FullyBufferedReader
 
 		if (closeBracketIndex != -1)
 		{
-			CharSequence tagCode = getSubstring(startPos, closeBracketIndex + 1);
+			// scan the tag code in place, without copying it
+			final int tagCodeLength = closeBracketIndex + 1 - startPos;
 
-			for (int i = 0; i < tagCode.length(); i++)
+			for (int i = 0; i < tagCodeLength; i++)
 			{
-				char currentChar = tagCode.charAt(i);
-				char previousTag = tagCode.charAt(i > 0 ? i - 1 : 0);
+				char currentChar = input.charAt(startPos + i);
+				char previousTag = input.charAt(startPos + (i > 0 ? i - 1 : 0));
 
 				if (quotationChar == 0 && (currentChar == '\'' || currentChar == '\"'))
 				{// I'm entering inside a quoted string. Set quotationChar
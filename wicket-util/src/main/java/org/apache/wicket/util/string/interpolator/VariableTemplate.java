@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string.interpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.util.io.IClusterable;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * A <code>String</code> split once into literal text and variables, to be interpolated repeatedly
+ * without scanning the string again. Interpolation gives the same result as a
+ * {@link MapVariableInterpolator}: variables are denoted by <code>${variableName}</code>,
+ * <code>$$</code> escapes a <code>$</code> and variables without a value are left in the result.
+ * 
+ * @see VariableInterpolator
+ */
+public final class VariableTemplate implements IClusterable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** the original string */
+	private final String string;
+
+	/** the literal text before each variable and after the last one */
+	private final String[] literals;
+
+	/** the names of the variables */
+	private final String[] variables;
+
+	private VariableTemplate(final String string, final String[] literals,
+		final String[] variables)
+	{
+		this.string = string;
+		this.literals = literals;
+		this.variables = variables;
+	}
+
+	/**
+	 * Splits a string into literals and variables.
+	 * 
+	 * @param string
+	 *            a <code>String</code> to interpolate into
+	 * @return template
+	 */
+	public static VariableTemplate parse(final String string)
+	{
+		final List<String> literals = new ArrayList<String>();
+		final List<String> variables = new ArrayList<String>();
+		final StringBuilder literal = new StringBuilder();
+
+		int start;
+		int pos = 0;
+		while ((start = lowerPositive(string.indexOf("$$", pos), string.indexOf("${", pos))) != -1)
+		{
+			literal.append(string, pos, start);
+
+			if (string.charAt(start + 1) == '$')
+			{
+				literal.append('$');
+				pos = start + 2;
+				continue;
+			}
+
+			pos = start;
+			final int endVariableName = string.indexOf('}', start + 2);
+			if (endVariableName == -1)
+			{
+				break;
+			}
+
+			literals.add(literal.toString());
+			literal.setLength(0);
+			variables.add(string.substring(start + 2, endVariableName));
+			pos = endVariableName + 1;
+		}
+		literal.append(string, pos, string.length());
+		literals.add(literal.toString());
+
+		return new VariableTemplate(string, literals.toArray(new String[literals.size()]),
+			variables.toArray(new String[variables.size()]));
+	}
+
+	private static int lowerPositive(final int i1, final int i2)
+	{
+		if (i2 < 0)
+		{
+			return i1;
+		}
+		else if (i1 < 0)
+		{
+			return i2;
+		}
+		else
+		{
+			return i1 < i2 ? i1 : i2;
+		}
+	}
+
+	/**
+	 * Interpolates the variables.
+	 * 
+	 * @param values
+	 *            the values of the variables, may be <code>null</code>
+	 * @return the interpolated <code>String</code>, the original one if there are no values
+	 */
+	public String interpolate(final Map<?, ?> values)
+	{
+		if (values == null)
+		{
+			return string;
+		}
+
+		final StringBuilder buffer = new StringBuilder(string.length() + 16 * variables.length);
+		for (int i = 0; i < variables.length; i++)
+		{
+			buffer.append(literals[i]);
+
+			final String value = Strings.toString(values.get(variables[i]));
+			if (value == null)
+			{
+				buffer.append("${").append(variables[i]).append('}');
+			}
+			else
+			{
+				buffer.append(value);
+			}
+		}
+		return buffer.append(literals[variables.length]).toString();
+	}
+
+	/**
+	 * @return the names of the variables, in the order of their occurrence
+	 */
+	public String[] getVariables()
+	{
+		return variables.clone();
+	}
+
+	/**
+	 * @return the original <code>String</code>
+	 */
+	@Override
+	public String toString()
+	{
+		return string;
+	}
+}
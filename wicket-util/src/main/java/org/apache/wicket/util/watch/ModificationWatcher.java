@@ -83,7 +83,7 @@ public class ModificationWatcher implements IModificationWatcher
 	}
 
 	@Override
-	public final boolean add(final IModifiable modifiable, final IChangeListener listener)
+	public boolean add(final IModifiable modifiable, final IChangeListener listener)
 	{
 		// Look up entry for modifiable
 		final Entry entry = modifiableToEntry.get(modifiable);
@@ -153,21 +153,44 @@ public class ModificationWatcher implements IModificationWatcher
 	{
 		for (Entry entry : modifiableToEntry.values())
 		{
-			// If the modifiable has been modified after the last known
-			// modification time
-			final Time modifiableLastModified = entry.modifiable.lastModifiedTime();
-			if ((modifiableLastModified != null) &&
-					modifiableLastModified.after(entry.lastModifiedTime))
-			{
-				// Notify all listeners that the modifiable was modified
-				entry.listeners.notifyListeners();
+			checkModified(entry);
+		}
+	}
 
-				// Update timestamp
-				entry.lastModifiedTime = modifiableLastModified;
-			}
+	/**
+	 * Checks whether a single entry was modified and notifies its listeners if so
+	 * 
+	 * @param entry
+	 *            the entry to check
+	 */
+	protected void checkModified(final Entry entry)
+	{
+		// If the modifiable has been modified after the last known
+		// modification time
+		final Time modifiableLastModified = entry.modifiable.lastModifiedTime();
+		if ((modifiableLastModified != null) &&
+				modifiableLastModified.after(entry.lastModifiedTime))
+		{
+			// Notify all listeners that the modifiable was modified
+			entry.listeners.notifyListeners();
+
+			// Update timestamp
+			entry.lastModifiedTime = modifiableLastModified;
 		}
 	}
 
+	/**
+	 * Gets the entry maintained for an <code>IModifiable</code> object.
+	 * 
+	 * @param modifiable
+	 *            an <code>IModifiable</code> object
+	 * @return the entry, or <code>null</code> if the modifiable is not being watched
+	 */
+	protected final Entry getEntry(final IModifiable modifiable)
+	{
+		return modifiableToEntry.get(modifiable);
+	}
+
 	@Override
 	public void destroy()
 	{
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import org.apache.wicket.util.collections.ConcurrentCache.Eviction;
+import org.apache.wicket.util.collections.ConcurrentCache.ILoader;
+import org.apache.wicket.util.collections.ConcurrentCache.IWeigher;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ConcurrentCache}
+ */
+public class ConcurrentCacheTest extends Assert
+{
+	/**
+	 * Tests that the least recently used entry is evicted
+	 */
+	@Test
+	public void lru()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(2);
+		assertEquals(1, cache.getStripes());
+
+		cache.put("1", "one");
+		cache.put("2", "two");
+		assertEquals("one", cache.get("1"));
+		assertNull(cache.put("3", "three"));
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get("2"));
+		assertEquals("one", cache.get("1"));
+		assertEquals("three", cache.get("3"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	/**
+	 * Tests that checking for a key counts neither a hit nor a miss, but counts as a use for LRU
+	 * eviction
+	 */
+	@Test
+	public void containsKey()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(2);
+
+		cache.put("1", "one");
+		cache.put("2", "two");
+		assertTrue(cache.containsKey("1"));
+		assertFalse(cache.containsKey("3"));
+		cache.put("3", "three");
+
+		assertFalse(cache.containsKey("2"));
+		assertTrue(cache.containsKey("1"));
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+	}
+
+	/**
+	 * Tests that the least frequently used entry is evicted
+	 */
+	@Test
+	public void lfu()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(3, null,
+			null, Eviction.LFU, 1);
+
+		cache.put("1", "one");
+		cache.put("2", "two");
+		cache.put("3", "three");
+		cache.get("1");
+		cache.get("1");
+		cache.get("2");
+		cache.get("3");
+		cache.get("3");
+
+		cache.put("4", "four");
+		assertNull(cache.get("2"));
+		assertEquals("one", cache.get("1"));
+		assertEquals("three", cache.get("3"));
+		assertEquals("four", cache.get("4"));
+	}
+
+	/**
+	 * Tests eviction by weight
+	 */
+	@Test
+	public void weight()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(10,
+			new IWeigher<String, String>()
+			{
+				private static final long serialVersionUID = 1L;
+
+				public long weigh(String key, String value)
+				{
+					return value.length();
+				}
+			}, null, Eviction.LRU, 1);
+
+		cache.put("1", "aaaa");
+		cache.put("2", "bbbb");
+		assertEquals(8, cache.getWeight());
+		cache.put("3", "cccc");
+		assertEquals(8, cache.getWeight());
+		assertFalse(cache.containsKey("1"));
+
+		cache.put("3", "c");
+		assertEquals(5, cache.getWeight());
+
+		// too heavy to be cached at all
+		cache.put("4", "ddddddddddd");
+		assertFalse(cache.containsKey("4"));
+		assertEquals(0, cache.getWeight());
+	}
+
+	/**
+	 * Tests expiry of entries
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void timeToLive() throws Exception
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(10,
+			Duration.milliseconds(20));
+
+		cache.put("1", "one");
+		assertEquals("one", cache.get("1"));
+		assertEquals("one", cache.toMap().get("1"));
+		Thread.sleep(40);
+		assertFalse(cache.containsKey("1"));
+		assertTrue(cache.toMap().isEmpty());
+		assertEquals(1, cache.size());
+		cache.removeExpired();
+		assertEquals(0, cache.size());
+
+		cache.put("2", "two");
+		Thread.sleep(40);
+		assertNull(cache.get("2"));
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Tests loading of missing values
+	 */
+	@Test
+	public void loader()
+	{
+		ConcurrentCache<Integer, String> cache = new ConcurrentCache<Integer, String>(100);
+		final int[] loads = { 0 };
+		ILoader<Integer, String> loader = new ILoader<Integer, String>()
+		{
+			public String load(Integer key)
+			{
+				loads[0]++;
+				return key < 0 ? null : "#" + key;
+			}
+		};
+
+		assertEquals("#1", cache.get(1, loader));
+		assertEquals("#1", cache.get(1, loader));
+		assertNull(cache.get(-1, loader));
+		assertEquals(2, loads[0]);
+		assertEquals(1, cache.getLoads());
+		assertEquals(1, cache.size());
+		assertEquals("#1", cache.putIfAbsent(1, "other"));
+	}
+
+	/**
+	 * Tests the maximum weight is kept with many stripes
+	 */
+	@Test
+	public void stripes()
+	{
+		ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(1000);
+		assertEquals(16, cache.getStripes());
+
+		for (int i = 0; i < 10000; i++)
+		{
+			cache.put(i, i);
+		}
+		assertTrue(cache.size() <= 1000 + 15);
+		assertTrue(cache.size() > 900);
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+}
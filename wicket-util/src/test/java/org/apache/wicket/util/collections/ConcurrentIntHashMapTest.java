@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link ConcurrentIntHashMap}
+ */
+public class ConcurrentIntHashMapTest extends Assert
+{
+	/**
+	 * Compares random operations with a {@link HashMap}
+	 */
+	@Test
+	public void random()
+	{
+		Random random = new Random(42);
+		ConcurrentIntHashMap<Integer> map = new ConcurrentIntHashMap<Integer>(4);
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+
+		for (int i = 0; i < 100000; i++)
+		{
+			int key = random.nextInt(500);
+			switch (random.nextInt(4))
+			{
+				case 0 :
+					assertEquals(expected.put(key, i), map.put(key, i));
+					break;
+				case 1 :
+					Integer absent = expected.get(key);
+					assertEquals(absent, map.putIfAbsent(key, i));
+					if (absent == null)
+					{
+						expected.put(key, i);
+					}
+					break;
+				case 2 :
+					assertEquals(expected.remove(key), map.remove(key));
+					break;
+				default :
+					assertEquals(expected.get(key), map.get(key));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+
+		List<Integer> values = map.values();
+		assertEquals(expected.size(), values.size());
+		assertTrue(values.containsAll(expected.values()));
+
+		map.clear();
+		assertTrue(map.isEmpty());
+	}
+
+	/**
+	 * Tests removal of a key mapped to a given value
+	 */
+	@Test
+	public void removeValue()
+	{
+		ConcurrentIntHashMap<String> map = new ConcurrentIntHashMap<String>();
+		map.put(1, "one");
+		assertFalse(map.remove(1, "uno"));
+		assertTrue(map.containsKey(1));
+		assertTrue(map.remove(1, "one"));
+		assertFalse(map.containsKey(1));
+	}
+
+	/**
+	 * Tests exclusive ownership of keys by concurrent threads
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void concurrentOwnership() throws Exception
+	{
+		final ConcurrentIntHashMap<Thread> map = new ConcurrentIntHashMap<Thread>();
+		final AtomicInteger errors = new AtomicInteger();
+
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++)
+		{
+			threads[t] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int i = 0; i < 20000; i++)
+					{
+						int key = i % 64;
+						if (map.putIfAbsent(key, this) == null)
+						{
+							if (map.get(key) != this)
+							{
+								errors.incrementAndGet();
+							}
+							map.remove(key, this);
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(0, errors.get());
+		assertTrue(map.isEmpty());
+	}
+}
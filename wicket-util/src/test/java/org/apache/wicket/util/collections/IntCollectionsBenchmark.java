@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures the int keyed collections against their boxed counterparts with the access patterns of
+ * the page management: page locks acquired and released, pages touched and evicted in least
+ * recently used order, and page ids mapped to window indices.
+ * <p>
+ * Not run as part of the build, start {@link #main(String[])} manually.
+ */
+public class IntCollectionsBenchmark
+{
+	private static final int ITERATIONS = 5000000;
+
+	private static final int PAGES = 1000;
+
+	/** page ids beyond the cache of {@link Integer#valueOf(int)} */
+	private static final int[] KEYS = new int[1 << 16];
+
+	static
+	{
+		Random random = new Random(42);
+		for (int i = 0; i < KEYS.length; i++)
+		{
+			KEYS[i] = 1000 + random.nextInt(PAGES);
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		for (int run = 0; run < 2; run++)
+		{
+			// the first run warms up
+			final boolean print = run == 1;
+
+			final Object lock = new Object();
+
+			final ConcurrentMap<Integer, Object> boxedLocks = new ConcurrentHashMap<Integer, Object>();
+			measure("ConcurrentHashMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					int hits = boxedLocks.putIfAbsent(key, lock) == null ? 1 : 0;
+					boxedLocks.remove(key, lock);
+					return hits;
+				}
+			});
+			final ConcurrentIntHashMap<Object> locks = new ConcurrentIntHashMap<Object>();
+			measure("ConcurrentIntHashMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					int hits = locks.putIfAbsent(key, lock) == null ? 1 : 0;
+					locks.remove(key, lock);
+					return hits;
+				}
+			});
+
+			final Map<Integer, Object> boxedLru = new LinkedHashMap<Integer, Object>(16, 0.75f,
+				true);
+			measure("LinkedHashMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					int hits = boxedLru.get(key) != null ? 1 : 0;
+					boxedLru.put(key, lock);
+					if (boxedLru.size() > PAGES / 2)
+					{
+						boxedLru.remove(boxedLru.keySet().iterator().next());
+					}
+					return hits;
+				}
+			});
+			final IntLruMap<Object> lru = new IntLruMap<Object>();
+			measure("IntLruMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					int hits = lru.get(key) != null ? 1 : 0;
+					lru.put(key, lock);
+					if (lru.size() > PAGES / 2)
+					{
+						lru.removeEldest();
+					}
+					return hits;
+				}
+			});
+
+			final IntHashMap<Integer> boxedIndices = new IntHashMap<Integer>();
+			final IntIntHashMap indices = new IntIntHashMap();
+			for (int i = 0; i < PAGES; i += 2)
+			{
+				boxedIndices.put(1000 + i, i);
+				indices.put(1000 + i, i);
+			}
+			measure("IntHashMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					Integer index = boxedIndices.get(key);
+					return index != null ? index : -1;
+				}
+			});
+			measure("IntIntHashMap", print, new Task()
+			{
+				@Override
+				int run(int key)
+				{
+					return indices.get(key, -1);
+				}
+			});
+		}
+	}
+
+	private static void measure(String name, boolean print, Task task)
+	{
+		final long allocation = allocatedBytes();
+		final long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < ITERATIONS; i++)
+		{
+			hash += task.run(KEYS[i & (KEYS.length - 1)]);
+		}
+		final long time = (System.nanoTime() - start) / 1000000;
+		final long allocated = (allocatedBytes() - allocation) / 1024;
+		if (print)
+		{
+			System.out.println(String.format("%-20s %5d ms %8d KB allocated (%d)", name, time,
+				allocated, hash));
+		}
+	}
+
+	/**
+	 * @return bytes allocated by the current thread or <code>0</code> if the virtual machine does
+	 *         not tell
+	 */
+	private static long allocatedBytes()
+	{
+		Object bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread()
+				.getId());
+		}
+		return 0;
+	}
+
+	private static abstract class Task
+	{
+		abstract int run(int key);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntIntHashMap}
+ */
+public class IntIntHashMapTest extends Assert
+{
+	/**
+	 * Compares random operations with a {@link HashMap}
+	 */
+	@Test
+	public void random()
+	{
+		Random random = new Random(42);
+		IntIntHashMap map = new IntIntHashMap();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+
+		for (int i = 0; i < 100000; i++)
+		{
+			int key = random.nextInt(300) - 100;
+			switch (random.nextInt(3))
+			{
+				case 0 :
+					map.put(key, i);
+					expected.put(key, i);
+					break;
+				case 1 :
+					assertEquals(expected.remove(key) != null, map.remove(key));
+					break;
+				default :
+					Integer value = expected.get(key);
+					assertEquals(value != null ? value : -1, map.get(key, -1));
+					assertEquals(value != null, map.containsKey(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(0));
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.collections;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntLruMap}
+ */
+public class IntLruMapTest extends Assert
+{
+	/**
+	 * Tests the order of the entries
+	 */
+	@Test
+	public void order()
+	{
+		IntLruMap<String> map = new IntLruMap<String>();
+		map.put(1, "one");
+		map.put(2, "two");
+		map.put(3, "three");
+		assertArrayEquals(new int[] { 1, 2, 3 }, map.keys());
+
+		assertEquals("one", map.get(1));
+		assertArrayEquals(new int[] { 2, 3, 1 }, map.keys());
+
+		assertEquals("two", map.put(2, "zwei"));
+		assertArrayEquals(new int[] { 3, 1, 2 }, map.keys());
+
+		assertTrue(map.containsKey(3));
+		assertEquals(3, map.getEldestKey());
+		assertEquals("three", map.removeEldest());
+		assertEquals("one", map.remove(1));
+		assertNull(map.remove(1));
+		assertEquals(1, map.size());
+		assertEquals("zwei", map.removeEldest());
+		assertTrue(map.isEmpty());
+	}
+
+	/**
+	 * Compares random operations with a {@link LinkedHashMap} in access order
+	 */
+	@Test
+	public void random()
+	{
+		Random random = new Random(42);
+		IntLruMap<Integer> map = new IntLruMap<Integer>();
+		Map<Integer, Integer> expected = new LinkedHashMap<Integer, Integer>(16, 0.75f, true);
+
+		for (int i = 0; i < 100000; i++)
+		{
+			// few keys, so removal often has to shift entries
+			int key = random.nextInt(200) * 64;
+			switch (random.nextInt(4))
+			{
+				case 0 :
+					assertEquals(expected.put(key, i), map.put(key, i));
+					break;
+				case 1 :
+					assertEquals(expected.remove(key), map.remove(key));
+					break;
+				case 2 :
+					assertEquals(expected.get(key), map.get(key));
+					break;
+				default :
+					if (expected.isEmpty() == false)
+					{
+						Iterator<Integer> eldest = expected.values().iterator();
+						assertEquals(eldest.next(), map.removeEldest());
+						eldest.remove();
+					}
+			}
+			assertEquals(expected.size(), map.size());
+		}
+
+		int[] keys = map.keys();
+		int i = 0;
+		for (Integer key : expected.keySet())
+		{
+			assertEquals(key.intValue(), keys[i++]);
+		}
+	}
+
+	/**
+	 * Tests serialization
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void serialize() throws Exception
+	{
+		IntLruMap<String> map = new IntLruMap<String>();
+		for (int i = 0; i < 100; i++)
+		{
+			map.put(i, "v" + i);
+		}
+		map.get(0);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(map);
+		out.close();
+
+		@SuppressWarnings("unchecked")
+		IntLruMap<String> clone = (IntLruMap<String>)new ObjectInputStream(
+			new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertArrayEquals(map.keys(), clone.keys());
+		assertEquals("v50", clone.get(50));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converters;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.wicket.util.convert.IConverter;
+import org.apache.wicket.util.convert.converter.BigDecimalConverter;
+import org.apache.wicket.util.convert.converter.DateConverter;
+import org.apache.wicket.util.convert.converter.DoubleConverter;
+import org.apache.wicket.util.convert.converter.FastBigDecimalConverter;
+import org.apache.wicket.util.convert.converter.FastDateConverter;
+import org.apache.wicket.util.convert.converter.FastDoubleConverter;
+import org.apache.wicket.util.convert.converter.FastIntegerConverter;
+import org.apache.wicket.util.convert.converter.IntegerConverter;
+
+/**
+ * Compares the throughput of the default converters with the fast converters, converting values
+ * to strings and back like a form or data table does for each cell.
+ * <p>
+ * Not run as part of the build, start {@link #main(String[])} manually.
+ */
+public class FastConvertersBenchmark
+{
+	private static final int CONVERSIONS = 1000000;
+
+	private static final Locale LOCALE = Locale.GERMANY;
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args)
+	{
+		run("Integer", IntegerConverter.INSTANCE, FastIntegerConverter.INSTANCE, 1234567);
+		run("Double", DoubleConverter.INSTANCE, FastDoubleConverter.INSTANCE, 1234.5);
+		run("BigDecimal", new BigDecimalConverter(), new FastBigDecimalConverter(),
+			new BigDecimal("-98765.43"));
+		run("Date", new DateConverter(), new FastDateConverter(), new Date());
+	}
+
+	private static <T> void run(String name, IConverter<T> converter,
+		IConverter<T> fastConverter, T value)
+	{
+		// warm up
+		convert(converter, value);
+		convert(fastConverter, value);
+
+		long time = convert(converter, value);
+		long fastTime = convert(fastConverter, value);
+		System.out.println(String.format("%-10s default: %5d ms, fast: %5d ms", name, time,
+			fastTime));
+	}
+
+	/**
+	 * Converts the value to a string and back.
+	 * 
+	 * @param converter
+	 * @param value
+	 * @return duration in milliseconds
+	 */
+	private static <T> long convert(IConverter<T> converter, T value)
+	{
+		long start = System.nanoTime();
+		int hash = 0;
+		for (int i = 0; i < CONVERSIONS; i++)
+		{
+			String string = converter.convertToString(value, LOCALE);
+			hash += converter.convertToObject(string, LOCALE).hashCode();
+		}
+		if (hash == 42)
+		{
+			// prevent elimination of the loop
+			System.out.println();
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
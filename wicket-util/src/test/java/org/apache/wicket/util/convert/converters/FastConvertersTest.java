@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.convert.converters;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+import org.apache.wicket.util.convert.ConversionException;
+import org.apache.wicket.util.convert.IConverter;
+import org.apache.wicket.util.convert.converter.BigDecimalConverter;
+import org.apache.wicket.util.convert.converter.DateConverter;
+import org.apache.wicket.util.convert.converter.DoubleConverter;
+import org.apache.wicket.util.convert.converter.FastBigDecimalConverter;
+import org.apache.wicket.util.convert.converter.FastDateConverter;
+import org.apache.wicket.util.convert.converter.FastDoubleConverter;
+import org.apache.wicket.util.convert.converter.FastIntegerConverter;
+import org.apache.wicket.util.convert.converter.FastLongConverter;
+import org.apache.wicket.util.convert.converter.IntegerConverter;
+import org.apache.wicket.util.convert.converter.LongConverter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the fast converters give the same results as the default ones.
+ */
+public final class FastConvertersTest extends Assert
+{
+	private static final Locale[] LOCALES = { Locale.US, Locale.GERMANY, Locale.FRANCE,
+			new Locale("de", "CH"), new Locale("ar", "SA"), new Locale("hi", "IN"),
+			new Locale("th", "TH", "TH"), new Locale("fa", "IR"), Locale.JAPAN };
+
+	private static final String[] NUMBERS = { "", "0", "-0", "7", "-7", "007", "123", "1234",
+			"-2147483648", "2147483647", "2147483648", "-2147483649", "9223372036854775807",
+			"99999999999999999999", "1,234", "1.234", "1'234", "1 234", "1 234", "1,234,567",
+			"12,3", "1,", ",1", "1,,2", "1.", ".5", "1.5", "-1.5", "1,5", "-1,5", "1.50", "0.001",
+			"0.0001", "-0.0", "1,234.5", "1.234,5", "12.3.4", "1E3", "+1", "1-", "- 1", " 1", "1 ",
+			"abc", "1a", "١٢" };
+
+	/**
+	 * Integers
+	 */
+	@Test
+	public void integers()
+	{
+		for (Locale locale : LOCALES)
+		{
+			for (String number : NUMBERS)
+			{
+				assertParse(IntegerConverter.INSTANCE, FastIntegerConverter.INSTANCE, number,
+					locale);
+			}
+			for (int value : new int[] { 0, 1, -1, 999, 1000, -1234567, Integer.MIN_VALUE,
+					Integer.MAX_VALUE })
+			{
+				assertFormat(IntegerConverter.INSTANCE, FastIntegerConverter.INSTANCE, value,
+					locale);
+			}
+		}
+	}
+
+	/**
+	 * Longs
+	 */
+	@Test
+	public void longs()
+	{
+		for (Locale locale : LOCALES)
+		{
+			for (String number : NUMBERS)
+			{
+				assertParse(LongConverter.INSTANCE, FastLongConverter.INSTANCE, number, locale);
+			}
+			for (long value : new long[] { 0, -1, 1000000, Long.MIN_VALUE, Long.MAX_VALUE })
+			{
+				assertFormat(LongConverter.INSTANCE, FastLongConverter.INSTANCE, value, locale);
+			}
+		}
+	}
+
+	/**
+	 * Doubles
+	 */
+	@Test
+	public void doubles()
+	{
+		for (Locale locale : LOCALES)
+		{
+			for (String number : NUMBERS)
+			{
+				assertParse(DoubleConverter.INSTANCE, FastDoubleConverter.INSTANCE, number, locale);
+			}
+			for (double value : new double[] { 0, -0.0, 1, -1.5, 0.1, 0.001, 0.0005, 0.0001, 1.25,
+					1234.5678, 1234567.125, 1e7, 1e20, 1e-5, 0.1 + 0.2, -9999999.999,
+					Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY })
+			{
+				assertFormat(DoubleConverter.INSTANCE, FastDoubleConverter.INSTANCE, value, locale);
+			}
+		}
+	}
+
+	/**
+	 * Big decimals
+	 */
+	@Test
+	public void bigDecimals()
+	{
+		BigDecimalConverter converter = new BigDecimalConverter();
+		FastBigDecimalConverter fastConverter = new FastBigDecimalConverter();
+		for (Locale locale : LOCALES)
+		{
+			for (String number : NUMBERS)
+			{
+				assertParse(converter, fastConverter, number, locale);
+			}
+			for (String value : new String[] { "0", "0.000", "1.50", "-1.5", "1E+3", "-0.0001",
+					"0.0005", "123456789012345678901234567890.125", "-1234.5" })
+			{
+				assertFormat(converter, fastConverter, new BigDecimal(value), locale);
+			}
+		}
+	}
+
+	/**
+	 * Dates
+	 */
+	@Test
+	public void dates()
+	{
+		DateConverter converter = new DateConverter();
+		FastDateConverter fastConverter = new FastDateConverter();
+		Calendar calendar = new GregorianCalendar();
+		int year = calendar.get(Calendar.YEAR);
+		for (Locale locale : LOCALES)
+		{
+			for (String date : new String[] { "", "1/2/12", "12/31/99", "1.2.12", "01.02.2012",
+					"31/12/1999", "2/30/12", "13/13/13", "0/0/0", "1/2/" + (year - 80) % 100,
+					"1/2/" + (year - 81) % 100, "1/2/" + (year + 19) % 100, "1/2/1", "1/2/123",
+					"12/05/03", "1-2-12", "1/2/12/", "1/ 2/12", "-1/2/12", "2012/01/02",
+					"12-01-02", "1/2/12 ", "a/b/c" })
+			{
+				assertParse(converter, fastConverter, date, locale);
+			}
+
+			calendar.clear();
+			calendar.set(2012, Calendar.JANUARY, 2, 13, 14);
+			assertFormat(converter, fastConverter, calendar.getTime(), locale);
+			calendar.set(5, Calendar.DECEMBER, 31);
+			assertFormat(converter, fastConverter, calendar.getTime(), locale);
+			calendar.set(12345, Calendar.JULY, 1);
+			assertFormat(converter, fastConverter, calendar.getTime(), locale);
+			calendar.set(Calendar.ERA, GregorianCalendar.BC);
+			assertFormat(converter, fastConverter, calendar.getTime(), locale);
+		}
+	}
+
+	private static <T> void assertParse(IConverter<T> converter, IConverter<T> fastConverter,
+		String value, Locale locale)
+	{
+		Object expected;
+		try
+		{
+			expected = converter.convertToObject(value, locale);
+		}
+		catch (ConversionException e)
+		{
+			expected = ConversionException.class;
+		}
+
+		Object actual;
+		try
+		{
+			actual = fastConverter.convertToObject(value, locale);
+		}
+		catch (ConversionException e)
+		{
+			actual = ConversionException.class;
+		}
+
+		assertEquals("'" + value + "' in " + locale, expected, actual);
+		if (expected instanceof BigDecimal)
+		{
+			assertEquals(((BigDecimal)expected).scale(), ((BigDecimal)actual).scale());
+		}
+	}
+
+	private static <T> void assertFormat(IConverter<T> converter, IConverter<T> fastConverter,
+		T value, Locale locale)
+	{
+		assertEquals(value + " in " + locale, converter.convertToString(value, locale),
+			fastConverter.convertToString(value, locale));
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string.interpolator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link VariableTemplate}
+ */
+public class VariableTemplateTest extends Assert
+{
+	/**
+	 * Interpolation gives the same result as a {@link MapVariableInterpolator}.
+	 */
+	@Test
+	public void sameAsInterpolator()
+	{
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("key", "value");
+		values.put("number", 42);
+		values.put("nested", "${key}");
+
+		String[] strings = { "", "plain", "${key}", "a ${key} b ${number} c", "${missing}",
+				"$${key}", "$$$${key}", "$$${key}", "$3.24", "${key", "${key}${number}",
+				"${nested}", "${}", "end $", "${key} $$ ${unclosed" };
+		for (String string : strings)
+		{
+			assertEquals(string, MapVariableInterpolator.interpolate(string, values),
+				VariableTemplate.parse(string).interpolate(values));
+		}
+	}
+
+	/**
+	 * A template can be interpolated repeatedly.
+	 */
+	@Test
+	public void repeatedly()
+	{
+		VariableTemplate template = VariableTemplate.parse("Hello ${name}!");
+		assertArrayEquals(new String[] { "name" }, template.getVariables());
+
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("name", "World");
+		assertEquals("Hello World!", template.interpolate(values));
+		values.put("name", "Wicket");
+		assertEquals("Hello Wicket!", template.interpolate(values));
+		assertEquals("Hello ${name}!", template.interpolate(null));
+	}
+}
@@ -16,14 +16,18 @@
  */
 package org.apache.wicket.velocity.markup.html;
 
-import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Map;
 
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.apache.velocity.runtime.parser.ParseException;
 import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.markup.ComponentTag;
 import org.apache.wicket.markup.IMarkupCacheKeyProvider;
@@ -32,10 +36,13 @@ import org.apache.wicket.markup.MarkupStream;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.resource.ResourceUtil;
+import org.apache.wicket.util.resource.IFixedLocationResourceStream;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.IStringResourceStream;
 import org.apache.wicket.util.resource.StringResourceStream;
 import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.template.CompiledTemplateCache;
+import org.apache.wicket.util.time.Time;
 
 /**
  * Panel that displays the result of rendering a <a
@@ -47,6 +54,11 @@ import org.apache.wicket.util.string.Strings;
  * <b>Note:</b> Be sure to properly initialize the Velocity engine before using
  * {@link VelocityPanel }.
  * </p>
+ * <p>
+ * Templates with a fixed location, e.g. package or url resources, are parsed once and kept in an
+ * application scoped {@link CompiledTemplateCache} until their resource is modified. Other
+ * templates are parsed each time they are evaluated.
+ * </p>
  */
 public abstract class VelocityPanel extends Panel
 	implements
@@ -55,6 +67,13 @@ public abstract class VelocityPanel extends Panel
 {
 	private static final long serialVersionUID = 1L;
 
+	/** the parsed templates with a fixed location */
+	private static final MetaDataKey<CompiledTemplateCache<Template>> TEMPLATES_KEY =
+		new MetaDataKey<CompiledTemplateCache<Template>>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
 	/**
 	 * Convenience factory method to create a {@link VelocityPanel} instance with a given
 	 * {@link IStringResourceStream template resource}.
@@ -108,28 +127,6 @@ public abstract class VelocityPanel extends Panel
 		super(id, model);
 	}
 
-	/**
-	 * Gets a reader for the velocity template.
-	 * 
-	 * @return reader for the velocity template
-	 */
-	private Reader getTemplateReader()
-	{
-		final IResourceStream resource = getTemplateResource();
-		if (resource == null)
-		{
-			throw new IllegalArgumentException("getTemplateResource must return a resource");
-		}
-
-		final String template = ResourceUtil.readString(resource);
-		if (template != null)
-		{
-			return new StringReader(template);
-		}
-
-		return null;
-	}
-
 	/**
 	 * {@inheritDoc}
 	 */
@@ -209,14 +206,37 @@ public abstract class VelocityPanel extends Panel
 	/**
 	 * Evaluates the template and returns the result.
 	 * 
-	 * @param templateReader
-	 *            used to read the template
+	 * @param templateResource
+	 *            the template
 	 * @return the result of evaluating the velocity template
 	 */
-	private String evaluateVelocityTemplate(final Reader templateReader)
+	private String evaluateVelocityTemplate(final IResourceStream templateResource)
 	{
 		if (evaluatedTemplate == null)
 		{
+			String location = null;
+			Time lastModified = null;
+			CompiledTemplateCache<Template> cache = null;
+			Template template = null;
+			if (templateResource instanceof IFixedLocationResourceStream)
+			{
+				location = ((IFixedLocationResourceStream)templateResource).locationAsString();
+				lastModified = templateResource.lastModifiedTime();
+				cache = CompiledTemplateCache.get(getApplication(), TEMPLATES_KEY);
+				template = cache.get(location, lastModified);
+			}
+
+			String source = null;
+			if (template == null)
+			{
+				source = ResourceUtil.readString(templateResource);
+				if (source == null)
+				{
+					throw new WicketRuntimeException("could not find velocity template for panel: " +
+						this);
+				}
+			}
+
 			// Get model as a map
 			@SuppressWarnings("rawtypes")
 			final Map map = (Map)getDefaultModelObject();
@@ -229,11 +249,20 @@ public abstract class VelocityPanel extends Panel
 
 			// string to be used as the template name for log messages in case
 			// of error
-			final String logTag = getId();
+			final String logTag = (location != null) ? location : getId();
 			try
 			{
+				if (template == null)
+				{
+					template = parseTemplate(source, logTag);
+					if (cache != null)
+					{
+						cache.put(location, lastModified, template);
+					}
+				}
+
 				// execute the velocity script and capture the output in writer
-				Velocity.evaluate(ctx, writer, logTag, templateReader);
+				template.merge(ctx, writer);
 
 				// replace the tag's body the Velocity output
 				evaluatedTemplate = writer.toString();
@@ -255,6 +284,33 @@ public abstract class VelocityPanel extends Panel
 		return evaluatedTemplate;
 	}
 
+	/**
+	 * Parses the source of a template, the template can be merged concurrently afterwards.
+	 * 
+	 * @param source
+	 *            the source of the template
+	 * @param name
+	 *            the name of the template for log messages
+	 * @return the parsed template
+	 */
+	private static Template parseTemplate(final String source, final String name)
+	{
+		RuntimeServices runtime = RuntimeSingleton.getRuntimeServices();
+		Template template = new Template();
+		template.setRuntimeServices(runtime);
+		template.setName(name);
+		try
+		{
+			template.setData(runtime.parse(new StringReader(source), name));
+		}
+		catch (ParseException e)
+		{
+			throw new ParseErrorException(e, name);
+		}
+		template.initDocument();
+		return template;
+	}
+
 	/**
 	 * Gets whether to parse the resulting Wicket markup.
 	 * 
@@ -289,16 +345,16 @@ public abstract class VelocityPanel extends Panel
 	public final IResourceStream getMarkupResourceStream(final MarkupContainer container,
 		final Class<?> containerClass)
 	{
-		Reader reader = getTemplateReader();
-		if (reader == null)
+		final IResourceStream resource = getTemplateResource();
+		if (resource == null)
 		{
-			throw new WicketRuntimeException("could not find velocity template for panel: " + this);
+			throw new IllegalArgumentException("getTemplateResource must return a resource");
 		}
 
 		// evaluate the template and return a new StringResourceStream
 		StringBuilder sb = new StringBuilder();
 		sb.append("<wicket:panel>");
-		sb.append(evaluateVelocityTemplate(reader));
+		sb.append(evaluateVelocityTemplate(resource));
 		sb.append("</wicket:panel>");
 		return new StringResourceStream(sb.toString());
 	}
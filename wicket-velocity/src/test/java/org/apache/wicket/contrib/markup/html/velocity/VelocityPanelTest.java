@@ -16,7 +16,13 @@
  */
 package org.apache.wicket.contrib.markup.html.velocity;
 
+import java.util.HashMap;
+
+import org.apache.wicket.core.util.resource.UrlResourceStream;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.util.resource.StringResourceStream;
 import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.velocity.markup.html.VelocityPanel;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -68,4 +74,41 @@ public class VelocityPanelTest extends Assert
 		tester.startPage(VelocityWithMarkupParsingPage.class);
 		tester.assertLabel("velocityPanel:message", VelocityPage.TEST_STRING);
 	}
+
+	/**
+	 * A template parsed once is merged with the model of each panel
+	 */
+	@Test
+	public void testParsedTemplateReused()
+	{
+		tester.startComponentInPage(newPanel("first"));
+		tester.assertContains("first");
+
+		tester.startComponentInPage(newPanel("second"));
+		tester.assertContains("second");
+		assertFalse(tester.getLastResponseAsString().contains("first"));
+	}
+
+	/**
+	 * Templates without a fixed location are evaluated too
+	 */
+	@Test
+	public void testStringTemplate()
+	{
+		HashMap<String, String> values = new HashMap<String, String>();
+		values.put("message", "from a string");
+		tester.startComponentInPage(VelocityPanel.forTemplateResource("velocityPanel",
+			new Model<HashMap<String, String>>(values), new StringResourceStream(
+				"<span>$message</span>")));
+		tester.assertContains("<span>from a string</span>");
+	}
+
+	private VelocityPanel newPanel(String message)
+	{
+		HashMap<String, String> values = new HashMap<String, String>();
+		values.put("message", message);
+		return VelocityPanel.forTemplateResource("velocityPanel",
+			new Model<HashMap<String, String>>(values), new UrlResourceStream(
+				VelocityPage.class.getResource("test.html")));
+	}
 }